@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The Class BenchmarkRunner runs the benchmarks with the JMH command line
+ * options given, adding the GC profiler so that allocation rate per operation
+ * is always part of the report. For example
+ *
+ * <pre>
+ * java -jar imcache-benchmarks/target/benchmarks.jar CacheBenchmark -t 8 -p cacheKind=OFF_HEAP
+ * </pre>
+ */
+public class BenchmarkRunner {
+
+    /**
+     * The main method.
+     *
+     * @param args the JMH command line arguments
+     * @throws RunnerException the runner exception
+     * @throws CommandLineOptionException the command line option exception
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions commandLineOptions = new CommandLineOptions(args);
+        if (commandLineOptions.shouldHelp() || commandLineOptions.shouldList()
+                || commandLineOptions.shouldListProfilers() || commandLineOptions.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLineOptions);
+        if (commandLineOptions.getProfilers().isEmpty()) {
+            options.addProfiler(GCProfiler.class);
+        }
+        new Runner(options.build()).run();
+    }
+
+}
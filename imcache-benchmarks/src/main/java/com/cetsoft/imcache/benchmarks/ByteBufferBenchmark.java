@@ -0,0 +1,141 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer;
+import com.KyleDing.imcache.offheap.bytebuffer.ByteBufferFactory;
+
+/**
+ * The Class ByteBufferBenchmark compares the byte buffer backends, Unsafe and
+ * plain java.nio, on the accesses the offheap buffers and indexes make: bulk
+ * copies of payloads and reads of the fixed size fields. For example
+ *
+ * <pre>
+ * java -jar imcache-benchmarks/target/benchmarks.jar ByteBufferBenchmark -p backend=nio
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ByteBufferBenchmark {
+
+    /** The Constant CAPACITY. */
+    private static final int CAPACITY = 16 * 1024 * 1024;
+
+    /** The backend. */
+    @Param({ "unsafe", "nio" })
+    public String backend;
+
+    /** The payload size in bytes. */
+    @Param({ "64", "1024", "65536" })
+    public int payloadSize;
+
+    /** The buffer. */
+    ByteBuffer buffer;
+
+    /** The payload. */
+    byte[] payload;
+
+    /** The positions visited, spread over the buffer. */
+    int[] positions;
+
+    /** The index of the next position. */
+    int next;
+
+    /**
+     * Allocates the buffer of the backend.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        ByteBufferFactory factory = "nio".equals(backend) ? ByteBufferFactory.NIO : ByteBufferFactory.UNSAFE;
+        buffer = factory.allocate(CAPACITY);
+        payload = new byte[payloadSize];
+        Random random = new Random(payloadSize);
+        random.nextBytes(payload);
+        positions = new int[1024];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = random.nextInt(CAPACITY - payloadSize) & ~7;
+        }
+    }
+
+    /**
+     * Frees the buffer.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        buffer.free();
+    }
+
+    /**
+     * Gets the next position.
+     *
+     * @return the position
+     */
+    private int nextPosition() {
+        return positions[next++ & (positions.length - 1)];
+    }
+
+    /**
+     * Copies the payload to the buffer.
+     */
+    @Benchmark
+    public void put() {
+        buffer.put(nextPosition(), payload, 0, payload.length);
+    }
+
+    /**
+     * Copies the payload from the buffer.
+     *
+     * @return the payload
+     */
+    @Benchmark
+    public byte[] get() {
+        buffer.get(nextPosition(), payload, 0, payload.length);
+        return payload;
+    }
+
+    /**
+     * Reads a long, as the index does for its slots.
+     *
+     * @return the long
+     */
+    @Benchmark
+    public long getLong() {
+        return buffer.getLong(nextPosition());
+    }
+
+    /**
+     * Compares the payload in place, as the index does for its keys.
+     *
+     * @return true, if the bytes are equal
+     */
+    @Benchmark
+    public boolean contentEquals() {
+        return buffer.contentEquals(nextPosition(), payload);
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The Class CacheBenchmark drives a mixed read/write workload against every
+ * cache CacheBuilder produces. Throughput mode reports operations per second
+ * and sample time mode reports the p50/p99/p999 latencies. Thread count is
+ * set with -t and allocation rate per operation with -prof gc, which
+ * BenchmarkRunner enables by default.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class CacheBenchmark {
+
+    /**
+     * The Class CacheState is shared by all benchmark threads.
+     */
+    @State(Scope.Benchmark)
+    public static class CacheState {
+
+        /** The cache kind. */
+        @Param({ "HEAP", "CONCURRENT_HEAP", "OFF_HEAP", "SHARDED_OFF_HEAP", "VERSIONED_OFF_HEAP", "REDIS" })
+        public CacheKind cacheKind;
+
+        /** The key distribution. */
+        @Param({ "UNIFORM", "ZIPFIAN", "SCRAMBLED_ZIPFIAN" })
+        public KeyDistribution keyDistribution;
+
+        /** The percentage of reads, the rest are writes. */
+        @Param({ "100", "90", "50" })
+        public int readPercentage;
+
+        /** The value size in bytes. */
+        @Param({ "64", "1024" })
+        public int valueSize;
+
+        /** The number of distinct keys. */
+        @Param({ "100000" })
+        public int items;
+
+        /** The cache driver. */
+        CacheDriver driver;
+
+        /** The values written, one per key in a small ring to limit footprint. */
+        byte[][] values;
+
+        /** The seed of the thread states. */
+        final AtomicLong seeds = new AtomicLong(0x5DEECE66DL);
+
+        /**
+         * Creates the cache and fills it with every key.
+         */
+        @Setup(Level.Trial)
+        public void setup() {
+            driver = cacheKind.create(items, valueSize);
+            Random random = new Random(items);
+            values = new byte[64][];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = new byte[valueSize];
+                random.nextBytes(values[i]);
+            }
+            for (int key = 0; key < items; key++) {
+                driver.put(key, values[key & (values.length - 1)]);
+            }
+        }
+
+        /**
+         * Releases the cache.
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            driver.close();
+        }
+    }
+
+    /**
+     * The Class ThreadState holds the generators of a single thread.
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        /** The key generator. */
+        KeyGenerator keyGenerator;
+
+        /** The operation random. */
+        Random random;
+
+        /**
+         * Creates the generators of the thread.
+         *
+         * @param cacheState the cache state
+         */
+        @Setup(Level.Trial)
+        public void setup(CacheState cacheState) {
+            long seed = cacheState.seeds.incrementAndGet();
+            keyGenerator = cacheState.keyDistribution.create(cacheState.items, seed);
+            random = new Random(seed);
+        }
+    }
+
+    /**
+     * Issues a read or a write to a key drawn from the configured
+     * distribution.
+     *
+     * @param cacheState the cache state
+     * @param threadState the thread state
+     * @return the value read, returned so that it is not optimized away
+     */
+    @Benchmark
+    public Object readWrite(CacheState cacheState, ThreadState threadState) {
+        int key = threadState.keyGenerator.next();
+        if (threadState.random.nextInt(100) < cacheState.readPercentage) {
+            return cacheState.driver.get(key);
+        }
+        byte[] value = cacheState.values[key & (cacheState.values.length - 1)];
+        cacheState.driver.put(key, value);
+        return value;
+    }
+
+}
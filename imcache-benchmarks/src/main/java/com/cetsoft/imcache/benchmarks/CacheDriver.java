@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+/**
+ * The Class CacheDriver adapts a cache to the operations the benchmarks
+ * issue, hiding the differences between plain and versioned caches.
+ */
+public abstract class CacheDriver {
+
+    /**
+     * Reads the key.
+     *
+     * @param key the key
+     * @return the value or null
+     */
+    public abstract Object get(int key);
+
+    /**
+     * Writes the key.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public abstract void put(int key, byte[] value);
+
+    /**
+     * Releases the resources held by the cache.
+     */
+    public abstract void close();
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+import java.io.IOException;
+
+import com.KyleDing.imcache.cache.Cache;
+import com.KyleDing.imcache.cache.SimpleItem;
+import com.KyleDing.imcache.cache.VersionedItem;
+import com.KyleDing.imcache.cache.builder.CacheBuilder;
+import com.KyleDing.imcache.offheap.StaleItemException;
+import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore;
+
+/**
+ * The Enum CacheKind lists every cache CacheBuilder produces and knows how to
+ * build a benchmark ready instance of each.
+ */
+public enum CacheKind {
+
+    /**
+     * HeapCache is not thread safe, so it is guarded by its own monitor the
+     * way an application sharing it between threads would have to.
+     */
+    HEAP {
+        @Override
+        public CacheDriver create(int items, int valueSize) {
+            final Cache<Integer, byte[]> cache = CacheBuilder.heapCache().capacity(items).build();
+            return new CacheDriver() {
+                public Object get(int key) {
+                    synchronized (cache) {
+                        return cache.get(key);
+                    }
+                }
+
+                public void put(int key, byte[] value) {
+                    synchronized (cache) {
+                        cache.put(key, value);
+                    }
+                }
+
+                public void close() {
+                    cache.clear();
+                }
+            };
+        }
+    },
+
+    /** The concurrent heap cache. */
+    CONCURRENT_HEAP {
+        @Override
+        public CacheDriver create(int items, int valueSize) {
+            return new PlainCacheDriver(CacheBuilder.concurrentHeapCache().capacity(items)
+                    .<Integer, byte[]> build());
+        }
+    },
+
+    /** The off heap cache. */
+    OFF_HEAP {
+        @Override
+        public CacheDriver create(int items, int valueSize) {
+            return new PlainCacheDriver(CacheBuilder.offHeapCache().storage(createStore(items, valueSize))
+                    .serializer(new PassThroughSerializer()).<Integer, byte[]> build());
+        }
+    },
+
+    /**
+     * The off heap cache over a sharded store, so that writers allocate from
+     * buffers of their own.
+     */
+    SHARDED_OFF_HEAP {
+        @Override
+        public CacheDriver create(int items, int valueSize) {
+            return new PlainCacheDriver(CacheBuilder.offHeapCache().storage(createStore(items, valueSize))
+                    .shards(SHARD_COUNT).serializer(new PassThroughSerializer()).<Integer, byte[]> build());
+        }
+    },
+
+    /**
+     * Writes to the versioned off heap cache read the current version first,
+     * which is the way the cache is meant to be used.
+     */
+    VERSIONED_OFF_HEAP {
+        @Override
+        public CacheDriver create(int items, int valueSize) {
+            final Cache<Integer, VersionedItem<byte[]>> cache = CacheBuilder.versionedOffHeapCache()
+                    .storage(createStore(items, valueSize + 4)).serializer(new PassThroughSerializer())
+                    .<Integer, VersionedItem<byte[]>> build();
+            return new CacheDriver() {
+                public Object get(int key) {
+                    return cache.get(key);
+                }
+
+                public void put(int key, byte[] value) {
+                    VersionedItem<byte[]> exValue = cache.get(key);
+                    try {
+                        cache.put(key, new SimpleItem<byte[]>(exValue == null ? 0 : exValue.getVersion(), value));
+                    } catch (StaleItemException exception) {
+                        // Another thread won the race, which is a valid outcome.
+                    }
+                }
+
+                public void close() {
+                    cache.clear();
+                }
+            };
+        }
+    },
+
+    /** The redis cache, served by an in-process RESP stand-in. */
+    REDIS {
+        @Override
+        public CacheDriver create(int items, int valueSize) {
+            final RespServer server = new RespServer();
+            try {
+                server.start();
+            } catch (IOException exception) {
+                throw new IllegalStateException(exception);
+            }
+            Cache<Integer, byte[]> cache = CacheBuilder.redisCache().hostName("localhost").port(server.getPort())
+                    .serializer(new PassThroughSerializer()).<Integer, byte[]> build();
+            return new PlainCacheDriver(cache) {
+                @Override
+                public void close() {
+                    super.close();
+                    server.close();
+                }
+            };
+        }
+    };
+
+    /** The Constant BUFFER_CAPACITY. */
+    static final int BUFFER_CAPACITY = 8 * 1024 * 1024;
+
+    /** The Constant MIN_NO_OF_BUFFERS. */
+    static final int MIN_NO_OF_BUFFERS = 4;
+
+    /** The Constant SHARD_COUNT, limited to half of the buffers by the store. */
+    static final int SHARD_COUNT = 8;
+
+    /**
+     * Creates the driver for the cache.
+     *
+     * @param items the number of distinct keys
+     * @param valueSize the value size
+     * @return the cache driver
+     */
+    public abstract CacheDriver create(int items, int valueSize);
+
+    /**
+     * Creates a buffer store that holds the working set about three times,
+     * leaving the buffer cleaner room to reclaim dirty buffers under updates.
+     *
+     * @param items the items
+     * @param entrySize the entry size
+     * @return the off heap byte buffer store
+     */
+    static OffHeapByteBufferStore createStore(int items, int entrySize) {
+        long workingSet = (long) items * (entrySize + 5);
+        int noOfBuffers = (int) Math.max(MIN_NO_OF_BUFFERS, 3 * workingSet / BUFFER_CAPACITY + 2);
+        return new OffHeapByteBufferStore(BUFFER_CAPACITY, noOfBuffers);
+    }
+
+    /**
+     * The Class PlainCacheDriver.
+     */
+    static class PlainCacheDriver extends CacheDriver {
+
+        /** The cache. */
+        private final Cache<Integer, byte[]> cache;
+
+        /**
+         * Instantiates a new plain cache driver.
+         *
+         * @param cache the cache
+         */
+        PlainCacheDriver(Cache<Integer, byte[]> cache) {
+            this.cache = cache;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.benchmarks.CacheDriver#get(int)
+         */
+        @Override
+        public Object get(int key) {
+            return cache.get(key);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.benchmarks.CacheDriver#put(int, byte[])
+         */
+        @Override
+        public void put(int key, byte[] value) {
+            cache.put(key, value);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.benchmarks.CacheDriver#close()
+         */
+        @Override
+        public void close() {
+            cache.clear();
+        }
+    }
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.KyleDing.imcache.serialization.Serializer;
+import com.KyleDing.imcache.serialization.codec.CompressingSerializer;
+import com.KyleDing.imcache.serialization.codec.DeflaterCodec;
+import com.KyleDing.imcache.serialization.codec.DictionaryTrainer;
+import com.KyleDing.imcache.serialization.codec.LzCodec;
+
+/**
+ * The Class CompressionBenchmark measures what the codecs cost per value and
+ * what they save. The values are JSON like records, the rawBytes and
+ * storedBytes counters give the bytes before and after compression per unit
+ * of time, their ratio is the memory saved in the off heap store or in Redis.
+ * For example
+ *
+ * <pre>
+ * java -jar imcache-benchmarks/target/benchmarks.jar CompressionBenchmark -p codec=lz,deflate-dict
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompressionBenchmark {
+
+    /** The Constant VALUE_COUNT. */
+    private static final int VALUE_COUNT = 1024;
+
+    /** The codec, none stores the values as they are. */
+    @Param({ "none", "lz", "deflate", "deflate-dict" })
+    public String codec;
+
+    /** The value size in bytes, roughly. */
+    @Param({ "256", "4096" })
+    public int valueSize;
+
+    /** The serializer. */
+    Serializer<Object> serializer;
+
+    /** The values. */
+    byte[][] values;
+
+    /** The payloads of the values. */
+    byte[][] payloads;
+
+    /** The index of the next value. */
+    int next;
+
+    /**
+     * The Class Counters.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+
+        /** The raw bytes. */
+        public long rawBytes;
+
+        /** The stored bytes. */
+        public long storedBytes;
+
+        /**
+         * Resets the counters.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            rawBytes = 0;
+            storedBytes = 0;
+        }
+    }
+
+    /**
+     * Creates the values and the serializer of the codec.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(valueSize);
+        values = new byte[VALUE_COUNT][];
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            values[i] = record(random, valueSize);
+        }
+        Serializer<Object> passThrough = new PassThroughSerializer();
+        if ("none".equals(codec)) {
+            serializer = passThrough;
+        } else if ("lz".equals(codec)) {
+            serializer = new CompressingSerializer<Object>(passThrough, new LzCodec(), 0);
+        } else if ("deflate".equals(codec)) {
+            serializer = new CompressingSerializer<Object>(passThrough, new DeflaterCodec(), 0);
+        } else if ("deflate-dict".equals(codec)) {
+            List<byte[]> samples = new ArrayList<byte[]>();
+            for (int i = 0; i < VALUE_COUNT; i++) {
+                samples.add(record(random, valueSize));
+            }
+            serializer = new CompressingSerializer<Object>(passThrough, new DeflaterCodec(
+                    DictionaryTrainer.train(samples)), 0);
+        } else {
+            throw new IllegalArgumentException("Unknown codec " + codec + ".");
+        }
+        payloads = new byte[VALUE_COUNT][];
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            payloads[i] = serializer.serialize(values[i]);
+        }
+    }
+
+    /**
+     * Creates a JSON like record with repeating field names and enumerations
+     * and random identifiers.
+     *
+     * @param random the random
+     * @param size the size
+     * @return the record
+     */
+    static byte[] record(Random random, int size) {
+        String[] statuses = { "active", "suspended", "closed" };
+        String[] countries = { "Turkey", "Germany", "Japan", "Brazil" };
+        StringBuilder builder = new StringBuilder("[");
+        while (builder.length() < size) {
+            builder.append("{\"id\":").append(random.nextInt(1000000)).append(",\"status\":\"")
+                    .append(statuses[random.nextInt(statuses.length)]).append("\",\"country\":\"")
+                    .append(countries[random.nextInt(countries.length)]).append("\",\"balance\":")
+                    .append(random.nextInt(100000)).append(",\"token\":\"")
+                    .append(Long.toHexString(random.nextLong())).append("\"},");
+        }
+        builder.setCharAt(builder.length() - 1, ']');
+        return builder.toString().getBytes();
+    }
+
+    /**
+     * Serializes a value, as a put does.
+     *
+     * @param counters the counters
+     * @return the payload
+     */
+    @Benchmark
+    public byte[] serialize(Counters counters) {
+        byte[] value = values[next++ & (VALUE_COUNT - 1)];
+        byte[] payload = serializer.serialize(value);
+        counters.rawBytes += value.length;
+        counters.storedBytes += payload.length;
+        return payload;
+    }
+
+    /**
+     * Deserializes a payload, as a get does.
+     *
+     * @return the value
+     */
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(payloads[next++ & (VALUE_COUNT - 1)]);
+    }
+}
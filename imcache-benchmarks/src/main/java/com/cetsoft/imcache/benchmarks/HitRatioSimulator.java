@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.KyleDing.imcache.concurrent.policy.Evictable;
+import com.KyleDing.imcache.concurrent.policy.EvictionPolicy;
+import com.KyleDing.imcache.concurrent.policy.EvictionPolicyType;
+
+/**
+ * The Class HitRatioSimulator replays a trace of keys against every eviction
+ * policy of the concurrent heap cache and prints their hit ratios. A recorded
+ * trace is a text file with one key per line, the first token of a line is
+ * taken as the key. Without a trace file a Zipfian working set interrupted by
+ * scans of keys that are never requested again is replayed. For example
+ *
+ * <pre>
+ * java -cp imcache-benchmarks/target/benchmarks.jar com.KyleDing.imcache.benchmarks.HitRatioSimulator 1000 trace.txt
+ * </pre>
+ */
+public class HitRatioSimulator {
+
+    /** The default capacity. */
+    static final int DEFAULT_CAPACITY = 1000;
+
+    /**
+     * Replays the trace against a cache of the given capacity evicting with
+     * the policy.
+     *
+     * @param evictionPolicyType the eviction policy type
+     * @param capacity the capacity
+     * @param trace the keys requested
+     * @return the hit ratio
+     */
+    public static double hitRatio(EvictionPolicyType evictionPolicyType, int capacity, List<?> trace) {
+        EvictionPolicy<Entry> policy = evictionPolicyType.newPolicy(capacity);
+        Map<Object, Entry> entries = new HashMap<Object, Entry>();
+        long hits = 0;
+        for (Object key : trace) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits++;
+                policy.access(entry);
+                continue;
+            }
+            entry = new Entry(key);
+            entries.put(key, entry);
+            policy.add(entry);
+            if (entries.size() > capacity) {
+                entries.remove(policy.evict().key);
+            }
+        }
+        return trace.isEmpty() ? 0 : (double) hits / trace.size();
+    }
+
+    /**
+     * Generates a trace of a Zipfian working set that is interrupted by scans,
+     * like a batch job reading through cold data between requests for the hot
+     * keys.
+     *
+     * @param items the number of keys in the working set
+     * @param requests the number of requests for the working set
+     * @param scanInterval the number of working set requests between scans
+     * @param scanLength the number of keys of a scan
+     * @param seed the seed
+     * @return the trace
+     */
+    public static List<Integer> scanTrace(int items, int requests, int scanInterval, int scanLength, long seed) {
+        KeyGenerator generator = KeyDistribution.SCRAMBLED_ZIPFIAN.create(items, seed);
+        List<Integer> trace = new ArrayList<Integer>(requests + requests / scanInterval * scanLength);
+        int scanKey = items;
+        for (int i = 1; i <= requests; i++) {
+            trace.add(generator.next());
+            if (i % scanInterval == 0) {
+                for (int j = 0; j < scanLength; j++) {
+                    trace.add(scanKey++);
+                }
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * Reads a recorded trace.
+     *
+     * @param fileName the file name
+     * @return the trace
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static List<String> readTrace(String fileName) throws IOException {
+        List<String> trace = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new FileReader(fileName));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() != 0) {
+                    trace.add(line.split("\\s+", 2)[0]);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return trace;
+    }
+
+    /**
+     * The main method.
+     *
+     * @param args the capacity and the trace files, both optional
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static void main(String[] args) throws IOException {
+        int capacity = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_CAPACITY;
+        if (args.length < 2) {
+            print("zipfian", capacity, KeyDistribution.SCRAMBLED_ZIPFIAN.create(capacity * 10, 42));
+            print("zipfian with scans", capacity, scanTrace(capacity * 10, 1000000, 10000, capacity * 5, 42));
+        }
+        for (int i = 1; i < args.length; i++) {
+            print(args[i], capacity, readTrace(args[i]));
+        }
+    }
+
+    /**
+     * Prints the hit ratios of the zipfian trace.
+     *
+     * @param name the name
+     * @param capacity the capacity
+     * @param generator the generator
+     */
+    private static void print(String name, int capacity, KeyGenerator generator) {
+        List<Integer> trace = new ArrayList<Integer>();
+        for (int i = 0; i < 1000000; i++) {
+            trace.add(generator.next());
+        }
+        print(name, capacity, trace);
+    }
+
+    /**
+     * Prints the hit ratios of the trace.
+     *
+     * @param name the name
+     * @param capacity the capacity
+     * @param trace the trace
+     */
+    private static void print(String name, int capacity, List<?> trace) {
+        System.out.println(name + " (" + trace.size() + " requests, capacity " + capacity + ")");
+        for (EvictionPolicyType evictionPolicyType : EvictionPolicyType.values()) {
+            System.out.printf("  %-10s %6.2f%%%n", evictionPolicyType, 100 * hitRatio(evictionPolicyType, capacity,
+                    trace));
+        }
+    }
+
+    /**
+     * The Class Entry.
+     */
+    static final class Entry implements Evictable<Entry> {
+
+        /** The key. */
+        final Object key;
+
+        /** The previous. */
+        Entry previous;
+
+        /** The next. */
+        Entry next;
+
+        /** The region. */
+        int region;
+
+        /**
+         * Instantiates a new entry.
+         *
+         * @param key the key
+         */
+        Entry(Object key) {
+            this.key = key;
+        }
+
+        public Entry getPrevious() {
+            return previous;
+        }
+
+        public void setPrevious(Entry previous) {
+            this.previous = previous;
+        }
+
+        public Entry getNext() {
+            return next;
+        }
+
+        public void setNext(Entry next) {
+            this.next = next;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        public int getRegion() {
+            return region;
+        }
+
+        public void setRegion(int region) {
+            this.region = region;
+        }
+    }
+}
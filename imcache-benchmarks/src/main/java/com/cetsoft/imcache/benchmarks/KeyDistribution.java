@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+/**
+ * The Enum KeyDistribution.
+ */
+public enum KeyDistribution {
+
+    /** Every key is equally likely. */
+    UNIFORM {
+        @Override
+        public KeyGenerator create(int items, long seed) {
+            return new UniformKeyGenerator(items, seed);
+        }
+    },
+
+    /** Skewed towards the lowest keys. */
+    ZIPFIAN {
+        @Override
+        public KeyGenerator create(int items, long seed) {
+            return new ZipfianKeyGenerator(items, seed);
+        }
+    },
+
+    /** Skewed, with the popular keys spread over the key space. */
+    SCRAMBLED_ZIPFIAN {
+        @Override
+        public KeyGenerator create(int items, long seed) {
+            return new ScrambledZipfianKeyGenerator(items, seed);
+        }
+    };
+
+    /**
+     * Creates a key generator for this distribution.
+     *
+     * @param items the number of items
+     * @param seed the seed
+     * @return the key generator
+     */
+    public abstract KeyGenerator create(int items, long seed);
+
+}
@@ -0,0 +1,23 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+/**
+ * The Interface KeyGenerator produces the keys a benchmark thread operates
+ * on. Implementations are not thread safe, each thread owns its generator.
+ */
+public interface KeyGenerator {
+
+    /**
+     * Returns the next key in the range [0, items).
+     *
+     * @return the next key
+     */
+    int next();
+
+}
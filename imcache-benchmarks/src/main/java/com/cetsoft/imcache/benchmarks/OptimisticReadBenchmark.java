@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.KyleDing.imcache.concurrent.lock.StripedStampedLock;
+import com.KyleDing.imcache.offheap.OffHeapCache;
+import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore;
+import com.KyleDing.imcache.serialization.LongSerializer;
+
+/**
+ * The Class OptimisticReadBenchmark measures reads that hit the offheap cache
+ * from several threads at once. The validate benchmark has every thread
+ * validate stamps of the same stripe, which scales with the threads only if
+ * validating writes nothing to the stripe. The get benchmark reads fixed
+ * size values, run it with the gc profiler to see the bytes allocated per
+ * hit. For example
+ *
+ * <pre>
+ * java -jar imcache-benchmarks/target/benchmarks.jar OptimisticReadBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class OptimisticReadBenchmark {
+
+    /** The Constant KEY_COUNT. */
+    private static final int KEY_COUNT = 1024;
+
+    /** The lock. */
+    StripedStampedLock lock;
+
+    /** The cache. */
+    OffHeapCache<Integer, Long> cache;
+
+    /**
+     * The Class Cursor walks the keys, one per thread.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        /** The index of the next key. */
+        int next;
+    }
+
+    /**
+     * Fills the cache.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        lock = new StripedStampedLock();
+        cache = new OffHeapCache<Integer, Long>(null, null, null, new OffHeapByteBufferStore(1024 * 1024, 1),
+                new LongSerializer(), 60 * 1000, 0.5f, 4, 60 * 1000);
+        for (int i = 0; i < KEY_COUNT; i++) {
+            cache.put(i, (long) i);
+        }
+    }
+
+    /**
+     * Validates a stamp of the stripe every thread reads.
+     *
+     * @return true, if the stamp is valid
+     */
+    @Benchmark
+    public boolean validate() {
+        return lock.validate(1, lock.tryOptimisticRead(1));
+    }
+
+    /**
+     * Gets a cached value.
+     *
+     * @param cursor the cursor
+     * @return the value
+     */
+    @Benchmark
+    public Long get(Cursor cursor) {
+        return cache.get(cursor.next++ & (KEY_COUNT - 1));
+    }
+}
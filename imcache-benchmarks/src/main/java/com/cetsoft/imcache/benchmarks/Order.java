@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.KyleDing.imcache.annotation.CacheValue;
+
+/**
+ * The Class Order is the value of {@link SerializationBenchmark}, a typical
+ * small record with numbers, strings and a list.
+ */
+@CacheValue
+public class Order implements Serializable {
+
+    /** The Constant serialVersionUID. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The Enum Status.
+     */
+    public enum Status {
+        OPEN, PAID, SHIPPED
+    }
+
+    /** The id. */
+    long id;
+
+    /** The customer. */
+    String customer;
+
+    /** The status. */
+    Status status;
+
+    /** The quantity. */
+    int quantity;
+
+    /** The amount. */
+    double amount;
+
+    /** The discount. */
+    Double discount;
+
+    /** The items. */
+    List<String> items;
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+import com.KyleDing.imcache.cache.util.SerializationUtils;
+import com.KyleDing.imcache.serialization.Serializer;
+
+/**
+ * The Class PassThroughSerializer passes byte array values through untouched
+ * and writes integer keys as 4 bytes, so that the benchmarks measure the
+ * caches rather than Java serialization. Payloads are always deserialized as
+ * byte arrays since only values are read back.
+ */
+public class PassThroughSerializer implements Serializer<Object> {
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.serialization.Serializer#serialize(java.lang.Object)
+     */
+    public byte[] serialize(Object value) {
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+        if (value instanceof Integer) {
+            return SerializationUtils.serializeInt((Integer) value);
+        }
+        throw new IllegalArgumentException("Only byte arrays and integers are supported but it was "
+                + value.getClass().getName());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.serialization.Serializer#deserialize(byte[])
+     */
+    public Object deserialize(byte[] payload) {
+        return payload;
+    }
+
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.KyleDing.imcache.cache.util.ThreadUtils;
+
+/**
+ * The Class RespServer is a minimal in-process stand-in for a redis server.
+ * It speaks enough of the RESP protocol for the commands issued by
+ * RedisClient, so that redis cache benchmarks run offline and measure the
+ * client side of the cache rather than a remote server. Keys never expire
+ * except through an EXPIRE with a non positive timeout, which deletes them.
+ */
+public class RespServer {
+
+    /** The Constant CRLF. */
+    private static final byte[] CRLF = new byte[] { '\r', '\n' };
+
+    /** The Constant NO_OF_SERVERS. */
+    private static final AtomicInteger NO_OF_SERVERS = new AtomicInteger();
+
+    /** The store. */
+    private final ConcurrentMap<ByteBuffer, byte[]> store = new ConcurrentHashMap<ByteBuffer, byte[]>();
+
+    /** The open sockets. */
+    private final List<Socket> sockets = new CopyOnWriteArrayList<Socket>();
+
+    /** The server socket. */
+    private ServerSocket serverSocket;
+
+    /** The server number. */
+    private final int serverNumber = NO_OF_SERVERS.incrementAndGet();
+
+    /** The connection counter. */
+    private final AtomicInteger connections = new AtomicInteger();
+
+    /**
+     * Starts listening on an ephemeral port of the loopback interface.
+     *
+     * @return the port
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public int start() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getByName("localhost"));
+        ThreadUtils.createDaemonThread(new Runnable() {
+            public void run() {
+                accept();
+            }
+        }, "imcache:respServer(server=" + serverNumber + ")").start();
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Gets the port.
+     *
+     * @return the port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Stops the server and closes every client connection.
+     */
+    public void close() {
+        closeQuietly(serverSocket);
+        for (Socket socket : sockets) {
+            closeQuietly(socket);
+        }
+        sockets.clear();
+        store.clear();
+    }
+
+    /**
+     * Accepts connections until the server socket is closed.
+     */
+    protected void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                sockets.add(socket);
+                ThreadUtils.createDaemonThread(new Runnable() {
+                    public void run() {
+                        serve(socket);
+                    }
+                }, "imcache:respServer(server=" + serverNumber + ",connection=" + connections.incrementAndGet() + ")")
+                        .start();
+            } catch (IOException exception) {
+                // Server socket is closed.
+            }
+        }
+    }
+
+    /**
+     * Serves the requests of a single connection.
+     *
+     * @param socket the socket
+     */
+    protected void serve(Socket socket) {
+        try {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            while (true) {
+                byte[][] request = readRequest(in);
+                if (request == null) {
+                    break;
+                }
+                execute(request, out);
+                out.flush();
+            }
+        } catch (SocketException exception) {
+            // Connection is closed.
+        } catch (IOException exception) {
+            // Connection is closed.
+        } finally {
+            sockets.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    /**
+     * Executes the request and writes the reply.
+     *
+     * @param request the request
+     * @param out the out
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected void execute(byte[][] request, OutputStream out) throws IOException {
+        String command = new String(request[0], "US-ASCII").toUpperCase();
+        if ("GET".equals(command)) {
+            writeBulk(out, store.get(ByteBuffer.wrap(request[1])));
+        } else if ("SET".equals(command)) {
+            store.put(ByteBuffer.wrap(request[1]), request[2]);
+            writeStatus(out, "OK");
+        } else if ("MGET".equals(command)) {
+            writeLine(out, '*', request.length - 1);
+            for (int i = 1; i < request.length; i++) {
+                writeBulk(out, store.get(ByteBuffer.wrap(request[i])));
+            }
+        } else if ("MSET".equals(command)) {
+            for (int i = 1; i + 1 < request.length; i += 2) {
+                store.put(ByteBuffer.wrap(request[i]), request[i + 1]);
+            }
+            writeStatus(out, "OK");
+        } else if ("DEL".equals(command)) {
+            int removed = 0;
+            for (int i = 1; i < request.length; i++) {
+                removed += store.remove(ByteBuffer.wrap(request[i])) == null ? 0 : 1;
+            }
+            writeLine(out, ':', removed);
+        } else if ("EXPIRE".equals(command)) {
+            ByteBuffer key = ByteBuffer.wrap(request[1]);
+            boolean exists = store.containsKey(key);
+            if (Long.parseLong(new String(request[2], "US-ASCII")) <= 0) {
+                store.remove(key);
+            }
+            writeLine(out, ':', exists ? 1 : 0);
+        } else if ("DBSIZE".equals(command)) {
+            writeLine(out, ':', store.size());
+        } else if ("FLUSHDB".equals(command)) {
+            store.clear();
+            writeStatus(out, "OK");
+        } else if ("PING".equals(command)) {
+            writeStatus(out, "PONG");
+        } else {
+            out.write(("-ERR unknown command '" + command + "'").getBytes("US-ASCII"));
+            out.write(CRLF);
+        }
+    }
+
+    /**
+     * Reads a request sent as a RESP array of bulk strings.
+     *
+     * @param in the in
+     * @return the request or null if the stream has ended
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    static byte[][] readRequest(InputStream in) throws IOException {
+        int type = in.read();
+        if (type == -1) {
+            return null;
+        }
+        if (type != '*') {
+            throw new IOException("Expected(*), Found(" + (char) type + ").");
+        }
+        byte[][] request = new byte[(int) readNumber(in)][];
+        for (int i = 0; i < request.length; i++) {
+            type = in.read();
+            if (type != '$') {
+                throw new IOException("Expected($), Found(" + (char) type + ").");
+            }
+            byte[] bulk = new byte[(int) readNumber(in)];
+            readFully(in, bulk);
+            in.read();
+            in.read();
+            request[i] = bulk;
+        }
+        return request;
+    }
+
+    /**
+     * Reads a number terminated by CRLF.
+     *
+     * @param in the in
+     * @return the number
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    static long readNumber(InputStream in) throws IOException {
+        long number = 0;
+        boolean negative = false;
+        int read;
+        while ((read = in.read()) != '\r') {
+            if (read == -1) {
+                throw new EOFException();
+            }
+            if (read == '-') {
+                negative = true;
+            } else {
+                number = number * 10 + (read - '0');
+            }
+        }
+        in.read();
+        return negative ? -number : number;
+    }
+
+    /**
+     * Reads exactly the length of the bytes.
+     *
+     * @param in the in
+     * @param bytes the bytes
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    static void readFully(InputStream in, byte[] bytes) throws IOException {
+        int offset = 0;
+        while (offset < bytes.length) {
+            int read = in.read(bytes, offset, bytes.length - offset);
+            if (read == -1) {
+                throw new EOFException();
+            }
+            offset += read;
+        }
+    }
+
+    /**
+     * Writes a bulk string reply.
+     *
+     * @param out the out
+     * @param bytes the bytes
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    static void writeBulk(OutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            writeLine(out, '$', -1);
+            return;
+        }
+        writeLine(out, '$', bytes.length);
+        out.write(bytes);
+        out.write(CRLF);
+    }
+
+    /**
+     * Writes a status reply.
+     *
+     * @param out the out
+     * @param status the status
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    static void writeStatus(OutputStream out, String status) throws IOException {
+        out.write('+');
+        out.write(status.getBytes("US-ASCII"));
+        out.write(CRLF);
+    }
+
+    /**
+     * Writes a type byte followed by a number.
+     *
+     * @param out the out
+     * @param type the type
+     * @param number the number
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    static void writeLine(OutputStream out, char type, long number) throws IOException {
+        out.write(type);
+        out.write(Long.toString(number).getBytes("US-ASCII"));
+        out.write(CRLF);
+    }
+
+    /**
+     * Closes the socket quietly.
+     *
+     * @param socket the socket
+     */
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException exception) {
+            // Nothing to do.
+        }
+    }
+
+    /**
+     * Closes the server socket quietly.
+     *
+     * @param socket the socket
+     */
+    private static void closeQuietly(ServerSocket socket) {
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException exception) {
+            // Nothing to do.
+        }
+    }
+
+}
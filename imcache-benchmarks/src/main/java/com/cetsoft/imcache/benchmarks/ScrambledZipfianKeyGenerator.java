@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+/**
+ * The Class ScrambledZipfianKeyGenerator keeps the popularity skew of the
+ * Zipfian distribution but spreads the popular keys across the key space, so
+ * that hot keys do not cluster in neighbouring hash buckets or lock stripes.
+ */
+public class ScrambledZipfianKeyGenerator implements KeyGenerator {
+
+    /** The Constant FNV_OFFSET_BASIS. */
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+
+    /** The Constant FNV_PRIME. */
+    private static final long FNV_PRIME = 1099511628211L;
+
+    /** The items. */
+    private final int items;
+
+    /** The zipfian generator. */
+    private final ZipfianKeyGenerator zipfianGenerator;
+
+    /**
+     * Instantiates a new scrambled zipfian key generator.
+     *
+     * @param items the number of items
+     * @param seed the seed
+     */
+    public ScrambledZipfianKeyGenerator(int items, long seed) {
+        this.items = items;
+        this.zipfianGenerator = new ZipfianKeyGenerator(items, seed);
+    }
+
+    /**
+     * Hashes the value with 64 bit FNV-1a.
+     *
+     * @param value the value
+     * @return the hash
+     */
+    static long fnvHash(long value) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < 8; i++) {
+            hash ^= value & 0xFF;
+            hash *= FNV_PRIME;
+            value >>>= 8;
+        }
+        return hash;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.benchmarks.KeyGenerator#next()
+     */
+    public int next() {
+        long hash = fnvHash(zipfianGenerator.next());
+        return (int) ((hash & Long.MAX_VALUE) % items);
+    }
+
+}
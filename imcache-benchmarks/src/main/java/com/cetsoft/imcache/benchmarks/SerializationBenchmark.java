@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.KyleDing.imcache.serialization.Serializer;
+
+/**
+ * The Class SerializationBenchmark compares the serializer imcache-processor
+ * generates for {@link Order} with Java serialization, which is what the
+ * builders use by default. The payloadBytes counter gives the bytes written per unit of time,
+ * divided by the operations it is the payload size. For example
+ *
+ * <pre>
+ * java -jar imcache-benchmarks/target/benchmarks.jar SerializationBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    /** The Constant VALUE_COUNT. */
+    private static final int VALUE_COUNT = 1024;
+
+    /** The serializer kind, java or generated. */
+    @Param({ "java", "generated" })
+    public String serializerKind;
+
+    /** The serializer. */
+    Serializer<Order> serializer;
+
+    /** The values. */
+    Order[] values;
+
+    /** The payloads of the values. */
+    byte[][] payloads;
+
+    /** The index of the next value. */
+    int next;
+
+    /**
+     * The Class Counters.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Counters {
+
+        /** The payload bytes. */
+        public long payloadBytes;
+
+        /**
+         * Resets the counters.
+         */
+        @Setup(Level.Iteration)
+        public void reset() {
+            payloadBytes = 0;
+        }
+    }
+
+    /**
+     * The Class JavaSerializer serializes as the default serializer of the
+     * builders does.
+     */
+    static class JavaSerializer implements Serializer<Order> {
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.serialization.Serializer#serialize(java.lang.Object)
+         */
+        public byte[] serialize(Order value) {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                ObjectOutputStream stream = new ObjectOutputStream(bytes);
+                stream.writeObject(value);
+                stream.close();
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.serialization.Serializer#deserialize(byte[])
+         */
+        public Order deserialize(byte[] payload) {
+            try {
+                return (Order) new ObjectInputStream(new ByteArrayInputStream(payload)).readObject();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Creates the values and the serializer.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        if ("java".equals(serializerKind)) {
+            serializer = new JavaSerializer();
+        } else if ("generated".equals(serializerKind)) {
+            serializer = new Order_CacheSerializer();
+        } else {
+            throw new IllegalArgumentException("Unknown serializer " + serializerKind + ".");
+        }
+        Random random = new Random(VALUE_COUNT);
+        Order.Status[] statuses = Order.Status.values();
+        values = new Order[VALUE_COUNT];
+        payloads = new byte[VALUE_COUNT][];
+        for (int i = 0; i < VALUE_COUNT; i++) {
+            Order order = new Order();
+            order.id = random.nextInt(1000000);
+            order.customer = "customer-" + random.nextInt(10000);
+            order.status = statuses[random.nextInt(statuses.length)];
+            order.quantity = 1 + random.nextInt(10);
+            order.amount = random.nextInt(100000) / 100.0;
+            order.discount = random.nextBoolean() ? null : Double.valueOf(random.nextInt(20));
+            List<String> items = new ArrayList<String>();
+            for (int j = 0; j < order.quantity; j++) {
+                items.add("sku-" + random.nextInt(5000));
+            }
+            order.items = items;
+            values[i] = order;
+            payloads[i] = serializer.serialize(order);
+        }
+    }
+
+    /**
+     * Serializes a value, as a put does.
+     *
+     * @param counters the counters
+     * @return the payload
+     */
+    @Benchmark
+    public byte[] serialize(Counters counters) {
+        byte[] payload = serializer.serialize(values[next++ & (VALUE_COUNT - 1)]);
+        counters.payloadBytes += payload.length;
+        return payload;
+    }
+
+    /**
+     * Deserializes a payload, as a get does.
+     *
+     * @return the value
+     */
+    @Benchmark
+    public Order deserialize() {
+        return serializer.deserialize(payloads[next++ & (VALUE_COUNT - 1)]);
+    }
+}
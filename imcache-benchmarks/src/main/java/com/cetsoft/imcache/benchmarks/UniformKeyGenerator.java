@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+import java.util.Random;
+
+/**
+ * The Class UniformKeyGenerator picks every key with the same probability.
+ */
+public class UniformKeyGenerator implements KeyGenerator {
+
+    /** The items. */
+    private final int items;
+
+    /** The random. */
+    private final Random random;
+
+    /**
+     * Instantiates a new uniform key generator.
+     *
+     * @param items the number of items
+     * @param seed the seed
+     */
+    public UniformKeyGenerator(int items, long seed) {
+        this.items = items;
+        this.random = new Random(seed);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.benchmarks.KeyGenerator#next()
+     */
+    public int next() {
+        return random.nextInt(items);
+    }
+
+}
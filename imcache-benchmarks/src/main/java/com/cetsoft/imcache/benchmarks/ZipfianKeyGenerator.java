@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+import java.util.Random;
+
+/**
+ * The Class ZipfianKeyGenerator generates keys following a Zipfian
+ * distribution where key 0 is the most popular one. It uses the rejection
+ * free algorithm from "Quickly Generating Billion-Record Synthetic Databases"
+ * by Gray et al., the same one YCSB uses.
+ */
+public class ZipfianKeyGenerator implements KeyGenerator {
+
+    /** The Constant DEFAULT_THETA. */
+    public static final double DEFAULT_THETA = 0.99;
+
+    /** The items. */
+    private final int items;
+
+    /** The theta. */
+    private final double theta;
+
+    /** The alpha. */
+    private final double alpha;
+
+    /** The zeta of items. */
+    private final double zetan;
+
+    /** The eta. */
+    private final double eta;
+
+    /** The random. */
+    private final Random random;
+
+    /**
+     * Instantiates a new zipfian key generator.
+     *
+     * @param items the number of items
+     * @param seed the seed
+     */
+    public ZipfianKeyGenerator(int items, long seed) {
+        this(items, DEFAULT_THETA, seed);
+    }
+
+    /**
+     * Instantiates a new zipfian key generator.
+     *
+     * @param items the number of items
+     * @param theta the skew of the distribution
+     * @param seed the seed
+     */
+    public ZipfianKeyGenerator(int items, double theta, long seed) {
+        if (items < 2) {
+            throw new IllegalArgumentException("Zipfian distribution needs at least 2 items but it was " + items);
+        }
+        this.items = items;
+        this.theta = theta;
+        this.random = new Random(seed);
+        this.alpha = 1.0 / (1.0 - theta);
+        this.zetan = zeta(items, theta);
+        double zeta2 = zeta(2, theta);
+        this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2 / zetan);
+    }
+
+    /**
+     * Computes the generalized harmonic number of n.
+     *
+     * @param n the n
+     * @param theta the theta
+     * @return the zeta
+     */
+    static double zeta(int n, double theta) {
+        double sum = 0;
+        for (int i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.benchmarks.KeyGenerator#next()
+     */
+    public int next() {
+        double u = random.nextDouble();
+        double uz = u * zetan;
+        if (uz < 1.0) {
+            return 0;
+        }
+        if (uz < 1.0 + Math.pow(0.5, theta)) {
+            return 1;
+        }
+        int key = (int) (items * Math.pow(eta * u - eta + 1, alpha));
+        return key >= items ? items - 1 : key;
+    }
+
+}
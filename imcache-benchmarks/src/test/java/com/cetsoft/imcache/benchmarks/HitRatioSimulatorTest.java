@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.KyleDing.imcache.concurrent.policy.EvictionPolicyType;
+
+/**
+ * The Class HitRatioSimulatorTest.
+ */
+public class HitRatioSimulatorTest {
+
+    /** The capacity. */
+    private static final int CAPACITY = 500;
+
+    /**
+     * W-TinyLFU keeps the working set through scans.
+     */
+    @Test
+    public void scanResistance() {
+        List<Integer> trace = HitRatioSimulator.scanTrace(CAPACITY * 10, 200000, 5000, CAPACITY * 5, 42);
+        double lru = HitRatioSimulator.hitRatio(EvictionPolicyType.LRU, CAPACITY, trace);
+        double tinyLfu = HitRatioSimulator.hitRatio(EvictionPolicyType.W_TINY_LFU, CAPACITY, trace);
+        assertTrue(tinyLfu > lru * 1.1);
+    }
+
+    /**
+     * W-TinyLFU is at least as good as LRU on a skewed trace.
+     */
+    @Test
+    public void zipfian() {
+        KeyGenerator generator = KeyDistribution.SCRAMBLED_ZIPFIAN.create(CAPACITY * 10, 42);
+        List<Integer> trace = new ArrayList<Integer>();
+        for (int i = 0; i < 200000; i++) {
+            trace.add(generator.next());
+        }
+        double lru = HitRatioSimulator.hitRatio(EvictionPolicyType.LRU, CAPACITY, trace);
+        double tinyLfu = HitRatioSimulator.hitRatio(EvictionPolicyType.W_TINY_LFU, CAPACITY, trace);
+        assertTrue(tinyLfu >= lru);
+    }
+
+    /**
+     * Reads a recorded trace.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void readTrace() throws IOException {
+        File file = File.createTempFile("trace", ".txt");
+        file.deleteOnExit();
+        FileWriter writer = new FileWriter(file);
+        writer.write("a 1\nb\n\na 2\n");
+        writer.close();
+        List<String> trace = HitRatioSimulator.readTrace(file.getPath());
+        assertEquals(Arrays.asList("a", "b", "a"), trace);
+        assertEquals(1 / 3d, HitRatioSimulator.hitRatio(EvictionPolicyType.LRU, 2, trace), 1e-9);
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * The Class KeyDistributionTest.
+ */
+public class KeyDistributionTest {
+
+    /** The items. */
+    private static final int ITEMS = 1000;
+
+    /** The samples. */
+    private static final int SAMPLES = 100000;
+
+    /**
+     * Counts the keys generated.
+     *
+     * @param distribution the distribution
+     * @return the counts
+     */
+    private int[] sample(KeyDistribution distribution) {
+        KeyGenerator generator = distribution.create(ITEMS, 42);
+        int[] counts = new int[ITEMS];
+        for (int i = 0; i < SAMPLES; i++) {
+            int key = generator.next();
+            assertTrue(key >= 0 && key < ITEMS);
+            counts[key]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Uniform.
+     */
+    @Test
+    public void uniform() {
+        int[] counts = sample(KeyDistribution.UNIFORM);
+        for (int count : counts) {
+            assertTrue(count > SAMPLES / ITEMS / 2);
+        }
+    }
+
+    /**
+     * Zipfian favours the first keys.
+     */
+    @Test
+    public void zipfian() {
+        int[] counts = sample(KeyDistribution.ZIPFIAN);
+        assertTrue(counts[0] > counts[1]);
+        assertTrue(counts[1] > counts[ITEMS / 2]);
+        int top = 0;
+        for (int i = 0; i < ITEMS / 10; i++) {
+            top += counts[i];
+        }
+        assertTrue(top > SAMPLES / 2);
+    }
+
+    /**
+     * Scrambled zipfian keeps the skew but moves the hottest key.
+     */
+    @Test
+    public void scrambledZipfian() {
+        int[] counts = sample(KeyDistribution.SCRAMBLED_ZIPFIAN);
+        int hottest = 0;
+        for (int i = 1; i < ITEMS; i++) {
+            if (counts[i] > counts[hottest]) {
+                hottest = i;
+            }
+        }
+        assertTrue(hottest != 0);
+        assertTrue(counts[hottest] > SAMPLES / 20);
+    }
+
+}
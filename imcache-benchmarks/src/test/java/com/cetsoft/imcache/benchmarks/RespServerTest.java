@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.benchmarks;
+
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.KyleDing.imcache.redis.client.RedisClient;
+
+/**
+ * The Class RespServerTest.
+ */
+public class RespServerTest {
+
+    /** The server. */
+    RespServer server;
+
+    /** The client. */
+    RedisClient client;
+
+    /**
+     * Setup.
+     *
+     * @throws Exception the exception
+     */
+    @Before
+    public void setup() throws Exception {
+        server = new RespServer();
+        client = new RedisClient("localhost", server.start());
+    }
+
+    /**
+     * Tear down.
+     */
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    /**
+     * Set, get, expire and flush round trip through the redis client.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void roundTrip() throws Exception {
+        client.set("key".getBytes(), "value".getBytes());
+        client.set("key2".getBytes(), "value2".getBytes());
+        assertArrayEquals("value".getBytes(), client.get("key".getBytes()));
+        assertNull(client.get("missing".getBytes()));
+        assertEquals(2, client.dbsize());
+        assertArrayEquals("value".getBytes(), client.expire("key".getBytes()));
+        assertNull(client.get("key".getBytes()));
+        client.flushdb();
+        assertEquals(0, client.dbsize());
+    }
+
+}
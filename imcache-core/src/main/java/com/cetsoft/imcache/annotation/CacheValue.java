@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The Annotation CacheValue marks a value class for the imcache-processor. For
+ * a class Foo the processor generates Foo_CacheSerializer, a compact binary
+ * {@link com.KyleDing.imcache.serialization.ByteBufferSerializer}, and
+ * Foo_CacheAttributes, which reads every serialized field without reflection
+ * for indexes and filters. Nested classes are named after their enclosing
+ * classes, Outer.Inner becomes Outer_Inner_CacheSerializer.
+ * <p>
+ * The class needs a non private no argument constructor. Its non static, non
+ * transient fields are serialized in declaration order. A private field needs
+ * a non private getter and setter. Supported field types are primitives and
+ * their wrappers, strings, enums, primitive arrays, other CacheValue classes
+ * and lists of strings, wrappers, enums or CacheValue classes. Adding,
+ * removing or reordering fields changes the format, so entries written by an
+ * older class can not be read back.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface CacheValue {
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The Annotation Indexed marks a field that indexes or filters look up by
+ * name. The imcache-processor generates an accessor for it in the
+ * Foo_CacheAttributes class of the declaring class, so the field is read
+ * without reflection even if the class is not a {@link CacheValue}. A private
+ * field needs a non private getter.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface Indexed {
+}
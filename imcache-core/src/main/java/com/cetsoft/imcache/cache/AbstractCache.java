@@ -7,6 +7,11 @@
  */
 package com.KyleDing.imcache.cache;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
 /**
  * The Class AbstractCache.
  *
@@ -24,6 +29,9 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
     /** The eviction listener. */
     protected EvictionListener<K, V> evictionListener;
 
+    /** The single flight loader. */
+    protected final SingleFlightLoader<K, V> singleFlightLoader = new SingleFlightLoader<K, V>();
+
     /**
      * Instantiates a new abstract cache.
      *
@@ -72,6 +80,44 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         this.evictionListener = evictionListener;
     }
 
+    /**
+     * Gets the load timeout.
+     *
+     * @return the load timeout in milliseconds
+     */
+    public long getLoadTimeout() {
+        return singleFlightLoader.getLoadTimeout();
+    }
+
+    /**
+     * Sets how long a thread waits for another thread loading the same key.
+     *
+     * @param loadTimeout the load timeout in milliseconds,
+     *            {@link SingleFlightLoader#NO_TIMEOUT} to wait until loaded
+     */
+    public void setLoadTimeout(long loadTimeout) {
+        singleFlightLoader.setLoadTimeout(loadTimeout);
+    }
+
+    /**
+     * Checks if a failed load is propagated to the threads waiting for it.
+     *
+     * @return true, if propagated
+     */
+    public boolean isPropagateLoadException() {
+        return singleFlightLoader.isPropagateException();
+    }
+
+    /**
+     * Sets whether a failed load is propagated to the threads waiting for it
+     * as a {@link CacheLoadException}. Otherwise they retry the load.
+     *
+     * @param propagateLoadException the propagate load exception
+     */
+    public void setPropagateLoadException(boolean propagateLoadException) {
+        singleFlightLoader.setPropagateException(propagateLoadException);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -93,6 +139,113 @@ public abstract class AbstractCache<K, V> implements Cache<K, V> {
         this.name = name;
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#putAll(java.util.Map)
+     */
+    public void putAll(Map<K, V> entries) {
+        for (Entry<K, V> entry : entries.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#getAll(java.util.Collection)
+     */
+    public Map<K, V> getAll(Collection<K> keys) {
+        Map<K, V> values = new HashMap<K, V>();
+        for (K key : keys) {
+            V value = get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#invalidateAll(java.util.Collection)
+     */
+    public void invalidateAll(Collection<K> keys) {
+        for (K key : keys) {
+            invalidate(key);
+        }
+    }
+
+    /**
+     * Loads the value of a missing key with the cache loader and stores it.
+     * Concurrent misses of the same key share a single load.
+     *
+     * @param key the key
+     * @return the value
+     */
+    protected V load(K key) {
+        return singleFlightLoader.load(key, new CacheLoader<K, V>() {
+            public V load(K key) {
+                V value = cacheLoader.load(key);
+                if (value != null) {
+                    store(key, value);
+                }
+                return value;
+            }
+        });
+    }
+
+    /**
+     * Stores a loaded value before the threads waiting for it are released.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    protected void store(K key, V value) {
+        put(key, value);
+    }
+
+    /**
+     * Stores the values loaded by a {@link BulkCacheLoader}.
+     *
+     * @param values the values
+     */
+    protected void storeAll(Map<K, V> values) {
+        putAll(values);
+    }
+
+    /**
+     * Loads and stores the values of the missing keys, in a single call if the
+     * cache loader is a {@link BulkCacheLoader}. Otherwise each key is loaded
+     * by {@link #load(Object)}, so it shares the load of a concurrent get of
+     * the same key. Keys that could not be loaded are left out of the returned
+     * map.
+     *
+     * @param keys the keys
+     * @return the loaded values mapped by their keys
+     */
+    @SuppressWarnings("unchecked")
+    protected Map<K, V> loadAll(Collection<K> keys) {
+        Map<K, V> values;
+        if (cacheLoader instanceof BulkCacheLoader) {
+            values = ((BulkCacheLoader<K, V>) cacheLoader).loadAll(keys);
+            if (values == null) {
+                return new HashMap<K, V>();
+            }
+            storeAll(values);
+            return values;
+        }
+        values = new HashMap<K, V>();
+        for (K key : keys) {
+            V value = load(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
     /**
      * Calculates hit ratio.
      *
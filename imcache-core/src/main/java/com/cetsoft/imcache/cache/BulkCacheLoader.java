@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * The BulkCacheLoader interface is a {@link CacheLoader} that can also load
+ * many values in a single call. Caches use it to fill the misses of a
+ * {@link Cache#getAll(Collection)} with one round trip to the resource instead
+ * of one per key.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public interface BulkCacheLoader<K, V> extends CacheLoader<K, V> {
+
+    /**
+     * Loads the values with specified keys. Keys without a value should be
+     * left out of the returned map.
+     *
+     * @param keys the keys
+     * @return the values mapped by their keys
+     */
+    Map<K, V> loadAll(Collection<K> keys);
+}
@@ -7,6 +7,9 @@
  */
 package com.KyleDing.imcache.cache;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * The Interface Cache.
  *
@@ -39,6 +42,30 @@ public interface Cache<K, V> {
      */
     V invalidate(K key);
 
+    /**
+     * Puts all of the values with their keys in a single batch.
+     *
+     * @param entries the entries
+     */
+    void putAll(Map<K, V> entries);
+
+    /**
+     * Gets the values with the specified keys in a single batch. Missing
+     * values are loaded together and keys without a value are left out of the
+     * returned map.
+     *
+     * @param keys the keys
+     * @return the values mapped by their keys
+     */
+    Map<K, V> getAll(Collection<K> keys);
+
+    /**
+     * Invalidate the values with the specified keys in a single batch.
+     *
+     * @param keys the keys
+     */
+    void invalidateAll(Collection<K> keys);
+
     /**
      * Check if Cache contains the specified key.
      *
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache;
+
+/**
+ * The Class CacheLoadException.
+ */
+public class CacheLoadException extends RuntimeException {
+
+    /** The Constant serialVersionUID. */
+    private static final long serialVersionUID = 4211738465627436207L;
+
+    /**
+     * Instantiates a new cache load exception.
+     *
+     * @param message the message
+     */
+    public CacheLoadException(String message) {
+        super(message);
+    }
+
+    /**
+     * Instantiates a new cache load exception.
+     *
+     * @param message the message
+     * @param cause the cause
+     */
+    public CacheLoadException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+}
@@ -32,6 +32,14 @@ public class CollectionItem<V> implements CacheItem<Collection<V>> {
         this.objects = new ArrayList<V>(objects);
     }
 
+    /**
+     * Instantiates a new collection item whose objects are provided by the
+     * subclass, which overrides {@link #getValue()} and
+     * {@link #filter(Filter)}.
+     */
+    protected CollectionItem() {
+    }
+
     /*
      * (non-Javadoc)
      *
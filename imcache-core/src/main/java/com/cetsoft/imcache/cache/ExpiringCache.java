@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache;
+
+/**
+ * The Interface ExpiringCache is a cache whose entries can expire after a
+ * given time to live.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public interface ExpiringCache<K, V> extends Cache<K, V> {
+
+    /**
+     * Puts the value with the specified key for the given time to live. The
+     * entry expires once the time passes, regardless of the expiration policy
+     * of the cache.
+     *
+     * @param key the key
+     * @param value the value
+     * @param ttl the time to live in milliseconds
+     * @throws IllegalArgumentException if the time to live is not positive
+     */
+    void put(K key, V value, long ttl);
+
+}
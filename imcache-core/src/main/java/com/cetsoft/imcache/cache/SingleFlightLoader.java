@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Class SingleFlightLoader deduplicates concurrent loads of the same key.
+ * The first thread that misses a key becomes the leader and runs the given
+ * loader, every other thread missing the same key meanwhile waits for the
+ * leader and gets its value instead of hitting the resource again.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class SingleFlightLoader<K, V> {
+
+    /** The Constant NO_TIMEOUT. */
+    public static final long NO_TIMEOUT = 0;
+
+    /** The loads in flight. */
+    protected final ConcurrentMap<K, Flight<V>> flights = new ConcurrentHashMap<K, Flight<V>>();
+
+    /** The load timeout in milliseconds. */
+    private volatile long loadTimeout = NO_TIMEOUT;
+
+    /** The propagate exception. */
+    private volatile boolean propagateException;
+
+    /**
+     * Loads the value of the key with the given loader unless another thread
+     * is already loading it, in which case the value of that load is returned.
+     * If the leading load fails, waiters either get a {@link CacheLoadException}
+     * wrapping the failure or retry the load themselves, depending on
+     * {@link #isPropagateException()}.
+     *
+     * @param key the key
+     * @param loader the loader
+     * @return the value
+     */
+    public V load(K key, CacheLoader<K, V> loader) {
+        Flight<V> flight = new Flight<V>();
+        Flight<V> inFlight = flights.putIfAbsent(key, flight);
+        if (inFlight == null) {
+            return lead(key, loader, flight);
+        }
+        if (inFlight.thread == Thread.currentThread()) {
+            // The loader asks for its own key, waiting would deadlock.
+            return loader.load(key);
+        }
+        await(key, inFlight);
+        if (inFlight.failure == null) {
+            return inFlight.value;
+        }
+        if (propagateException) {
+            throw new CacheLoadException("Loading of key " + key + " failed.", inFlight.failure);
+        }
+        return load(key, loader);
+    }
+
+    /**
+     * Runs the load as the leader and releases the waiters.
+     *
+     * @param key the key
+     * @param loader the loader
+     * @param flight the flight
+     * @return the value
+     */
+    protected V lead(K key, CacheLoader<K, V> loader, Flight<V> flight) {
+        try {
+            V value = loader.load(key);
+            flight.value = value;
+            return value;
+        } catch (RuntimeException e) {
+            flight.failure = e;
+            throw e;
+        } catch (Error e) {
+            flight.failure = e;
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+            flight.latch.countDown();
+        }
+    }
+
+    /**
+     * Waits for the flight to land.
+     *
+     * @param key the key
+     * @param flight the flight
+     */
+    protected void await(K key, Flight<V> flight) {
+        try {
+            if (loadTimeout == NO_TIMEOUT) {
+                flight.latch.await();
+            } else if (!flight.latch.await(loadTimeout, TimeUnit.MILLISECONDS)) {
+                throw new CacheLoadException("Loading of key " + key + " timed out after " + loadTimeout + " ms.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheLoadException("Interrupted while waiting for loading of key " + key + ".", e);
+        }
+    }
+
+    /**
+     * Gets the load timeout.
+     *
+     * @return the load timeout in milliseconds
+     */
+    public long getLoadTimeout() {
+        return loadTimeout;
+    }
+
+    /**
+     * Sets how long a waiter waits for the leading load, {@link #NO_TIMEOUT}
+     * waits until it completes.
+     *
+     * @param loadTimeout the load timeout in milliseconds
+     */
+    public void setLoadTimeout(long loadTimeout) {
+        if (loadTimeout < 0) {
+            throw new IllegalArgumentException("Load timeout must not be negative.");
+        }
+        this.loadTimeout = loadTimeout;
+    }
+
+    /**
+     * Checks if the exception of the leading load is propagated to waiters.
+     *
+     * @return true, if propagated
+     */
+    public boolean isPropagateException() {
+        return propagateException;
+    }
+
+    /**
+     * Sets whether the exception of the leading load is propagated to
+     * waiters. Otherwise waiters retry the load themselves.
+     *
+     * @param propagateException the propagate exception
+     */
+    public void setPropagateException(boolean propagateException) {
+        this.propagateException = propagateException;
+    }
+
+    /**
+     * The Class Flight.
+     *
+     * @param <V> the value type
+     */
+    protected static class Flight<V> {
+
+        /** The loading thread. */
+        final Thread thread = Thread.currentThread();
+
+        /** The latch. */
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        /** The value. */
+        volatile V value;
+
+        /** The failure. */
+        volatile Throwable failure;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.search;
+
+/**
+ * The Class Attribute reads an attribute by name, as
+ * {@link Attributes#getValue(Object, String)} does, for an index or a filter
+ * that reads it from many values. It keeps the accessor resolved for the class
+ * of the last value it read, so values of the same class are read without
+ * looking the accessor up again.
+ */
+public final class Attribute implements AttributeAccessor<Object> {
+
+    /** The attribute name or path. */
+    private final String name;
+
+    /** The accessor resolved for the class of the last value. */
+    private volatile Resolved resolved;
+
+    /**
+     * Instantiates a new attribute.
+     *
+     * @param name the attribute name or path
+     */
+    public Attribute(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the attribute name.
+     *
+     * @return the attribute name or path
+     */
+    public String getName() {
+        return name;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.cache.search.AttributeAccessor#get(java.lang.Object)
+     */
+    public Object get(Object object) {
+        Resolved resolved = this.resolved;
+        if (resolved == null || resolved.type != object.getClass()) {
+            resolved = new Resolved(object.getClass(), Attributes.getAccessor(object.getClass(), name));
+            this.resolved = resolved;
+        }
+        return resolved.accessor.get(object);
+    }
+
+    /**
+     * The Class Resolved pairs a class with the accessor resolved for it.
+     */
+    private static final class Resolved {
+
+        /** The type. */
+        final Class<?> type;
+
+        /** The accessor. */
+        final AttributeAccessor<Object> accessor;
+
+        /**
+         * Instantiates a new resolved.
+         *
+         * @param type the type
+         * @param accessor the accessor
+         */
+        Resolved(Class<?> type, AttributeAccessor<Object> accessor) {
+            this.type = type;
+            this.accessor = accessor;
+        }
+    }
+}
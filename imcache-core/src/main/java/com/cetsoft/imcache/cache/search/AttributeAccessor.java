@@ -0,0 +1,25 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.search;
+
+/**
+ * The Interface AttributeAccessor reads one attribute of a value, it is what
+ * indexes and filters use instead of looking the field up on every call.
+ *
+ * @param <T> the value type
+ */
+public interface AttributeAccessor<T> {
+
+    /**
+     * Gets the attribute of the object.
+     *
+     * @param object the object
+     * @return the attribute value
+     */
+    Object get(T object);
+}
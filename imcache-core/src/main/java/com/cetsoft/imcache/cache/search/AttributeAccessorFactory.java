@@ -0,0 +1,28 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.search;
+
+/**
+ * The Interface AttributeAccessorFactory gives the accessors of a value class
+ * by attribute name. The Foo_CacheAttributes classes generated by
+ * imcache-processor implement it for classes annotated with
+ * {@link com.KyleDing.imcache.annotation.CacheValue} or with
+ * {@link com.KyleDing.imcache.annotation.Indexed} fields.
+ *
+ * @param <T> the value type
+ */
+public interface AttributeAccessorFactory<T> {
+
+    /**
+     * Gets the accessor of the attribute.
+     *
+     * @param attributeName the attribute name
+     * @return the accessor, null if the attribute is not known
+     */
+    AttributeAccessor<T> getAccessor(String attributeName);
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.search;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The Class Attributes reads attributes of values for indexes and filters. An
+ * attribute is resolved once per class into an accessor that is cached, so a
+ * put or a filtered row does not look fields up again. It is resolved to the
+ * accessor of the Foo_CacheAttributes class imcache-processor generated for
+ * the class if there is one, otherwise to the field of that name declared by
+ * the class or one of its superclasses, otherwise to its getName or isName
+ * getter. Attribute names can be paths such as address.city, each part is
+ * resolved against the class of the value it is read from, and a null on the
+ * way gives null. The classes are weakly referenced and what is resolved for
+ * them softly, since accessors refer to their class, so the cache does not
+ * keep class loaders from being unloaded. Lookups take no lock, an index or a
+ * filter reads through an {@link Attribute}, which skips them for values of
+ * the class it read last.
+ */
+public final class Attributes {
+
+    /** The suffix of the generated classes. */
+    public static final String GENERATED_SUFFIX = "_CacheAttributes";
+
+    /** The Constant NONE marks classes without generated accessors. */
+    private static final Object NONE = new Object();
+
+    /** The accessor factories by value class. */
+    private static final ConcurrentMap<ClassKey, SoftReference<Object>> FACTORIES = new ConcurrentHashMap<ClassKey, SoftReference<Object>>();
+
+    /** The resolved accessors by value class and attribute name. */
+    private static final ConcurrentMap<ClassKey, SoftReference<ConcurrentMap<String, AttributeAccessor<Object>>>> ACCESSORS = new ConcurrentHashMap<ClassKey, SoftReference<ConcurrentMap<String, AttributeAccessor<Object>>>>();
+
+    /** The queue of the keys whose classes were unloaded. */
+    private static final ReferenceQueue<Class<?>> UNLOADED = new ReferenceQueue<Class<?>>();
+
+    /**
+     * Instantiates a new attributes.
+     */
+    private Attributes() {
+    }
+
+    /**
+     * Gets the attribute of the object.
+     *
+     * @param object the object
+     * @param attributeName the attribute name or path
+     * @return the attribute value
+     * @throws AttributeException if the object has no such attribute
+     */
+    public static Object getValue(Object object, String attributeName) {
+        return getAccessor(object.getClass(), attributeName).get(object);
+    }
+
+    /**
+     * Gets the accessor of the attribute of the class, resolving it on the
+     * first call.
+     *
+     * @param type the type
+     * @param attributeName the attribute name or path
+     * @return the accessor
+     * @throws AttributeException if the class has no such attribute
+     */
+    public static AttributeAccessor<Object> getAccessor(Class<?> type, String attributeName) {
+        ConcurrentMap<String, AttributeAccessor<Object>> accessors = dereference(ACCESSORS.get(new ClassKey(type,
+                null)));
+        if (accessors == null) {
+            accessors = new ConcurrentHashMap<String, AttributeAccessor<Object>>();
+            expungeUnloaded();
+            ACCESSORS.put(new ClassKey(type, UNLOADED), new SoftReference<ConcurrentMap<String, AttributeAccessor<Object>>>(
+                    accessors));
+        }
+        AttributeAccessor<Object> accessor = accessors.get(attributeName);
+        if (accessor == null) {
+            accessor = resolve(type, attributeName);
+            accessors.putIfAbsent(attributeName, accessor);
+        }
+        return accessor;
+    }
+
+    /**
+     * Resolves the accessor of the attribute of the class.
+     *
+     * @param type the type
+     * @param attributeName the attribute name or path
+     * @return the accessor
+     */
+    private static AttributeAccessor<Object> resolve(Class<?> type, String attributeName) {
+        int separator = attributeName.indexOf('.');
+        if (separator < 0) {
+            return resolveAttribute(type, attributeName);
+        }
+        return new PathAccessor(resolveAttribute(type, attributeName.substring(0, separator)),
+                attributeName.substring(separator + 1));
+    }
+
+    /**
+     * Resolves the accessor of a single attribute of the class.
+     *
+     * @param type the type
+     * @param name the name
+     * @return the accessor
+     */
+    private static AttributeAccessor<Object> resolveAttribute(Class<?> type, String name) {
+        AttributeAccessorFactory<Object> factory = getFactory(type);
+        if (factory != null) {
+            AttributeAccessor<Object> accessor = factory.getAccessor(name);
+            if (accessor != null) {
+                return accessor;
+            }
+        }
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (field.getName().equals(name)) {
+                    field.setAccessible(true);
+                    return new FieldAccessor(field);
+                }
+            }
+        }
+        String capitalized = name.length() == 0 ? name : Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Method method : current.getDeclaredMethods()) {
+                if (method.getParameterTypes().length == 0
+                        && method.getReturnType() != void.class
+                        && (method.getName().equals("get" + capitalized) || (method.getName().equals(
+                                "is" + capitalized) && method.getReturnType() == boolean.class))) {
+                    method.setAccessible(true);
+                    return new MethodAccessor(method);
+                }
+            }
+        }
+        throw new AttributeException(new NoSuchFieldException(type.getName() + "." + name));
+    }
+
+    /**
+     * Gets the generated accessor factory of the class.
+     *
+     * @param type the type
+     * @return the factory, null if none was generated
+     */
+    @SuppressWarnings("unchecked")
+    static AttributeAccessorFactory<Object> getFactory(Class<?> type) {
+        Object factory = dereference(FACTORIES.get(new ClassKey(type, null)));
+        if (factory == null) {
+            factory = loadFactory(type);
+            expungeUnloaded();
+            FACTORIES.put(new ClassKey(type, UNLOADED), new SoftReference<Object>(factory));
+        }
+        return factory == NONE ? null : (AttributeAccessorFactory<Object>) factory;
+    }
+
+    /**
+     * Gets the referent of the reference.
+     *
+     * @param <T> the referent type
+     * @param reference the reference
+     * @return the referent, null if there is no reference or it was cleared
+     */
+    private static <T> T dereference(SoftReference<T> reference) {
+        return reference == null ? null : reference.get();
+    }
+
+    /**
+     * Removes the entries of the classes that were unloaded.
+     */
+    private static void expungeUnloaded() {
+        Reference<? extends Class<?>> key;
+        while ((key = UNLOADED.poll()) != null) {
+            FACTORIES.remove(key);
+            ACCESSORS.remove(key);
+        }
+    }
+
+    /**
+     * Loads the generated accessor factory of the class.
+     *
+     * @param type the type
+     * @return the factory or {@link #NONE}
+     */
+    private static Object loadFactory(Class<?> type) {
+        String name = type.getName();
+        int packageEnd = name.lastIndexOf('.') + 1;
+        String generatedName = name.substring(0, packageEnd) + name.substring(packageEnd).replace('$', '_')
+                + GENERATED_SUFFIX;
+        try {
+            Class<?> generated = Class.forName(generatedName, true, type.getClassLoader());
+            if (AttributeAccessorFactory.class.isAssignableFrom(generated)) {
+                return generated.getDeclaredConstructor().newInstance();
+            }
+        } catch (Exception e) {
+            // There are no generated accessors, reflection is used.
+        }
+        return NONE;
+    }
+
+    /**
+     * The Class FieldAccessor reads a field made accessible once.
+     */
+    private static class FieldAccessor implements AttributeAccessor<Object> {
+
+        /** The field. */
+        private final Field field;
+
+        /**
+         * Instantiates a new field accessor.
+         *
+         * @param field the field
+         */
+        FieldAccessor(Field field) {
+            this.field = field;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * com.KyleDing.imcache.cache.search.AttributeAccessor#get(java.lang.Object)
+         */
+        public Object get(Object object) {
+            try {
+                return field.get(object);
+            } catch (IllegalAccessException e) {
+                throw new AttributeException(e);
+            }
+        }
+    }
+
+    /**
+     * The Class MethodAccessor calls a getter made accessible once.
+     */
+    private static class MethodAccessor implements AttributeAccessor<Object> {
+
+        /** The method. */
+        private final Method method;
+
+        /**
+         * Instantiates a new method accessor.
+         *
+         * @param method the method
+         */
+        MethodAccessor(Method method) {
+            this.method = method;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * com.KyleDing.imcache.cache.search.AttributeAccessor#get(java.lang.Object)
+         */
+        public Object get(Object object) {
+            try {
+                return method.invoke(object);
+            } catch (IllegalAccessException e) {
+                throw new AttributeException(e);
+            } catch (InvocationTargetException e) {
+                throw new AttributeException(e);
+            }
+        }
+    }
+
+    /**
+     * The Class PathAccessor reads the rest of a path from the value of its
+     * first attribute.
+     */
+    private static class PathAccessor implements AttributeAccessor<Object> {
+
+        /** The accessor of the first attribute. */
+        private final AttributeAccessor<Object> first;
+
+        /** The rest of the path. */
+        private final Attribute rest;
+
+        /**
+         * Instantiates a new path accessor.
+         *
+         * @param first the accessor of the first attribute
+         * @param rest the rest of the path
+         */
+        PathAccessor(AttributeAccessor<Object> first, String rest) {
+            this.first = first;
+            this.rest = new Attribute(rest);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * com.KyleDing.imcache.cache.search.AttributeAccessor#get(java.lang.Object)
+         */
+        public Object get(Object object) {
+            Object value = first.get(object);
+            return value == null ? null : rest.get(value);
+        }
+    }
+
+    /**
+     * The Class ClassKey weakly refers to a class as a map key. Keys are equal
+     * if they refer to the same class, a key whose class was unloaded equals
+     * only itself.
+     */
+    private static final class ClassKey extends WeakReference<Class<?>> {
+
+        /** The hash of the class. */
+        private final int hash;
+
+        /**
+         * Instantiates a new class key.
+         *
+         * @param type the type
+         * @param queue the queue to enqueue the key once the class is
+         *            unloaded, null for a key that is only looked up
+         */
+        ClassKey(Class<?> type, ReferenceQueue<Class<?>> queue) {
+            super(type, queue);
+            this.hash = System.identityHashCode(type);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object object) {
+            if (object == this) {
+                return true;
+            }
+            if (!(object instanceof ClassKey)) {
+                return false;
+            }
+            Class<?> type = get();
+            return type != null && type == ((ClassKey) object).get();
+        }
+    }
+}
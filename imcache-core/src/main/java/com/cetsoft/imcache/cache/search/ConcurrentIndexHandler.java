@@ -25,6 +25,7 @@ public class ConcurrentIndexHandler<K, V> extends DefaultIndexHandler<K, V> {
      */
     public ConcurrentIndexHandler() {
         indexes = new ConcurrentHashMap<String, CacheIndex>();
+        attributes = new ConcurrentHashMap<String, Attribute>();
     }
 
 }
@@ -7,7 +7,6 @@
  */
 package com.KyleDing.imcache.cache.search;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -38,11 +37,15 @@ public class DefaultIndexHandler<K, V> implements IndexHandler<K, V> {
     /** The indexes. */
     protected Map<String, CacheIndex> indexes;
 
+    /** The attributes of the indexes. */
+    protected Map<String, Attribute> attributes;
+
     /**
      * Instantiates a new simple query executer.
      */
     public DefaultIndexHandler() {
         indexes = new HashMap<String, CacheIndex>();
+        attributes = new HashMap<String, Attribute>();
     }
 
     /*
@@ -53,6 +56,7 @@ public class DefaultIndexHandler<K, V> implements IndexHandler<K, V> {
      * .cache.search.CacheIndex)
      */
     public void addIndex(String attributeName, IndexType type) {
+        attributes.put(attributeName, new Attribute(attributeName));
         if (type == IndexType.UNIQUE_HASH) {
             indexes.put(attributeName, new UniqueHashIndex());
         } else if (type == IndexType.NON_UNIQUE_HASH) {
@@ -102,6 +106,7 @@ public class DefaultIndexHandler<K, V> implements IndexHandler<K, V> {
      */
     public void clear() {
         indexes.clear();
+        attributes.clear();
     }
 
     /*
@@ -212,13 +217,8 @@ public class DefaultIndexHandler<K, V> implements IndexHandler<K, V> {
      * @return the indexed key
      */
     protected Object getIndexedKey(String attributeName, V value) {
-        try {
-            Field field = value.getClass().getDeclaredField(attributeName);
-            field.setAccessible(true);
-            return field.get(value);
-        } catch (Exception e) {
-            throw new AttributeException(e);
-        }
+        Attribute attribute = attributes.get(attributeName);
+        return attribute == null ? Attributes.getValue(value, attributeName) : attribute.get(value);
     }
 
 }
@@ -6,17 +6,15 @@
  */
 package com.KyleDing.imcache.cache.search.filter;
 
-import java.lang.reflect.Field;
-
-import com.KyleDing.imcache.cache.search.AttributeException;
+import com.KyleDing.imcache.cache.search.Attribute;
 
 /**
  * The Class ArithmeticFilter.
  */
 public abstract class ArithmeticFilter extends LogicalFilter {
 
-    /** The attribute name. */
-    private String attributeName;
+    /** The attribute. */
+    private final Attribute attribute;
 
     /** The expected value. */
     protected Object value;
@@ -28,7 +26,7 @@ public abstract class ArithmeticFilter extends LogicalFilter {
      * @param value the expected value
      */
     public ArithmeticFilter(String attributeName, Object value) {
-        this.attributeName = attributeName;
+        this.attribute = new Attribute(attributeName);
         this.value = value;
     }
 
@@ -38,7 +36,7 @@ public abstract class ArithmeticFilter extends LogicalFilter {
      * @return the attribute name
      */
     public String getAttributeName() {
-        return attributeName;
+        return attribute.getName();
     }
 
     /**
@@ -48,13 +46,7 @@ public abstract class ArithmeticFilter extends LogicalFilter {
      * @return the indexed key
      */
     protected Object getAttributeValue(Object object) {
-        try {
-            Field field = object.getClass().getDeclaredField(attributeName);
-            field.setAccessible(true);
-            return field.get(object);
-        } catch (Exception e) {
-            throw new AttributeException(e);
-        }
+        return attribute.get(object);
     }
 
 }
@@ -18,12 +18,14 @@ import java.lang.ref.WeakReference;
 import java.util.AbstractCollection;
 import java.util.AbstractMap;
 import java.util.AbstractSet;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
@@ -39,6 +41,10 @@ import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import com.KyleDing.imcache.concurrent.policy.Evictable;
+import com.KyleDing.imcache.concurrent.policy.EvictionPolicy;
+import com.KyleDing.imcache.concurrent.policy.EvictionPolicyType;
+
 /**
  * A hash table supporting full concurrency of retrievals, adjustable expected
  * concurrency for updates, and a maximum capacity to bound the map by. This
@@ -167,7 +173,7 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
     final int concurrencyLevel;
 
     // These fields provide support to bound the map by a maximum capacity
-    final LinkedDeque<Node> evictionDeque;
+    final EvictionPolicy<Node> evictionPolicy;
 
     // must write under lock
     volatile int weightedSize;
@@ -189,6 +195,12 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
     final Queue<Node> pendingNotifications;
     final EvictionListener<K, V> evictionListener;
 
+    // These fields provide support to expire entries, the timer wheel is
+    // guarded by the eviction lock.
+    final long expireAfterWrite;
+    final long expireAfterAccess;
+    final TimerWheel<Node> timerWheel;
+
     transient Set<K> keySet;
     transient Collection<V> values;
     transient Set<Entry<K, V>> entrySet;
@@ -196,9 +208,39 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
     /**
      * Creates an instance based on the builder's configuration.
      */
-    @SuppressWarnings({ "unchecked", "cast" })
     public ConcurrentLinkedHashMap(int concurrencyLevel, int capacity, int initialCapacity, Weigher<V> weigher,
             long period, ScheduledExecutorService executorService, EvictionListener<K, V> evictionListener) {
+        this(concurrencyLevel, capacity, initialCapacity, weigher, period, executorService, evictionListener, 0, 0);
+    }
+
+    /**
+     * Creates an instance based on the builder's configuration whose entries
+     * expire after the given durations. Expired entries are removed by the
+     * catch up task and reported to the eviction listener.
+     *
+     * @param expireAfterWrite the milliseconds an entry lives after it is
+     *            written, non positive for no limit
+     * @param expireAfterAccess the milliseconds an entry lives after it is
+     *            last read or written, non positive for no limit
+     */
+    public ConcurrentLinkedHashMap(int concurrencyLevel, int capacity, int initialCapacity, Weigher<V> weigher,
+            long period, ScheduledExecutorService executorService, EvictionListener<K, V> evictionListener,
+            long expireAfterWrite, long expireAfterAccess) {
+        this(concurrencyLevel, capacity, initialCapacity, weigher, period, executorService, evictionListener,
+                expireAfterWrite, expireAfterAccess, EvictionPolicyType.LRU);
+    }
+
+    /**
+     * Creates an instance based on the builder's configuration whose entries
+     * expire after the given durations and are evicted by the given policy.
+     *
+     * @param evictionPolicyType the type of the policy choosing the entries to
+     *            evict
+     */
+    @SuppressWarnings({ "unchecked", "cast" })
+    public ConcurrentLinkedHashMap(int concurrencyLevel, int capacity, int initialCapacity, Weigher<V> weigher,
+            long period, ScheduledExecutorService executorService, EvictionListener<K, V> evictionListener,
+            long expireAfterWrite, long expireAfterAccess, EvictionPolicyType evictionPolicyType) {
         // The data store and its maximum capacity
         this.concurrencyLevel = concurrencyLevel;
         this.capacity = Math.min(capacity, MAXIMUM_CAPACITY);
@@ -212,7 +254,7 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
         nextOrder = Integer.MIN_VALUE;
         drainedOrder = Integer.MIN_VALUE;
         evictionLock = new ReentrantLock();
-        evictionDeque = new LinkedDeque<Node>();
+        evictionPolicy = evictionPolicyType.newPolicy(this.capacity);
         drainStatus = new AtomicReference<DrainStatus>(DrainStatus.IDLE);
 
         buffers = (Queue<Task>[]) new Queue[NUMBER_OF_BUFFERS];
@@ -224,6 +266,11 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
         // The notification queue and listener
         this.evictionListener = evictionListener;
         pendingNotifications = new ConcurrentLinkedQueue<Node>();
+
+        // The expiration support
+        this.expireAfterWrite = Math.max(expireAfterWrite, 0);
+        this.expireAfterAccess = Math.max(expireAfterAccess, 0);
+        timerWheel = new TimerWheel<Node>(currentTime());
     }
 
     /** Asserts that the object is not null. */
@@ -259,6 +306,7 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
         evictionLock.lock();
         try {
             this.capacity = Math.min(capacity, MAXIMUM_CAPACITY);
+            evictionPolicy.setCapacity(this.capacity);
             drainBuffers(AMORTIZED_DRAIN_THRESHOLD);
             evict();
         } finally {
@@ -285,7 +333,7 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
         // chosen
         // for removal.
         while (hasOverflowed()) {
-            Node node = evictionDeque.poll();
+            Node node = evictionPolicy.evict();
 
             // If weighted values are used, then the pending operations will
             // adjust
@@ -299,10 +347,124 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
                 pendingNotifications.add(node);
             }
 
+            descheduleExpiration(node);
             node.makeDead();
         }
     }
 
+    /* ---------------- Expiration Support -------------- */
+
+    /**
+     * Gets the expire after write.
+     *
+     * @return the expire after write in milliseconds, 0 if entries never expire
+     */
+    public long getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    /**
+     * Gets the expire after access.
+     *
+     * @return the expire after access in milliseconds, 0 if entries never expire
+     */
+    public long getExpireAfterAccess() {
+        return expireAfterAccess;
+    }
+
+    /** Returns the current time in milliseconds, overridable to drive expiration by another clock. */
+    protected long currentTime() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /** Determines whether the node has expired. */
+    boolean hasExpired(Node node) {
+        long expirationTime = node.expirationTime;
+        return (expirationTime != TimerWheel.NEVER) && (expirationTime <= currentTime());
+    }
+
+    /**
+     * Sets the expiration of a written node, either from the given time to
+     * live or from the map's expiration policy if it is not positive.
+     */
+    void setWriteExpiration(Node node, long ttl) {
+        if (ttl > 0) {
+            node.accessTtl = 0;
+            node.writeExpirationTime = TimerWheel.deadline(currentTime(), ttl);
+            node.expirationTime = node.writeExpirationTime;
+        } else if ((expireAfterWrite == 0) && (expireAfterAccess == 0)) {
+            node.accessTtl = 0;
+            node.writeExpirationTime = TimerWheel.NEVER;
+            node.expirationTime = TimerWheel.NEVER;
+        } else {
+            long now = currentTime();
+            node.accessTtl = expireAfterAccess;
+            node.writeExpirationTime = (expireAfterWrite == 0) ? TimerWheel.NEVER : TimerWheel.deadline(now,
+                    expireAfterWrite);
+            node.expirationTime = (expireAfterAccess == 0) ? node.writeExpirationTime : Math.min(
+                    TimerWheel.deadline(now, expireAfterAccess), node.writeExpirationTime);
+        }
+    }
+
+    /** Extends the expiration of a read node if it expires after access. */
+    void setAccessExpiration(Node node) {
+        long accessTtl = node.accessTtl;
+        if (accessTtl > 0) {
+            node.expirationTime = Math.min(TimerWheel.deadline(currentTime(), accessTtl), node.writeExpirationTime);
+        }
+    }
+
+    /** Moves the node's timer to its expiration time, must hold the lock. */
+    void scheduleExpiration(Node node) {
+        long expirationTime = node.expirationTime;
+        if (expirationTime == TimerWheel.NEVER) {
+            descheduleExpiration(node);
+            return;
+        }
+        if (node.timer == null) {
+            node.timer = new TimerWheel.Timer<Node>(node);
+        }
+        if (!node.timer.isScheduled() || (node.timer.getExpirationTime() != expirationTime)) {
+            timerWheel.schedule(node.timer, expirationTime);
+        }
+    }
+
+    /** Removes the node's timer, must hold the lock. */
+    void descheduleExpiration(Node node) {
+        if (node.timer != null) {
+            timerWheel.deschedule(node.timer);
+        }
+    }
+
+    /**
+     * Advances the timer wheel and removes the entries that have expired,
+     * notifying the listener of them. The entries whose expiration was
+     * extended since their timer was set are rescheduled instead.
+     */
+    void expire() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (timerWheel.size() == 0) {
+                return;
+            }
+            long now = currentTime();
+            for (Node node : timerWheel.advance(now)) {
+                if (node.expirationTime > now) {
+                    scheduleExpiration(node);
+                } else if (map.remove(node.key, node)) {
+                    evictionPolicy.remove(node);
+                    pendingNotifications.add(node);
+                    node.makeDead();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        notifyListener();
+    }
+
     /**
      * Performs the post-processing work required after the map operation.
      *
@@ -557,8 +719,9 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
             // writer was removing it. If the entry is no longer linked then it
             // does
             // not need to be processed.
-            if (evictionDeque.contains(node)) {
-                evictionDeque.moveToBack(node);
+            if (evictionPolicy.contains(node)) {
+                evictionPolicy.access(node);
+                scheduleExpiration(node);
             }
         }
 
@@ -583,7 +746,8 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
 
             // ignore out-of-order write operations
             if (node.get().isAlive()) {
-                evictionDeque.add(node);
+                evictionPolicy.add(node);
+                scheduleExpiration(node);
                 evict();
             }
         }
@@ -604,7 +768,8 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
 
         public void run() {
             // add may not have been processed yet
-            evictionDeque.remove(node);
+            evictionPolicy.remove(node);
+            descheduleExpiration(node);
             node.makeDead();
         }
 
@@ -636,6 +801,32 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
         }
     }
 
+    /** Applies a batch of operations to the page replacement policy at once. */
+    final class BatchTask extends AbstractTask {
+
+        final List<Task> tasks;
+        final boolean write;
+
+        BatchTask(List<Task> tasks) {
+            this.tasks = tasks;
+            boolean write = false;
+            for (Task task : tasks) {
+                write |= task.isWrite();
+            }
+            this.write = write;
+        }
+
+        public void run() {
+            for (Task task : tasks) {
+                task.run();
+            }
+        }
+
+        public boolean isWrite() {
+            return write;
+        }
+    }
+
     @Override
     public boolean isEmpty() {
         return map.isEmpty();
@@ -663,8 +854,9 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
         evictionLock.lock();
         try {
             Node node;
-            while ((node = evictionDeque.poll()) != null) {
+            while ((node = evictionPolicy.evict()) != null) {
                 map.remove(node.key, node);
+                descheduleExpiration(node);
                 node.makeDead();
             }
 
@@ -688,7 +880,8 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
 
     @Override
     public boolean containsKey(Object key) {
-        return map.containsKey(key);
+        final Node node = map.get(key);
+        return (node != null) && !hasExpired(node);
     }
 
     @Override
@@ -706,9 +899,10 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
     @Override
     public V get(Object key) {
         final Node node = map.get(key);
-        if (node == null) {
+        if ((node == null) || hasExpired(node)) {
             return null;
         }
+        setAccessExpiration(node);
         afterCompletion(new ReadTask(node));
         return node.getValue();
     }
@@ -718,6 +912,23 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
         return put(key, value, false);
     }
 
+    /**
+     * Associates the value with the key for the given time to live, regardless
+     * of the map's expiration policy.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @param ttl the milliseconds the entry lives
+     * @return the prior value in the data store or null if no mapping was found
+     * @throws IllegalArgumentException if the time to live is not positive
+     */
+    public V put(K key, V value, long ttl) {
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        return put(key, value, false, ttl, null);
+    }
+
     public V putIfAbsent(K key, V value) {
         return put(key, value, true);
     }
@@ -733,19 +944,38 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
      * @return the prior value in the data store or null if no mapping was found
      */
     V put(K key, V value, boolean onlyIfAbsent) {
+        return put(key, value, onlyIfAbsent, 0, null);
+    }
+
+    /**
+     * Adds a node to the list and the data store. If an existing node is found,
+     * then its value is updated if allowed. The page replacement task is added
+     * to the batch if one is given, otherwise it is scheduled right away.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @param onlyIfAbsent a write is performed only if the key is not already
+     *            associated with a value
+     * @param ttl the time to live of the entry, or non positive to follow the
+     *            map's expiration policy
+     * @param batch the batch to collect the task into or null
+     * @return the prior value in the data store or null if no mapping was found
+     */
+    V put(K key, V value, boolean onlyIfAbsent, long ttl, List<Task> batch) {
         checkNotNull(value);
 
         final int weight = weigher.weightOf(value);
         final WeightedValue<V> weightedValue = new WeightedValue<V>(value, weight);
         final Node node = new Node(key, weightedValue);
+        setWriteExpiration(node, ttl);
 
         for (;;) {
             final Node prior = map.putIfAbsent(node.key, node);
             if (prior == null) {
-                afterCompletion(new AddTask(node, weight));
+                complete(new AddTask(node, weight), batch);
                 return null;
-            } else if (onlyIfAbsent) {
-                afterCompletion(new ReadTask(prior));
+            } else if (onlyIfAbsent && !hasExpired(prior)) {
+                complete(new ReadTask(prior), batch);
                 return prior.getValue();
             }
             for (;;) {
@@ -755,10 +985,11 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
                 }
 
                 if (prior.compareAndSet(oldWeightedValue, weightedValue)) {
+                    setWriteExpiration(prior, ttl);
                     final int weightedDifference = weight - oldWeightedValue.weight;
                     final Task task = (weightedDifference == 0) ? new ReadTask(prior) : new UpdateTask(prior,
                             weightedDifference);
-                    afterCompletion(task);
+                    complete(task, batch);
                     return oldWeightedValue.value;
                 }
             }
@@ -777,6 +1008,94 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
         return node.getValue();
     }
 
+    /**
+     * Returns the values of the keys that are present in the map. The reads are
+     * recorded on the page replacement policy as a single task rather than one
+     * task per key.
+     *
+     * @param keys the keys
+     * @return the present values mapped by their keys
+     */
+    public Map<K, V> getAllPresent(Collection<? extends K> keys) {
+        Map<K, V> values = new HashMap<K, V>();
+        List<Task> batch = new ArrayList<Task>(keys.size());
+        for (K key : keys) {
+            final Node node = map.get(key);
+            if ((node != null) && !hasExpired(node)) {
+                setAccessExpiration(node);
+                values.put(key, node.getValue());
+                batch.add(new ReadTask(node));
+            }
+        }
+        completeBatch(batch);
+        return values;
+    }
+
+    /**
+     * Copies all of the mappings to this map, recording the writes on the page
+     * replacement policy as a single task.
+     *
+     * @param m mappings to be stored in this map
+     */
+    @Override
+    public void putAll(Map<? extends K, ? extends V> m) {
+        List<Task> batch = new ArrayList<Task>(m.size());
+        for (Entry<? extends K, ? extends V> entry : m.entrySet()) {
+            put(entry.getKey(), entry.getValue(), false, 0, batch);
+        }
+        completeBatch(batch);
+    }
+
+    /**
+     * Removes the mappings of the keys, recording the removals on the page
+     * replacement policy as a single task.
+     *
+     * @param keys the keys
+     * @return the removed values mapped by their keys
+     */
+    public Map<K, V> removeAll(Collection<?> keys) {
+        Map<K, V> values = new HashMap<K, V>();
+        List<Task> batch = new ArrayList<Task>(keys.size());
+        for (Object key : keys) {
+            final Node node = map.remove(key);
+            if (node != null) {
+                node.makeRetired();
+                values.put(node.key, node.getValue());
+                batch.add(new RemovalTask(node));
+            }
+        }
+        completeBatch(batch);
+        return values;
+    }
+
+    /**
+     * Adds the task to the batch if one is given, otherwise performs the
+     * post-processing work right away.
+     *
+     * @param task the pending operation
+     * @param batch the batch or null
+     */
+    void complete(Task task, List<Task> batch) {
+        if (batch == null) {
+            afterCompletion(task);
+        } else {
+            batch.add(task);
+        }
+    }
+
+    /**
+     * Performs the post-processing work of a batch of operations at once.
+     *
+     * @param batch the pending operations
+     */
+    void completeBatch(List<Task> batch) {
+        if (batch.size() == 1) {
+            afterCompletion(batch.get(0));
+        } else if (!batch.isEmpty()) {
+            afterCompletion(new BatchTask(batch));
+        }
+    }
+
     public boolean remove(Object key, Object value) {
         Node node = map.get(key);
         if ((node == null) || (value == null)) {
@@ -823,6 +1142,7 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
                 return null;
             }
             if (node.compareAndSet(oldWeightedValue, weightedValue)) {
+                setWriteExpiration(node, 0);
                 int weightedDifference = weight - oldWeightedValue.weight;
                 final Task task = (weightedDifference == 0) ? new ReadTask(node) : new UpdateTask(node,
                         weightedDifference);
@@ -849,6 +1169,7 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
                 return false;
             }
             if (node.compareAndSet(weightedValue, newWeightedValue)) {
+                setWriteExpiration(node, 0);
                 int weightedDifference = weight - weightedValue.weight;
                 final Task task = (weightedDifference == 0) ? new ReadTask(node) : new UpdateTask(node,
                         weightedDifference);
@@ -946,7 +1267,8 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
 
             int initialCapacity = (weigher == Weighers.singleton()) ? Math.min(limit, weightedSize()) : 16;
             Set<K> keys = new LinkedHashSet<K>(initialCapacity);
-            Iterator<Node> iterator = ascending ? evictionDeque.iterator() : evictionDeque.descendingIterator();
+            Iterator<Node> iterator = ascending ? evictionPolicy.ascendingIterator() : evictionPolicy
+                    .descendingIterator();
             while (iterator.hasNext() && (limit > keys.size())) {
                 keys.add(iterator.next().key);
             }
@@ -1054,7 +1376,8 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
 
             int initialCapacity = (weigher == Weighers.singleton()) ? Math.min(limit, weightedSize()) : 16;
             Map<K, V> map = new LinkedHashMap<K, V>(initialCapacity);
-            Iterator<Node> iterator = ascending ? evictionDeque.iterator() : evictionDeque.descendingIterator();
+            Iterator<Node> iterator = ascending ? evictionPolicy.ascendingIterator() : evictionPolicy
+                    .descendingIterator();
             while (iterator.hasNext() && (limit > map.size())) {
                 Node node = iterator.next();
                 map.put(node.key, node.getValue());
@@ -1110,13 +1433,23 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
      * the page-replacement algorithm's data structures.
      */
     @SuppressWarnings("serial")
-    final class Node extends AtomicReference<WeightedValue<V>> implements Linked<Node> {
+    final class Node extends AtomicReference<WeightedValue<V>> implements Evictable<Node> {
 
         final K key;
 
         Node prev;
         Node next;
 
+        // The region of the eviction policy, guarded by the eviction lock
+        int region;
+
+        // The expiration of the entry in milliseconds, the timer is guarded by
+        // the eviction lock
+        volatile long expirationTime = TimerWheel.NEVER;
+        volatile long writeExpirationTime = TimerWheel.NEVER;
+        volatile long accessTtl;
+        TimerWheel.Timer<Node> timer;
+
         /** Creates a new, unlinked node. */
         Node(K key, WeightedValue<V> weightedValue) {
             super(weightedValue);
@@ -1127,6 +1460,18 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
             return prev;
         }
 
+        public Object getKey() {
+            return key;
+        }
+
+        public int getRegion() {
+            return region;
+        }
+
+        public void setRegion(int region) {
+            this.region = region;
+        }
+
         public void setPrevious(Node prev) {
             this.prev = prev;
         }
@@ -1439,6 +1784,7 @@ public class ConcurrentLinkedHashMap<K, V> extends AbstractMap<K, V> implements
             if (pendingTasks != 0) {
                 map.tryToDrainBuffers(pendingTasks + BUFFER_THRESHOLD);
             }
+            map.expire();
         }
     }
 
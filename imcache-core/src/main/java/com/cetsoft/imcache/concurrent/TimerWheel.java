@@ -0,0 +1,312 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.concurrent;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A hierarchical timing wheel that keeps timers ordered by their expiration
+ * time in milliseconds. Scheduling, rescheduling and descheduling a timer are
+ * O(1) and advancing the wheel only visits the buckets whose time has come, so
+ * expiring entries does not require scanning all of them. Each level is a ring
+ * of buckets, a bucket of a level spans a whole revolution of the level below
+ * it and timers cascade down the levels as their expiration time approaches.
+ * Timers further away than the last ring are kept in an overflow bucket.
+ * <p>
+ * This class is not thread safe, callers guard it with their own lock.
+ *
+ * @param <E> the type of the elements the timers belong to
+ */
+public class TimerWheel<E> {
+
+    /** The number of buckets of each level. */
+    static final int[] BUCKETS = { 64, 64, 32, 64, 1 };
+
+    /**
+     * The shifts giving the time span of a bucket of each level, ~128ms, ~8s,
+     * ~8.7m, ~4.6h and ~12.4d (overflow) respectively.
+     */
+    static final int[] SHIFTS = { 7, 13, 19, 24, 30 };
+
+    /** The expiration time of timers that never expire. */
+    public static final long NEVER = Long.MAX_VALUE;
+
+    /** The buckets, each holds the head of a linked list of timers. */
+    final Timer<E>[][] wheel;
+
+    /** The time the wheel was last advanced to. */
+    long time;
+
+    /** The number of scheduled timers. */
+    int size;
+
+    /**
+     * Instantiates a new timer wheel.
+     *
+     * @param time the current time in milliseconds
+     */
+    @SuppressWarnings("unchecked")
+    public TimerWheel(long time) {
+        this.time = time;
+        wheel = new Timer[BUCKETS.length][];
+        for (int i = 0; i < BUCKETS.length; i++) {
+            wheel[i] = new Timer[BUCKETS[i]];
+        }
+    }
+
+    /**
+     * Adds the duration to the time without overflowing.
+     *
+     * @param time the time in milliseconds
+     * @param duration the duration in milliseconds
+     * @return the deadline, {@link #NEVER} if it is too far away
+     */
+    public static long deadline(long time, long duration) {
+        return duration >= NEVER - time ? NEVER : time + duration;
+    }
+
+    /**
+     * Schedules the timer to expire at the given time, moving it if it is
+     * already scheduled.
+     *
+     * @param timer the timer
+     * @param expirationTime the expiration time in milliseconds
+     */
+    public void schedule(Timer<E> timer, long expirationTime) {
+        deschedule(timer);
+        timer.expirationTime = expirationTime;
+        link(timer);
+        size++;
+    }
+
+    /**
+     * Removes the timer from the wheel if it is scheduled.
+     *
+     * @param timer the timer
+     */
+    public void deschedule(Timer<E> timer) {
+        if (timer.isScheduled()) {
+            unlink(timer);
+            size--;
+        }
+    }
+
+    /**
+     * Advances the wheel to the given time and removes the timers that have
+     * expired by then. A bucket is visited once the clock has passed it, so a
+     * timer is reported up to a bucket span of the finest level after it
+     * expires; callers needing exact expiration check the expiration time
+     * themselves.
+     *
+     * @param currentTime the current time in milliseconds
+     * @return the elements of the expired timers
+     */
+    public List<E> advance(long currentTime) {
+        long previousTime = time;
+        time = currentTime;
+        List<E> expired = null;
+        for (int i = 0; i < SHIFTS.length; i++) {
+            long previousTicks = previousTime >>> SHIFTS[i];
+            long currentTicks = currentTime >>> SHIFTS[i];
+            if (currentTicks - previousTicks <= 0L) {
+                break;
+            }
+            expired = expire(i, previousTicks, currentTicks, expired);
+        }
+        if (expired == null) {
+            return Collections.emptyList();
+        }
+        return expired;
+    }
+
+    /**
+     * Visits the buckets of the level that the clock went over, expiring the
+     * timers that are due and cascading the rest down to a finer level.
+     *
+     * @param level the level
+     * @param previousTicks the ticks of the level at the previous time
+     * @param currentTicks the ticks of the level at the current time
+     * @param expired the expired elements so far, may be null
+     * @return the expired elements, may be null
+     */
+    List<E> expire(int level, long previousTicks, long currentTicks, List<E> expired) {
+        Timer<E>[] buckets = wheel[level];
+        int mask = buckets.length - 1;
+        int start;
+        int end;
+        if (currentTicks - previousTicks >= buckets.length) {
+            start = 0;
+            end = buckets.length;
+        } else {
+            start = (int) (previousTicks & mask);
+            end = start + (int) (currentTicks - previousTicks) + 1;
+        }
+        for (int i = start; i < end; i++) {
+            int index = i & mask;
+            Timer<E> timer = buckets[index];
+            buckets[index] = null;
+            while (timer != null) {
+                Timer<E> next = timer.next;
+                timer.previous = null;
+                timer.next = null;
+                timer.level = -1;
+                if (timer.expirationTime <= time) {
+                    size--;
+                    if (expired == null) {
+                        expired = new ArrayList<E>();
+                    }
+                    expired.add(timer.element);
+                } else {
+                    link(timer);
+                }
+                timer = next;
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Links the timer to the bucket of the finest level that can hold it.
+     *
+     * @param timer the timer
+     */
+    void link(Timer<E> timer) {
+        // An overdue timer goes to the current bucket to expire on next advance.
+        long expirationTime = Math.max(timer.expirationTime, time);
+        long duration = expirationTime - time;
+        int level = BUCKETS.length - 1;
+        for (int i = 0; i < level; i++) {
+            if (duration < (1L << SHIFTS[i + 1])) {
+                level = i;
+                break;
+            }
+        }
+        Timer<E>[] buckets = wheel[level];
+        int index = (int) ((expirationTime >>> SHIFTS[level]) & (buckets.length - 1));
+        Timer<E> head = buckets[index];
+        timer.next = head;
+        if (head != null) {
+            head.previous = timer;
+        }
+        buckets[index] = timer;
+        timer.level = level;
+        timer.index = index;
+    }
+
+    /**
+     * Unlinks the timer from its bucket.
+     *
+     * @param timer the timer
+     */
+    void unlink(Timer<E> timer) {
+        if (timer.previous == null) {
+            wheel[timer.level][timer.index] = timer.next;
+        } else {
+            timer.previous.next = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.previous = timer.previous;
+        }
+        timer.previous = null;
+        timer.next = null;
+        timer.level = -1;
+    }
+
+    /**
+     * Removes all of the timers.
+     */
+    public void clear() {
+        for (int i = 0; i < wheel.length; i++) {
+            for (int j = 0; j < wheel[i].length; j++) {
+                Timer<E> timer = wheel[i][j];
+                while (timer != null) {
+                    Timer<E> next = timer.next;
+                    timer.previous = null;
+                    timer.next = null;
+                    timer.level = -1;
+                    timer = next;
+                }
+                wheel[i][j] = null;
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * Gets the number of scheduled timers.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The Class Timer.
+     *
+     * @param <E> the element type
+     */
+    public static class Timer<E> {
+
+        /** The element. */
+        final E element;
+
+        /** The expiration time. */
+        long expirationTime = NEVER;
+
+        /** The previous timer of the bucket. */
+        Timer<E> previous;
+
+        /** The next timer of the bucket. */
+        Timer<E> next;
+
+        /** The level of the bucket, -1 when the timer is not scheduled. */
+        int level = -1;
+
+        /** The index of the bucket. */
+        int index;
+
+        /**
+         * Instantiates a new timer.
+         *
+         * @param element the element
+         */
+        public Timer(E element) {
+            this.element = element;
+        }
+
+        /**
+         * Gets the element.
+         *
+         * @return the element
+         */
+        public E getElement() {
+            return element;
+        }
+
+        /**
+         * Gets the expiration time.
+         *
+         * @return the expiration time in milliseconds
+         */
+        public long getExpirationTime() {
+            return expirationTime;
+        }
+
+        /**
+         * Checks if the timer is scheduled.
+         *
+         * @return true, if scheduled
+         */
+        public boolean isScheduled() {
+            return level != -1;
+        }
+    }
+}
@@ -81,13 +81,34 @@ public class StripedReadWriteLock {
         getLock(id).writeLock().unlock();
     }
 
+    /**
+     * Gets the stripe of the lock associated with the given id. Ids of the same
+     * stripe share a lock, so a batch of ids can be grouped by stripe and each
+     * stripe locked once by passing the stripe itself as the id.
+     *
+     * @param id value, from which lock is derived
+     * @return the stripe
+     */
+    public int getStripe(int id) {
+        return id & (locks.length - 1);
+    }
+
+    /**
+     * Gets the number of stripes.
+     *
+     * @return the number of stripes
+     */
+    public int getStripeCount() {
+        return locks.length;
+    }
+
     /**
      * Finds the lock associated with the id
      *
      * @param id value, from which lock is derived
      * @return lock which is associated with the id
      */
-    private ReentrantReadWriteLock getLock(int id) {
+    protected ReentrantReadWriteLock getLock(int id) {
         // locks.length-1 is a string of ones since lock.length is power of 2,
         // thus ending cancels out the higher bits of id and leaves the lower
         // bits
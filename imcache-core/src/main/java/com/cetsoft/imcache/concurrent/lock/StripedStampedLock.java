@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.concurrent.lock;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The StripedStampedLock is a {@link StripedReadWriteLock} whose stripes can
+ * also be read optimistically, in the way of
+ * java.util.concurrent.locks.StampedLock. Each stripe has a sequence that a
+ * writer makes odd when it takes the write lock and even again when it
+ * releases it. A reader takes a stamp, reads without locking and then
+ * validates the stamp; the read is consistent if no writer held the stripe
+ * meanwhile, otherwise the reader retries or takes the read lock.
+ * <p>
+ * What is read optimistically may be inconsistent until it is validated, so
+ * an optimistic reader must not act on it before and must tolerate exceptions
+ * caused by it. Optimistic reads and validations only load the sequence, so
+ * readers do not write the cache line of the stripe.
+ */
+public class StripedStampedLock extends StripedReadWriteLock {
+
+    /** The Constant PADDING, the sequences are a cache line apart. */
+    private static final int PADDING = 8;
+
+    /** The sequences of the stripes. */
+    private final AtomicLongArray sequences;
+
+    /**
+     * Default factor, creates 16 locks
+     */
+    public StripedStampedLock() {
+        this(4);
+    }
+
+    /**
+     * Creates array of locks, size of array may be any from set {2^1, 2^2, ...,
+     * 2^11}
+     *
+     * @param storagePower size of array will be equal to 2^storagePower
+     */
+    public StripedStampedLock(int storagePower) {
+        super(storagePower);
+        sequences = new AtomicLongArray(getStripeCount() * PADDING);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.concurrent.lock.StripedReadWriteLock#writeLock(int)
+     */
+    public void writeLock(int id) {
+        super.writeLock(id);
+        if (getLock(id).getWriteHoldCount() == 1) {
+            // The atomic increment keeps the writes of the writer after it.
+            sequences.incrementAndGet(getStripe(id) * PADDING);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.concurrent.lock.StripedReadWriteLock#writeUnlock(int)
+     */
+    public void writeUnlock(int id) {
+        if (getLock(id).getWriteHoldCount() == 1) {
+            int index = getStripe(id) * PADDING;
+            sequences.set(index, sequences.get(index) + 1);
+        }
+        super.writeUnlock(id);
+    }
+
+    /**
+     * Gets a stamp to read the stripe of the id optimistically.
+     *
+     * @param id value, from which lock is derived
+     * @return the stamp, which does not validate if the stripe is write locked
+     */
+    public long tryOptimisticRead(int id) {
+        return sequences.get(getStripe(id) * PADDING);
+    }
+
+    /**
+     * Checks that the stripe of the id was not write locked since the stamp
+     * was taken, so that what was read meanwhile is consistent.
+     *
+     * @param id value, from which lock is derived
+     * @param stamp the stamp
+     * @return true, if the stamp is valid
+     */
+    public boolean validate(int id, long stamp) {
+        if ((stamp & 1) != 0) {
+            return false;
+        }
+        loadFence();
+        return sequences.get(getStripe(id) * PADDING) == stamp;
+    }
+
+    /**
+     * Keeps the optimistic reads from being reordered after the volatile read
+     * of the sequence that validates them. The default relies on that read
+     * alone; readers of memory the JVM does not order, such as native memory,
+     * override it with a load fence.
+     */
+    protected void loadFence() {
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.concurrent.policy;
+
+import com.KyleDing.imcache.concurrent.Linked;
+
+/**
+ * An element that an {@link EvictionPolicy} keeps track of.
+ *
+ * @param <E> the element type
+ */
+public interface Evictable<E extends Evictable<E>> extends Linked<E> {
+
+    /**
+     * Gets the key of the element, whose hash code identifies the element in
+     * the frequency history of a policy.
+     *
+     * @return the key
+     */
+    Object getKey();
+
+    /**
+     * Gets the region of the policy the element is in, 0 if it is in none.
+     *
+     * @return the region
+     */
+    int getRegion();
+
+    /**
+     * Sets the region of the policy the element is in.
+     *
+     * @param region the region
+     */
+    void setRegion(int region);
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.concurrent.policy;
+
+import java.util.Iterator;
+
+/**
+ * The Interface EvictionPolicy decides which element to evict when a bounded
+ * map exceeds its capacity. Implementations are not thread safe, the map
+ * guards the policy with its eviction lock.
+ *
+ * @param <E> the element type
+ */
+public interface EvictionPolicy<E extends Evictable<E>> {
+
+    /**
+     * Sets the maximum number of elements the map holds, which policies with
+     * several regions use to size them.
+     *
+     * @param capacity the capacity
+     */
+    void setCapacity(int capacity);
+
+    /**
+     * Records that the element is added to the map.
+     *
+     * @param element the element
+     */
+    void add(E element);
+
+    /**
+     * Records that the element is accessed.
+     *
+     * @param element the element
+     */
+    void access(E element);
+
+    /**
+     * Removes the element from the policy.
+     *
+     * @param element the element
+     */
+    void remove(E element);
+
+    /**
+     * Checks if the policy keeps track of the element.
+     *
+     * @param element the element
+     * @return true, if the element is in the policy
+     */
+    boolean contains(E element);
+
+    /**
+     * Chooses the element to evict and removes it from the policy.
+     *
+     * @return the victim, null if the policy is empty
+     */
+    E evict();
+
+    /**
+     * Iterates over the elements in the order they are considered eligible for
+     * retention, from the least likely to be retained to the most likely.
+     *
+     * @return the iterator
+     */
+    Iterator<E> ascendingIterator();
+
+    /**
+     * Iterates over the elements from the most likely to be retained to the
+     * least likely.
+     *
+     * @return the iterator
+     */
+    Iterator<E> descendingIterator();
+}
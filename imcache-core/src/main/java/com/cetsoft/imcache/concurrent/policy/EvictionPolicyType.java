@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.concurrent.policy;
+
+/**
+ * The Enum EvictionPolicyType.
+ */
+public enum EvictionPolicyType {
+
+    /** Evicts the least recently used element. */
+    LRU {
+        @Override
+        public <E extends Evictable<E>> EvictionPolicy<E> newPolicy(int capacity) {
+            return new LruPolicy<E>();
+        }
+    },
+
+    /**
+     * Admits elements by their frequency to a segmented LRU behind a small LRU
+     * window, which keeps the working set through scans.
+     */
+    W_TINY_LFU {
+        @Override
+        public <E extends Evictable<E>> EvictionPolicy<E> newPolicy(int capacity) {
+            return new WindowTinyLfuPolicy<E>(capacity);
+        }
+    };
+
+    /**
+     * Creates a new policy of this type.
+     *
+     * @param <E> the element type
+     * @param capacity the capacity
+     * @return the eviction policy
+     */
+    public abstract <E extends Evictable<E>> EvictionPolicy<E> newPolicy(int capacity);
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.concurrent.policy;
+
+/**
+ * The Class FrequencySketch estimates how often keys were seen recently with a
+ * count-min sketch of 4-bit counters. Each key is counted in four counters of
+ * a table of longs, each long holding sixteen counters, and its frequency is
+ * the smallest of them. Once the number of additions reaches ten times the
+ * maximum size, all counters are halved so that the history ages and old
+ * popularity fades away.
+ * <p>
+ * This class is not thread safe.
+ */
+public class FrequencySketch {
+
+    /** The seeds of the hash functions. */
+    static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+            0xcbf29ce484222325L };
+
+    /** The mask halving the counters after they are shifted right by one. */
+    static final long RESET_MASK = 0x7777777777777777L;
+
+    /** The mask of the lowest bit of each counter. */
+    static final long ONE_MASK = 0x1111111111111111L;
+
+    /** The maximum value of a counter. */
+    static final int MAX_COUNT = 15;
+
+    /** The table of counters. */
+    long[] table;
+
+    /** The table mask. */
+    int tableMask;
+
+    /** The number of additions since the last reset. */
+    int size;
+
+    /** The number of additions after which the counters are halved. */
+    int sampleSize;
+
+    /**
+     * Instantiates a new frequency sketch.
+     *
+     * @param maximumSize the maximum number of elements the cache holds
+     */
+    public FrequencySketch(int maximumSize) {
+        ensureCapacity(maximumSize);
+    }
+
+    /**
+     * Resizes the table for the maximum size, forgetting the history.
+     *
+     * @param maximumSize the maximum number of elements the cache holds
+     */
+    public void ensureCapacity(int maximumSize) {
+        int maximum = Math.min(Math.max(maximumSize, 1), 1 << 30);
+        int length = Integer.highestOneBit(maximum);
+        if (length < maximum) {
+            length <<= 1;
+        }
+        if (table != null && table.length == length) {
+            return;
+        }
+        table = new long[length];
+        tableMask = length - 1;
+        sampleSize = (maximum <= Integer.MAX_VALUE / 10) ? 10 * maximum : Integer.MAX_VALUE;
+        size = 0;
+    }
+
+    /**
+     * Returns the estimated number of times the key was seen, at most 15.
+     *
+     * @param key the key
+     * @return the frequency
+     */
+    public int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * Increments the frequency of the key, aging the history when the sample
+     * is full.
+     *
+     * @param key the key
+     */
+    public void increment(Object key) {
+        int hash = spread(key.hashCode());
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && (++size == sampleSize)) {
+            reset();
+        }
+    }
+
+    /**
+     * Increments the counter of the table entry unless it is at its maximum.
+     *
+     * @param index the index of the table entry
+     * @param counter the counter within the entry, 0 to 15
+     * @return true, if incremented
+     */
+    boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Halves all of the counters.
+     */
+    void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (odd >>> 2);
+    }
+
+    /**
+     * Gets the index of the table entry of the hash function.
+     *
+     * @param hash the spread hash of the key
+     * @param i the hash function
+     * @return the index
+     */
+    int indexOf(int hash, int i) {
+        long index = (hash + SEEDS[i]) * SEEDS[i];
+        index += index >>> 32;
+        return ((int) index) & tableMask;
+    }
+
+    /**
+     * Spreads the bits of a poor hash code.
+     *
+     * @param hashCode the hash code
+     * @return the spread hash
+     */
+    static int spread(int hashCode) {
+        int x = hashCode;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        x = ((x >>> 16) ^ x) * 0x45d9f3b;
+        return (x >>> 16) ^ x;
+    }
+}
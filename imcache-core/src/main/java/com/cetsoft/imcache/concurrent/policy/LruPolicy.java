@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.concurrent.policy;
+
+import java.util.Iterator;
+
+import com.KyleDing.imcache.concurrent.LinkedDeque;
+
+/**
+ * The Class LruPolicy evicts the least recently used element.
+ *
+ * @param <E> the element type
+ */
+public class LruPolicy<E extends Evictable<E>> implements EvictionPolicy<E> {
+
+    /** The deque, from the least recently used to the most. */
+    final LinkedDeque<E> deque = new LinkedDeque<E>();
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.concurrent.policy.EvictionPolicy#setCapacity(int)
+     */
+    public void setCapacity(int capacity) {
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.concurrent.policy.EvictionPolicy#add(com.KyleDing
+     * .imcache.concurrent.policy.Evictable)
+     */
+    public void add(E element) {
+        deque.add(element);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.concurrent.policy.EvictionPolicy#access(com.KyleDing
+     * .imcache.concurrent.policy.Evictable)
+     */
+    public void access(E element) {
+        if (deque.contains(element)) {
+            deque.moveToBack(element);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.concurrent.policy.EvictionPolicy#remove(com.KyleDing
+     * .imcache.concurrent.policy.Evictable)
+     */
+    public void remove(E element) {
+        deque.remove(element);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.concurrent.policy.EvictionPolicy#contains(com.KyleDing
+     * .imcache.concurrent.policy.Evictable)
+     */
+    public boolean contains(E element) {
+        return deque.contains(element);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.concurrent.policy.EvictionPolicy#evict()
+     */
+    public E evict() {
+        return deque.poll();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.concurrent.policy.EvictionPolicy#ascendingIterator()
+     */
+    public Iterator<E> ascendingIterator() {
+        return deque.iterator();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.concurrent.policy.EvictionPolicy#descendingIterator()
+     */
+    public Iterator<E> descendingIterator() {
+        return deque.descendingIterator();
+    }
+}
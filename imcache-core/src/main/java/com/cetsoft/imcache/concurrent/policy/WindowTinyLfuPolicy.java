@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.concurrent.policy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import com.KyleDing.imcache.concurrent.LinkedDeque;
+
+/**
+ * The Class WindowTinyLfuPolicy implements W-TinyLFU. New elements enter a
+ * small LRU admission window. Elements leaving the window become candidates for
+ * the main region, a segmented LRU of a probation and a protected segment, and
+ * are admitted only if the frequency sketch saw them more often than the
+ * element the main region would evict instead. Elements accessed while on
+ * probation are promoted to the protected segment. As a one-off scan rarely
+ * beats the frequency of the working set, scans pass through the window without
+ * flushing the main region.
+ * <p>
+ * The regions are sized by the number of elements, 1% of the capacity for the
+ * window and 80% of the main region for the protected segment.
+ *
+ * @param <E> the element type
+ */
+public class WindowTinyLfuPolicy<E extends Evictable<E>> implements EvictionPolicy<E> {
+
+    /** The region of the elements in the window. */
+    static final int WINDOW = 1;
+
+    /** The region of the elements on probation. */
+    static final int PROBATION = 2;
+
+    /** The region of the protected elements. */
+    static final int PROTECTED = 3;
+
+    /** The percentage of the capacity for the window. */
+    static final int WINDOW_PERCENTAGE = 1;
+
+    /** The percentage of the main region for the protected segment. */
+    static final int PROTECTED_PERCENTAGE = 80;
+
+    /** The window. */
+    final LinkedDeque<E> window = new LinkedDeque<E>();
+
+    /** The probation segment. */
+    final LinkedDeque<E> probation = new LinkedDeque<E>();
+
+    /** The protected segment. */
+    final LinkedDeque<E> protectedSegment = new LinkedDeque<E>();
+
+    /** The frequency sketch. */
+    final FrequencySketch sketch;
+
+    /** The maximum size of the window. */
+    int maxWindow;
+
+    /** The maximum size of the protected segment. */
+    int maxProtected;
+
+    /** The size of the window. */
+    int windowSize;
+
+    /** The size of the protected segment. */
+    int protectedSize;
+
+    /** The element that left the window last and awaits admission. */
+    E candidate;
+
+    /**
+     * Instantiates a new window tiny lfu policy.
+     *
+     * @param capacity the capacity
+     */
+    public WindowTinyLfuPolicy(int capacity) {
+        sketch = new FrequencySketch(capacity);
+        setCapacity(capacity);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.concurrent.policy.EvictionPolicy#setCapacity(int)
+     */
+    public void setCapacity(int capacity) {
+        maxWindow = Math.max(1, (int) ((long) capacity * WINDOW_PERCENTAGE / 100));
+        maxProtected = (int) ((long) Math.max(0, capacity - maxWindow) * PROTECTED_PERCENTAGE / 100);
+        sketch.ensureCapacity(capacity);
+        while (windowSize > maxWindow) {
+            evictFromWindow();
+        }
+        while (protectedSize > maxProtected) {
+            demote();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.concurrent.policy.EvictionPolicy#add(com.KyleDing
+     * .imcache.concurrent.policy.Evictable)
+     */
+    public void add(E element) {
+        sketch.increment(element.getKey());
+        window.add(element);
+        element.setRegion(WINDOW);
+        windowSize++;
+        if (windowSize > maxWindow) {
+            evictFromWindow();
+        }
+    }
+
+    /**
+     * Moves the least recently used element of the window to probation, where
+     * it awaits admission.
+     */
+    void evictFromWindow() {
+        E element = window.poll();
+        windowSize--;
+        probation.add(element);
+        element.setRegion(PROBATION);
+        candidate = element;
+    }
+
+    /**
+     * Moves the least recently used protected element back to probation.
+     */
+    void demote() {
+        E element = protectedSegment.poll();
+        protectedSize--;
+        probation.add(element);
+        element.setRegion(PROBATION);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.concurrent.policy.EvictionPolicy#access(com.KyleDing
+     * .imcache.concurrent.policy.Evictable)
+     */
+    public void access(E element) {
+        switch (element.getRegion()) {
+        case WINDOW:
+            sketch.increment(element.getKey());
+            window.moveToBack(element);
+            break;
+        case PROBATION:
+            sketch.increment(element.getKey());
+            probation.remove(element);
+            if (element == candidate) {
+                candidate = null;
+            }
+            protectedSegment.add(element);
+            element.setRegion(PROTECTED);
+            protectedSize++;
+            while (protectedSize > maxProtected) {
+                demote();
+            }
+            break;
+        case PROTECTED:
+            sketch.increment(element.getKey());
+            protectedSegment.moveToBack(element);
+            break;
+        default:
+            break;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.concurrent.policy.EvictionPolicy#remove(com.KyleDing
+     * .imcache.concurrent.policy.Evictable)
+     */
+    public void remove(E element) {
+        switch (element.getRegion()) {
+        case WINDOW:
+            window.remove(element);
+            windowSize--;
+            break;
+        case PROBATION:
+            probation.remove(element);
+            break;
+        case PROTECTED:
+            protectedSegment.remove(element);
+            protectedSize--;
+            break;
+        default:
+            return;
+        }
+        element.setRegion(0);
+        if (element == candidate) {
+            candidate = null;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.concurrent.policy.EvictionPolicy#contains(com.KyleDing
+     * .imcache.concurrent.policy.Evictable)
+     */
+    public boolean contains(E element) {
+        return element.getRegion() != 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.concurrent.policy.EvictionPolicy#evict()
+     */
+    public E evict() {
+        E victim = probation.peek();
+        if (candidate != null && victim != null && victim != candidate) {
+            // The candidate is admitted only if it is more popular than the
+            // victim of the main region, otherwise it is evicted itself.
+            if (sketch.frequency(candidate.getKey()) <= sketch.frequency(victim.getKey())) {
+                victim = candidate;
+            }
+        }
+        if (victim == null) {
+            victim = window.isEmpty() ? protectedSegment.peek() : window.peek();
+        }
+        if (victim != null) {
+            remove(victim);
+        }
+        candidate = null;
+        return victim;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.concurrent.policy.EvictionPolicy#ascendingIterator()
+     */
+    public Iterator<E> ascendingIterator() {
+        List<E> elements = new ArrayList<E>(probation);
+        elements.addAll(window);
+        elements.addAll(protectedSegment);
+        return elements.iterator();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.concurrent.policy.EvictionPolicy#descendingIterator()
+     */
+    public Iterator<E> descendingIterator() {
+        List<E> elements = new ArrayList<E>(probation);
+        elements.addAll(window);
+        elements.addAll(protectedSegment);
+        Collections.reverse(elements);
+        return elements.iterator();
+    }
+}
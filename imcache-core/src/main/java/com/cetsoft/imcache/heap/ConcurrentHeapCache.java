@@ -7,32 +7,41 @@
  */
 package com.KyleDing.imcache.heap;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.KyleDing.imcache.cache.AbstractSearchableCache;
 import com.KyleDing.imcache.cache.CacheLoader;
 import com.KyleDing.imcache.cache.EvictionListener;
+import com.KyleDing.imcache.cache.ExpiringCache;
 import com.KyleDing.imcache.cache.search.IndexHandler;
 import com.KyleDing.imcache.cache.util.ThreadUtils;
 import com.KyleDing.imcache.concurrent.ConcurrentLinkedHashMap;
 import com.KyleDing.imcache.concurrent.Weigher;
 import com.KyleDing.imcache.concurrent.Weighers;
+import com.KyleDing.imcache.concurrent.policy.EvictionPolicyType;
 
 /**
  * The Class ConcurrentHeapCache. ConcurrentHeapCache uses LRU(Least Recently
- * Used) as eviction strategy by the help of ConcurrentLinkedHashMap. As a
- * result, ConcurrentHeapCache discards the least recently used items first when
- * eviction required. Eviction occurs if the size of the cache is equal to the
- * cache capacity in a put operation
+ * Used) as eviction strategy by the help of ConcurrentLinkedHashMap by default.
+ * As a result, ConcurrentHeapCache discards the least recently used items first
+ * when eviction required, W-TinyLFU can be chosen instead to keep the frequently
+ * used items through scans. Eviction occurs if the size of the cache is equal
+ * to the cache capacity in a put operation. Entries can also expire after write or
+ * access, expired entries are removed by the eviction thread.
  *
  * @param <K> the key type
  * @param <V> the value type
  */
-public class ConcurrentHeapCache<K, V> extends AbstractSearchableCache<K, V> {
+public class ConcurrentHeapCache<K, V> extends AbstractSearchableCache<K, V> implements ExpiringCache<K, V> {
 
     /** The Constant NO_OF_EVICTORS. */
     protected static final AtomicInteger NO_OF_EVICTORS = new AtomicInteger();
@@ -44,7 +53,7 @@ public class ConcurrentHeapCache<K, V> extends AbstractSearchableCache<K, V> {
     protected AtomicLong miss = new AtomicLong();
 
     /** The cache. */
-    protected Map<K, V> cache;
+    protected ConcurrentLimitedHashMap cache;
 
     /**
      * Instantiates a new concurrent heap cache.
@@ -56,17 +65,59 @@ public class ConcurrentHeapCache<K, V> extends AbstractSearchableCache<K, V> {
      */
     public ConcurrentHeapCache(CacheLoader<K, V> cacheLoader, EvictionListener<K, V> evictionListener,
             IndexHandler<K, V> indexHandler, int capacity) {
+        this(cacheLoader, evictionListener, indexHandler, capacity, 0, 0);
+    }
+
+    /**
+     * Instantiates a new concurrent heap cache whose entries expire.
+     *
+     * @param cacheLoader the cache loader
+     * @param evictionListener the eviction listener
+     * @param indexHandler the query executer
+     * @param capacity the capacity
+     * @param expireAfterWrite the milliseconds an entry lives after it is
+     *            written, 0 for no limit
+     * @param expireAfterAccess the milliseconds an entry lives after it is
+     *            last accessed, 0 for no limit
+     */
+    public ConcurrentHeapCache(CacheLoader<K, V> cacheLoader, EvictionListener<K, V> evictionListener,
+            IndexHandler<K, V> indexHandler, int capacity, long expireAfterWrite, long expireAfterAccess) {
+        this(cacheLoader, evictionListener, indexHandler, capacity, expireAfterWrite, expireAfterAccess,
+                EvictionPolicyType.LRU);
+    }
+
+    /**
+     * Instantiates a new concurrent heap cache whose entries expire and are
+     * evicted by the given policy.
+     *
+     * @param cacheLoader the cache loader
+     * @param evictionListener the eviction listener
+     * @param indexHandler the query executer
+     * @param capacity the capacity
+     * @param expireAfterWrite the milliseconds an entry lives after it is
+     *            written, 0 for no limit
+     * @param expireAfterAccess the milliseconds an entry lives after it is
+     *            last accessed, 0 for no limit
+     * @param evictionPolicyType the eviction policy type
+     */
+    public ConcurrentHeapCache(CacheLoader<K, V> cacheLoader, EvictionListener<K, V> evictionListener,
+            IndexHandler<K, V> indexHandler, int capacity, long expireAfterWrite, long expireAfterAccess,
+            EvictionPolicyType evictionPolicyType) {
         super(cacheLoader, evictionListener, indexHandler);
-        initCache(capacity);
+        initCache(capacity, expireAfterWrite, expireAfterAccess, evictionPolicyType);
     }
 
     /**
      * Inits the cache.
      *
      * @param capacity the capacity
+     * @param expireAfterWrite the expire after write
+     * @param expireAfterAccess the expire after access
+     * @param evictionPolicyType the eviction policy type
      */
-    private void initCache(int capacity) {
-        cache = new ConcurrentLimitedHashMap(capacity);
+    private void initCache(int capacity, long expireAfterWrite, long expireAfterAccess,
+            EvictionPolicyType evictionPolicyType) {
+        cache = new ConcurrentLimitedHashMap(capacity, expireAfterWrite, expireAfterAccess, evictionPolicyType);
     }
 
     /*
@@ -79,6 +130,16 @@ public class ConcurrentHeapCache<K, V> extends AbstractSearchableCache<K, V> {
         cache.put(key, value);
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.ExpiringCache#put(java.lang.Object,
+     * java.lang.Object, long)
+     */
+    public void put(K key, V value, long ttl) {
+        cache.put(key, value, ttl);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -97,6 +158,49 @@ public class ConcurrentHeapCache<K, V> extends AbstractSearchableCache<K, V> {
         return cache.remove(key);
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.AbstractCache#putAll(java.util.Map)
+     */
+    @Override
+    public void putAll(Map<K, V> entries) {
+        cache.putAll(entries);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.AbstractCache#getAll(java.util.Collection)
+     */
+    @Override
+    public Map<K, V> getAll(Collection<K> keys) {
+        Map<K, V> values = cache.getAllPresent(keys);
+        hit.addAndGet(values.size());
+        if (values.size() < keys.size()) {
+            List<K> missingKeys = new ArrayList<K>(keys.size() - values.size());
+            for (K key : keys) {
+                if (!values.containsKey(key)) {
+                    missingKeys.add(key);
+                }
+            }
+            miss.addAndGet(missingKeys.size());
+            values.putAll(loadAll(missingKeys));
+        }
+        return values;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.cache.AbstractCache#invalidateAll(java.util.Collection)
+     */
+    @Override
+    public void invalidateAll(Collection<K> keys) {
+        cache.removeAll(keys);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -127,6 +231,24 @@ public class ConcurrentHeapCache<K, V> extends AbstractSearchableCache<K, V> {
         return hitRatio(hit.get(), miss.get());
     }
 
+    /**
+     * Gets the expire after write.
+     *
+     * @return the expire after write in milliseconds, 0 if entries never expire
+     */
+    public long getExpireAfterWrite() {
+        return cache.getExpireAfterWrite();
+    }
+
+    /**
+     * Gets the expire after access.
+     *
+     * @return the expire after access in milliseconds, 0 if entries never expire
+     */
+    public long getExpireAfterAccess() {
+        return cache.getExpireAfterAccess();
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -136,6 +258,15 @@ public class ConcurrentHeapCache<K, V> extends AbstractSearchableCache<K, V> {
         return cache.size();
     }
 
+    /**
+     * Gets the current time in milliseconds.
+     *
+     * @return the current time
+     */
+    protected long currentTime() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
     /**
      * The Class ConcurrentLimitedHashMap.
      */
@@ -152,10 +283,14 @@ public class ConcurrentHeapCache<K, V> extends AbstractSearchableCache<K, V> {
          * Instantiates a new concurrent limited hash map.
          *
          * @param capacity the capacity
+         * @param expireAfterWrite the expire after write
+         * @param expireAfterAccess the expire after access
+         * @param evictionPolicyType the eviction policy type
          */
         @SuppressWarnings("unchecked")
-        public ConcurrentLimitedHashMap(int capacity) {
-            super(DEFAULT_CONCURRENCY_LEVEL, DEFAULT_INITIAL_CAPACITY, capacity, (Weigher<V>) Weighers.singleton(),
+        public ConcurrentLimitedHashMap(int capacity, long expireAfterWrite, long expireAfterAccess,
+                EvictionPolicyType evictionPolicyType) {
+            super(DEFAULT_CONCURRENCY_LEVEL, capacity, DEFAULT_INITIAL_CAPACITY, (Weigher<V>) Weighers.singleton(),
                     DEFAULT_PERIOD, Executors.newScheduledThreadPool(1, new ThreadFactory() {
                         public Thread newThread(Runnable runnable) {
                             String threadName = "imcache:evictionThread(thread=" + NO_OF_EVICTORS.incrementAndGet()
@@ -164,9 +299,20 @@ public class ConcurrentHeapCache<K, V> extends AbstractSearchableCache<K, V> {
                         }
                     }), new com.KyleDing.imcache.concurrent.EvictionListener<K, V>() {
                         public void onEviction(K key, V value) {
+                            ConcurrentHeapCache.this.indexHandler.remove(key, value);
                             ConcurrentHeapCache.this.evictionListener.onEviction(key, value);
                         }
-                    });
+                    }, expireAfterWrite, expireAfterAccess, evictionPolicyType);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.concurrent.ConcurrentLinkedHashMap#currentTime()
+         */
+        @Override
+        protected long currentTime() {
+            return ConcurrentHeapCache.this.currentTime();
         }
 
         /*
@@ -183,6 +329,20 @@ public class ConcurrentHeapCache<K, V> extends AbstractSearchableCache<K, V> {
             return exValue;
         }
 
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * com.KyleDing.imcache.concurrent.ConcurrentLinkedHashMap#put(java.lang
+         * .Object, java.lang.Object, long)
+         */
+        @Override
+        public V put(K key, V value, long ttl) {
+            V exValue = super.put(key, value, ttl);
+            ConcurrentHeapCache.this.indexHandler.add(key, value);
+            return exValue;
+        }
+
         /*
          * (non-Javadoc)
          *
@@ -196,10 +356,7 @@ public class ConcurrentHeapCache<K, V> extends AbstractSearchableCache<K, V> {
             V value = super.get(key);
             if (value == null) {
                 miss.incrementAndGet();
-                value = ConcurrentHeapCache.this.cacheLoader.load((K) key);
-                if (value != null) {
-                    put((K) key, value);
-                }
+                value = ConcurrentHeapCache.this.load((K) key);
             } else {
                 hit.incrementAndGet();
             }
@@ -223,6 +380,37 @@ public class ConcurrentHeapCache<K, V> extends AbstractSearchableCache<K, V> {
             return value;
         }
 
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * com.KyleDing.imcache.concurrent.ConcurrentLinkedHashMap#putAll(java
+         * .util.Map)
+         */
+        @Override
+        public void putAll(Map<? extends K, ? extends V> m) {
+            super.putAll(m);
+            for (Entry<? extends K, ? extends V> entry : m.entrySet()) {
+                ConcurrentHeapCache.this.indexHandler.add(entry.getKey(), entry.getValue());
+            }
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * com.KyleDing.imcache.concurrent.ConcurrentLinkedHashMap#removeAll(java
+         * .util.Collection)
+         */
+        @Override
+        public Map<K, V> removeAll(Collection<?> keys) {
+            Map<K, V> values = super.removeAll(keys);
+            for (Entry<K, V> entry : values.entrySet()) {
+                ConcurrentHeapCache.this.indexHandler.remove(entry.getKey(), entry.getValue());
+            }
+            return values;
+        }
+
     }
 
 }
\ No newline at end of file
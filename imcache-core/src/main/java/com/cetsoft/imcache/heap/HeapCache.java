@@ -8,25 +8,33 @@
 package com.KyleDing.imcache.heap;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 
 import com.KyleDing.imcache.cache.AbstractSearchableCache;
 import com.KyleDing.imcache.cache.CacheLoader;
 import com.KyleDing.imcache.cache.EvictionListener;
+import com.KyleDing.imcache.cache.ExpiringCache;
 import com.KyleDing.imcache.cache.search.IndexHandler;
+import com.KyleDing.imcache.concurrent.TimerWheel;
 
 /**
  * The Class HeapCache. HeapCache uses LRU(Least Recently Used) as eviction
  * strategy by the help of LinkedHashMap. As a result, HeapCache discards the
  * least recently used items first when eviction required. Eviction occurs if
- * the size of the cache is equal to the cache capacity in a put operation
+ * the size of the cache is equal to the cache capacity in a put operation.
+ * Entries can also expire after write or access, as there is no background
+ * thread expired entries are removed by the operations of the cache.
  *
  * @param <K> the key type
  * @param <V> the value type
  */
-public class HeapCache<K, V> extends AbstractSearchableCache<K, V> {
+public class HeapCache<K, V> extends AbstractSearchableCache<K, V> implements ExpiringCache<K, V> {
 
     /** The hit. */
     protected long hit;
@@ -37,6 +45,18 @@ public class HeapCache<K, V> extends AbstractSearchableCache<K, V> {
     /** The cache. */
     protected Map<K, V> cache;
 
+    /** The expire after write in milliseconds. */
+    protected long expireAfterWrite;
+
+    /** The expire after access in milliseconds. */
+    protected long expireAfterAccess;
+
+    /** The timer wheel. */
+    protected TimerWheel<K> timerWheel;
+
+    /** The expirations of the keys that expire. */
+    protected Map<K, Expiration> expirations = new HashMap<K, Expiration>();
+
     /**
      * Instantiates a new heap cache.
      *
@@ -47,7 +67,27 @@ public class HeapCache<K, V> extends AbstractSearchableCache<K, V> {
      */
     public HeapCache(CacheLoader<K, V> cacheLoader, EvictionListener<K, V> evictionListener,
             IndexHandler<K, V> indexHandler, int capacity) {
+        this(cacheLoader, evictionListener, indexHandler, capacity, 0, 0);
+    }
+
+    /**
+     * Instantiates a new heap cache whose entries expire.
+     *
+     * @param cacheLoader the cache loader
+     * @param evictionListener the eviction listener
+     * @param indexHandler the query executer
+     * @param capacity the capacity
+     * @param expireAfterWrite the milliseconds an entry lives after it is
+     *            written, 0 for no limit
+     * @param expireAfterAccess the milliseconds an entry lives after it is
+     *            last accessed, 0 for no limit
+     */
+    public HeapCache(CacheLoader<K, V> cacheLoader, EvictionListener<K, V> evictionListener,
+            IndexHandler<K, V> indexHandler, int capacity, long expireAfterWrite, long expireAfterAccess) {
         super(cacheLoader, evictionListener, indexHandler);
+        this.expireAfterWrite = Math.max(expireAfterWrite, 0);
+        this.expireAfterAccess = Math.max(expireAfterAccess, 0);
+        this.timerWheel = new TimerWheel<K>(currentTime());
         initCache(capacity);
     }
 
@@ -67,7 +107,25 @@ public class HeapCache<K, V> extends AbstractSearchableCache<K, V> {
      * java.lang.Object)
      */
     public void put(K key, V value) {
+        expireEntries();
+        cache.put(key, value);
+        expireAfterWrite(key, 0);
+        indexHandler.add(key, value);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.ExpiringCache#put(java.lang.Object,
+     * java.lang.Object, long)
+     */
+    public void put(K key, V value, long ttl) {
+        if (ttl <= 0) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        expireEntries();
         cache.put(key, value);
+        expireAfterWrite(key, ttl);
         indexHandler.add(key, value);
     }
 
@@ -77,7 +135,11 @@ public class HeapCache<K, V> extends AbstractSearchableCache<K, V> {
      * @see com.KyleDing.imcache.cache.Cache#get(java.lang.Object)
      */
     public V get(K key) {
-        return cache.get(key);
+        expireEntries();
+        expireEntry(key);
+        V value = cache.get(key);
+        expireAfterAccess(key);
+        return value;
     }
 
     /*
@@ -87,16 +149,69 @@ public class HeapCache<K, V> extends AbstractSearchableCache<K, V> {
      */
     public V invalidate(K key) {
         V value = cache.remove(key);
+        removeExpiration(key);
         indexHandler.remove(key, value);
         return value;
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.AbstractCache#store(java.lang.Object,
+     * java.lang.Object)
+     */
+    @Override
+    protected void store(K key, V value) {
+        cache.put(key, value);
+        expireAfterWrite(key, 0);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.AbstractCache#storeAll(java.util.Map)
+     */
+    @Override
+    protected void storeAll(Map<K, V> values) {
+        for (Entry<K, V> entry : values.entrySet()) {
+            store(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.AbstractCache#getAll(java.util.Collection)
+     */
+    @Override
+    public Map<K, V> getAll(Collection<K> keys) {
+        expireEntries();
+        Map<K, V> values = new HashMap<K, V>();
+        List<K> missingKeys = new ArrayList<K>();
+        for (K key : keys) {
+            expireEntry(key);
+            if (cache.containsKey(key)) {
+                values.put(key, cache.get(key));
+                expireAfterAccess(key);
+            } else {
+                missingKeys.add(key);
+            }
+        }
+        if (!missingKeys.isEmpty()) {
+            miss += missingKeys.size();
+            values.putAll(loadAll(missingKeys));
+        }
+        return values;
+    }
+
     /*
      * (non-Javadoc)
      *
      * @see com.KyleDing.imcache.cache.Cache#contains(java.lang.Object)
      */
     public boolean contains(K key) {
+        expireEntries();
+        expireEntry(key);
         return cache.containsKey(key);
     }
 
@@ -110,6 +225,8 @@ public class HeapCache<K, V> extends AbstractSearchableCache<K, V> {
         for (Object object : list) {
             cache.remove(object);
         }
+        timerWheel.clear();
+        expirations.clear();
         indexHandler.clear();
     }
 
@@ -122,15 +239,147 @@ public class HeapCache<K, V> extends AbstractSearchableCache<K, V> {
         return hitRatio(hit, miss);
     }
 
+    /**
+     * Gets the expire after write.
+     *
+     * @return the expire after write in milliseconds, 0 if entries never expire
+     */
+    public long getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+
+    /**
+     * Gets the expire after access.
+     *
+     * @return the expire after access in milliseconds, 0 if entries never expire
+     */
+    public long getExpireAfterAccess() {
+        return expireAfterAccess;
+    }
+
     /*
      * (non-Javadoc)
      *
      * @see com.KyleDing.imcache.cache.Cache#size()
      */
     public int size() {
+        expireEntries();
         return cache.size();
     }
 
+    /**
+     * Gets the current time in milliseconds.
+     *
+     * @return the current time
+     */
+    protected long currentTime() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Sets the expiration of the written key, either from the given time to
+     * live or from the expiration policy of the cache if it is not positive.
+     *
+     * @param key the key
+     * @param ttl the time to live in milliseconds
+     */
+    protected void expireAfterWrite(K key, long ttl) {
+        if (ttl <= 0 && expireAfterWrite == 0 && expireAfterAccess == 0) {
+            removeExpiration(key);
+            return;
+        }
+        Expiration expiration = expirations.get(key);
+        if (expiration == null) {
+            expiration = new Expiration(key);
+            expirations.put(key, expiration);
+        }
+        long now = currentTime();
+        if (ttl > 0) {
+            expiration.accessTtl = 0;
+            expiration.writeExpirationTime = TimerWheel.deadline(now, ttl);
+            timerWheel.schedule(expiration, expiration.writeExpirationTime);
+        } else {
+            expiration.accessTtl = expireAfterAccess;
+            expiration.writeExpirationTime = expireAfterWrite == 0 ? TimerWheel.NEVER : TimerWheel.deadline(now,
+                    expireAfterWrite);
+            timerWheel.schedule(expiration, expireAfterAccess == 0 ? expiration.writeExpirationTime : Math.min(
+                    TimerWheel.deadline(now, expireAfterAccess), expiration.writeExpirationTime));
+        }
+    }
+
+    /**
+     * Extends the expiration of the read key if it expires after access.
+     *
+     * @param key the key
+     */
+    protected void expireAfterAccess(K key) {
+        if (expirations.isEmpty()) {
+            return;
+        }
+        Expiration expiration = expirations.get(key);
+        if (expiration != null && expiration.accessTtl > 0) {
+            timerWheel.schedule(expiration, Math.min(TimerWheel.deadline(currentTime(), expiration.accessTtl),
+                    expiration.writeExpirationTime));
+        }
+    }
+
+    /**
+     * Removes the expiration of the key.
+     *
+     * @param key the key
+     */
+    protected void removeExpiration(Object key) {
+        if (expirations.isEmpty()) {
+            return;
+        }
+        Expiration expiration = expirations.remove(key);
+        if (expiration != null) {
+            timerWheel.deschedule(expiration);
+        }
+    }
+
+    /**
+     * Advances the timer wheel and removes the entries that have expired.
+     */
+    protected void expireEntries() {
+        if (expirations.isEmpty()) {
+            return;
+        }
+        for (K key : timerWheel.advance(currentTime())) {
+            expirations.remove(key);
+            removeExpired(key);
+        }
+    }
+
+    /**
+     * Removes the entry of the key if it has expired but the timer wheel has
+     * not reported it yet.
+     *
+     * @param key the key
+     */
+    protected void expireEntry(K key) {
+        if (expirations.isEmpty()) {
+            return;
+        }
+        Expiration expiration = expirations.get(key);
+        if (expiration != null && expiration.getExpirationTime() <= currentTime()) {
+            removeExpiration(key);
+            removeExpired(key);
+        }
+    }
+
+    /**
+     * Removes the expired entry from the cache and the indexes.
+     *
+     * @param key the key
+     */
+    private void removeExpired(K key) {
+        V value = cache.remove(key);
+        if (value != null) {
+            indexHandler.remove(key, value);
+        }
+    }
+
     /**
      * The Class LimitedHashMap.
      */
@@ -163,10 +412,7 @@ public class HeapCache<K, V> extends AbstractSearchableCache<K, V> {
             V value = super.get(key);
             if (value == null) {
                 miss++;
-                value = HeapCache.this.cacheLoader.load((K) key);
-                if (value != null) {
-                    cache.put((K) key, value);
-                }
+                value = HeapCache.this.load((K) key);
             } else {
                 hit++;
             }
@@ -197,6 +443,7 @@ public class HeapCache<K, V> extends AbstractSearchableCache<K, V> {
         protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
             boolean shouldRemove = size() > this.capacity;
             if (shouldRemove) {
+                HeapCache.this.removeExpiration(eldest.getKey());
                 HeapCache.this.evictionListener.onEviction(eldest.getKey(), eldest.getValue());
             }
             return shouldRemove;
@@ -204,4 +451,25 @@ public class HeapCache<K, V> extends AbstractSearchableCache<K, V> {
 
     }
 
+    /**
+     * The Class Expiration is the timer of a key that expires.
+     */
+    protected class Expiration extends TimerWheel.Timer<K> {
+
+        /** The expiration time after write. */
+        long writeExpirationTime = TimerWheel.NEVER;
+
+        /** The time to live after access, 0 if it does not expire after access. */
+        long accessTtl;
+
+        /**
+         * Instantiates a new expiration.
+         *
+         * @param key the key
+         */
+        public Expiration(K key) {
+            super(key);
+        }
+    }
+
 }
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.serialization;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The Class BinaryReader reads what {@link BinaryWriter} wrote. It reads the
+ * buffer with absolute gets from its position on, so the position and the
+ * limit of the buffer are left as they are.
+ */
+public class BinaryReader {
+
+    /** The buffer. */
+    private final ByteBuffer buffer;
+
+    /** The position. */
+    private int position;
+
+    /**
+     * Instantiates a new binary reader.
+     *
+     * @param payload the payload
+     */
+    public BinaryReader(byte[] payload) {
+        this(ByteBuffer.wrap(payload));
+    }
+
+    /**
+     * Instantiates a new binary reader reading the bytes between the position
+     * and the limit of the buffer.
+     *
+     * @param buffer the buffer
+     */
+    public BinaryReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.position = buffer.position();
+    }
+
+    /**
+     * Reads a boolean.
+     *
+     * @return the value
+     */
+    public boolean readBoolean() {
+        return buffer.get(position++) != 0;
+    }
+
+    /**
+     * Reads a byte.
+     *
+     * @return the value
+     */
+    public byte readByte() {
+        return buffer.get(position++);
+    }
+
+    /**
+     * Reads a short.
+     *
+     * @return the value
+     */
+    public short readShort() {
+        return (short) ((buffer.get(position++) << 8) | (buffer.get(position++) & 0xFF));
+    }
+
+    /**
+     * Reads a char.
+     *
+     * @return the value
+     */
+    public char readChar() {
+        return (char) readShort();
+    }
+
+    /**
+     * Reads a zigzag varint int.
+     *
+     * @return the value
+     */
+    public int readInt() {
+        int zigzag = readVarint();
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    /**
+     * Reads a zigzag varint long.
+     *
+     * @return the value
+     */
+    public long readLong() {
+        long zigzag = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = buffer.get(position++);
+            zigzag |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint!");
+    }
+
+    /**
+     * Reads a float.
+     *
+     * @return the value
+     */
+    public float readFloat() {
+        return Float.intBitsToFloat(readFixedInt());
+    }
+
+    /**
+     * Reads a double.
+     *
+     * @return the value
+     */
+    public double readDouble() {
+        long high = readFixedInt();
+        return Double.longBitsToDouble((high << 32) | (readFixedInt() & 0xFFFFFFFFL));
+    }
+
+    /**
+     * Reads the length of an array, a list or a string. Since every element
+     * takes at least a byte, the length is checked against the bytes left, so
+     * a malformed payload can not make the caller allocate more than it holds.
+     *
+     * @return the length, -1 for null
+     */
+    public int readLength() {
+        int length = readVarint() - 1;
+        if (length < -1 || length > buffer.limit() - position) {
+            throw new IllegalArgumentException("Malformed length!");
+        }
+        return length;
+    }
+
+    /**
+     * Reads the ordinal of an enum constant.
+     *
+     * @return the ordinal, -1 for null
+     */
+    public int readOrdinal() {
+        int ordinal = readVarint() - 1;
+        if (ordinal < -1) {
+            throw new IllegalArgumentException("Malformed ordinal!");
+        }
+        return ordinal;
+    }
+
+    /**
+     * Reads a string.
+     *
+     * @return the value
+     */
+    public String readString() {
+        int length = readLength();
+        if (length < 0) {
+            return null;
+        }
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            int b = buffer.get(position++) & 0xFF;
+            if (b < 0x80) {
+                chars[i] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[i] = (char) (((b & 0x1F) << 6) | (buffer.get(position++) & 0x3F));
+            } else if ((b & 0xF0) == 0xE0) {
+                int middle = buffer.get(position++) & 0x3F;
+                chars[i] = (char) (((b & 0x0F) << 12) | (middle << 6) | (buffer.get(position++) & 0x3F));
+            } else {
+                throw new IllegalArgumentException("Malformed string!");
+            }
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Reads a byte array.
+     *
+     * @return the value
+     */
+    public byte[] readBytes() {
+        int length = readLength();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position++);
+        }
+        return bytes;
+    }
+
+    /**
+     * Reads a four byte int.
+     *
+     * @return the value
+     */
+    private int readFixedInt() {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (buffer.get(position++) & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @return the value
+     */
+    private int readVarint() {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get(position++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint!");
+    }
+}
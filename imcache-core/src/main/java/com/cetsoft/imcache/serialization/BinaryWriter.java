@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.serialization;
+
+import java.util.Arrays;
+
+/**
+ * The Class BinaryWriter writes the compact binary format of the serializers
+ * generated for {@link com.KyleDing.imcache.annotation.CacheValue} classes.
+ * Ints and longs are zigzag varints, so small values of either sign take one
+ * byte, floats and doubles take four and eight bytes. Lengths are varints of
+ * the length plus one, zero meaning null. Strings are their length in chars
+ * followed by each char in one to three bytes as in modified UTF-8, which
+ * keeps ASCII at one byte per char. {@link BinaryReader} reads it back.
+ */
+public class BinaryWriter {
+
+    /** The Constant DEFAULT_CAPACITY. */
+    private static final int DEFAULT_CAPACITY = 64;
+
+    /** The buffer. */
+    private byte[] buffer;
+
+    /** The position. */
+    private int position;
+
+    /**
+     * Instantiates a new binary writer.
+     */
+    public BinaryWriter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Instantiates a new binary writer.
+     *
+     * @param capacity the initial capacity
+     */
+    public BinaryWriter(int capacity) {
+        buffer = new byte[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Writes a boolean as one byte.
+     *
+     * @param value the value
+     */
+    public void writeBoolean(boolean value) {
+        ensure(1);
+        buffer[position++] = (byte) (value ? 1 : 0);
+    }
+
+    /**
+     * Writes a byte.
+     *
+     * @param value the value
+     */
+    public void writeByte(byte value) {
+        ensure(1);
+        buffer[position++] = value;
+    }
+
+    /**
+     * Writes a short as two bytes.
+     *
+     * @param value the value
+     */
+    public void writeShort(short value) {
+        ensure(2);
+        buffer[position++] = (byte) (value >> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * Writes a char as two bytes.
+     *
+     * @param value the value
+     */
+    public void writeChar(char value) {
+        writeShort((short) value);
+    }
+
+    /**
+     * Writes an int as a zigzag varint.
+     *
+     * @param value the value
+     */
+    public void writeInt(int value) {
+        writeVarint((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Writes a long as a zigzag varint.
+     *
+     * @param value the value
+     */
+    public void writeLong(long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        ensure(10);
+        while ((zigzag & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        buffer[position++] = (byte) zigzag;
+    }
+
+    /**
+     * Writes a float as four bytes.
+     *
+     * @param value the value
+     */
+    public void writeFloat(float value) {
+        writeFixedInt(Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * Writes a double as eight bytes.
+     *
+     * @param value the value
+     */
+    public void writeDouble(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        writeFixedInt((int) (bits >>> 32));
+        writeFixedInt((int) bits);
+    }
+
+    /**
+     * Writes the length of an array, a list or a string, or -1 for null.
+     *
+     * @param length the length
+     */
+    public void writeLength(int length) {
+        if (length < -1) {
+            throw new IllegalArgumentException("Length can not be negative!");
+        }
+        writeVarint(length + 1);
+    }
+
+    /**
+     * Writes the ordinal of an enum constant, -1 for null.
+     *
+     * @param ordinal the ordinal
+     */
+    public void writeOrdinal(int ordinal) {
+        if (ordinal < -1) {
+            throw new IllegalArgumentException("Ordinal can not be negative!");
+        }
+        writeVarint(ordinal + 1);
+    }
+
+    /**
+     * Writes a string, null included.
+     *
+     * @param value the value
+     */
+    public void writeString(String value) {
+        if (value == null) {
+            writeLength(-1);
+            return;
+        }
+        int length = value.length();
+        writeLength(length);
+        ensure(length * 3);
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                buffer[position++] = (byte) c;
+            } else if (c <= 0x07FF) {
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else {
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Writes a byte array, null included.
+     *
+     * @param value the value
+     */
+    public void writeBytes(byte[] value) {
+        if (value == null) {
+            writeLength(-1);
+            return;
+        }
+        writeLength(value.length);
+        ensure(value.length);
+        System.arraycopy(value, 0, buffer, position, value.length);
+        position += value.length;
+    }
+
+    /**
+     * Gets the number of bytes written.
+     *
+     * @return the size
+     */
+    public int size() {
+        return position;
+    }
+
+    /**
+     * Copies the written bytes to an array of their exact size.
+     *
+     * @return the bytes
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * Writes an int as four bytes.
+     *
+     * @param value the value
+     */
+    private void writeFixedInt(int value) {
+        ensure(4);
+        buffer[position++] = (byte) (value >> 24);
+        buffer[position++] = (byte) (value >> 16);
+        buffer[position++] = (byte) (value >> 8);
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * Writes an int as an unsigned varint.
+     *
+     * @param value the value
+     */
+    private void writeVarint(int value) {
+        ensure(5);
+        while ((value & ~0x7F) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    /**
+     * Grows the buffer so that the given number of bytes fit.
+     *
+     * @param length the length
+     */
+    private void ensure(int length) {
+        if (buffer.length - position < length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + length));
+        }
+    }
+}
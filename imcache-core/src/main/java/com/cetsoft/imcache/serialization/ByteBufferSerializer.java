@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.serialization;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The Interface ByteBufferSerializer is a serializer that can also deserialize
+ * straight from a byte buffer. Offheap caches hand it a read only view of their
+ * native memory instead of copying the payload to an array, so a value of a
+ * fixed layout can be read without any allocation.
+ *
+ * @param <V> the value type
+ */
+public interface ByteBufferSerializer<V> extends Serializer<V> {
+
+    /**
+     * Deserializes the bytes between the position and the limit of the buffer.
+     * The buffer is only valid during the call, it must not be kept.
+     * <p>
+     * Offheap caches call it on hits without locking and discard the value if
+     * a writer changed the payload meanwhile, so the bytes may be torn. It
+     * must tolerate that: never read outside the buffer, never size an
+     * allocation by a count it has not checked against the bytes remaining,
+     * and report malformed bytes with a RuntimeException. {@link BinaryReader}
+     * meets this.
+     *
+     * @param buffer the buffer
+     * @return the v
+     */
+    V deserialize(ByteBuffer buffer);
+}
@@ -7,21 +7,26 @@
  */
 package com.KyleDing.imcache.serialization;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
 
 import com.KyleDing.imcache.cache.CollectionItem;
-import com.KyleDing.imcache.cache.util.SerializationUtils;
 
 /**
- * The Class CollectionSerializer.
+ * The Class CollectionSerializer writes the elements of a collection after an
+ * offset table, so that a single element can be read without reading the ones
+ * before it. The payload starts with the number of elements followed by the
+ * end offset of each element relative to the end of the table, all big endian
+ * ints. Collections are deserialized into a mutable {@link CollectionItem},
+ * or with {@link #deserializeLazily(byte[])} into a read only
+ * {@link LazyCollectionItem} which deserializes the elements as they are
+ * accessed.
  *
  * @param <V> the value type
  */
 public class CollectionSerializer<V> implements Serializer<CollectionItem<V>> {
 
-    /** The Constant OBJECT_SIZE. */
-    private static final int OBJECT_SIZE = 68;
+    /** The Constant INT_SIZE. */
+    static final int INT_SIZE = 4;
 
     /** The serializer. */
     private Serializer<V> serializer;
@@ -42,19 +47,27 @@ public class CollectionSerializer<V> implements Serializer<CollectionItem<V>> {
      * com.KyleDing.imcache.serialization.Serializer#serialize(java.lang.Object)
      */
     public byte[] serialize(CollectionItem<V> value) {
-        List<Byte> bytes = new ArrayList<Byte>(value.getValue().size() * OBJECT_SIZE);
-        for (V v : value.getValue()) {
-            byte[] currentPayload = serializer.serialize(v);
-            for (byte lengthByte : SerializationUtils.serializeInt(currentPayload.length)) {
-                bytes.add(lengthByte);
-            }
-            for (int i = 0; i < currentPayload.length; i++) {
-                bytes.add(currentPayload[i]);
-            }
+        if (value instanceof LazyCollectionItem && ((LazyCollectionItem<V>) value).getSerializer() == serializer) {
+            // The elements are unchanged since they were deserialized.
+            return ((LazyCollectionItem<V>) value).getPayload().clone();
         }
-        byte[] payload = new byte[bytes.size()];
-        for (int i = 0; i < payload.length; i++) {
-            payload[i] = bytes.get(i);
+        Collection<V> elements = value.getValue();
+        byte[][] serializedElements = new byte[elements.size()][];
+        int length = 0;
+        int index = 0;
+        for (V element : elements) {
+            serializedElements[index] = serializer.serialize(element);
+            length += serializedElements[index].length;
+            index++;
+        }
+        int tableLength = INT_SIZE * (serializedElements.length + 1);
+        byte[] payload = new byte[tableLength + length];
+        writeInt(payload, 0, serializedElements.length);
+        int offset = 0;
+        for (int i = 0; i < serializedElements.length; i++) {
+            System.arraycopy(serializedElements[i], 0, payload, tableLength + offset, serializedElements[i].length);
+            offset += serializedElements[i].length;
+            writeInt(payload, INT_SIZE * (i + 1), offset);
         }
         return payload;
     }
@@ -65,20 +78,53 @@ public class CollectionSerializer<V> implements Serializer<CollectionItem<V>> {
      * @see com.KyleDing.imcache.serialization.Serializer#deserialize(byte[])
      */
     public CollectionItem<V> deserialize(byte[] payload) {
-        int pos = 0;
-        List<V> values = new ArrayList<V>();
-        while (pos < payload.length) {
-            byte[] lengthBytes = new byte[4];
-            System.arraycopy(payload, pos, lengthBytes, 0, 4);
-            int length = SerializationUtils.deserializeInt(lengthBytes);
-            pos += 4;
-            byte[] bytes = new byte[length];
-            System.arraycopy(payload, pos, bytes, 0, length);
-            pos += length;
-            V v = serializer.deserialize(bytes);
-            values.add(v);
-        }
-        return new CollectionItem<V>(values);
+        return new CollectionItem<V>(deserializeLazily(payload).getValue());
     }
 
-}
\ No newline at end of file
+    /**
+     * Deserializes the payload into a read only view which deserializes an
+     * element only when it is accessed. Serializing the view back returns the
+     * payload as it is.
+     *
+     * @param payload the payload
+     * @return the lazy collection item
+     */
+    public LazyCollectionItem<V> deserializeLazily(byte[] payload) {
+        return new LazyCollectionItem<V>(serializer, payload);
+    }
+
+    /**
+     * Gets the serializer of the elements.
+     *
+     * @return the serializer
+     */
+    public Serializer<V> getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * Writes the int big endian to the offset.
+     *
+     * @param payload the payload
+     * @param offset the offset
+     * @param value the value
+     */
+    static void writeInt(byte[] payload, int offset, int value) {
+        payload[offset] = (byte) (value >>> 24);
+        payload[offset + 1] = (byte) (value >>> 16);
+        payload[offset + 2] = (byte) (value >>> 8);
+        payload[offset + 3] = (byte) value;
+    }
+
+    /**
+     * Reads the big endian int at the offset.
+     *
+     * @param payload the payload
+     * @param offset the offset
+     * @return the int
+     */
+    static int readInt(byte[] payload, int offset) {
+        return ((payload[offset] & 0xFF) << 24) | ((payload[offset + 1] & 0xFF) << 16)
+                | ((payload[offset + 2] & 0xFF) << 8) | (payload[offset + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.serialization;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.List;
+
+import com.KyleDing.imcache.cache.CollectionItem;
+import com.KyleDing.imcache.cache.search.filter.Filter;
+
+/**
+ * The Class LazyCollectionItem is a read only view of a collection serialized
+ * by the {@link CollectionSerializer}. An element is deserialized each time
+ * it is accessed, by its index through the offset table, so reading a few
+ * elements or filtering the elements does not deserialize the whole
+ * collection. Elements are deserialized straight from the payload if the
+ * serializer is a {@link ByteBufferSerializer}.
+ *
+ * @param <V> the value type
+ */
+public class LazyCollectionItem<V> extends CollectionItem<V> {
+
+    /** The serializer. */
+    private final Serializer<V> serializer;
+
+    /** The payload. */
+    private final byte[] payload;
+
+    /** The size. */
+    private final int size;
+
+    /** The offset of the first element. */
+    private final int dataOffset;
+
+    /** The elements. */
+    private final List<V> elements = new AbstractList<V>() {
+        public V get(int index) {
+            return LazyCollectionItem.this.get(index);
+        }
+
+        public int size() {
+            return size;
+        }
+    };
+
+    /**
+     * Instantiates a new lazy collection item.
+     *
+     * @param serializer the serializer of the elements
+     * @param payload the payload
+     */
+    public LazyCollectionItem(Serializer<V> serializer, byte[] payload) {
+        if (payload.length < CollectionSerializer.INT_SIZE) {
+            throw new IllegalArgumentException("Payload has no offset table!");
+        }
+        int size = CollectionSerializer.readInt(payload, 0);
+        if (size < 0 || size > payload.length / CollectionSerializer.INT_SIZE - 1) {
+            throw new IllegalArgumentException("Wrong offset table!");
+        }
+        this.serializer = serializer;
+        this.payload = payload;
+        this.size = size;
+        this.dataOffset = CollectionSerializer.INT_SIZE * (size + 1);
+    }
+
+    /**
+     * Gets the number of elements.
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Deserializes the element at the index.
+     *
+     * @param index the index
+     * @return the element
+     */
+    public V get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        int start = index == 0 ? 0 : CollectionSerializer.readInt(payload, CollectionSerializer.INT_SIZE * index);
+        int end = CollectionSerializer.readInt(payload, CollectionSerializer.INT_SIZE * (index + 1));
+        if (start < 0 || end < start || dataOffset + end > payload.length) {
+            throw new IllegalArgumentException("Wrong offset table!");
+        }
+        if (serializer instanceof ByteBufferSerializer) {
+            ByteBuffer buffer = ByteBuffer.wrap(payload, dataOffset + start, end - start).slice();
+            return ((ByteBufferSerializer<V>) serializer).deserialize(buffer);
+        }
+        byte[] bytes = new byte[end - start];
+        System.arraycopy(payload, dataOffset + start, bytes, 0, bytes.length);
+        return serializer.deserialize(bytes);
+    }
+
+    /**
+     * Gets the elements as a read only list which deserializes an element
+     * each time it is accessed.
+     *
+     * @return the elements
+     */
+    @Override
+    public Collection<V> getValue() {
+        return elements;
+    }
+
+    /**
+     * Runs the filter over the elements, which are deserialized one by one
+     * as the filter reaches them.
+     *
+     * @param filter the filter
+     * @return the filtered elements
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Collection<V> filter(Filter filter) {
+        List<?> objects = elements;
+        return (Collection<V>) filter.filter((List<Object>) objects);
+    }
+
+    /**
+     * Gets the serializer.
+     *
+     * @return the serializer
+     */
+    Serializer<V> getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * Gets the payload.
+     *
+     * @return the payload
+     */
+    byte[] getPayload() {
+        return payload;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.serialization;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The Class LongSerializer writes a long as its eight bytes in big endian
+ * order. Values of a fixed width can be changed where they are stored, such
+ * as the counters of an offheap cache.
+ */
+public class LongSerializer implements ByteBufferSerializer<Long>, StreamingSerializer<Long> {
+
+    /** The Constant SIZE. */
+    public static final int SIZE = 8;
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.serialization.Serializer#serialize(java.lang.Object)
+     */
+    public byte[] serialize(Long value) {
+        long bits = value;
+        byte[] payload = new byte[SIZE];
+        for (int i = SIZE - 1; i >= 0; i--) {
+            payload[i] = (byte) bits;
+            bits >>>= 8;
+        }
+        return payload;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.serialization.Serializer#deserialize(byte[])
+     */
+    public Long deserialize(byte[] payload) {
+        if (payload.length != SIZE) {
+            throw new IllegalArgumentException("Payload is not a long!");
+        }
+        long value = 0;
+        for (int i = 0; i < SIZE; i++) {
+            value = (value << 8) | (payload[i] & 0xFF);
+        }
+        return value;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.serialization.ByteBufferSerializer#deserialize(java
+     * .nio.ByteBuffer)
+     */
+    public Long deserialize(ByteBuffer buffer) {
+        if (buffer.remaining() != SIZE) {
+            throw new IllegalArgumentException("Payload is not a long!");
+        }
+        return buffer.getLong(buffer.position());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.serialization.StreamingSerializer#size(java.lang.
+     * Object)
+     */
+    public int size(Long value) {
+        return SIZE;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.serialization.StreamingSerializer#serialize(java.
+     * lang.Object, java.nio.ByteBuffer)
+     */
+    public void serialize(Long value, ByteBuffer buffer) {
+        buffer.putLong(value);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.serialization;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The Class SerializerAdapter lets a {@link Serializer} be used where a
+ * {@link StreamingSerializer} is expected. The size of a value is found by
+ * serializing it, the bytes are kept for the calling thread so that writing
+ * the value right after does not serialize it again.
+ *
+ * @param <V> the value type
+ */
+public class SerializerAdapter<V> implements StreamingSerializer<V> {
+
+    /** The serializer. */
+    private final Serializer<V> serializer;
+
+    /** The last value sized by the thread with its bytes. */
+    private final ThreadLocal<Object[]> lastSized = new ThreadLocal<Object[]>() {
+        protected Object[] initialValue() {
+            return new Object[2];
+        }
+    };
+
+    /**
+     * Instantiates a new serializer adapter.
+     *
+     * @param serializer the serializer
+     */
+    public SerializerAdapter(Serializer<V> serializer) {
+        this.serializer = serializer;
+    }
+
+    /**
+     * Adapts the serializer unless it is a streaming serializer already.
+     *
+     * @param <V> the value type
+     * @param serializer the serializer
+     * @return the streaming serializer
+     */
+    public static <V> StreamingSerializer<V> adapt(Serializer<V> serializer) {
+        if (serializer instanceof StreamingSerializer) {
+            return (StreamingSerializer<V>) serializer;
+        }
+        return new SerializerAdapter<V>(serializer);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.serialization.StreamingSerializer#size(java.lang.
+     * Object)
+     */
+    public int size(V value) {
+        byte[] payload = serializer.serialize(value);
+        Object[] last = lastSized.get();
+        last[0] = value;
+        last[1] = payload;
+        return payload.length;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.serialization.StreamingSerializer#serialize(java.
+     * lang.Object, java.nio.ByteBuffer)
+     */
+    public void serialize(V value, ByteBuffer buffer) {
+        buffer.put(serialize(value));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.serialization.Serializer#serialize(java.lang.Object)
+     */
+    public byte[] serialize(V value) {
+        Object[] last = lastSized.get();
+        if (last[0] == value && last[1] != null) {
+            byte[] payload = (byte[]) last[1];
+            last[0] = null;
+            last[1] = null;
+            return payload;
+        }
+        return serializer.serialize(value);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.serialization.Serializer#deserialize(byte[])
+     */
+    public V deserialize(byte[] payload) {
+        return serializer.deserialize(payload);
+    }
+
+    /**
+     * Gets the adapted serializer.
+     *
+     * @return the serializer
+     */
+    public Serializer<V> getSerializer() {
+        return serializer;
+    }
+}
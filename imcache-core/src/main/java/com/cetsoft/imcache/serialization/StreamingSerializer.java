@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.serialization;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The Interface StreamingSerializer is a serializer that can also write a
+ * value straight into storage supplied by the cache, such as the native memory
+ * of an offheap buffer or the output buffer of a redis connection, instead of
+ * returning a new array that is then copied there. The cache asks for the size
+ * of the value first, so that it can allocate the storage, then lets the
+ * serializer write the value. A serializer that can not tell the size without
+ * serializing the value may serialize it twice, or keep the bytes of the first
+ * pass as the {@link SerializerAdapter} does.
+ *
+ * @param <V> the value type
+ */
+public interface StreamingSerializer<V> extends Serializer<V> {
+
+    /**
+     * Gets the exact number of bytes the value is serialized to.
+     *
+     * @param value the value
+     * @return the size
+     */
+    int size(V value);
+
+    /**
+     * Serializes the value into the buffer starting at its position, exactly
+     * {@link #size(Object)} bytes are written and the position is moved past
+     * them. The buffer is big endian and only valid during the call, it must
+     * not be kept.
+     *
+     * @param value the value
+     * @param buffer the buffer
+     */
+    void serialize(V value, ByteBuffer buffer);
+}
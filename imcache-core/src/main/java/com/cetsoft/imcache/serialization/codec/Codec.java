@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.serialization.codec;
+
+/**
+ * The Interface Codec compresses serialized values. Implementations are thread
+ * safe and encode without keeping the length of the input, which the caller
+ * keeps to decode.
+ */
+public interface Codec {
+
+    /**
+     * Gets the id of the codec that marks the values it encoded, 0 is reserved
+     * for values that are not encoded.
+     *
+     * @return the id
+     */
+    byte getId();
+
+    /**
+     * Gets the largest length the given number of bytes may be encoded to.
+     *
+     * @param length the length
+     * @return the max encoded length
+     */
+    int maxEncodedLength(int length);
+
+    /**
+     * Encodes the source to the destination, which must have room for
+     * {@link #maxEncodedLength(int)} bytes.
+     *
+     * @param source the source
+     * @param sourceOffset the source offset
+     * @param sourceLength the source length
+     * @param destination the destination
+     * @param destinationOffset the destination offset
+     * @return the encoded length
+     */
+    int encode(byte[] source, int sourceOffset, int sourceLength, byte[] destination, int destinationOffset);
+
+    /**
+     * Decodes the source to the destination.
+     *
+     * @param source the source
+     * @param sourceOffset the source offset
+     * @param sourceLength the source length
+     * @param destination the destination
+     * @param destinationOffset the destination offset
+     * @param destinationLength the decoded length
+     * @throws CodecException if the source is not a valid encoding of
+     *             destination length bytes
+     */
+    void decode(byte[] source, int sourceOffset, int sourceLength, byte[] destination, int destinationOffset,
+            int destinationLength);
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.serialization.codec;
+
+/**
+ * The Class CodecException is thrown when encoded bytes cannot be decoded.
+ */
+public class CodecException extends RuntimeException {
+
+    /** The Constant serialVersionUID. */
+    private static final long serialVersionUID = -3580936227440186032L;
+
+    /**
+     * Instantiates a new codec exception.
+     *
+     * @param message the message
+     */
+    public CodecException(String message) {
+        super(message);
+    }
+
+    /**
+     * Instantiates a new codec exception.
+     *
+     * @param message the message
+     * @param cause the cause
+     */
+    public CodecException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
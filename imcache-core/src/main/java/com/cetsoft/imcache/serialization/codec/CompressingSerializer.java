@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.serialization.codec;
+
+import com.KyleDing.imcache.serialization.Serializer;
+
+/**
+ * The Class CompressingSerializer compresses the bytes of another serializer
+ * before they are stored. Every payload starts with a flag byte, the id of the
+ * codec followed by the decoded length for compressed payloads or 0 for
+ * payloads kept as they are. Payloads below the threshold and payloads that do
+ * not get smaller are kept as they are, so small values pay one byte and no
+ * time.
+ *
+ * @param <V> the value type
+ */
+public class CompressingSerializer<V> implements Serializer<V> {
+
+    /** The Constant DEFAULT_THRESHOLD. */
+    public static final int DEFAULT_THRESHOLD = 512;
+
+    /** The Constant RAW, the flag of payloads that are not compressed. */
+    public static final byte RAW = 0;
+
+    /** The Constant HEADER_SIZE of compressed payloads. */
+    private static final int HEADER_SIZE = 5;
+
+    /** The serializer. */
+    private final Serializer<V> serializer;
+
+    /** The codec. */
+    private final Codec codec;
+
+    /** The threshold. */
+    private final int threshold;
+
+    /**
+     * Instantiates a new compressing serializer with the default threshold.
+     *
+     * @param serializer the serializer
+     * @param codec the codec
+     */
+    public CompressingSerializer(Serializer<V> serializer, Codec codec) {
+        this(serializer, codec, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Instantiates a new compressing serializer.
+     *
+     * @param serializer the serializer
+     * @param codec the codec
+     * @param threshold the length from which payloads are compressed
+     */
+    public CompressingSerializer(Serializer<V> serializer, Codec codec, int threshold) {
+        if (codec.getId() == RAW) {
+            throw new IllegalArgumentException("Codec id " + RAW + " is reserved.");
+        }
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative.");
+        }
+        this.serializer = serializer;
+        this.codec = codec;
+        this.threshold = threshold;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.serialization.Serializer#serialize(java.lang.Object)
+     */
+    public byte[] serialize(V value) {
+        byte[] bytes = serializer.serialize(value);
+        if (bytes.length >= threshold) {
+            byte[] encoded = new byte[HEADER_SIZE + codec.maxEncodedLength(bytes.length)];
+            int length = HEADER_SIZE + codec.encode(bytes, 0, bytes.length, encoded, HEADER_SIZE);
+            if (length < bytes.length + 1) {
+                encoded[0] = codec.getId();
+                encoded[1] = (byte) (bytes.length >>> 24);
+                encoded[2] = (byte) (bytes.length >>> 16);
+                encoded[3] = (byte) (bytes.length >>> 8);
+                encoded[4] = (byte) bytes.length;
+                byte[] payload = new byte[length];
+                System.arraycopy(encoded, 0, payload, 0, length);
+                return payload;
+            }
+        }
+        byte[] payload = new byte[bytes.length + 1];
+        payload[0] = RAW;
+        System.arraycopy(bytes, 0, payload, 1, bytes.length);
+        return payload;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.serialization.Serializer#deserialize(byte[])
+     */
+    public V deserialize(byte[] payload) {
+        if (payload.length == 0) {
+            throw new CodecException("Payload has no flag!");
+        }
+        byte[] bytes;
+        if (payload[0] == RAW) {
+            bytes = new byte[payload.length - 1];
+            System.arraycopy(payload, 1, bytes, 0, bytes.length);
+        } else if (payload[0] == codec.getId()) {
+            if (payload.length < HEADER_SIZE) {
+                throw new CodecException("Truncated header!");
+            }
+            int length = ((payload[1] & 0xFF) << 24) | ((payload[2] & 0xFF) << 16) | ((payload[3] & 0xFF) << 8)
+                    | (payload[4] & 0xFF);
+            if (length < 0) {
+                throw new CodecException("Wrong decoded length!");
+            }
+            bytes = new byte[length];
+            codec.decode(payload, HEADER_SIZE, payload.length - HEADER_SIZE, bytes, 0, length);
+        } else {
+            throw new CodecException("Payload is encoded by unknown codec " + payload[0] + ".");
+        }
+        return serializer.deserialize(bytes);
+    }
+
+    /**
+     * Gets the serializer.
+     *
+     * @return the serializer
+     */
+    public Serializer<V> getSerializer() {
+        return serializer;
+    }
+
+    /**
+     * Gets the codec.
+     *
+     * @return the codec
+     */
+    public Codec getCodec() {
+        return codec;
+    }
+
+    /**
+     * Gets the threshold.
+     *
+     * @return the threshold
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+}
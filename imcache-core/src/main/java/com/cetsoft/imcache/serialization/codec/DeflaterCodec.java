@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.serialization.codec;
+
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * The Class DeflaterCodec compresses with the JDK {@link Deflater}, optionally
+ * with a preset dictionary. Values of a few kilobytes have too little history
+ * to compress well on their own, a dictionary trained from sampled values by
+ * {@link DictionaryTrainer} gives them the common strings up front. Values
+ * must be decoded with the dictionary they were encoded with, the checksum of
+ * the dictionary is checked on decoding.
+ */
+public class DeflaterCodec implements Codec {
+
+    /** The Constant ID. */
+    public static final byte ID = 2;
+
+    /** The level. */
+    private final int level;
+
+    /** The dictionary. */
+    private final byte[] dictionary;
+
+    /**
+     * The deflaters, one per thread shared by every codec, since the native
+     * memory of a deflater is released only when it is ended or finalized.
+     */
+    private static final ThreadLocal<Deflater> DEFLATERS = new ThreadLocal<Deflater>() {
+        protected Deflater initialValue() {
+            return new Deflater();
+        }
+    };
+
+    /** The inflaters, one per thread shared by every codec. */
+    private static final ThreadLocal<Inflater> INFLATERS = new ThreadLocal<Inflater>() {
+        protected Inflater initialValue() {
+            return new Inflater();
+        }
+    };
+
+    /**
+     * Instantiates a new deflater codec without a dictionary.
+     */
+    public DeflaterCodec() {
+        this(Deflater.BEST_SPEED, null);
+    }
+
+    /**
+     * Instantiates a new deflater codec.
+     *
+     * @param dictionary the dictionary, may be null
+     */
+    public DeflaterCodec(byte[] dictionary) {
+        this(Deflater.BEST_SPEED, dictionary);
+    }
+
+    /**
+     * Instantiates a new deflater codec.
+     *
+     * @param level the compression level
+     * @param dictionary the dictionary, may be null
+     */
+    public DeflaterCodec(int level, byte[] dictionary) {
+        this.level = level;
+        this.dictionary = dictionary;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.serialization.codec.Codec#getId()
+     */
+    public byte getId() {
+        return ID;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.serialization.codec.Codec#maxEncodedLength(int)
+     */
+    public int maxEncodedLength(int length) {
+        // The bound of zlib for stored blocks plus the header and the checksum.
+        return length + (length >>> 12) + (length >>> 14) + (length >>> 25) + 13 + 6;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.serialization.codec.Codec#encode(byte[], int,
+     * int, byte[], int)
+     */
+    public int encode(byte[] source, int sourceOffset, int sourceLength, byte[] destination, int destinationOffset) {
+        Deflater deflater = DEFLATERS.get();
+        deflater.reset();
+        deflater.setLevel(level);
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
+        deflater.setInput(source, sourceOffset, sourceLength);
+        deflater.finish();
+        int position = destinationOffset;
+        while (!deflater.finished()) {
+            int length = deflater.deflate(destination, position, destination.length - position);
+            if (length == 0 && position == destination.length) {
+                throw new CodecException("Destination is too small!");
+            }
+            position += length;
+        }
+        return position - destinationOffset;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.serialization.codec.Codec#decode(byte[], int,
+     * int, byte[], int, int)
+     */
+    public void decode(byte[] source, int sourceOffset, int sourceLength, byte[] destination, int destinationOffset,
+            int destinationLength) {
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        inflater.setInput(source, sourceOffset, sourceLength);
+        int position = destinationOffset;
+        int destinationEnd = destinationOffset + destinationLength;
+        try {
+            while (!inflater.finished()) {
+                int length = inflater.inflate(destination, position, destinationEnd - position);
+                if (length == 0) {
+                    if (inflater.needsDictionary() && dictionary != null) {
+                        inflater.setDictionary(dictionary);
+                    } else if (inflater.needsDictionary()) {
+                        throw new CodecException("Input needs a dictionary!");
+                    } else if (position == destinationEnd) {
+                        throw new CodecException("Wrong decoded length!");
+                    } else {
+                        throw new CodecException("Truncated input!");
+                    }
+                }
+                position += length;
+            }
+        } catch (DataFormatException exception) {
+            throw new CodecException("Wrong input!", exception);
+        } catch (IllegalArgumentException exception) {
+            // The dictionary does not match the one the value was encoded with.
+            throw new CodecException("Wrong dictionary!", exception);
+        }
+        if (position != destinationEnd) {
+            throw new CodecException("Wrong decoded length!");
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.serialization.codec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The Class DictionaryTrainer builds a dictionary for the
+ * {@link DeflaterCodec} from sampled values. The samples are cut into segments
+ * which are scored by how often their eight byte grams occur in all samples.
+ * The best segments are picked greedily, the grams of a picked segment no
+ * longer count for the others so that the dictionary does not repeat itself.
+ * The most valuable segments are put at the end of the dictionary where
+ * deflate reaches them with the shortest distances.
+ */
+public final class DictionaryTrainer {
+
+    /** The Constant DEFAULT_DICTIONARY_SIZE. */
+    public static final int DEFAULT_DICTIONARY_SIZE = 16 * 1024;
+
+    /** The Constant MAX_DICTIONARY_SIZE, the window of deflate. */
+    public static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+    /** The Constant GRAM_LENGTH. */
+    private static final int GRAM_LENGTH = 8;
+
+    /** The Constant SEGMENT_LENGTH. */
+    private static final int SEGMENT_LENGTH = 64;
+
+    /** The Constant SEGMENT_STRIDE. */
+    private static final int SEGMENT_STRIDE = SEGMENT_LENGTH / 2;
+
+    /** The Constant COUNTS_LOG. */
+    private static final int COUNTS_LOG = 20;
+
+    /**
+     * Instantiates a new dictionary trainer.
+     */
+    private DictionaryTrainer() {
+    }
+
+    /**
+     * Trains a dictionary of the default size.
+     *
+     * @param samples the samples
+     * @return the dictionary
+     */
+    public static byte[] train(Collection<byte[]> samples) {
+        return train(samples, DEFAULT_DICTIONARY_SIZE);
+    }
+
+    /**
+     * Trains a dictionary.
+     *
+     * @param samples the samples
+     * @param dictionarySize the dictionary size, at most
+     *            {@link #MAX_DICTIONARY_SIZE}
+     * @return the dictionary, shorter than the size if the samples do not
+     *         repeat enough
+     */
+    public static byte[] train(Collection<byte[]> samples, int dictionarySize) {
+        if (dictionarySize <= 0 || dictionarySize > MAX_DICTIONARY_SIZE) {
+            throw new IllegalArgumentException("Dictionary size must be between 1 and " + MAX_DICTIONARY_SIZE + ".");
+        }
+        int[] counts = new int[1 << COUNTS_LOG];
+        for (byte[] sample : samples) {
+            for (int i = 0; i + GRAM_LENGTH <= sample.length; i++) {
+                counts[hash(sample, i)]++;
+            }
+        }
+        PriorityQueue<Segment> segments = new PriorityQueue<Segment>();
+        for (byte[] sample : samples) {
+            int length = Math.min(sample.length, SEGMENT_LENGTH);
+            for (int i = 0; i + length <= sample.length; i += SEGMENT_STRIDE) {
+                Segment segment = new Segment(sample, i, length);
+                segment.score = score(segment, counts);
+                if (segment.score > 0) {
+                    segments.add(segment);
+                }
+            }
+        }
+        List<Segment> chosen = new ArrayList<Segment>();
+        int size = 0;
+        while (size < dictionarySize && !segments.isEmpty()) {
+            Segment segment = segments.poll();
+            // Scores only drop, a segment that is still the best after scoring
+            // it again is the best of all.
+            int score = score(segment, counts);
+            if (score <= 0) {
+                continue;
+            }
+            if (score < segment.score && !segments.isEmpty() && score < segments.peek().score) {
+                segment.score = score;
+                segments.add(segment);
+                continue;
+            }
+            chosen.add(segment);
+            size += segment.length;
+            for (int i = segment.offset; i + GRAM_LENGTH <= segment.offset + segment.length; i++) {
+                counts[hash(segment.sample, i)] = 0;
+            }
+        }
+        byte[] dictionary = new byte[Math.min(size, dictionarySize)];
+        int position = dictionary.length;
+        for (Segment segment : chosen) {
+            int length = Math.min(segment.length, position);
+            position -= length;
+            System.arraycopy(segment.sample, segment.offset + segment.length - length, dictionary, position, length);
+        }
+        return dictionary;
+    }
+
+    /**
+     * Scores a segment by the occurrences of its grams in other places.
+     *
+     * @param segment the segment
+     * @param counts the counts
+     * @return the score
+     */
+    private static int score(Segment segment, int[] counts) {
+        int score = 0;
+        for (int i = segment.offset; i + GRAM_LENGTH <= segment.offset + segment.length; i++) {
+            int count = counts[hash(segment.sample, i)];
+            if (count > 1) {
+                score += count - 1;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Hashes the gram at the offset.
+     *
+     * @param bytes the bytes
+     * @param offset the offset
+     * @return the hash
+     */
+    private static int hash(byte[] bytes, int offset) {
+        long gram = 0;
+        for (int i = 0; i < GRAM_LENGTH; i++) {
+            gram = (gram << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return (int) ((gram * 0x9E3779B97F4A7C15L) >>> (64 - COUNTS_LOG));
+    }
+
+    /**
+     * The Class Segment.
+     */
+    private static class Segment implements Comparable<Segment> {
+
+        /** The sample. */
+        final byte[] sample;
+
+        /** The offset. */
+        final int offset;
+
+        /** The length. */
+        final int length;
+
+        /** The score. */
+        int score;
+
+        /**
+         * Instantiates a new segment.
+         *
+         * @param sample the sample
+         * @param offset the offset
+         * @param length the length
+         */
+        Segment(byte[] sample, int offset, int length) {
+            this.sample = sample;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.lang.Comparable#compareTo(java.lang.Object)
+         */
+        public int compareTo(Segment segment) {
+            return segment.score < score ? -1 : (segment.score == score ? 0 : 1);
+        }
+    }
+}
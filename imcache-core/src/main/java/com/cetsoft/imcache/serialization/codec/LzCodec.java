@@ -0,0 +1,274 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.serialization.codec;
+
+import java.util.Arrays;
+
+/**
+ * The Class LzCodec is a fast LZ77 compressor writing the LZ4 block format.
+ * Each sequence is a token whose high nibble is the number of literals and
+ * whose low nibble is the match length less four, a nibble of 15 being
+ * followed by bytes adding to it, then the literals and the offset of the
+ * match as two little endian bytes. The last sequence has literals only.
+ * Matches are found through a hash table of the last positions of four byte
+ * words, which trades ratio for speed.
+ */
+public class LzCodec implements Codec {
+
+    /** The Constant ID. */
+    public static final byte ID = 1;
+
+    /** The Constant MIN_MATCH. */
+    private static final int MIN_MATCH = 4;
+
+    /** The Constant MAX_OFFSET. */
+    private static final int MAX_OFFSET = 65535;
+
+    /** The Constant LAST_LITERALS, the bytes that end every block as literals. */
+    private static final int LAST_LITERALS = 5;
+
+    /** The Constant MATCH_FIND_LIMIT, no match starts in the last bytes. */
+    private static final int MATCH_FIND_LIMIT = 12;
+
+    /** The Constant HASH_LOG, the log of the size of the hash table. */
+    private static final int HASH_LOG = 12;
+
+    /** The Constant SKIP_STRENGTH, the more misses the longer the steps. */
+    private static final int SKIP_STRENGTH = 6;
+
+    /** The Constant NIBBLE_MAX. */
+    private static final int NIBBLE_MAX = 15;
+
+    /** The hash tables, one per thread. */
+    private static final ThreadLocal<int[]> HASH_TABLES = new ThreadLocal<int[]>() {
+        protected int[] initialValue() {
+            return new int[1 << HASH_LOG];
+        }
+    };
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.serialization.codec.Codec#getId()
+     */
+    public byte getId() {
+        return ID;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.serialization.codec.Codec#maxEncodedLength(int)
+     */
+    public int maxEncodedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.serialization.codec.Codec#encode(byte[], int,
+     * int, byte[], int)
+     */
+    public int encode(byte[] source, int sourceOffset, int sourceLength, byte[] destination, int destinationOffset) {
+        int sourceEnd = sourceOffset + sourceLength;
+        int position = destinationOffset;
+        int anchor = sourceOffset;
+        if (sourceLength > MATCH_FIND_LIMIT) {
+            int[] hashTable = HASH_TABLES.get();
+            // Short inputs use as much of the table as they have positions.
+            int hashLog = Math.min(HASH_LOG, 32 - Integer.numberOfLeadingZeros(sourceLength - 1));
+            Arrays.fill(hashTable, 0, 1 << hashLog, -1);
+            int matchLimit = sourceEnd - LAST_LITERALS;
+            int findLimit = sourceEnd - MATCH_FIND_LIMIT;
+            int current = sourceOffset;
+            while (current < findLimit) {
+                int word = readInt(source, current);
+                int hash = hash(word, hashLog);
+                int reference = hashTable[hash];
+                hashTable[hash] = current;
+                if (reference < 0 || current - reference > MAX_OFFSET || readInt(source, reference) != word) {
+                    current += 1 + ((current - anchor) >>> SKIP_STRENGTH);
+                    continue;
+                }
+                int matchLength = MIN_MATCH;
+                while (current + matchLength < matchLimit
+                        && source[reference + matchLength] == source[current + matchLength]) {
+                    matchLength++;
+                }
+                position = writeSequence(source, anchor, current - anchor, current - reference, matchLength,
+                        destination, position);
+                current += matchLength;
+                anchor = current;
+            }
+        }
+        int literalLength = sourceEnd - anchor;
+        int tokenPosition = position++;
+        position = writeLength(destination, position, literalLength);
+        destination[tokenPosition] = (byte) (Math.min(literalLength, NIBBLE_MAX) << 4);
+        System.arraycopy(source, anchor, destination, position, literalLength);
+        return position + literalLength - destinationOffset;
+    }
+
+    /**
+     * Writes a sequence of literals followed by a match.
+     *
+     * @param source the source
+     * @param literalOffset the literal offset
+     * @param literalLength the literal length
+     * @param matchOffset the distance of the match
+     * @param matchLength the match length
+     * @param destination the destination
+     * @param position the position in the destination
+     * @return the position after the sequence
+     */
+    private static int writeSequence(byte[] source, int literalOffset, int literalLength, int matchOffset,
+            int matchLength, byte[] destination, int position) {
+        int tokenPosition = position++;
+        position = writeLength(destination, position, literalLength);
+        System.arraycopy(source, literalOffset, destination, position, literalLength);
+        position += literalLength;
+        destination[position++] = (byte) matchOffset;
+        destination[position++] = (byte) (matchOffset >>> 8);
+        position = writeLength(destination, position, matchLength - MIN_MATCH);
+        destination[tokenPosition] = (byte) ((Math.min(literalLength, NIBBLE_MAX) << 4) | Math.min(matchLength
+                - MIN_MATCH, NIBBLE_MAX));
+        return position;
+    }
+
+    /**
+     * Writes the bytes that follow a nibble of 15.
+     *
+     * @param destination the destination
+     * @param position the position
+     * @param length the length the nibble stands for
+     * @return the position after the bytes
+     */
+    private static int writeLength(byte[] destination, int position, int length) {
+        if (length < NIBBLE_MAX) {
+            return position;
+        }
+        length -= NIBBLE_MAX;
+        while (length >= 255) {
+            destination[position++] = (byte) 255;
+            length -= 255;
+        }
+        destination[position++] = (byte) length;
+        return position;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.serialization.codec.Codec#decode(byte[], int,
+     * int, byte[], int, int)
+     */
+    public void decode(byte[] source, int sourceOffset, int sourceLength, byte[] destination, int destinationOffset,
+            int destinationLength) {
+        int current = sourceOffset;
+        int sourceEnd = sourceOffset + sourceLength;
+        int position = destinationOffset;
+        int destinationEnd = destinationOffset + destinationLength;
+        while (true) {
+            if (current >= sourceEnd) {
+                throw new CodecException("Truncated input!");
+            }
+            int token = source[current++] & 0xFF;
+            int literalLength = token >>> 4;
+            if (literalLength == NIBBLE_MAX) {
+                int[] result = readLength(source, current, sourceEnd, literalLength);
+                literalLength = result[0];
+                current = result[1];
+            }
+            if (literalLength > sourceEnd - current || literalLength > destinationEnd - position) {
+                throw new CodecException("Literals out of bounds!");
+            }
+            System.arraycopy(source, current, destination, position, literalLength);
+            current += literalLength;
+            position += literalLength;
+            if (current == sourceEnd) {
+                break;
+            }
+            if (current + 2 > sourceEnd) {
+                throw new CodecException("Truncated input!");
+            }
+            int matchOffset = (source[current] & 0xFF) | ((source[current + 1] & 0xFF) << 8);
+            current += 2;
+            if (matchOffset == 0 || matchOffset > position - destinationOffset) {
+                throw new CodecException("Match offset out of bounds!");
+            }
+            int matchLength = token & NIBBLE_MAX;
+            if (matchLength == NIBBLE_MAX) {
+                int[] result = readLength(source, current, sourceEnd, matchLength);
+                matchLength = result[0];
+                current = result[1];
+            }
+            matchLength += MIN_MATCH;
+            if (matchLength > destinationEnd - position) {
+                throw new CodecException("Match out of bounds!");
+            }
+            int reference = position - matchOffset;
+            if (matchOffset >= matchLength) {
+                System.arraycopy(destination, reference, destination, position, matchLength);
+            } else {
+                // The match overlaps the bytes it produces.
+                for (int i = 0; i < matchLength; i++) {
+                    destination[position + i] = destination[reference + i];
+                }
+            }
+            position += matchLength;
+        }
+        if (position != destinationEnd) {
+            throw new CodecException("Wrong decoded length!");
+        }
+    }
+
+    /**
+     * Reads the bytes that follow a nibble of 15.
+     *
+     * @param source the source
+     * @param current the position of the first byte
+     * @param sourceEnd the source end
+     * @param length the nibble
+     * @return the length and the position after the bytes
+     */
+    private static int[] readLength(byte[] source, int current, int sourceEnd, int length) {
+        int lengthByte;
+        do {
+            if (current >= sourceEnd) {
+                throw new CodecException("Truncated input!");
+            }
+            lengthByte = source[current++] & 0xFF;
+            length += lengthByte;
+        } while (lengthByte == 255);
+        return new int[] { length, current };
+    }
+
+    /**
+     * Reads a little endian int.
+     *
+     * @param bytes the bytes
+     * @param offset the offset
+     * @return the int
+     */
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) | ((bytes[offset + 1] & 0xFF) << 8) | ((bytes[offset + 2] & 0xFF) << 16)
+                | ((bytes[offset + 3] & 0xFF) << 24);
+    }
+
+    /**
+     * Hashes a four byte word.
+     *
+     * @param word the word
+     * @param hashLog the log of the size of the used table
+     * @return the hash
+     */
+    private static int hash(int word, int hashLog) {
+        return (word * -1640531535) >>> (32 - hashLog);
+    }
+}
@@ -8,6 +8,15 @@
 package com.KyleDing.imcache.cache;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -55,6 +64,86 @@ public class AbstractCacheTest {
         assertEquals(0.0, abstractCache.hitRatio(0, 0), 0.000001);
     }
 
+    @Test
+    public void loadAllWithCacheLoader() {
+        AbstractCache<Integer, Item> abstractCache = new HeapCache<Integer, Item>(new CacheLoader<Integer, Item>() {
+            public Item load(Integer key) {
+                return key % 2 == 0 ? new Item() : null;
+            }
+        }, new EvictionListener<Integer, Item>() {
+            public void onEviction(Integer key, Item value) {
+            }
+        }, indexHandler, 10);
+        Map<Integer, Item> values = abstractCache.loadAll(Arrays.asList(1, 2, 3, 4));
+        assertEquals(2, values.size());
+        assertFalse(values.containsKey(1));
+    }
+
+    @Test
+    public void loadAllWithBulkCacheLoader() {
+        final Map<Integer, Item> loadedValues = new HashMap<Integer, Item>();
+        loadedValues.put(1, new Item());
+        AbstractCache<Integer, Item> abstractCache = new HeapCache<Integer, Item>(new BulkCacheLoader<Integer, Item>() {
+            public Item load(Integer key) {
+                throw new UnsupportedOperationException();
+            }
+
+            public Map<Integer, Item> loadAll(Collection<Integer> keys) {
+                return loadedValues;
+            }
+        }, new EvictionListener<Integer, Item>() {
+            public void onEviction(Integer key, Item value) {
+            }
+        }, indexHandler, 10);
+        assertEquals(loadedValues, abstractCache.loadAll(Arrays.asList(1, 2)));
+    }
+
+    @Test
+    public void loadAllSharesLoadWithGet() throws Exception {
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Item item = new Item();
+        final AbstractCache<Integer, Item> abstractCache = new HeapCache<Integer, Item>(
+                new CacheLoader<Integer, Item>() {
+                    public Item load(Integer key) {
+                        loads.incrementAndGet();
+                        loading.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        return item;
+                    }
+                }, new EvictionListener<Integer, Item>() {
+                    public void onEviction(Integer key, Item value) {
+                    }
+                }, indexHandler, 10);
+        Thread getter = new Thread(new Runnable() {
+            public void run() {
+                abstractCache.load(1);
+            }
+        });
+        getter.start();
+        loading.await();
+        final Map<Integer, Item> values = new HashMap<Integer, Item>();
+        Thread bulkGetter = new Thread(new Runnable() {
+            public void run() {
+                values.putAll(abstractCache.loadAll(Arrays.asList(1)));
+            }
+        });
+        bulkGetter.start();
+        while (bulkGetter.getState() != Thread.State.WAITING && bulkGetter.getState() != Thread.State.TIMED_WAITING) {
+            Thread.yield();
+        }
+        release.countDown();
+        getter.join();
+        bulkGetter.join();
+        assertEquals(1, loads.get());
+        assertSame(item, values.get(1));
+    }
+
     private static class Item {
     }
 
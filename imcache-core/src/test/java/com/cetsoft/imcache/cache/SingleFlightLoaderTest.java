@@ -0,0 +1,189 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SingleFlightLoaderTest {
+
+    static final int THREADS = 8;
+
+    SingleFlightLoader<Integer, Integer> singleFlightLoader = new SingleFlightLoader<Integer, Integer>();
+
+    @Test
+    public void loadOnceForConcurrentMisses() throws InterruptedException {
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CacheLoader<Integer, Integer> loader = new CacheLoader<Integer, Integer>() {
+            public Integer load(Integer key) {
+                loads.incrementAndGet();
+                await(release);
+                return key * 10;
+            }
+        };
+        final List<Integer> values = new ArrayList<Integer>();
+        List<Thread> threads = startThreads(new Runnable() {
+            public void run() {
+                Integer value = singleFlightLoader.load(3, loader);
+                synchronized (values) {
+                    values.add(value);
+                }
+            }
+        });
+        waitForWaiters();
+        release.countDown();
+        join(threads);
+        assertEquals(1, loads.get());
+        assertEquals(THREADS, values.size());
+        for (Integer value : values) {
+            assertEquals(Integer.valueOf(30), value);
+        }
+        assertTrue(singleFlightLoader.flights.isEmpty());
+    }
+
+    @Test
+    public void propagateException() throws InterruptedException {
+        singleFlightLoader.setPropagateException(true);
+        final AtomicInteger loads = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CacheLoader<Integer, Integer> loader = new CacheLoader<Integer, Integer>() {
+            public Integer load(Integer key) {
+                loads.incrementAndGet();
+                await(release);
+                throw new IllegalStateException("resource is down");
+            }
+        };
+        List<Thread> threads = startThreads(new Runnable() {
+            public void run() {
+                try {
+                    singleFlightLoader.load(3, loader);
+                } catch (IllegalStateException e) {
+                    failures.incrementAndGet();
+                } catch (CacheLoadException e) {
+                    assertTrue(e.getCause() instanceof IllegalStateException);
+                    failures.incrementAndGet();
+                }
+            }
+        });
+        waitForWaiters();
+        release.countDown();
+        join(threads);
+        assertEquals(1, loads.get());
+        assertEquals(THREADS, failures.get());
+    }
+
+    @Test
+    public void retryWhenExceptionNotPropagated() {
+        final AtomicInteger loads = new AtomicInteger();
+        CacheLoader<Integer, Integer> loader = new CacheLoader<Integer, Integer>() {
+            public Integer load(Integer key) {
+                if (loads.incrementAndGet() == 1) {
+                    throw new IllegalStateException();
+                }
+                return key;
+            }
+        };
+        try {
+            singleFlightLoader.load(3, loader);
+            fail();
+        } catch (IllegalStateException e) {
+        }
+        assertEquals(Integer.valueOf(3), singleFlightLoader.load(3, loader));
+    }
+
+    @Test(expected = CacheLoadException.class)
+    public void loadTimeout() throws InterruptedException {
+        singleFlightLoader.setLoadTimeout(10);
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Thread leader = new Thread(new Runnable() {
+            public void run() {
+                singleFlightLoader.load(3, new CacheLoader<Integer, Integer>() {
+                    public Integer load(Integer key) {
+                        loading.countDown();
+                        await(release);
+                        return key;
+                    }
+                });
+            }
+        });
+        leader.start();
+        loading.await();
+        try {
+            singleFlightLoader.load(3, new CacheLoader<Integer, Integer>() {
+                public Integer load(Integer key) {
+                    return key;
+                }
+            });
+        } finally {
+            release.countDown();
+            leader.join();
+        }
+    }
+
+    @Test
+    public void reentrantLoad() {
+        Integer value = singleFlightLoader.load(3, new CacheLoader<Integer, Integer>() {
+            public Integer load(Integer key) {
+                return singleFlightLoader.load(key, new CacheLoader<Integer, Integer>() {
+                    public Integer load(Integer key) {
+                        return key;
+                    }
+                });
+            }
+        });
+        assertEquals(Integer.valueOf(3), value);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negativeLoadTimeout() {
+        singleFlightLoader.setLoadTimeout(-1);
+    }
+
+    List<Thread> startThreads(Runnable runnable) {
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < THREADS; i++) {
+            Thread thread = new Thread(runnable);
+            thread.start();
+            threads.add(thread);
+        }
+        return threads;
+    }
+
+    void waitForWaiters() throws InterruptedException {
+        while (singleFlightLoader.flights.isEmpty()) {
+            Thread.sleep(1);
+        }
+        // Gives the rest of the threads time to join the flight.
+        Thread.sleep(100);
+    }
+
+    static void join(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -7,6 +7,9 @@
  */
 package com.KyleDing.imcache.cache.concurrent;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -17,6 +20,7 @@ import com.KyleDing.imcache.concurrent.ConcurrentLinkedHashMap;
 import com.KyleDing.imcache.concurrent.EvictionListener;
 import com.KyleDing.imcache.concurrent.Weigher;
 import com.KyleDing.imcache.concurrent.Weighers;
+import com.KyleDing.imcache.concurrent.policy.EvictionPolicyType;
 
 public class ConcurrentLinkedHashMapTest {
 
@@ -58,4 +62,64 @@ public class ConcurrentLinkedHashMapTest {
         map.isEmpty();
         map.weightedSize();
     }
+
+    @Test
+    public void bulkOperations() {
+        ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor();
+        EvictionListener<Integer, Integer> evictionListener = new EvictionListener<Integer, Integer>() {
+            @Override
+            public void onEviction(Integer key, Integer value) {
+            }
+        };
+        Weigher<Integer> weigher = Weighers.singleton();
+        ConcurrentLinkedHashMap<Integer, Integer> map = new ConcurrentLinkedHashMap<Integer, Integer>(2, 10, 10,
+                weigher, 3L, service, evictionListener);
+        Map<Integer, Integer> entries = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 5; i++) {
+            entries.put(i, i * 10);
+        }
+        map.putAll(entries);
+        assertEquals(5, map.size());
+        Map<Integer, Integer> present = map.getAllPresent(Arrays.asList(1, 2, 7));
+        assertEquals(2, present.size());
+        assertEquals(Integer.valueOf(20), present.get(2));
+        Map<Integer, Integer> removed = map.removeAll(Arrays.asList(3, 4, 8));
+        assertEquals(2, removed.size());
+        assertEquals(3, map.size());
+        assertFalse(map.containsKey(3));
+        assertEquals(Integer.valueOf(40), removed.get(4));
+        service.shutdown();
+    }
+
+    @Test
+    public void windowTinyLfu() {
+        ScheduledExecutorService service = Executors.newSingleThreadScheduledExecutor();
+        EvictionListener<Integer, Integer> evictionListener = new EvictionListener<Integer, Integer>() {
+            @Override
+            public void onEviction(Integer key, Integer value) {
+            }
+        };
+        Weigher<Integer> weigher = Weighers.singleton();
+        ConcurrentLinkedHashMap<Integer, Integer> map = new ConcurrentLinkedHashMap<Integer, Integer>(2, 100, 16,
+                weigher, 3L, service, evictionListener, 0, 0, EvictionPolicyType.W_TINY_LFU);
+        for (int i = 0; i < 50; i++) {
+            map.put(i, i);
+            map.get(i);
+        }
+        for (int i = 1000; i < 1500; i++) {
+            map.put(i, i);
+        }
+        // Each call drains a share of the pending tasks and evicts.
+        for (int i = 0; i < 100 && map.size() > 100; i++) {
+            map.setCapacity(100);
+        }
+        assertEquals(100, map.size());
+        assertEquals(100, map.ascendingKeySet().size());
+        for (int i = 0; i < 50; i++) {
+            assertTrue(map.containsKey(i));
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        service.shutdown();
+    }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.KyleDing.imcache.concurrent.TimerWheel;
+import com.KyleDing.imcache.concurrent.TimerWheel.Timer;
+
+public class TimerWheelTest {
+
+    // The span of a bucket of the finest level, timers are reported once the
+    // clock passes their bucket.
+    static final long TICK = 128;
+
+    TimerWheel<Integer> timerWheel = new TimerWheel<Integer>(0);
+
+    @Test
+    public void advance() {
+        schedule(1, 100);
+        schedule(2, 1000);
+        schedule(3, 60000);
+        assertEquals(3, timerWheel.size());
+        assertTrue(timerWheel.advance(100).isEmpty());
+        assertEquals(Arrays.asList(1), timerWheel.advance(TICK));
+        assertEquals(Arrays.asList(2), timerWheel.advance(59999));
+        assertEquals(Arrays.asList(3), timerWheel.advance(60000 + TICK));
+        assertEquals(0, timerWheel.size());
+    }
+
+    @Test
+    public void cascade() {
+        long[] expirationTimes = { 5, 130, 8191, 8192, 600000, 20000000, 2000000000L };
+        for (int i = 0; i < expirationTimes.length; i++) {
+            schedule(i, expirationTimes[i]);
+        }
+        List<Integer> expired = new ArrayList<Integer>();
+        for (long time = 0; time <= 2000000000L; time += 997) {
+            for (Integer element : timerWheel.advance(time)) {
+                assertTrue(expirationTimes[element] <= time);
+                assertTrue(expirationTimes[element] > time - 997 - TICK);
+                expired.add(element);
+            }
+        }
+        expired.addAll(timerWheel.advance(2000000000L + TICK));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6), expired);
+    }
+
+    @Test
+    public void jump() {
+        for (int i = 0; i < 100; i++) {
+            schedule(i, i * 1000L);
+        }
+        List<Integer> expired = timerWheel.advance(50000 + TICK);
+        Collections.sort(expired);
+        assertEquals(51, expired.size());
+        assertEquals(Integer.valueOf(50), expired.get(50));
+        assertEquals(49, timerWheel.size());
+    }
+
+    @Test
+    public void reschedule() {
+        Timer<Integer> timer = schedule(1, 100);
+        timerWheel.schedule(timer, 10000);
+        assertEquals(1, timerWheel.size());
+        assertTrue(timerWheel.advance(9999).isEmpty());
+        assertEquals(Arrays.asList(1), timerWheel.advance(10000 + TICK));
+        assertFalse(timer.isScheduled());
+    }
+
+    @Test
+    public void deschedule() {
+        Timer<Integer> timer = schedule(1, 100);
+        schedule(2, 100);
+        timerWheel.deschedule(timer);
+        timerWheel.deschedule(timer);
+        assertFalse(timer.isScheduled());
+        assertEquals(1, timerWheel.size());
+        assertEquals(Arrays.asList(2), timerWheel.advance(200));
+    }
+
+    @Test
+    public void clear() {
+        Timer<Integer> timer = schedule(1, 100);
+        schedule(2, 100000);
+        timerWheel.clear();
+        assertFalse(timer.isScheduled());
+        assertEquals(0, timerWheel.size());
+        assertTrue(timerWheel.advance(200000).isEmpty());
+    }
+
+    @Test
+    public void deadline() {
+        assertEquals(15, TimerWheel.deadline(10, 5));
+        assertEquals(TimerWheel.NEVER, TimerWheel.deadline(10, Long.MAX_VALUE));
+    }
+
+    Timer<Integer> schedule(int element, long expirationTime) {
+        Timer<Integer> timer = new Timer<Integer>(element);
+        timerWheel.schedule(timer, expirationTime);
+        return timer;
+    }
+}
@@ -12,6 +12,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import com.KyleDing.imcache.concurrent.lock.StripedReadWriteLock;
@@ -22,6 +23,13 @@ public class StripedReadWriteLockTest {
     static final int STOP = 2;
     StripedReadWriteLock lock = new StripedReadWriteLock();
 
+    @Test
+    public void getStripe() {
+        assertEquals(16, lock.getStripeCount());
+        assertEquals(1, lock.getStripe(17));
+        assertEquals(lock.getStripe(Integer.MIN_VALUE), lock.getStripe(0));
+    }
+
     @Test
     public void readLockTest() throws InterruptedException {
         final CountDownLatch latch = new CountDownLatch(1);
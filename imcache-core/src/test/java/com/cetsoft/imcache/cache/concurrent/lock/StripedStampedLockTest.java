@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.concurrent.lock;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.KyleDing.imcache.concurrent.lock.StripedStampedLock;
+
+public class StripedStampedLockTest {
+
+    StripedStampedLock lock = new StripedStampedLock();
+
+    @Test
+    public void validate() {
+        long stamp = lock.tryOptimisticRead(1);
+        assertTrue(lock.validate(1, stamp));
+        lock.readLock(1);
+        lock.readUnlock(1);
+        assertTrue(lock.validate(1, stamp));
+    }
+
+    @Test
+    public void validateAfterWrite() {
+        long stamp = lock.tryOptimisticRead(1);
+        lock.writeLock(1);
+        assertFalse(lock.validate(1, stamp));
+        lock.writeUnlock(1);
+        assertFalse(lock.validate(1, stamp));
+        assertTrue(lock.validate(1, lock.tryOptimisticRead(1)));
+    }
+
+    @Test
+    public void validateWhileWriteLocked() {
+        lock.writeLock(1);
+        try {
+            assertFalse(lock.validate(1, lock.tryOptimisticRead(1)));
+        } finally {
+            lock.writeUnlock(1);
+        }
+    }
+
+    @Test
+    public void validateReentrantWrite() {
+        lock.writeLock(1);
+        lock.writeLock(1);
+        lock.writeUnlock(1);
+        try {
+            assertFalse(lock.validate(1, lock.tryOptimisticRead(1)));
+        } finally {
+            lock.writeUnlock(1);
+        }
+        assertTrue(lock.validate(1, lock.tryOptimisticRead(1)));
+    }
+
+    @Test
+    public void validateOtherStripe() {
+        long stamp = lock.tryOptimisticRead(1);
+        lock.writeLock(2);
+        lock.writeUnlock(2);
+        assertTrue(lock.validate(1, stamp));
+        // Ids of the same stripe share the sequence.
+        lock.writeLock(17);
+        lock.writeUnlock(17);
+        assertFalse(lock.validate(1, stamp));
+    }
+}
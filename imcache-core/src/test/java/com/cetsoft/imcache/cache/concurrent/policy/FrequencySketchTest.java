@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.concurrent.policy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.KyleDing.imcache.concurrent.policy.FrequencySketch;
+
+public class FrequencySketchTest {
+
+    @Test
+    public void increment() {
+        FrequencySketch sketch = new FrequencySketch(512);
+        assertEquals(0, sketch.frequency(1));
+        sketch.increment(1);
+        sketch.increment(1);
+        assertEquals(2, sketch.frequency(1));
+    }
+
+    @Test
+    public void saturate() {
+        FrequencySketch sketch = new FrequencySketch(512);
+        for (int i = 0; i < 20; i++) {
+            sketch.increment(1);
+        }
+        assertEquals(15, sketch.frequency(1));
+    }
+
+    @Test
+    public void age() {
+        FrequencySketch sketch = new FrequencySketch(64);
+        for (int i = 0; i < 10; i++) {
+            sketch.increment("hot");
+        }
+        // 640 additions fill the sample and halve the counters.
+        for (int i = 0; i < 640; i++) {
+            sketch.increment(i);
+        }
+        int frequency = sketch.frequency("hot");
+        assertTrue(frequency >= 4 && frequency <= 6);
+    }
+
+    @Test
+    public void distinguishKeys() {
+        FrequencySketch sketch = new FrequencySketch(1024);
+        for (int i = 0; i < 100; i++) {
+            for (int j = 0; j < 8; j++) {
+                sketch.increment(i);
+            }
+        }
+        int errors = 0;
+        for (int i = 100; i < 1100; i++) {
+            if (sketch.frequency(i) > 2) {
+                errors++;
+            }
+        }
+        assertTrue(errors < 50);
+    }
+}
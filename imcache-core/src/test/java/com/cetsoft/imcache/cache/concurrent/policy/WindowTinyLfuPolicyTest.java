@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.concurrent.policy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.KyleDing.imcache.concurrent.policy.Evictable;
+import com.KyleDing.imcache.concurrent.policy.EvictionPolicy;
+import com.KyleDing.imcache.concurrent.policy.EvictionPolicyType;
+import com.KyleDing.imcache.concurrent.policy.WindowTinyLfuPolicy;
+
+public class WindowTinyLfuPolicyTest {
+
+    static final int CAPACITY = 100;
+
+    @Test
+    public void keepWorkingSetThroughScan() {
+        assertEquals(CAPACITY / 2, residentAfterScan(EvictionPolicyType.W_TINY_LFU));
+        assertEquals(0, residentAfterScan(EvictionPolicyType.LRU));
+    }
+
+    @Test
+    public void admitPopularCandidate() {
+        SimulatedCache cache = new SimulatedCache(EvictionPolicyType.W_TINY_LFU, CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) {
+            cache.get(i);
+        }
+        for (int i = 0; i < 6; i++) {
+            cache.get(1000);
+        }
+        // Leaves the window as the next keys come in and beats the victim.
+        for (int i = 2000; i < 2005; i++) {
+            cache.get(i);
+        }
+        assertTrue(cache.entries.containsKey(1000));
+    }
+
+    @Test
+    public void remove() {
+        EvictionPolicy<Element> policy = new WindowTinyLfuPolicy<Element>(CAPACITY);
+        Element element = new Element(1);
+        policy.add(element);
+        assertTrue(policy.contains(element));
+        policy.remove(element);
+        assertFalse(policy.contains(element));
+        assertNull(policy.evict());
+    }
+
+    @Test
+    public void evictAll() {
+        EvictionPolicy<Element> policy = new WindowTinyLfuPolicy<Element>(10);
+        for (int i = 0; i < 10; i++) {
+            Element element = new Element(i);
+            policy.add(element);
+            if (i % 2 == 0) {
+                policy.access(element);
+            }
+        }
+        int count = 0;
+        for (Iterator<Element> iterator = policy.ascendingIterator(); iterator.hasNext(); iterator.next()) {
+            count++;
+        }
+        assertEquals(10, count);
+        for (int i = 0; i < 10; i++) {
+            assertFalse(policy.contains(policy.evict()));
+        }
+        assertNull(policy.evict());
+    }
+
+    @Test
+    public void shrink() {
+        SimulatedCache cache = new SimulatedCache(EvictionPolicyType.W_TINY_LFU, CAPACITY);
+        for (int i = 0; i < CAPACITY; i++) {
+            cache.policy.access(cache.get(i));
+        }
+        cache.policy.setCapacity(10);
+        int evicted = 0;
+        while (cache.policy.evict() != null) {
+            evicted++;
+        }
+        assertEquals(CAPACITY, evicted);
+    }
+
+    int residentAfterScan(EvictionPolicyType evictionPolicyType) {
+        SimulatedCache cache = new SimulatedCache(evictionPolicyType, CAPACITY);
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < CAPACITY / 2; i++) {
+                cache.get(i);
+            }
+        }
+        for (int i = 1000; i < 1000 + CAPACITY * 5; i++) {
+            cache.get(i);
+        }
+        int resident = 0;
+        for (int i = 0; i < CAPACITY / 2; i++) {
+            if (cache.entries.containsKey(i)) {
+                resident++;
+            }
+        }
+        return resident;
+    }
+
+    static class SimulatedCache {
+
+        final EvictionPolicy<Element> policy;
+        final Map<Object, Element> entries = new HashMap<Object, Element>();
+        final int capacity;
+
+        SimulatedCache(EvictionPolicyType evictionPolicyType, int capacity) {
+            this.policy = evictionPolicyType.newPolicy(capacity);
+            this.capacity = capacity;
+        }
+
+        Element get(Object key) {
+            Element element = entries.get(key);
+            if (element != null) {
+                policy.access(element);
+                return element;
+            }
+            element = new Element(key);
+            entries.put(key, element);
+            policy.add(element);
+            if (entries.size() > capacity) {
+                entries.remove(policy.evict().getKey());
+            }
+            return element;
+        }
+    }
+
+    static class Element implements Evictable<Element> {
+
+        final Object key;
+        Element previous;
+        Element next;
+        int region;
+
+        Element(Object key) {
+            this.key = key;
+        }
+
+        public Element getPrevious() {
+            return previous;
+        }
+
+        public void setPrevious(Element previous) {
+            this.previous = previous;
+        }
+
+        public Element getNext() {
+            return next;
+        }
+
+        public void setNext(Element next) {
+            this.next = next;
+        }
+
+        public Object getKey() {
+            return key;
+        }
+
+        public int getRegion() {
+            return region;
+        }
+
+        public void setRegion(int region) {
+            this.region = region;
+        }
+    }
+}
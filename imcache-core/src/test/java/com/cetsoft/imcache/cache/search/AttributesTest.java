@@ -0,0 +1,198 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.search;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * The Class AttributesTest.
+ */
+public class AttributesTest {
+
+    /**
+     * The Class Value has accessors in AttributesTest_Value_CacheAttributes.
+     */
+    static class Value {
+
+        /** The name. */
+        String name = "reflected";
+
+        /** The age. */
+        int age = 3;
+    }
+
+    /**
+     * The Class Plain has no generated accessors.
+     */
+    static class Plain {
+
+        /** The name. */
+        private String name = "plain";
+    }
+
+    /**
+     * The Class Address.
+     */
+    static class Address {
+
+        /** The city. */
+        private String city;
+
+        /**
+         * Instantiates a new address.
+         *
+         * @param city the city
+         */
+        Address(String city) {
+            this.city = city;
+        }
+    }
+
+    /**
+     * The Class Customer.
+     */
+    static class Customer {
+
+        /** The id. */
+        private long id = 7;
+
+        /** The address. */
+        Address address = new Address("Istanbul");
+
+        /**
+         * Gets the full name, an attribute without a field.
+         *
+         * @return the full name
+         */
+        public String getFullName() {
+            return "Kyle Ding";
+        }
+
+        /**
+         * Checks if is active, an attribute without a field.
+         *
+         * @return true, if is active
+         */
+        boolean isActive() {
+            return true;
+        }
+
+        /**
+         * Gets the broken attribute.
+         *
+         * @return nothing
+         */
+        public String getBroken() {
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * The Class PremiumCustomer.
+     */
+    static class PremiumCustomer extends Customer {
+    }
+
+    /**
+     * Get value uses the generated accessor.
+     */
+    @Test
+    public void getValueGenerated() {
+        assertEquals("generated", Attributes.getValue(new Value(), "name"));
+        assertNotNull(Attributes.getFactory(Value.class));
+    }
+
+    /**
+     * Get value falls back to reflection for attributes without accessors.
+     */
+    @Test
+    public void getValueFallsBackToReflection() {
+        assertEquals(3, Attributes.getValue(new Value(), "age"));
+        assertEquals("plain", Attributes.getValue(new Plain(), "name"));
+        assertNull(Attributes.getFactory(Plain.class));
+    }
+
+    /**
+     * Get accessor resolves the attribute once.
+     */
+    @Test
+    public void getAccessorIsCached() {
+        AttributeAccessor<Object> accessor = Attributes.getAccessor(Customer.class, "id");
+        assertSame(accessor, Attributes.getAccessor(Customer.class, "id"));
+        assertEquals(7L, accessor.get(new Customer()));
+    }
+
+    /**
+     * An attribute reads values of different classes.
+     */
+    @Test
+    public void attributeFollowsClass() {
+        Attribute attribute = new Attribute("name");
+        assertEquals("generated", attribute.get(new Value()));
+        assertEquals("plain", attribute.get(new Plain()));
+        assertEquals("generated", attribute.get(new Value()));
+        Attribute path = new Attribute("address.city");
+        assertEquals("Istanbul", path.get(new Customer()));
+        assertEquals("Istanbul", path.get(new PremiumCustomer()));
+    }
+
+    /**
+     * Get value of getters.
+     */
+    @Test
+    public void getValueOfGetters() {
+        assertEquals("Kyle Ding", Attributes.getValue(new Customer(), "fullName"));
+        assertEquals(true, Attributes.getValue(new Customer(), "active"));
+    }
+
+    /**
+     * Get value of superclass fields and getters.
+     */
+    @Test
+    public void getValueOfSuperclass() {
+        assertEquals(7L, Attributes.getValue(new PremiumCustomer(), "id"));
+        assertEquals("Kyle Ding", Attributes.getValue(new PremiumCustomer(), "fullName"));
+    }
+
+    /**
+     * Get value of paths.
+     */
+    @Test
+    public void getValueOfPath() {
+        Customer customer = new Customer();
+        assertEquals("Istanbul", Attributes.getValue(customer, "address.city"));
+        customer.address = null;
+        assertNull(Attributes.getValue(customer, "address.city"));
+    }
+
+    /**
+     * Get value of a path with an unknown attribute.
+     */
+    @Test(expected = AttributeException.class)
+    public void getValueOfUnknownPath() {
+        Attributes.getValue(new Customer(), "address.country");
+    }
+
+    /**
+     * Get value of a getter that throws.
+     */
+    @Test(expected = AttributeException.class)
+    public void getValueOfThrowingGetter() {
+        Attributes.getValue(new Customer(), "broken");
+    }
+
+    /**
+     * Get value of unknown attribute.
+     */
+    @Test(expected = AttributeException.class)
+    public void getValueUnknown() {
+        Attributes.getValue(new Plain(), "unknown");
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.search;
+
+/**
+ * The Class AttributesTest_Value_CacheAttributes stands for the class
+ * imcache-processor would generate, its accessor tells itself apart from
+ * reflection.
+ */
+public class AttributesTest_Value_CacheAttributes implements AttributeAccessorFactory<AttributesTest.Value> {
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.cache.search.AttributeAccessorFactory#getAccessor(java.lang.String)
+     */
+    public AttributeAccessor<AttributesTest.Value> getAccessor(String attributeName) {
+        if (!"name".equals(attributeName)) {
+            return null;
+        }
+        return new AttributeAccessor<AttributesTest.Value>() {
+            public Object get(AttributesTest.Value object) {
+                return "generated";
+            }
+        };
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.serialization;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.KyleDing.imcache.serialization.BinaryReader;
+import com.KyleDing.imcache.serialization.BinaryWriter;
+
+/**
+ * The Class BinaryReaderTest.
+ */
+public class BinaryReaderTest {
+
+    /**
+     * Read leaves the buffer as it is.
+     */
+    @Test
+    public void readLeavesBuffer() {
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeInt(7);
+        writer.writeString("offheap");
+        byte[] payload = writer.toByteArray();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(payload.length + 2);
+        buffer.position(2);
+        buffer.put(payload);
+        buffer.position(2);
+        BinaryReader reader = new BinaryReader(buffer);
+        assertEquals(7, reader.readInt());
+        assertEquals("offheap", reader.readString());
+        assertEquals(2, buffer.position());
+        assertEquals(payload.length + 2, buffer.limit());
+    }
+
+    /**
+     * Read past the limit.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void readPastLimit() {
+        ByteBuffer buffer = ByteBuffer.wrap(new byte[] { 1, 2, 3 });
+        buffer.limit(2);
+        new BinaryReader(buffer).readDouble();
+    }
+
+    /**
+     * Read malformed varint.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void readMalformedVarint() {
+        byte[] payload = new byte[6];
+        Arrays.fill(payload, (byte) 0x80);
+        new BinaryReader(payload).readInt();
+    }
+
+    /**
+     * Read a length larger than the bytes left.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void readLengthPastLimit() {
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeLength(Integer.MAX_VALUE - 1);
+        new BinaryReader(writer.toByteArray()).readBytes();
+    }
+
+    /**
+     * Read an ordinal larger than the bytes left.
+     */
+    @Test
+    public void readOrdinal() {
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeOrdinal(1000);
+        writer.writeOrdinal(-1);
+        BinaryReader reader = new BinaryReader(writer.toByteArray());
+        assertEquals(1000, reader.readOrdinal());
+        assertEquals(-1, reader.readOrdinal());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.serialization;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.KyleDing.imcache.serialization.BinaryReader;
+import com.KyleDing.imcache.serialization.BinaryWriter;
+
+/**
+ * The Class BinaryWriterTest.
+ */
+public class BinaryWriterTest {
+
+    /**
+     * Write primitives.
+     */
+    @Test
+    public void writePrimitives() {
+        BinaryWriter writer = new BinaryWriter(1);
+        writer.writeBoolean(true);
+        writer.writeByte((byte) -2);
+        writer.writeShort(Short.MIN_VALUE);
+        writer.writeChar('\uffff');
+        writer.writeFloat(-0.5f);
+        writer.writeDouble(Math.PI);
+        BinaryReader reader = new BinaryReader(writer.toByteArray());
+        assertEquals(1 + 1 + 2 + 2 + 4 + 8, writer.size());
+        assertTrue(reader.readBoolean());
+        assertEquals(-2, reader.readByte());
+        assertEquals(Short.MIN_VALUE, reader.readShort());
+        assertEquals('\uffff', reader.readChar());
+        assertEquals(-0.5f, reader.readFloat(), 0);
+        assertEquals(Math.PI, reader.readDouble(), 0);
+    }
+
+    /**
+     * Write int uses a byte for small values.
+     */
+    @Test
+    public void writeInt() {
+        int[] values = { 0, -1, 1, 63, -64, 64, Integer.MAX_VALUE, Integer.MIN_VALUE };
+        int[] sizes = { 1, 1, 1, 1, 1, 2, 5, 5 };
+        for (int i = 0; i < values.length; i++) {
+            BinaryWriter writer = new BinaryWriter();
+            writer.writeInt(values[i]);
+            assertEquals(sizes[i], writer.size());
+            assertEquals(values[i], new BinaryReader(writer.toByteArray()).readInt());
+        }
+    }
+
+    /**
+     * Write long.
+     */
+    @Test
+    public void writeLong() {
+        long[] values = { 0, -1, 1L << 40, Long.MAX_VALUE, Long.MIN_VALUE };
+        int[] sizes = { 1, 1, 6, 10, 10 };
+        for (int i = 0; i < values.length; i++) {
+            BinaryWriter writer = new BinaryWriter();
+            writer.writeLong(values[i]);
+            assertEquals(sizes[i], writer.size());
+            assertEquals(values[i], new BinaryReader(writer.toByteArray()).readLong());
+        }
+    }
+
+    /**
+     * Write string.
+     */
+    @Test
+    public void writeString() {
+        String[] values = { null, "", "imcache", "\u0000\u00e7\u4e01\ud83d\ude00" };
+        for (String value : values) {
+            BinaryWriter writer = new BinaryWriter(1);
+            writer.writeString(value);
+            assertEquals(value, new BinaryReader(writer.toByteArray()).readString());
+        }
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeString("imcache");
+        assertEquals(8, writer.size());
+    }
+
+    /**
+     * Write bytes.
+     */
+    @Test
+    public void writeBytes() {
+        BinaryWriter writer = new BinaryWriter(1);
+        writer.writeBytes(null);
+        writer.writeBytes(new byte[] { 1, 2, 3 });
+        BinaryReader reader = new BinaryReader(writer.toByteArray());
+        assertNull(reader.readBytes());
+        assertArrayEquals(new byte[] { 1, 2, 3 }, reader.readBytes());
+    }
+
+    /**
+     * Write length.
+     */
+    @Test
+    public void writeLength() {
+        BinaryWriter writer = new BinaryWriter();
+        writer.writeLength(-1);
+        writer.writeLength(200);
+        writer.writeBytes(new byte[199]);
+        BinaryReader reader = new BinaryReader(writer.toByteArray());
+        assertEquals(-1, reader.readLength());
+        assertEquals(200, reader.readLength());
+    }
+
+    /**
+     * Write length rejects negative lengths.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void writeNegativeLength() {
+        new BinaryWriter().writeLength(-2);
+    }
+}
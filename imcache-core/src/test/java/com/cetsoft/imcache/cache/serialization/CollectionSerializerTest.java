@@ -10,6 +10,7 @@ package com.KyleDing.imcache.cache.serialization;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.Before;
@@ -19,6 +20,7 @@ import org.mockito.MockitoAnnotations;
 import com.KyleDing.imcache.cache.CollectionItem;
 import com.KyleDing.imcache.cache.util.SerializationUtils;
 import com.KyleDing.imcache.serialization.CollectionSerializer;
+import com.KyleDing.imcache.serialization.LazyCollectionItem;
 import com.KyleDing.imcache.serialization.Serializer;
 
 /**
@@ -61,4 +63,83 @@ public class CollectionSerializerTest {
         assertTrue(actualCollectionItem.getValue().contains(2));
     }
 
+    /**
+     * Serialize writes the offset table.
+     */
+    @Test
+    public void serializeWritesOffsetTable() {
+        CollectionSerializer<String> collectionSerializer = new CollectionSerializer<String>(new StringSerializer());
+        List<String> objects = new ArrayList<String>();
+        objects.add("a");
+        objects.add("bcd");
+        byte[] payload = collectionSerializer.serialize(new CollectionItem<String>(objects));
+        assertArrayEquals(new byte[] { 0, 0, 0, 2, 0, 0, 0, 1, 0, 0, 0, 4, 'a', 'b', 'c', 'd' }, payload);
+    }
+
+    /**
+     * Serialize empty collection.
+     */
+    @Test
+    public void serializeEmptyCollection() {
+        CollectionSerializer<String> collectionSerializer = new CollectionSerializer<String>(new StringSerializer());
+        byte[] payload = collectionSerializer.serialize(new CollectionItem<String>(Collections.<String> emptyList()));
+        assertArrayEquals(new byte[] { 0, 0, 0, 0 }, payload);
+        assertTrue(collectionSerializer.deserialize(payload).getValue().isEmpty());
+    }
+
+    /**
+     * Deserialize returns a mutable collection.
+     */
+    @Test
+    public void deserializeIsMutable() {
+        CollectionSerializer<String> collectionSerializer = new CollectionSerializer<String>(new StringSerializer());
+        List<String> objects = new ArrayList<String>();
+        objects.add("a");
+        byte[] payload = collectionSerializer.serialize(new CollectionItem<String>(objects));
+        CollectionItem<String> collectionItem = collectionSerializer.deserialize(payload);
+        assertFalse(collectionItem instanceof LazyCollectionItem);
+        collectionItem.getValue().add("bcd");
+        objects.add("bcd");
+        assertEquals(objects, collectionItem.getValue());
+    }
+
+    /**
+     * Deserialize lazily serializes back to the same payload.
+     */
+    @Test
+    public void deserializeLazily() {
+        CollectionSerializer<String> collectionSerializer = new CollectionSerializer<String>(new StringSerializer());
+        List<String> objects = new ArrayList<String>();
+        objects.add("a");
+        objects.add("bcd");
+        byte[] payload = collectionSerializer.serialize(new CollectionItem<String>(objects));
+        LazyCollectionItem<String> collectionItem = collectionSerializer.deserializeLazily(payload);
+        assertEquals(objects, collectionItem.getValue());
+        assertArrayEquals(payload, collectionSerializer.serialize(collectionItem));
+    }
+
+    /**
+     * The Class StringSerializer.
+     */
+    static class StringSerializer implements Serializer<String> {
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * com.KyleDing.imcache.serialization.Serializer#serialize(java.lang.Object)
+         */
+        public byte[] serialize(String value) {
+            return value.getBytes();
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.serialization.Serializer#deserialize(byte[])
+         */
+        public String deserialize(byte[] payload) {
+            return new String(payload);
+        }
+    }
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.serialization;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.KyleDing.imcache.cache.CollectionItem;
+import com.KyleDing.imcache.cache.search.filter.GTFilter;
+import com.KyleDing.imcache.serialization.ByteBufferSerializer;
+import com.KyleDing.imcache.serialization.CollectionSerializer;
+import com.KyleDing.imcache.serialization.LazyCollectionItem;
+
+/**
+ * The Class LazyCollectionItemTest.
+ */
+public class LazyCollectionItemTest {
+
+    /** The deserializations. */
+    AtomicInteger deserializations = new AtomicInteger();
+
+    /** The collection serializer. */
+    CollectionSerializer<Item> collectionSerializer;
+
+    /** The payload. */
+    byte[] payload;
+
+    /**
+     * Setup.
+     */
+    @Before
+    public void setup() {
+        collectionSerializer = new CollectionSerializer<Item>(new ItemSerializer());
+        List<Item> items = new ArrayList<Item>();
+        for (int i = 0; i < 5; i++) {
+            items.add(new Item(i));
+        }
+        payload = collectionSerializer.serialize(new CollectionItem<Item>(items));
+    }
+
+    /**
+     * Get deserializes only the element.
+     */
+    @Test
+    public void get() {
+        LazyCollectionItem<Item> collectionItem = collectionSerializer.deserializeLazily(payload);
+        assertEquals(5, collectionItem.size());
+        assertEquals(0, deserializations.get());
+        assertEquals(3, collectionItem.get(3).value);
+        assertEquals(1, deserializations.get());
+    }
+
+    /**
+     * Get out of range.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getOutOfRange() {
+        new LazyCollectionItem<Item>(new ItemSerializer(), payload).get(5);
+    }
+
+    /**
+     * Wrong offset table.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void wrongOffsetTable() {
+        new LazyCollectionItem<Item>(new ItemSerializer(), new byte[] { 0, 0, 0, 9, 0, 0, 0, 1 });
+    }
+
+    /**
+     * Filter.
+     */
+    @Test
+    public void filter() {
+        CollectionItem<Item> collectionItem = collectionSerializer.deserializeLazily(payload);
+        Collection<Item> items = collectionItem.filter(new GTFilter("value", 2));
+        assertEquals(2, items.size());
+        for (Item item : items) {
+            assertTrue(item.value > 2);
+        }
+    }
+
+    /**
+     * Get value is read only.
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void getValueIsReadOnly() {
+        collectionSerializer.deserializeLazily(payload).getValue().add(new Item(5));
+    }
+
+    /**
+     * The Class Item.
+     */
+    static class Item {
+
+        /** The value. */
+        int value;
+
+        /**
+         * Instantiates a new item.
+         *
+         * @param value the value
+         */
+        Item(int value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * The Class ItemSerializer.
+     */
+    class ItemSerializer implements ByteBufferSerializer<Item> {
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * com.KyleDing.imcache.serialization.Serializer#serialize(java.lang.Object)
+         */
+        public byte[] serialize(Item value) {
+            return ByteBuffer.allocate(4).putInt(value.value).array();
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.serialization.Serializer#deserialize(byte[])
+         */
+        public Item deserialize(byte[] payload) {
+            return deserialize(ByteBuffer.wrap(payload));
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * com.KyleDing.imcache.serialization.ByteBufferSerializer#deserialize(java.nio.ByteBuffer)
+         */
+        public Item deserialize(ByteBuffer buffer) {
+            deserializations.incrementAndGet();
+            return new Item(buffer.getInt(buffer.position()));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.serialization;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import com.KyleDing.imcache.serialization.LongSerializer;
+
+/**
+ * The Class LongSerializerTest.
+ */
+public class LongSerializerTest {
+
+    /** The serializer. */
+    LongSerializer serializer = new LongSerializer();
+
+    /**
+     * Serialize and deserialize.
+     */
+    @Test
+    public void serializeAndDeserialize() {
+        for (long value : new long[] { 0, 1, -1, 258, Long.MIN_VALUE, Long.MAX_VALUE }) {
+            assertEquals(Long.valueOf(value), serializer.deserialize(serializer.serialize(value)));
+        }
+    }
+
+    /**
+     * Serialize big endian.
+     */
+    @Test
+    public void serializeBigEndian() {
+        assertArrayEquals(new byte[] { 0, 0, 0, 0, 0, 0, 1, 2 }, serializer.serialize(258L));
+        assertArrayEquals(ByteBuffer.allocate(8).putLong(-3L).array(), serializer.serialize(-3L));
+    }
+
+    /**
+     * Deserialize byte buffer.
+     */
+    @Test
+    public void deserializeByteBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(12);
+        buffer.putLong(2, 42L);
+        buffer.position(2);
+        buffer.limit(10);
+        assertEquals(Long.valueOf(42L), serializer.deserialize(buffer));
+    }
+
+    /**
+     * Serialize into byte buffer.
+     */
+    @Test
+    public void serializeIntoByteBuffer() {
+        ByteBuffer buffer = ByteBuffer.allocate(12);
+        buffer.position(2);
+        serializer.serialize(258L, buffer);
+        assertEquals(LongSerializer.SIZE, serializer.size(258L));
+        assertEquals(10, buffer.position());
+        assertEquals(258L, buffer.getLong(2));
+    }
+
+    /**
+     * Deserialize wrong length.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void deserializeWrongLength() {
+        serializer.deserialize(new byte[4]);
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.serialization;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.KyleDing.imcache.serialization.LongSerializer;
+import com.KyleDing.imcache.serialization.Serializer;
+import com.KyleDing.imcache.serialization.SerializerAdapter;
+import com.KyleDing.imcache.serialization.StreamingSerializer;
+
+/**
+ * The Class SerializerAdapterTest.
+ */
+public class SerializerAdapterTest {
+
+    /** The serializations. */
+    AtomicInteger serializations = new AtomicInteger();
+
+    /** The serializer. */
+    Serializer<String> serializer = new Serializer<String>() {
+        public byte[] serialize(String value) {
+            serializations.incrementAndGet();
+            return value.getBytes();
+        }
+
+        public String deserialize(byte[] payload) {
+            return new String(payload);
+        }
+    };
+
+    /**
+     * Size then serialize serializes once.
+     */
+    @Test
+    public void sizeThenSerialize() {
+        StreamingSerializer<String> adapter = new SerializerAdapter<String>(serializer);
+        String value = "abc";
+        ByteBuffer buffer = ByteBuffer.allocate(adapter.size(value));
+        adapter.serialize(value, buffer);
+        assertEquals(1, serializations.get());
+        assertFalse(buffer.hasRemaining());
+        assertEquals(value, adapter.deserialize(buffer.array()));
+    }
+
+    /**
+     * Serialize another value.
+     */
+    @Test
+    public void serializeAnotherValue() {
+        StreamingSerializer<String> adapter = new SerializerAdapter<String>(serializer);
+        adapter.size("abc");
+        assertArrayEquals("de".getBytes(), adapter.serialize("de"));
+        assertArrayEquals("abc".getBytes(), adapter.serialize("abc"));
+        assertArrayEquals("abc".getBytes(), adapter.serialize("abc"));
+        assertEquals(3, serializations.get());
+    }
+
+    /**
+     * Adapt.
+     */
+    @Test
+    public void adapt() {
+        LongSerializer longSerializer = new LongSerializer();
+        assertSame(longSerializer, SerializerAdapter.adapt(longSerializer));
+        assertTrue(SerializerAdapter.adapt(serializer) instanceof SerializerAdapter);
+    }
+}
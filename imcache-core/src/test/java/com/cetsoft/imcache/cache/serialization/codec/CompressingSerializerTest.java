@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.serialization.codec;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import com.KyleDing.imcache.serialization.Serializer;
+import com.KyleDing.imcache.serialization.codec.CodecException;
+import com.KyleDing.imcache.serialization.codec.CompressingSerializer;
+import com.KyleDing.imcache.serialization.codec.DeflaterCodec;
+import com.KyleDing.imcache.serialization.codec.LzCodec;
+
+/**
+ * The Class CompressingSerializerTest.
+ */
+public class CompressingSerializerTest {
+
+    /** The Constant STRING_SERIALIZER. */
+    static final Serializer<String> STRING_SERIALIZER = new Serializer<String>() {
+        public byte[] serialize(String value) {
+            return value.getBytes();
+        }
+
+        public String deserialize(byte[] payload) {
+            return new String(payload);
+        }
+    };
+
+    /**
+     * Repeats the string.
+     *
+     * @param string the string
+     * @param count the count
+     * @return the repeated string
+     */
+    static String repeat(String string, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(string);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Serialize compresses large values.
+     */
+    @Test
+    public void serializeCompressesLargeValues() {
+        CompressingSerializer<String> serializer = new CompressingSerializer<String>(STRING_SERIALIZER,
+                new LzCodec());
+        String value = repeat("compressible ", 100);
+        byte[] payload = serializer.serialize(value);
+        assertEquals(LzCodec.ID, payload[0]);
+        assertTrue(payload.length < value.length() / 2);
+        assertEquals(value, serializer.deserialize(payload));
+    }
+
+    /**
+     * Serialize keeps small values.
+     */
+    @Test
+    public void serializeKeepsSmallValues() {
+        CompressingSerializer<String> serializer = new CompressingSerializer<String>(STRING_SERIALIZER,
+                new LzCodec());
+        String value = repeat("a", CompressingSerializer.DEFAULT_THRESHOLD - 1);
+        byte[] payload = serializer.serialize(value);
+        assertEquals(CompressingSerializer.RAW, payload[0]);
+        assertEquals(value.length() + 1, payload.length);
+        assertEquals(value, serializer.deserialize(payload));
+    }
+
+    /**
+     * Serialize keeps incompressible values.
+     */
+    @Test
+    public void serializeKeepsIncompressibleValues() {
+        CompressingSerializer<String> serializer = new CompressingSerializer<String>(STRING_SERIALIZER,
+                new DeflaterCodec(), 0);
+        byte[] payload = serializer.serialize("abc");
+        assertEquals(CompressingSerializer.RAW, payload[0]);
+        assertEquals("abc", serializer.deserialize(payload));
+    }
+
+    /**
+     * Deserialize with unknown codec.
+     */
+    @Test(expected = CodecException.class)
+    public void deserializeWithUnknownCodec() {
+        CompressingSerializer<String> serializer = new CompressingSerializer<String>(STRING_SERIALIZER,
+                new LzCodec(), 0);
+        byte[] payload = new CompressingSerializer<String>(STRING_SERIALIZER, new DeflaterCodec(), 0)
+                .serialize(repeat("compressible ", 100));
+        serializer.deserialize(payload);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.serialization.codec;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import org.junit.Test;
+
+import com.KyleDing.imcache.serialization.codec.CodecException;
+import com.KyleDing.imcache.serialization.codec.DeflaterCodec;
+import com.KyleDing.imcache.serialization.codec.DictionaryTrainer;
+
+/**
+ * The Class DeflaterCodecTest.
+ */
+public class DeflaterCodecTest {
+
+    /**
+     * Creates a sample value.
+     *
+     * @param i the index
+     * @return the bytes
+     */
+    static byte[] sample(int i) {
+        return ("{\"id\":" + i + ",\"type\":\"customer\",\"country\":\"Turkey\",\"status\":\"active\","
+                + "\"preferences\":{\"newsletter\":true,\"language\":\"en\"}}").getBytes();
+    }
+
+    /**
+     * Encodes the bytes.
+     *
+     * @param codec the codec
+     * @param bytes the bytes
+     * @return the encoded bytes
+     */
+    static byte[] encode(DeflaterCodec codec, byte[] bytes) {
+        byte[] encoded = new byte[codec.maxEncodedLength(bytes.length)];
+        int length = codec.encode(bytes, 0, bytes.length, encoded, 0);
+        byte[] result = new byte[length];
+        System.arraycopy(encoded, 0, result, 0, length);
+        return result;
+    }
+
+    /**
+     * Encode and decode.
+     */
+    @Test
+    public void encodeAndDecode() {
+        DeflaterCodec codec = new DeflaterCodec();
+        byte[] bytes = new byte[10000];
+        byte[] encoded = encode(codec, bytes);
+        assertTrue(encoded.length < 100);
+        byte[] decoded = new byte[bytes.length];
+        codec.decode(encoded, 0, encoded.length, decoded, 0, decoded.length);
+        assertArrayEquals(bytes, decoded);
+    }
+
+    /**
+     * Codecs of different levels share the deflater of the thread.
+     */
+    @Test
+    public void encodeWithLevels() {
+        byte[] bytes = new byte[10000];
+        assertTrue(encode(new DeflaterCodec(), bytes).length < 100);
+        DeflaterCodec codec = new DeflaterCodec(Deflater.NO_COMPRESSION, null);
+        byte[] encoded = encode(codec, bytes);
+        assertTrue(encoded.length > bytes.length);
+        byte[] decoded = new byte[bytes.length];
+        codec.decode(encoded, 0, encoded.length, decoded, 0, decoded.length);
+        assertArrayEquals(bytes, decoded);
+        assertTrue(encode(new DeflaterCodec(), bytes).length < 100);
+    }
+
+    /**
+     * Encode and decode with dictionary.
+     */
+    @Test
+    public void encodeAndDecodeWithDictionary() {
+        List<byte[]> samples = new ArrayList<byte[]>();
+        for (int i = 0; i < 100; i++) {
+            samples.add(sample(i));
+        }
+        DeflaterCodec codec = new DeflaterCodec(DictionaryTrainer.train(samples));
+        byte[] bytes = sample(1000);
+        byte[] encoded = encode(codec, bytes);
+        assertTrue(encoded.length < encode(new DeflaterCodec(), bytes).length);
+        byte[] decoded = new byte[bytes.length];
+        codec.decode(encoded, 0, encoded.length, decoded, 0, decoded.length);
+        assertArrayEquals(bytes, decoded);
+    }
+
+    /**
+     * Decode without dictionary.
+     */
+    @Test(expected = CodecException.class)
+    public void decodeWithoutDictionary() {
+        byte[] bytes = sample(1);
+        byte[] encoded = encode(new DeflaterCodec(sample(2)), bytes);
+        new DeflaterCodec().decode(encoded, 0, encoded.length, new byte[bytes.length], 0, bytes.length);
+    }
+
+    /**
+     * Decode with wrong dictionary.
+     */
+    @Test(expected = CodecException.class)
+    public void decodeWithWrongDictionary() {
+        byte[] bytes = sample(1);
+        byte[] encoded = encode(new DeflaterCodec(sample(2)), bytes);
+        new DeflaterCodec(sample(3)).decode(encoded, 0, encoded.length, new byte[bytes.length], 0, bytes.length);
+    }
+
+    /**
+     * Decode truncated input.
+     */
+    @Test(expected = CodecException.class)
+    public void decodeTruncatedInput() {
+        DeflaterCodec codec = new DeflaterCodec();
+        byte[] bytes = sample(1);
+        byte[] encoded = encode(codec, bytes);
+        codec.decode(encoded, 0, encoded.length / 2, new byte[bytes.length], 0, bytes.length);
+    }
+
+    /**
+     * Decode wrong length.
+     */
+    @Test(expected = CodecException.class)
+    public void decodeWrongLength() {
+        DeflaterCodec codec = new DeflaterCodec();
+        byte[] bytes = sample(1);
+        byte[] encoded = encode(codec, bytes);
+        codec.decode(encoded, 0, encoded.length, new byte[bytes.length - 1], 0, bytes.length - 1);
+    }
+}
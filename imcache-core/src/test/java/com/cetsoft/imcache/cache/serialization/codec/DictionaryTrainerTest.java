@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.serialization.codec;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.KyleDing.imcache.serialization.codec.DictionaryTrainer;
+
+/**
+ * The Class DictionaryTrainerTest.
+ */
+public class DictionaryTrainerTest {
+
+    /**
+     * Train.
+     */
+    @Test
+    public void train() {
+        List<byte[]> samples = new ArrayList<byte[]>();
+        for (int i = 0; i < 1000; i++) {
+            samples.add(DeflaterCodecTest.sample(i));
+        }
+        byte[] dictionary = DictionaryTrainer.train(samples, 1024);
+        assertTrue(dictionary.length > 0);
+        assertTrue(dictionary.length <= 1024);
+        assertTrue(new String(dictionary).contains("\"country\":\"Turkey\""));
+    }
+
+    /**
+     * Train without repetitions.
+     */
+    @Test
+    public void trainWithoutRepetitions() {
+        List<byte[]> samples = new ArrayList<byte[]>();
+        samples.add("abcdefghijklmnopqrstuvwxyz".getBytes());
+        assertEquals(0, DictionaryTrainer.train(samples).length);
+    }
+
+    /**
+     * Train with too large size.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void trainWithTooLargeSize() {
+        DictionaryTrainer.train(new ArrayList<byte[]>(), DictionaryTrainer.MAX_DICTIONARY_SIZE + 1);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.cache.serialization.codec;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.KyleDing.imcache.serialization.codec.CodecException;
+import com.KyleDing.imcache.serialization.codec.LzCodec;
+
+/**
+ * The Class LzCodecTest.
+ */
+public class LzCodecTest {
+
+    /** The codec. */
+    LzCodec codec = new LzCodec();
+
+    /**
+     * Round trips the bytes and returns the encoded length.
+     *
+     * @param bytes the bytes
+     * @return the encoded length
+     */
+    int roundTrip(byte[] bytes) {
+        byte[] encoded = new byte[codec.maxEncodedLength(bytes.length)];
+        int length = codec.encode(bytes, 0, bytes.length, encoded, 0);
+        byte[] decoded = new byte[bytes.length];
+        codec.decode(encoded, 0, length, decoded, 0, bytes.length);
+        assertArrayEquals(bytes, decoded);
+        return length;
+    }
+
+    /**
+     * Encode and decode.
+     */
+    @Test
+    public void encodeAndDecode() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            builder.append("{\"name\":\"user").append(i).append("\",\"age\":").append(i % 60).append("}");
+        }
+        byte[] bytes = builder.toString().getBytes();
+        assertTrue(roundTrip(bytes) < bytes.length / 2);
+    }
+
+    /**
+     * Encode and decode long runs.
+     */
+    @Test
+    public void encodeAndDecodeLongRuns() {
+        byte[] bytes = new byte[100000];
+        Arrays.fill(bytes, 50000, bytes.length, (byte) 7);
+        assertTrue(roundTrip(bytes) < 1000);
+    }
+
+    /**
+     * Encode and decode random bytes.
+     */
+    @Test
+    public void encodeAndDecodeRandomBytes() {
+        Random random = new Random(42);
+        for (int length : new int[] { 0, 1, 5, 12, 13, 100, 70000 }) {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            assertTrue(roundTrip(bytes) <= codec.maxEncodedLength(length));
+        }
+    }
+
+    /**
+     * Encode and decode with offsets.
+     */
+    @Test
+    public void encodeAndDecodeWithOffsets() {
+        byte[] bytes = "xxabcabcabcabcabcabcabcabcabcabcabcxx".getBytes();
+        byte[] encoded = new byte[3 + codec.maxEncodedLength(bytes.length - 4)];
+        int length = codec.encode(bytes, 2, bytes.length - 4, encoded, 3);
+        byte[] decoded = new byte[bytes.length];
+        codec.decode(encoded, 3, length, decoded, 2, bytes.length - 4);
+        assertArrayEquals(Arrays.copyOfRange(bytes, 2, bytes.length - 2),
+                Arrays.copyOfRange(decoded, 2, bytes.length - 2));
+    }
+
+    /**
+     * Decode truncated input.
+     */
+    @Test(expected = CodecException.class)
+    public void decodeTruncatedInput() {
+        byte[] bytes = new byte[1000];
+        byte[] encoded = new byte[codec.maxEncodedLength(bytes.length)];
+        int length = codec.encode(bytes, 0, bytes.length, encoded, 0);
+        codec.decode(encoded, 0, length - 1, new byte[bytes.length], 0, bytes.length);
+    }
+
+    /**
+     * Decode wrong offset.
+     */
+    @Test(expected = CodecException.class)
+    public void decodeWrongOffset() {
+        // A literal followed by a match reaching before the output.
+        byte[] encoded = new byte[] { 0x10, 1, 5, 0, 0 };
+        codec.decode(encoded, 0, encoded.length, new byte[10], 0, 10);
+    }
+
+    /**
+     * Decode wrong length.
+     */
+    @Test(expected = CodecException.class)
+    public void decodeWrongLength() {
+        byte[] bytes = new byte[1000];
+        byte[] encoded = new byte[codec.maxEncodedLength(bytes.length)];
+        int length = codec.encode(bytes, 0, bytes.length, encoded, 0);
+        codec.decode(encoded, 0, length, new byte[bytes.length + 1], 0, bytes.length + 1);
+    }
+}
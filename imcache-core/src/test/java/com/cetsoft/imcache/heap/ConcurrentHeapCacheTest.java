@@ -7,6 +7,9 @@
  */
 package com.KyleDing.imcache.heap;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -19,6 +22,7 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.KyleDing.imcache.cache.BulkCacheLoader;
 import com.KyleDing.imcache.cache.CacheLoader;
 import com.KyleDing.imcache.cache.EvictionListener;
 import com.KyleDing.imcache.cache.search.IndexHandler;
@@ -207,4 +211,125 @@ public class ConcurrentHeapCacheTest {
         cache.invalidate(object);
         verify(indexHandler).add(object, object);
     }
+
+    /**
+     * Put all.
+     */
+    @Test
+    public void putAll() {
+        Map<Object, Object> entries = new HashMap<Object, Object>();
+        entries.put(1, "1");
+        entries.put(2, "2");
+        cache.putAll(entries);
+        assertEquals(2, cache.size());
+        verify(indexHandler).add(1, "1");
+        verify(indexHandler).add(2, "2");
+    }
+
+    /**
+     * Gets the all.
+     */
+    @Test
+    public void getAll() {
+        final Map<Object, Object> loadedValues = new HashMap<Object, Object>();
+        loadedValues.put(2, "2");
+        cache = new ConcurrentHeapCache<Object, Object>(new BulkCacheLoader<Object, Object>() {
+            public Object load(Object key) {
+                throw new UnsupportedOperationException();
+            }
+
+            public Map<Object, Object> loadAll(Collection<Object> keys) {
+                assertEquals(2, keys.size());
+                return loadedValues;
+            }
+        }, evictionListener, indexHandler, 1000);
+        cache.put(1, "1");
+        Map<Object, Object> values = cache.getAll(Arrays.<Object> asList(1, 2, 3));
+        assertEquals(2, values.size());
+        assertEquals("1", values.get(1));
+        assertEquals("2", values.get(2));
+        assertEquals(1, cache.hit.get());
+        assertEquals(2, cache.miss.get());
+        assertTrue(cache.contains(2));
+    }
+
+    /**
+     * Invalidate all.
+     */
+    @Test
+    public void invalidateAll() {
+        cache.put(1, "1");
+        cache.put(2, "2");
+        cache.invalidateAll(Arrays.<Object> asList(1, 2, 3));
+        assertEquals(0, cache.size());
+        verify(indexHandler).remove(1, "1");
+        verify(indexHandler).remove(2, "2");
+    }
+
+    /**
+     * Put with ttl.
+     */
+    @Test
+    public void putWithTtl() {
+        ManualTimeConcurrentHeapCache cache = new ManualTimeConcurrentHeapCache(0, 0);
+        cache.put(1, "1", 500);
+        cache.put(2, "2");
+        cache.time = 499;
+        assertTrue(cache.contains(1));
+        cache.time = 500;
+        assertFalse(cache.contains(1));
+        assertNull(cache.get(1));
+        assertEquals("2", cache.get(2));
+    }
+
+    /**
+     * Expire after write.
+     */
+    @Test
+    public void expireAfterWrite() {
+        ManualTimeConcurrentHeapCache cache = new ManualTimeConcurrentHeapCache(500, 0);
+        cache.put(1, "1");
+        cache.time = 250;
+        assertEquals("1", cache.get(1));
+        cache.time = 500;
+        assertFalse(cache.contains(1));
+    }
+
+    /**
+     * Put with non positive ttl.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void putWithNonPositiveTtl() {
+        cache.put(1, "1", -1);
+    }
+
+    /**
+     * The Class ManualTimeConcurrentHeapCache.
+     */
+    class ManualTimeConcurrentHeapCache extends ConcurrentHeapCache<Object, Object> {
+
+        /** The time. */
+        long time;
+
+        /**
+         * Instantiates a new manual time concurrent heap cache.
+         *
+         * @param expireAfterWrite the expire after write
+         * @param expireAfterAccess the expire after access
+         */
+        ManualTimeConcurrentHeapCache(long expireAfterWrite, long expireAfterAccess) {
+            super(ConcurrentHeapCacheTest.this.cacheLoader, ConcurrentHeapCacheTest.this.evictionListener,
+                    ConcurrentHeapCacheTest.this.indexHandler, 1000, expireAfterWrite, expireAfterAccess);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.heap.ConcurrentHeapCache#currentTime()
+         */
+        @Override
+        protected long currentTime() {
+            return time;
+        }
+    }
 }
@@ -8,6 +8,8 @@
 package com.KyleDing.imcache.heap;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
@@ -15,6 +17,9 @@ import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
 
 import org.junit.Before;
@@ -22,6 +27,7 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.KyleDing.imcache.cache.BulkCacheLoader;
 import com.KyleDing.imcache.cache.CacheLoader;
 import com.KyleDing.imcache.cache.EvictionListener;
 import com.KyleDing.imcache.cache.search.IndexHandler;
@@ -216,4 +222,141 @@ public class HeapCacheTest {
         limitedMap.put(object, object);
         verify(evictionListener).onEviction(object, object);
     }
+
+    /**
+     * Gets the all.
+     */
+    @Test
+    public void getAll() {
+        final Map<Object, Object> loadedValues = new HashMap<Object, Object>();
+        loadedValues.put(2, "2");
+        cache = new HeapCache<Object, Object>(new BulkCacheLoader<Object, Object>() {
+            public Object load(Object key) {
+                throw new UnsupportedOperationException();
+            }
+
+            public Map<Object, Object> loadAll(Collection<Object> keys) {
+                assertEquals(2, keys.size());
+                return loadedValues;
+            }
+        }, evictionListener, indexHandler, 1000);
+        cache.put(1, "1");
+        Map<Object, Object> values = cache.getAll(Arrays.<Object> asList(1, 2, 3));
+        assertEquals(2, values.size());
+        assertEquals("1", values.get(1));
+        assertEquals("2", values.get(2));
+        assertEquals(1, cache.hit);
+        assertEquals(2, cache.miss);
+        assertEquals("2", cache.cache.get(2));
+    }
+
+    /**
+     * Invalidate all.
+     */
+    @Test
+    public void invalidateAll() {
+        cache.put(1, "1");
+        cache.put(2, "2");
+        cache.invalidateAll(Arrays.<Object> asList(1, 2));
+        assertEquals(0, cache.size());
+        verify(evictionListener, times(2)).onEviction(any(), any());
+    }
+
+    /**
+     * Expire after write.
+     */
+    @Test
+    public void expireAfterWrite() {
+        ManualTimeHeapCache cache = new ManualTimeHeapCache(100, 0);
+        cache.put(1, "1");
+        cache.time = 50;
+        assertEquals("1", cache.get(1));
+        cache.time = 100;
+        assertFalse(cache.contains(1));
+        assertEquals(0, cache.size());
+        assertTrue(cache.expirations.isEmpty());
+        verify(evictionListener).onEviction(1, "1");
+        verify(indexHandler).remove(1, "1");
+    }
+
+    /**
+     * Expire after access.
+     */
+    @Test
+    public void expireAfterAccess() {
+        ManualTimeHeapCache cache = new ManualTimeHeapCache(0, 100);
+        cache.put(1, "1");
+        cache.time = 90;
+        assertEquals("1", cache.get(1));
+        cache.time = 180;
+        assertEquals("1", cache.get(1));
+        cache.time = 280;
+        assertFalse(cache.contains(1));
+    }
+
+    /**
+     * Put with ttl.
+     */
+    @Test
+    public void putWithTtl() {
+        ManualTimeHeapCache cache = new ManualTimeHeapCache(0, 100);
+        cache.put(1, "1", 10000);
+        cache.put(2, "2", 50);
+        cache.time = 50;
+        assertFalse(cache.contains(2));
+        cache.time = 9999;
+        assertTrue(cache.contains(1));
+        cache.time = 10000;
+        assertFalse(cache.contains(1));
+    }
+
+    /**
+     * Invalidate removes expiration.
+     */
+    @Test
+    public void invalidateRemovesExpiration() {
+        ManualTimeHeapCache cache = new ManualTimeHeapCache(100, 0);
+        cache.put(1, "1");
+        cache.invalidate(1);
+        assertTrue(cache.expirations.isEmpty());
+        assertEquals(0, cache.timerWheel.size());
+    }
+
+    /**
+     * Put with non positive ttl.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void putWithNonPositiveTtl() {
+        cache.put(1, "1", 0);
+    }
+
+    /**
+     * The Class ManualTimeHeapCache.
+     */
+    class ManualTimeHeapCache extends HeapCache<Object, Object> {
+
+        /** The time. */
+        long time;
+
+        /**
+         * Instantiates a new manual time heap cache.
+         *
+         * @param expireAfterWrite the expire after write
+         * @param expireAfterAccess the expire after access
+         */
+        ManualTimeHeapCache(long expireAfterWrite, long expireAfterAccess) {
+            super(HeapCacheTest.this.cacheLoader, HeapCacheTest.this.evictionListener,
+                    HeapCacheTest.this.indexHandler, 1000, expireAfterWrite, expireAfterAccess);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.heap.HeapCache#currentTime()
+         */
+        @Override
+        protected long currentTime() {
+            return time;
+        }
+    }
 }
@@ -0,0 +1,878 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.KyleDing.imcache.cache.Cache;
+import com.KyleDing.imcache.cache.CollectionItem;
+import com.KyleDing.imcache.cache.EvictionListener;
+import com.KyleDing.imcache.cache.util.ThreadUtils;
+import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore;
+import com.KyleDing.imcache.serialization.Serializer;
+
+/**
+ * The Class CollectionOffHeapCache is an offheap cache of collections that
+ * grow by appending. The elements of a key are stored in a chain of segments,
+ * each segment is a payload with room left at its end. An append writes the
+ * element to the room of the tail segment in place, a new segment twice as
+ * large is added once the tail is full, so neither the collection is
+ * deserialized nor its payload is reallocated. Chains of many segments are
+ * compacted in the background into a few segments with some room left.
+ * <p>
+ * The segments are stored by an {@link OffHeapCache}, so they are compacted
+ * within the buffers and evicted as its items are. A chain is evicted as a
+ * whole once any of its segments is, and once it is not accessed for the
+ * eviction period.
+ *
+ * @param <K> the key type
+ * @param <V> the element type
+ */
+public class CollectionOffHeapCache<K, V> implements Cache<K, CollectionItem<V>> {
+
+    /** The Constant MIN_SEGMENT_CAPACITY, the capacity of the first segment. */
+    public static final int MIN_SEGMENT_CAPACITY = 256;
+
+    /** The Constant MAX_SEGMENT_CAPACITY, the capacity segments grow up to. */
+    public static final int MAX_SEGMENT_CAPACITY = 64 * 1024;
+
+    /** The Constant DEFAULT_MAX_SEGMENTS, the segments a chain has before it is compacted. */
+    public static final int DEFAULT_MAX_SEGMENTS = 8;
+
+    /** The Constant LENGTH_SIZE, the length of the header of an element. */
+    static final int LENGTH_SIZE = 4;
+
+    /** The Constant BYTES_SERIALIZER. */
+    private static final Serializer<byte[]> BYTES_SERIALIZER = new Serializer<byte[]>() {
+        public byte[] serialize(byte[] value) {
+            return value;
+        }
+
+        public byte[] deserialize(byte[] payload) {
+            return payload;
+        }
+    };
+
+    /** The Constant NO_OF_COMPACTORS. */
+    private static final AtomicInteger NO_OF_COMPACTORS = new AtomicInteger();
+
+    /** The name. */
+    private String name;
+
+    /** The segments. */
+    protected OffHeapCache<SegmentKey<K>, byte[]> segments;
+
+    /** The chains. */
+    protected ConcurrentMap<K, Chain> chains = new ConcurrentHashMap<K, Chain>();
+
+    /** The segment ids, unique within the cache. */
+    private final AtomicLong segmentIds = new AtomicLong();
+
+    /** The serializer. */
+    private final Serializer<V> serializer;
+
+    /** The max segment capacity. */
+    private final int maxSegmentCapacity;
+
+    /** The max segments. */
+    private volatile int maxSegments = DEFAULT_MAX_SEGMENTS;
+
+    /** The hit. */
+    protected AtomicLong hit = new AtomicLong();
+
+    /** The miss. */
+    protected AtomicLong miss = new AtomicLong();
+
+    /** The compactor service. */
+    protected ScheduledExecutorService compactorService;
+
+    /**
+     * Instantiates a new collection off heap cache.
+     *
+     * @param byteBufferStore the byte buffer store
+     * @param serializer the serializer of the elements
+     * @param bufferCleanerPeriod the buffer cleaner period, chains are
+     *            compacted as often
+     * @param bufferCleanerThreshold the buffer cleaner threshold
+     * @param concurrencyLevel the concurrency level
+     * @param evictionPeriod the eviction period
+     */
+    public CollectionOffHeapCache(OffHeapByteBufferStore byteBufferStore, Serializer<V> serializer,
+            long bufferCleanerPeriod, float bufferCleanerThreshold, int concurrencyLevel, final long evictionPeriod) {
+        this.serializer = serializer;
+        this.maxSegmentCapacity = Math.min(MAX_SEGMENT_CAPACITY, byteBufferStore.maxPayloadLength());
+        this.segments = new SegmentCache<K>(new EvictionListener<SegmentKey<K>, byte[]>() {
+            public void onEviction(SegmentKey<K> segmentKey, byte[] payload) {
+                evict(segmentKey);
+            }
+        }, byteBufferStore, bufferCleanerPeriod, bufferCleanerThreshold, concurrencyLevel);
+        compactorService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable runnable) {
+                String threadName = "imcache:chainCompactor(name=" + getName() + ",thread="
+                        + NO_OF_COMPACTORS.incrementAndGet() + ")";
+                return ThreadUtils.createDaemonThread(runnable, threadName);
+            }
+        });
+        compactorService.scheduleAtFixedRate(new Runnable() {
+            public void run() {
+                compactChains();
+            }
+        }, bufferCleanerPeriod, bufferCleanerPeriod, TimeUnit.MILLISECONDS);
+        compactorService.scheduleAtFixedRate(new Runnable() {
+            public void run() {
+                doEviction(evictionPeriod);
+            }
+        }, evictionPeriod, evictionPeriod, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Appends the element to the collection of the key, creating the
+     * collection if it is missing. Only the tail segment of the key is
+     * written.
+     *
+     * @param key the key
+     * @param element the element
+     */
+    public void append(K key, V element) {
+        byte[] record = record(serializer.serialize(element));
+        while (true) {
+            Chain chain = chains.get(key);
+            if (chain == null) {
+                chain = new Chain();
+                Chain exChain = chains.putIfAbsent(key, chain);
+                if (exChain != null) {
+                    chain = exChain;
+                }
+            }
+            synchronized (chain) {
+                if (!chain.evicted && append(key, chain, record)) {
+                    chain.accessTime = System.currentTimeMillis();
+                    return;
+                }
+            }
+            // The chain was evicted meanwhile, the element starts a new one.
+        }
+    }
+
+    /**
+     * Appends the record to the chain, the lock of the chain must be held.
+     *
+     * @param key the key
+     * @param chain the chain
+     * @param record the record
+     * @return true, if appended, false if the chain is evicted
+     */
+    protected boolean append(K key, Chain chain, final byte[] record) {
+        Segment tail = chain.tail();
+        if (tail != null && tail.capacity - tail.used >= record.length) {
+            final int offset = tail.used;
+            Boolean appended = segments.invoke(new SegmentKey<K>(key, tail.id), new EntryProcessor<Boolean>() {
+                public Boolean process(MutableEntry entry) {
+                    if (!entry.exists()) {
+                        return false;
+                    }
+                    entry.put(offset, record);
+                    return true;
+                }
+            });
+            if (!appended) {
+                drop(key, chain);
+                return false;
+            }
+            tail.used += record.length;
+            return true;
+        }
+        int capacity = tail == null ? MIN_SEGMENT_CAPACITY : Math.min(maxSegmentCapacity, tail.capacity * 2);
+        Segment segment = new Segment(segmentIds.incrementAndGet(), Math.max(capacity, record.length));
+        byte[] payload = new byte[segment.capacity];
+        System.arraycopy(record, 0, payload, 0, record.length);
+        segment.used = record.length;
+        return install(key, chain, Collections.singletonList(segment), Collections.singletonList(payload), false);
+    }
+
+    /**
+     * Iterates over the collection of the key. The used parts of the segments
+     * are copied at once, the elements are deserialized as they are iterated.
+     *
+     * @param key the key
+     * @return the iterator, empty if the key is missing
+     */
+    public Iterator<V> iterate(K key) {
+        List<byte[]> payloads = read(key);
+        if (payloads == null) {
+            return Collections.<V> emptyList().iterator();
+        }
+        return new ElementIterator(payloads);
+    }
+
+    /**
+     * Reads the used parts of the segments of the key.
+     *
+     * @param key the key
+     * @return the payloads, null if the key is missing
+     */
+    protected List<byte[]> read(K key) {
+        Chain chain = chains.get(key);
+        if (chain != null) {
+            synchronized (chain) {
+                List<byte[]> payloads = chain.evicted ? null : read(key, chain);
+                if (payloads != null) {
+                    chain.accessTime = System.currentTimeMillis();
+                    hit.incrementAndGet();
+                    return payloads;
+                }
+            }
+        }
+        miss.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Reads the used parts of the segments of the chain, the lock of the chain
+     * must be held.
+     *
+     * @param key the key
+     * @param chain the chain
+     * @return the payloads, null if a segment was evicted
+     */
+    protected List<byte[]> read(K key, Chain chain) {
+        List<Segment> chainSegments = chain.segments;
+        List<byte[]> payloads = new ArrayList<byte[]>(chainSegments.size());
+        for (Segment segment : chainSegments) {
+            final int used = segment.used;
+            byte[] payload = segments.invoke(new SegmentKey<K>(key, segment.id), new EntryProcessor<byte[]>() {
+                public byte[] process(MutableEntry entry) {
+                    if (!entry.exists()) {
+                        return null;
+                    }
+                    byte[] payload = new byte[used];
+                    entry.get(0, payload);
+                    return payload;
+                }
+            });
+            if (payload == null) {
+                drop(key, chain);
+                return null;
+            }
+            payloads.add(payload);
+        }
+        return payloads;
+    }
+
+    /**
+     * Packs the records into new segments which replace the segments of the
+     * chain, the lock of the chain must be held. The segments are filled up to
+     * the size of all records and a half, so that appends find room.
+     *
+     * @param key the key
+     * @param chain the chain
+     * @param records the records
+     * @return true, if packed, false if the chain is evicted
+     */
+    protected boolean pack(K key, Chain chain, List<byte[]> records) {
+        int length = 0;
+        for (byte[] record : records) {
+            length += record.length;
+        }
+        int capacity = Math.max(MIN_SEGMENT_CAPACITY, Math.min(maxSegmentCapacity, length + length / 2));
+        List<Segment> newSegments = new ArrayList<Segment>();
+        List<byte[]> payloads = new ArrayList<byte[]>();
+        Segment segment = null;
+        byte[] payload = null;
+        for (byte[] record : records) {
+            if (segment == null || segment.capacity - segment.used < record.length) {
+                segment = new Segment(segmentIds.incrementAndGet(), Math.max(capacity, record.length));
+                payload = new byte[segment.capacity];
+                newSegments.add(segment);
+                payloads.add(payload);
+            }
+            System.arraycopy(record, 0, payload, segment.used, record.length);
+            segment.used += record.length;
+        }
+        return install(key, chain, newSegments, payloads, true);
+    }
+
+    /**
+     * Stores the new segments of the chain, the lock of the chain must be
+     * held. The segments are in the chain before they are stored so that an
+     * eviction meanwhile drops them too.
+     *
+     * @param key the key
+     * @param chain the chain
+     * @param newSegments the new segments
+     * @param payloads the payloads of the new segments
+     * @param replace whether the new segments replace the segments of the
+     *            chain or are added to them
+     * @return true, if stored, false if the chain is evicted
+     */
+    private boolean install(K key, Chain chain, List<Segment> newSegments, List<byte[]> payloads,
+            boolean replace) {
+        List<Segment> exSegments = chain.segments;
+        List<Segment> allSegments = new ArrayList<Segment>(exSegments);
+        allSegments.addAll(newSegments);
+        chain.segments = allSegments;
+        for (int i = 0; i < newSegments.size(); i++) {
+            segments.put(new SegmentKey<K>(key, newSegments.get(i).id), payloads.get(i));
+        }
+        if (replace) {
+            chain.segments = new ArrayList<Segment>(newSegments);
+            for (Segment segment : exSegments) {
+                segments.invalidate(new SegmentKey<K>(key, segment.id));
+            }
+        }
+        if (chain.evicted) {
+            drop(key, chain);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compacts the chains having more segments than allowed.
+     */
+    protected void compactChains() {
+        for (Entry<K, Chain> entry : chains.entrySet()) {
+            if (entry.getValue().segments.size() > maxSegments) {
+                compact(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Compacts the chain of the key into as few segments as possible.
+     *
+     * @param key the key
+     * @param chain the chain
+     */
+    protected void compact(K key, Chain chain) {
+        synchronized (chain) {
+            if (chain.evicted) {
+                return;
+            }
+            List<byte[]> payloads = read(key, chain);
+            if (payloads != null) {
+                pack(key, chain, records(payloads));
+            }
+        }
+    }
+
+    /**
+     * Evicts the chains that are not accessed for the eviction period.
+     *
+     * @param evictionPeriod the eviction period
+     */
+    protected void doEviction(long evictionPeriod) {
+        long now = System.currentTimeMillis();
+        for (Entry<K, Chain> entry : chains.entrySet()) {
+            if (entry.getValue().accessTime + evictionPeriod < now) {
+                drop(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Evicts the chain of the segment unless the segment was replaced.
+     *
+     * @param segmentKey the segment key
+     */
+    protected void evict(SegmentKey<K> segmentKey) {
+        Chain chain = chains.get(segmentKey.key);
+        if (chain != null && chain.contains(segmentKey.id)) {
+            drop(segmentKey.key, chain);
+        }
+    }
+
+    /**
+     * Drops the chain with its segments. The chain is not locked, since it is
+     * also dropped while buffers are evicted, appenders check whether their
+     * chain was dropped after storing a segment.
+     *
+     * @param key the key
+     * @param chain the chain
+     */
+    protected void drop(K key, Chain chain) {
+        chain.evicted = true;
+        chains.remove(key, chain);
+        for (Segment segment : chain.segments) {
+            segments.invalidate(new SegmentKey<K>(key, segment.id));
+        }
+    }
+
+    /**
+     * Creates the record of an element, its length followed by its bytes.
+     *
+     * @param bytes the bytes
+     * @return the record
+     */
+    static byte[] record(byte[] bytes) {
+        byte[] record = new byte[LENGTH_SIZE + bytes.length];
+        record[0] = (byte) (bytes.length >>> 24);
+        record[1] = (byte) (bytes.length >>> 16);
+        record[2] = (byte) (bytes.length >>> 8);
+        record[3] = (byte) bytes.length;
+        System.arraycopy(bytes, 0, record, LENGTH_SIZE, bytes.length);
+        return record;
+    }
+
+    /**
+     * Reads the length of the record at the offset.
+     *
+     * @param payload the payload
+     * @param offset the offset
+     * @return the length of the element
+     */
+    static int length(byte[] payload, int offset) {
+        return ((payload[offset] & 0xFF) << 24) | ((payload[offset + 1] & 0xFF) << 16)
+                | ((payload[offset + 2] & 0xFF) << 8) | (payload[offset + 3] & 0xFF);
+    }
+
+    /**
+     * Splits the payloads into records.
+     *
+     * @param payloads the payloads
+     * @return the records
+     */
+    static List<byte[]> records(List<byte[]> payloads) {
+        List<byte[]> records = new ArrayList<byte[]>();
+        for (byte[] payload : payloads) {
+            for (int offset = 0; offset < payload.length;) {
+                byte[] record = new byte[LENGTH_SIZE + length(payload, offset)];
+                System.arraycopy(payload, offset, record, 0, record.length);
+                records.add(record);
+                offset += record.length;
+            }
+        }
+        return records;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#put(java.lang.Object,
+     * java.lang.Object)
+     */
+    public void put(K key, CollectionItem<V> value) {
+        List<byte[]> records = new ArrayList<byte[]>(value.getValue().size());
+        for (V element : value.getValue()) {
+            records.add(record(serializer.serialize(element)));
+        }
+        Chain chain = new Chain();
+        synchronized (chain) {
+            if (pack(key, chain, records)) {
+                Chain exChain = chains.put(key, chain);
+                if (exChain != null) {
+                    drop(key, exChain);
+                }
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#get(java.lang.Object)
+     */
+    public CollectionItem<V> get(K key) {
+        List<byte[]> payloads = read(key);
+        if (payloads == null) {
+            return null;
+        }
+        return collectionItem(payloads);
+    }
+
+    /**
+     * Deserializes the elements of the payloads.
+     *
+     * @param payloads the payloads
+     * @return the collection item
+     */
+    private CollectionItem<V> collectionItem(List<byte[]> payloads) {
+        List<V> elements = new ArrayList<V>();
+        Iterator<V> iterator = new ElementIterator(payloads);
+        while (iterator.hasNext()) {
+            elements.add(iterator.next());
+        }
+        return new CollectionItem<V>(elements);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#invalidate(java.lang.Object)
+     */
+    public CollectionItem<V> invalidate(K key) {
+        Chain chain = chains.get(key);
+        if (chain == null) {
+            return null;
+        }
+        List<byte[]> payloads;
+        synchronized (chain) {
+            payloads = chain.evicted ? null : read(key, chain);
+            drop(key, chain);
+        }
+        return payloads == null ? null : collectionItem(payloads);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#putAll(java.util.Map)
+     */
+    public void putAll(Map<K, CollectionItem<V>> entries) {
+        for (Entry<K, CollectionItem<V>> entry : entries.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#getAll(java.util.Collection)
+     */
+    public Map<K, CollectionItem<V>> getAll(Collection<K> keys) {
+        Map<K, CollectionItem<V>> values = new HashMap<K, CollectionItem<V>>();
+        for (K key : keys) {
+            CollectionItem<V> value = get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        }
+        return values;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#invalidateAll(java.util.Collection)
+     */
+    public void invalidateAll(Collection<K> keys) {
+        for (K key : keys) {
+            Chain chain = chains.get(key);
+            if (chain != null) {
+                drop(key, chain);
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#contains(java.lang.Object)
+     */
+    public boolean contains(K key) {
+        return chains.containsKey(key);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#clear()
+     */
+    public void clear() {
+        for (Chain chain : chains.values()) {
+            chain.evicted = true;
+        }
+        chains.clear();
+        segments.clear();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#hitRatio()
+     */
+    public double hitRatio() {
+        long hits = hit.get();
+        long total = hits + miss.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#size()
+     */
+    public int size() {
+        return chains.size();
+    }
+
+    /**
+     * Gets the number of segments of the key.
+     *
+     * @param key the key
+     * @return the segment count, 0 if the key is missing
+     */
+    public int getSegmentCount(K key) {
+        Chain chain = chains.get(key);
+        return chain == null ? 0 : chain.segments.size();
+    }
+
+    /**
+     * Gets the max segments.
+     *
+     * @return the max segments
+     */
+    public int getMaxSegments() {
+        return maxSegments;
+    }
+
+    /**
+     * Sets the segments a chain may have before it is compacted.
+     *
+     * @param maxSegments the new max segments
+     */
+    public void setMaxSegments(int maxSegments) {
+        this.maxSegments = maxSegments;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#getName()
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#setName(java.lang.String)
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * The Class ElementIterator deserializes the elements of the payloads.
+     */
+    private class ElementIterator implements Iterator<V> {
+
+        /** The payloads. */
+        private final List<byte[]> payloads;
+
+        /** The index of the payload. */
+        private int index;
+
+        /** The offset in the payload. */
+        private int offset;
+
+        /**
+         * Instantiates a new element iterator.
+         *
+         * @param payloads the payloads
+         */
+        ElementIterator(List<byte[]> payloads) {
+            this.payloads = payloads;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.Iterator#hasNext()
+         */
+        public boolean hasNext() {
+            while (index < payloads.size() && offset == payloads.get(index).length) {
+                index++;
+                offset = 0;
+            }
+            return index < payloads.size();
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.Iterator#next()
+         */
+        public V next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            byte[] payload = payloads.get(index);
+            byte[] bytes = new byte[length(payload, offset)];
+            System.arraycopy(payload, offset + LENGTH_SIZE, bytes, 0, bytes.length);
+            offset += LENGTH_SIZE + bytes.length;
+            return serializer.deserialize(bytes);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.util.Iterator#remove()
+         */
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * The Class Chain is the list of the segments of a key.
+     */
+    protected static class Chain {
+
+        /** The segments, replaced as a whole as they change. */
+        volatile List<Segment> segments = Collections.emptyList();
+
+        /** The evicted. */
+        volatile boolean evicted;
+
+        /** The access time. */
+        volatile long accessTime = System.currentTimeMillis();
+
+        /**
+         * Gets the tail segment.
+         *
+         * @return the tail, null if there is none
+         */
+        Segment tail() {
+            List<Segment> chainSegments = segments;
+            return chainSegments.isEmpty() ? null : chainSegments.get(chainSegments.size() - 1);
+        }
+
+        /**
+         * Checks if the segment is in the chain.
+         *
+         * @param id the id of the segment
+         * @return true, if the segment is in the chain
+         */
+        boolean contains(long id) {
+            for (Segment segment : segments) {
+                if (segment.id == id) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The Class Segment is a payload of a chain, the bytes up to the used
+     * length are the records of its elements.
+     */
+    protected static class Segment {
+
+        /** The id. */
+        final long id;
+
+        /** The capacity. */
+        final int capacity;
+
+        /** The used length. */
+        int used;
+
+        /**
+         * Instantiates a new segment.
+         *
+         * @param id the id
+         * @param capacity the capacity
+         */
+        Segment(long id, int capacity) {
+            this.id = id;
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * The Class SegmentKey is the key of a segment in the offheap cache.
+     *
+     * @param <K> the key type
+     */
+    protected static class SegmentKey<K> {
+
+        /** The key. */
+        final K key;
+
+        /** The id. */
+        final long id;
+
+        /**
+         * Instantiates a new segment key.
+         *
+         * @param key the key
+         * @param id the id
+         */
+        SegmentKey(K key, long id) {
+            this.key = key;
+            this.id = id;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            return 31 * key.hashCode() + (int) (id ^ (id >>> 32));
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof SegmentKey)) {
+                return false;
+            }
+            SegmentKey<?> segmentKey = (SegmentKey<?>) object;
+            return id == segmentKey.id && key.equals(segmentKey.key);
+        }
+    }
+
+    /**
+     * The Class SegmentCache stores the segments. Its items are not evicted
+     * for idleness one by one, the chains are evicted as a whole instead.
+     *
+     * @param <K> the key type
+     */
+    private static class SegmentCache<K> extends OffHeapCache<SegmentKey<K>, byte[]> {
+
+        /**
+         * Instantiates a new segment cache.
+         *
+         * @param evictionListener the eviction listener
+         * @param byteBufferStore the byte buffer store
+         * @param bufferCleanerPeriod the buffer cleaner period
+         * @param bufferCleanerThreshold the buffer cleaner threshold
+         * @param concurrencyLevel the concurrency level
+         */
+        SegmentCache(EvictionListener<SegmentKey<K>, byte[]> evictionListener,
+                OffHeapByteBufferStore byteBufferStore, long bufferCleanerPeriod, float bufferCleanerThreshold,
+                int concurrencyLevel) {
+            super(null, evictionListener, null, byteBufferStore, BYTES_SERIALIZER, bufferCleanerPeriod,
+                    bufferCleanerThreshold, concurrencyLevel, bufferCleanerPeriod);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.offheap.OffHeapCache#doEviction(long)
+         */
+        @Override
+        protected void doEviction(long evictionPeriod) {
+        }
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap;
+
+/**
+ * The EntryProcessor interface for changing the payload of an entry of an
+ * {@link OffHeapCache} where it is stored. The processor runs under the lock of
+ * the key, so that reading and writing the entry is atomic, and it sees the
+ * payload as written by the serializer of the cache. Since other operations on
+ * the keys of the same stripe wait for it, a processor should be short.
+ *
+ * @param <R> the result type
+ * @see OffHeapCache#invoke(Object, EntryProcessor)
+ */
+public interface EntryProcessor<R> {
+
+    /**
+     * Processes the entry. The entry is only valid during the call, it must
+     * not be kept.
+     *
+     * @param entry the entry
+     * @return the result
+     */
+    R process(MutableEntry entry);
+}
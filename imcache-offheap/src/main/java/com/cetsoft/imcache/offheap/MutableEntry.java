@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap;
+
+/**
+ * The MutableEntry interface is the view of the payload of an entry handed to
+ * an {@link EntryProcessor}. Fields are read and written at offsets of the
+ * payload in big endian order, writes change the payload in place and keep its
+ * length, a field out of the payload fails with an
+ * OffHeapByteBufferException. A payload of another length is set as a whole.
+ */
+public interface MutableEntry {
+
+    /**
+     * Checks if the entry exists, the payload of a missing entry is empty.
+     *
+     * @return true, if the entry exists
+     */
+    boolean exists();
+
+    /**
+     * Gets the length of the payload.
+     *
+     * @return the length
+     */
+    int length();
+
+    /**
+     * Gets the byte at the offset.
+     *
+     * @param offset the offset
+     * @return the byte
+     */
+    byte getByte(int offset);
+
+    /**
+     * Puts the byte to the offset.
+     *
+     * @param offset the offset
+     * @param value the value
+     */
+    void putByte(int offset, byte value);
+
+    /**
+     * Gets the int at the offset.
+     *
+     * @param offset the offset
+     * @return the int
+     */
+    int getInt(int offset);
+
+    /**
+     * Puts the int to the offset.
+     *
+     * @param offset the offset
+     * @param value the value
+     */
+    void putInt(int offset, int value);
+
+    /**
+     * Gets the long at the offset.
+     *
+     * @param offset the offset
+     * @return the long
+     */
+    long getLong(int offset);
+
+    /**
+     * Puts the long to the offset.
+     *
+     * @param offset the offset
+     * @param value the value
+     */
+    void putLong(int offset, long value);
+
+    /**
+     * Gets the bytes at the offset, filling the destination.
+     *
+     * @param offset the offset
+     * @param destination the destination
+     */
+    void get(int offset, byte[] destination);
+
+    /**
+     * Puts the bytes of the source to the offset.
+     *
+     * @param offset the offset
+     * @param source the source
+     */
+    void put(int offset, byte[] source);
+
+    /**
+     * Gets a copy of the payload.
+     *
+     * @return the payload
+     */
+    byte[] getPayload();
+
+    /**
+     * Sets the payload as a whole, which creates a missing entry. The payload
+     * is stored once the processor returns.
+     *
+     * @param payload the payload
+     */
+    void setPayload(byte[] payload);
+}
@@ -7,10 +7,11 @@
  */
 package com.KyleDing.imcache.offheap;
 
+import java.nio.BufferOverflowException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -18,9 +19,11 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -29,18 +32,32 @@ import com.KyleDing.imcache.cache.CacheLoader;
 import com.KyleDing.imcache.cache.EvictionListener;
 import com.KyleDing.imcache.cache.search.IndexHandler;
 import com.KyleDing.imcache.cache.util.ThreadUtils;
-import com.KyleDing.imcache.concurrent.lock.StripedReadWriteLock;
+import com.KyleDing.imcache.concurrent.lock.StripedStampedLock;
+import com.KyleDing.imcache.offheap.bytebuffer.ByteBufferFactory;
 import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer;
+import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferException;
 import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore;
 import com.KyleDing.imcache.offheap.bytebuffer.Pointer;
+import com.KyleDing.imcache.serialization.ByteBufferSerializer;
 import com.KyleDing.imcache.serialization.Serializer;
+import com.KyleDing.imcache.serialization.StreamingSerializer;
 
 /**
  * The Class OffHeapCache is a cache that uses offheap byte buffers to store or
  * retrieve data by serializing items into bytes. To do so, OffHeapCache uses
- * pointers to point array location of an item. OffHeapCache clears the buffers
- * periodically to gain free space if buffers are dirty(unused memory). It also
- * does eviction depending on access time to the objects.
+ * pointers to point array location of an item. OffHeapCache compacts a buffer
+ * to gain free space once its dirty(unused memory) ratio exceeds the buffer
+ * cleaner threshold. Compaction picks the most fragmented buffer and moves its
+ * items to the other buffers in short time slices, locking a single key at a
+ * time, so that reads and writes go on meanwhile.
+ * <p>
+ * The cache is bounded by the capacity of its buffer store. When a write finds
+ * every buffer in use, the cache evicts the items of a buffer and frees it
+ * instead of failing: a sweep over the entries clears their reference bits,
+ * which reads set, and the buffer whose items were referenced the least since
+ * the previous sweep is evicted, calling the eviction listener for each item.
+ * It also evicts the items that are not accessed for the eviction period, the
+ * periodic sweep turns the reference bits into access times.
  *
  * @param <K> the key type
  * @param <V> the value type
@@ -62,23 +79,65 @@ public class OffHeapCache<K, V> extends AbstractSearchableCache<K, V> {
     /** The Constant DEFAULT_CONCURRENCY_LEVEL. */
     public static final int DEFAULT_CONCURRENCY_LEVEL = 4;
 
+    /** The Constant COMPACTION_SLICE, the length of a compaction slice in nanoseconds. */
+    static final long COMPACTION_SLICE = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /** The Constant OPTIMISTIC_READS, the attempts to read before locking. */
+    static final int OPTIMISTIC_READS = 2;
+
+    /** The Constant LONG_SIZE, the length of the payload of a counter. */
+    static final int LONG_SIZE = 8;
+
     /** The hit. */
     protected AtomicLong hit = new AtomicLong();
 
     /** The miss. */
     protected AtomicLong miss = new AtomicLong();
 
+    /** The number of compactions. */
+    protected AtomicLong compactions = new AtomicLong();
+
+    /** The bytes moved by compactions. */
+    protected AtomicLong compactedBytes = new AtomicLong();
+
+    /** The total compaction pause time in nanoseconds. */
+    protected AtomicLong compactionPauseTime = new AtomicLong();
+
+    /** The longest compaction pause time in nanoseconds. */
+    protected AtomicLong maxCompactionPauseTime = new AtomicLong();
+
+    /** The lock of the eviction of buffers. */
+    private final Object evictionLock = new Object();
+
+    /** The compaction requested. */
+    private final AtomicBoolean compactionRequested = new AtomicBoolean();
+
     /** The pointer map. */
     protected ConcurrentMap<K, Pointer> pointerMap = new ConcurrentHashMap<K, Pointer>();
 
     /** The serializer. */
     private Serializer<V> serializer;
 
+    /** The serializer if it reads from byte buffers, null otherwise. */
+    private ByteBufferSerializer<V> byteBufferSerializer;
+
+    /** The serializer if it writes into byte buffers, null otherwise. */
+    private StreamingSerializer<V> streamingSerializer;
+
     /** The buffer store. */
     private OffHeapByteBufferStore bufferStore;
 
-    /** The read write lock. */
-    private StripedReadWriteLock readWriteLock;
+    /** The read write lock, its stripes are also read optimistically. */
+    private StripedStampedLock readWriteLock;
+
+    /** The buffer cleaner threshold. */
+    private float bufferCleanerThreshold;
+
+    /** The buffer cleaner service. */
+    protected ScheduledExecutorService cleanerService;
+
+    /** The eviction service. */
+    protected ScheduledExecutorService evictionService;
 
     /** The Constant NO_OF_CLEANERS. */
     private static final AtomicInteger NO_OF_CLEANERS = new AtomicInteger();
@@ -108,6 +167,31 @@ public class OffHeapCache<K, V> extends AbstractSearchableCache<K, V> {
                 evictionPeriod);
     }
 
+    /**
+     * Instantiates a new offheap cache whose keys are mapped to their pointers
+     * by the given map, such as an
+     * {@link com.KyleDing.imcache.offheap.index.OffHeapHashIndex}.
+     *
+     * @param cacheLoader the cache loader
+     * @param evictionListener the eviction listener
+     * @param indexHandler the query executer
+     * @param byteBufferStore the byte buffer store
+     * @param serializer the serializer
+     * @param bufferCleanerPeriod the buffer cleaner period
+     * @param bufferCleanerThreshold the buffer cleaner threshold
+     * @param concurrencyLevel the concurrency level
+     * @param evictionPeriod the eviction period
+     * @param pointerMap the pointer map
+     */
+    public OffHeapCache(CacheLoader<K, V> cacheLoader, EvictionListener<K, V> evictionListener,
+            IndexHandler<K, V> indexHandler, OffHeapByteBufferStore byteBufferStore, Serializer<V> serializer,
+            long bufferCleanerPeriod, final float bufferCleanerThreshold, int concurrencyLevel,
+            final long evictionPeriod, ConcurrentMap<K, Pointer> pointerMap) {
+        this(cacheLoader, evictionListener, indexHandler, byteBufferStore, serializer, bufferCleanerPeriod,
+                bufferCleanerThreshold, concurrencyLevel, evictionPeriod);
+        this.pointerMap = pointerMap;
+    }
+
     /**
      * Inits the cache.
      *
@@ -125,21 +209,37 @@ public class OffHeapCache<K, V> extends AbstractSearchableCache<K, V> {
             throw new IllegalArgumentException("ConcurrencyLevel must be between 0 and 11 inclusive!");
         }
         this.serializer = serializer;
+        if (serializer instanceof ByteBufferSerializer) {
+            this.byteBufferSerializer = (ByteBufferSerializer<V>) serializer;
+        }
+        if (serializer instanceof StreamingSerializer) {
+            this.streamingSerializer = (StreamingSerializer<V>) serializer;
+        }
         this.bufferStore = byteBufferStore;
-        this.readWriteLock = new StripedReadWriteLock(concurrencyLevel);
-        ScheduledExecutorService cleanerService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        this.readWriteLock = new StripedStampedLock(concurrencyLevel) {
+            // Optimistic reads load native memory, which a volatile read does not order.
+            protected void loadFence() {
+                ByteBufferFactory.getDefault().loadFence();
+            }
+        };
+        this.bufferCleanerThreshold = bufferCleanerThreshold;
+        cleanerService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
             public Thread newThread(Runnable runnable) {
                 String threadName = "imcache:bufferCleaner(name=" + getName() + ",thread="
                         + NO_OF_CLEANERS.incrementAndGet() + ")";
                 return ThreadUtils.createDaemonThread(runnable, threadName);
             }
         });
+        // Compaction is requested as buffers get dirty, the periodic run
+        // catches the buffers that were already dirty and gives the memory
+        // of the idle ones back.
         cleanerService.scheduleAtFixedRate(new Runnable() {
             public void run() {
                 cleanBuffers(bufferCleanerThreshold);
+                bufferStore.releaseIdleBuffers();
             }
         }, bufferCleanerPeriod, bufferCleanerPeriod, TimeUnit.MILLISECONDS);
-        ScheduledExecutorService evictionService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        evictionService = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
             public Thread newThread(Runnable runnable) {
                 String threadName = "imcache:evictionService(name=" + getName() + ",thread="
                         + NO_OF_EVICTORS.incrementAndGet() + ")";
@@ -160,20 +260,107 @@ public class OffHeapCache<K, V> extends AbstractSearchableCache<K, V> {
      * java.lang.Object)
      */
     public void put(K key, V value) {
-        writeLock(key);
-        Pointer pointer = pointerMap.get(key);
-        try {
-            byte[] bytes = serializer.serialize(value);
-            if (pointer == null) {
-                pointer = bufferStore.store(bytes);
-            } else {
-                synchronized (pointer) {
-                    pointer = bufferStore.update(pointer, bytes);
+        if (streamingSerializer != null) {
+            put(key, value, null);
+        } else {
+            putPayload(key, serializer.serialize(value));
+        }
+    }
+
+    /**
+     * Puts the payload of the key, evicting buffers while every buffer is in
+     * use.
+     *
+     * @param key the key
+     * @param bytes the payload
+     */
+    protected void putPayload(K key, byte[] bytes) {
+        put(key, null, bytes);
+    }
+
+    /**
+     * Puts the payload of the key or, if there is no payload, lets the
+     * streaming serializer write the value straight into a buffer, evicting
+     * buffers while every buffer is in use.
+     *
+     * @param key the key
+     * @param value the value
+     * @param bytes the payload, null to write the value
+     */
+    private void put(K key, V value, byte[] bytes) {
+        OffHeapByteBuffer exBuffer = null;
+        for (int evictions = 0;; evictions++) {
+            writeLock(key);
+            try {
+                exBuffer = bytes != null ? write(key, bytes) : writeValue(key, value);
+                break;
+            } catch (BufferOverflowException exception) {
+                if (evictions == bufferStore.getBufferSize()) {
+                    throw exception;
                 }
+            } finally {
+                writeUnlock(key);
             }
-            pointerMap.put(key, pointer);
-        } finally {
-            writeUnlock(key);
+            // Other keys are locked to evict, so the key is unlocked first.
+            evictBuffer(bytes != null ? bytes.length : streamingSerializer.size(value));
+        }
+        requestCompaction(exBuffer);
+    }
+
+    /**
+     * Writes the bytes of the key, the write lock of the key must be held.
+     *
+     * @param key the key
+     * @param bytes the bytes
+     * @return the buffer of the replaced payload, null if there is none
+     * @throws BufferOverflowException if every buffer is in use, the replaced
+     *             payload is removed then
+     */
+    protected OffHeapByteBuffer write(K key, byte[] bytes) {
+        Pointer pointer = pointerMap.get(key);
+        if (pointer == null) {
+            pointerMap.put(key, bufferStore.store(bytes));
+            return null;
+        }
+        synchronized (pointer) {
+            OffHeapByteBuffer exBuffer = pointer.getOffHeapByteBuffer();
+            try {
+                pointerMap.put(key, bufferStore.update(pointer, bytes));
+            } catch (BufferOverflowException exception) {
+                // An update releases the replaced payload before it allocates.
+                pointerMap.remove(key);
+                throw exception;
+            }
+            return exBuffer;
+        }
+    }
+
+    /**
+     * Writes the value of the key straight into a buffer through the
+     * streaming serializer, the write lock of the key must be held.
+     *
+     * @param key the key
+     * @param value the value
+     * @return the buffer of the replaced payload, null if there is none
+     * @throws BufferOverflowException if every buffer is in use, the replaced
+     *             payload is removed then
+     */
+    protected OffHeapByteBuffer writeValue(K key, V value) {
+        Pointer pointer = pointerMap.get(key);
+        if (pointer == null) {
+            pointerMap.put(key, bufferStore.store(value, streamingSerializer));
+            return null;
+        }
+        synchronized (pointer) {
+            OffHeapByteBuffer exBuffer = pointer.getOffHeapByteBuffer();
+            try {
+                pointerMap.put(key, bufferStore.update(pointer, value, streamingSerializer));
+            } catch (RuntimeException exception) {
+                // The replaced payload is released even if the serializer fails.
+                pointerMap.remove(key);
+                throw exception;
+            }
+            return exBuffer;
         }
     }
 
@@ -182,26 +369,100 @@ public class OffHeapCache<K, V> extends AbstractSearchableCache<K, V> {
      *
      * @see com.KyleDing.imcache.cache.Cache#get(java.lang.Object)
      */
+    @SuppressWarnings("unchecked")
     public V get(K key) {
-        Pointer pointer = pointerMap.get(key);
-        if (pointer != null) {
-            readLock(key);
+        int id = Math.abs(key.hashCode());
+        // The item is read without locking first, writers of the key fail the read.
+        for (int i = 0; i < OPTIMISTIC_READS; i++) {
+            long stamp = readWriteLock.tryOptimisticRead(id);
+            Pointer pointer = pointerMap.get(key);
+            if (pointer == null) {
+                break;
+            }
+            Object read;
             try {
+                read = readOptimistically(pointer);
+            } catch (RuntimeException exception) {
+                // A writer changed the item meanwhile.
+                continue;
+            }
+            if (readWriteLock.validate(id, stamp)) {
+                pointer.reference();
+                hit.incrementAndGet();
+                return byteBufferSerializer != null ? (V) read : serializer.deserialize((byte[]) read);
+            }
+        }
+        readLock(key);
+        try {
+            // The pointer is read under the lock since compaction may move it.
+            Pointer pointer = pointerMap.get(key);
+            if (pointer != null) {
                 hit.incrementAndGet();
                 synchronized (pointer) {
-                    byte[] payload = bufferStore.retrieve(pointer);
-                    return serializer.deserialize(payload);
+                    return retrieve(pointer);
                 }
-            } finally {
-                readUnlock(key);
             }
-        } else {
-            miss.incrementAndGet();
-            V value = cacheLoader.load(key);
-            if (value != null) {
-                put(key, value);
+        } finally {
+            readUnlock(key);
+        }
+        miss.incrementAndGet();
+        return load(key);
+    }
+
+    /**
+     * Retrieves the value the pointer points to. The value is deserialized
+     * straight from the buffer if the serializer supports it.
+     *
+     * @param pointer the pointer
+     * @return the value
+     */
+    protected V retrieve(Pointer pointer) {
+        if (byteBufferSerializer != null) {
+            return bufferStore.retrieve(pointer, byteBufferSerializer);
+        }
+        return serializer.deserialize(bufferStore.retrieve(pointer));
+    }
+
+    /**
+     * Reads the item the pointer points to without locking, which is valid
+     * only if the key was not written meanwhile. A byte buffer serializer
+     * deserializes the value straight from the native memory, since a hit
+     * of a fixed layout value then allocates nothing; it tolerates torn
+     * bytes as its contract requires. Otherwise the payload is copied out to
+     * be deserialized once it is validated.
+     *
+     * @param pointer the pointer
+     * @return the value or the payload
+     */
+    protected Object readOptimistically(Pointer pointer) {
+        OffHeapByteBuffer buffer = pointer.getOffHeapByteBuffer();
+        if (byteBufferSerializer != null) {
+            return buffer.readOptimistically(pointer.getPosition(), byteBufferSerializer);
+        }
+        return buffer.readOptimistically(pointer.getPosition());
+    }
+
+    /**
+     * Reads the big endian int at the offset of the payload of the key in
+     * place, without retrieving and deserializing the value. The cache loader
+     * is not called for a missing key.
+     *
+     * @param key the key
+     * @param offset the offset in the payload
+     * @return the int, null if the key is not cached
+     */
+    protected Integer retrieveInt(K key, int offset) {
+        readLock(key);
+        try {
+            Pointer pointer = pointerMap.get(key);
+            if (pointer == null) {
+                return null;
             }
-            return value;
+            synchronized (pointer) {
+                return bufferStore.retrieveInt(pointer, offset);
+            }
+        } finally {
+            readUnlock(key);
         }
     }
 
@@ -211,20 +472,309 @@ public class OffHeapCache<K, V> extends AbstractSearchableCache<K, V> {
      * @see com.KyleDing.imcache.cache.Cache#invalidate(java.lang.Object)
      */
     public V invalidate(K key) {
+        byte[] payload = null;
+        OffHeapByteBuffer exBuffer = null;
         writeLock(key);
         try {
             Pointer pointer = pointerMap.get(key);
             if (pointer != null) {
                 synchronized (pointer) {
-                    byte[] payload = bufferStore.remove(pointer);
+                    exBuffer = pointer.getOffHeapByteBuffer();
+                    payload = bufferStore.remove(pointer);
                     pointerMap.remove(key);
-                    return serializer.deserialize(payload);
                 }
             }
         } finally {
             writeUnlock(key);
         }
-        return null;
+        if (payload == null) {
+            return null;
+        }
+        requestCompaction(exBuffer);
+        return serializer.deserialize(payload);
+    }
+
+    /**
+     * Invokes the processor on the entry of the key under the lock of the key.
+     * The processor writes fields of the payload where it is stored, so an
+     * update that keeps the length of the payload takes neither a
+     * deserialization nor an allocation. A payload shared by the store or
+     * stored in chunks is processed as a copy instead, which is written back
+     * under the lock once the processor returns, as is a payload set as a
+     * whole. If the store runs out of memory then, the entry is left as it was
+     * and the processor is invoked again once a buffer is evicted, so a
+     * processor should derive its update from the entry alone. The cache
+     * loader is not called for a missing key.
+     *
+     * @param <R> the result type
+     * @param key the key
+     * @param processor the processor
+     * @return the result of the processor
+     */
+    public <R> R invoke(K key, EntryProcessor<R> processor) {
+        for (int evictions = 0;; evictions++) {
+            R result;
+            OffHeapMutableEntry entry;
+            OffHeapByteBuffer exBuffer = null;
+            boolean overflow = false;
+            writeLock(key);
+            try {
+                Pointer pointer = pointerMap.get(key);
+                if (pointer == null) {
+                    entry = new OffHeapMutableEntry(null);
+                    result = processor.process(entry);
+                } else {
+                    synchronized (pointer) {
+                        pointer.reference();
+                        entry = new OffHeapMutableEntry(pointer);
+                        result = processor.process(entry);
+                    }
+                }
+                if (!entry.replaced) {
+                    return result;
+                }
+                try {
+                    exBuffer = replace(key, entry.payload);
+                } catch (BufferOverflowException exception) {
+                    if (evictions == bufferStore.getBufferSize()) {
+                        throw exception;
+                    }
+                    overflow = true;
+                }
+            } finally {
+                writeUnlock(key);
+            }
+            if (!overflow) {
+                requestCompaction(exBuffer);
+                return result;
+            }
+            // Other keys are locked to evict, so the key is unlocked first.
+            evictBuffer(entry.payload.length);
+        }
+    }
+
+    /**
+     * Replaces the payload of the key, the write lock of the key must be held.
+     *
+     * @param key the key
+     * @param bytes the bytes
+     * @return the buffer of the replaced payload, null if there is none
+     * @throws BufferOverflowException if every buffer is in use, the replaced
+     *             payload is kept then
+     */
+    protected OffHeapByteBuffer replace(K key, byte[] bytes) {
+        Pointer pointer = pointerMap.get(key);
+        if (pointer == null) {
+            pointerMap.put(key, bufferStore.store(bytes));
+            return null;
+        }
+        synchronized (pointer) {
+            OffHeapByteBuffer exBuffer = pointer.getOffHeapByteBuffer();
+            pointerMap.put(key, bufferStore.replace(pointer, bytes));
+            return exBuffer;
+        }
+    }
+
+    /**
+     * Adds the delta to the counter of the key in place and returns the sum.
+     * The value of a counter is a big endian long such as the
+     * {@link com.KyleDing.imcache.serialization.LongSerializer} writes, a
+     * missing counter starts from zero.
+     *
+     * @param key the key
+     * @param delta the delta
+     * @return the sum
+     * @throws OffHeapByteBufferException if the value is not a long
+     */
+    public long addAndGet(K key, final long delta) {
+        return invoke(key, new EntryProcessor<Long>() {
+            public Long process(MutableEntry entry) {
+                if (!entry.exists()) {
+                    entry.setPayload(new byte[LONG_SIZE]);
+                }
+                checkLong(entry);
+                long value = entry.getLong(0) + delta;
+                entry.putLong(0, value);
+                return value;
+            }
+        });
+    }
+
+    /**
+     * Sets the counter of the key to the update in place if it equals to the
+     * expected value, see {@link #addAndGet(Object, long)}.
+     *
+     * @param key the key
+     * @param expect the expected value
+     * @param update the update
+     * @return true, if the counter is set, false if it does not equal to the
+     *         expected value or it is missing
+     * @throws OffHeapByteBufferException if the value is not a long
+     */
+    public boolean compareAndSet(K key, final long expect, final long update) {
+        return invoke(key, new EntryProcessor<Boolean>() {
+            public Boolean process(MutableEntry entry) {
+                if (!entry.exists()) {
+                    return false;
+                }
+                checkLong(entry);
+                if (entry.getLong(0) != expect) {
+                    return false;
+                }
+                entry.putLong(0, update);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Checks that the payload of the entry is a long.
+     *
+     * @param entry the entry
+     */
+    static void checkLong(MutableEntry entry) {
+        if (entry.length() != LONG_SIZE) {
+            throw new OffHeapByteBufferException("Payload is not a long!");
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.AbstractCache#putAll(java.util.Map)
+     */
+    @Override
+    public void putAll(Map<K, V> entries) {
+        Map<K, byte[]> serializedValues = new HashMap<K, byte[]>();
+        for (Entry<K, V> entry : entries.entrySet()) {
+            serializedValues.put(entry.getKey(), serializer.serialize(entry.getValue()));
+        }
+        List<List<K>> stripes = groupByStripe(entries.keySet());
+        OffHeapByteBuffer exBuffer = null;
+        for (int stripe = 0; stripe < stripes.size(); stripe++) {
+            List<K> keys = stripes.get(stripe);
+            if (keys == null) {
+                continue;
+            }
+            int evictions = 0;
+            for (int i = 0; i < keys.size();) {
+                readWriteLock.writeLock(stripe);
+                try {
+                    for (; i < keys.size(); i++) {
+                        K key = keys.get(i);
+                        OffHeapByteBuffer buffer = write(key, serializedValues.get(key));
+                        if (buffer != null) {
+                            exBuffer = buffer;
+                        }
+                        evictions = 0;
+                    }
+                    break;
+                } catch (BufferOverflowException exception) {
+                    if (evictions++ == bufferStore.getBufferSize()) {
+                        throw exception;
+                    }
+                } finally {
+                    readWriteLock.writeUnlock(stripe);
+                }
+                evictBuffer(serializedValues.get(keys.get(i)).length);
+            }
+        }
+        requestCompaction(exBuffer);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.AbstractCache#getAll(java.util.Collection)
+     */
+    @Override
+    public Map<K, V> getAll(Collection<K> keys) {
+        Map<K, V> values = new HashMap<K, V>();
+        List<K> missingKeys = new ArrayList<K>();
+        List<List<K>> stripes = groupByStripe(keys);
+        for (int stripe = 0; stripe < stripes.size(); stripe++) {
+            if (stripes.get(stripe) == null) {
+                continue;
+            }
+            readWriteLock.readLock(stripe);
+            try {
+                for (K key : stripes.get(stripe)) {
+                    Pointer pointer = pointerMap.get(key);
+                    if (pointer == null) {
+                        missingKeys.add(key);
+                        continue;
+                    }
+                    synchronized (pointer) {
+                        values.put(key, retrieve(pointer));
+                    }
+                }
+            } finally {
+                readWriteLock.readUnlock(stripe);
+            }
+        }
+        hit.addAndGet(values.size());
+        if (!missingKeys.isEmpty()) {
+            miss.addAndGet(missingKeys.size());
+            values.putAll(loadAll(missingKeys));
+        }
+        return values;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.cache.AbstractCache#invalidateAll(java.util.Collection)
+     */
+    @Override
+    public void invalidateAll(Collection<K> keys) {
+        List<List<K>> stripes = groupByStripe(keys);
+        OffHeapByteBuffer exBuffer = null;
+        for (int stripe = 0; stripe < stripes.size(); stripe++) {
+            if (stripes.get(stripe) == null) {
+                continue;
+            }
+            readWriteLock.writeLock(stripe);
+            try {
+                for (K key : stripes.get(stripe)) {
+                    Pointer pointer = pointerMap.remove(key);
+                    if (pointer != null) {
+                        synchronized (pointer) {
+                            exBuffer = pointer.getOffHeapByteBuffer();
+                            bufferStore.remove(pointer);
+                        }
+                    }
+                }
+            } finally {
+                readWriteLock.writeUnlock(stripe);
+            }
+        }
+        requestCompaction(exBuffer);
+    }
+
+    /**
+     * Groups the keys by the stripe of their lock so that a batch takes each
+     * lock once. Stripes without keys are left null.
+     *
+     * @param keys the keys
+     * @return the keys of each stripe
+     */
+    protected List<List<K>> groupByStripe(Collection<K> keys) {
+        int stripeCount = readWriteLock.getStripeCount();
+        List<List<K>> stripes = new ArrayList<List<K>>(stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes.add(null);
+        }
+        for (K key : keys) {
+            int stripe = readWriteLock.getStripe(Math.abs(key.hashCode()));
+            List<K> stripeKeys = stripes.get(stripe);
+            if (stripeKeys == null) {
+                stripeKeys = new ArrayList<K>();
+                stripes.set(stripe, stripeKeys);
+            }
+            stripeKeys.add(key);
+        }
+        return stripes;
     }
 
     /*
@@ -242,8 +792,18 @@ public class OffHeapCache<K, V> extends AbstractSearchableCache<K, V> {
      * @see com.KyleDing.imcache.cache.Cache#clear()
      */
     public void clear() {
-        pointerMap.clear();
-        bufferStore.free();
+        // Every stripe is locked so that optimistic readers see the change.
+        for (int stripe = 0; stripe < readWriteLock.getStripeCount(); stripe++) {
+            readWriteLock.writeLock(stripe);
+        }
+        try {
+            pointerMap.clear();
+            bufferStore.free();
+        } finally {
+            for (int stripe = readWriteLock.getStripeCount() - 1; stripe >= 0; stripe--) {
+                readWriteLock.writeUnlock(stripe);
+            }
+        }
     }
 
     /*
@@ -301,62 +861,532 @@ public class OffHeapCache<K, V> extends AbstractSearchableCache<K, V> {
     }
 
     /**
-     * Clean buffers.
+     * Compacts the most fragmented buffer if its dirty ratio exceeds the
+     * threshold.
      *
      * @param bufferCleanerThreshold the buffer cleaner threshold
      */
     protected void cleanBuffers(final float bufferCleanerThreshold) {
-        // Buffers can be fully dirty and we may not find any pointer to resolve that.
-        // This case is so unlikely that we did not consider.
-        Collection<Pointer> pointers = pointerMap.values();
-        List<Pointer> pointersToBeRedistributed = new ArrayList<Pointer>();
-        Map<OffHeapByteBuffer, Float> buffers = new HashMap<OffHeapByteBuffer, Float>();
-        Set<Integer> buffersToBeCleaned = new HashSet<Integer>();
-        // For all pointers we try to understand if there is a need for redistribution.
-        for (Pointer pointer : pointers) {
-            Float ratio = buffers.get(pointer.getOffHeapByteBuffer());
-            if (ratio == null) {
-                // calculate the ratio of the dirty
-                ratio = getDirtyRatio(pointer);
-                buffers.put(pointer.getOffHeapByteBuffer(), ratio);
+        OffHeapByteBuffer buffer = mostFragmentedBuffer(bufferCleanerThreshold);
+        if (buffer != null) {
+            compact(buffer);
+        }
+    }
+
+    /**
+     * Requests a compaction on the cleaner thread if the buffer that got dirty
+     * exceeds the threshold. Requests made while a compaction is waiting to
+     * start are merged.
+     *
+     * @param buffer the buffer that got dirty, may be null
+     */
+    protected void requestCompaction(OffHeapByteBuffer buffer) {
+        if (buffer == null || getDirtyRatio(buffer) - bufferCleanerThreshold <= DELTA
+                || !compactionRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            cleanerService.execute(new Runnable() {
+                public void run() {
+                    compactionRequested.set(false);
+                    cleanBuffers(bufferCleanerThreshold);
+                }
+            });
+        } catch (RejectedExecutionException exception) {
+            // The cache is being closed.
+            compactionRequested.set(false);
+        }
+    }
+
+    /**
+     * Finds the buffer with the highest dirty ratio above the threshold.
+     *
+     * @param bufferCleanerThreshold the buffer cleaner threshold
+     * @return the most fragmented buffer, null if no buffer exceeds the
+     *         threshold
+     */
+    protected OffHeapByteBuffer mostFragmentedBuffer(float bufferCleanerThreshold) {
+        OffHeapByteBuffer mostFragmentedBuffer = null;
+        float maxRatio = bufferCleanerThreshold;
+        for (int i = 0; i < bufferStore.getBufferSize(); i++) {
+            OffHeapByteBuffer buffer = bufferStore.getBuffer(i);
+            float ratio = getDirtyRatio(buffer);
+            if (ratio - maxRatio > DELTA) {
+                mostFragmentedBuffer = buffer;
+                maxRatio = ratio;
             }
-            if (ratio - bufferCleanerThreshold > DELTA) {
-                pointersToBeRedistributed.add(pointer);
-                buffersToBeCleaned.add(pointer.getOffHeapByteBuffer().getIndex());
+        }
+        return mostFragmentedBuffer;
+    }
+
+    /**
+     * Compacts the buffer by moving its items to the other buffers and freeing
+     * it. The buffer is sealed first so that writes go to the other buffers,
+     * then the items are moved in slices of {@link #COMPACTION_SLICE}, each
+     * followed by a pause as long, so that compaction takes at most half of
+     * the time of the cleaner thread. The compaction is given up if the other
+     * buffers run out of memory.
+     *
+     * @param buffer the buffer
+     */
+    protected void compact(OffHeapByteBuffer buffer) {
+        try {
+            if (!bufferStore.seal(buffer)) {
+                // The buffer is being evicted.
+                return;
+            }
+        } catch (BufferOverflowException exception) {
+            return;
+        }
+        awaitWriters();
+        Iterator<Entry<K, Pointer>> entries = pointerMap.entrySet().iterator();
+        try {
+            while (entries.hasNext()) {
+                long sliceEnd = System.nanoTime() + COMPACTION_SLICE;
+                do {
+                    Entry<K, Pointer> entry = entries.next();
+                    if (bufferStore.isStoredIn(entry.getValue(), buffer)) {
+                        move(entry.getKey(), buffer);
+                    }
+                } while (entries.hasNext() && System.nanoTime() < sliceEnd);
+                if (entries.hasNext()) {
+                    TimeUnit.NANOSECONDS.sleep(COMPACTION_SLICE);
+                }
             }
+        } catch (BufferOverflowException exception) {
+            buffer.unseal();
+            return;
+        } catch (InterruptedException exception) {
+            buffer.unseal();
+            Thread.currentThread().interrupt();
+            return;
         }
-        bufferStore.redistribute(pointersToBeRedistributed);
-        for (Integer bufferIndex : buffersToBeCleaned) {
-            bufferStore.free(bufferIndex);
+        bufferStore.free(buffer.getIndex());
+        compactions.incrementAndGet();
+    }
+
+    /**
+     * Waits for the writers that hold a lock, so that the items they stored to
+     * a buffer before it was sealed can be found.
+     */
+    private void awaitWriters() {
+        for (int stripe = 0; stripe < readWriteLock.getStripeCount(); stripe++) {
+            readWriteLock.writeLock(stripe);
+            readWriteLock.writeUnlock(stripe);
+        }
+    }
+
+    /**
+     * Evicts the items of the buffer whose items were referenced the least
+     * since the previous eviction and frees the buffer, unless a buffer was
+     * freed meanwhile. The reference bits of all items are cleared by the
+     * way.
+     */
+    protected void evictBuffer() {
+        evictBuffer(0);
+    }
+
+    /**
+     * Evicts a buffer as {@link #evictBuffer()} does unless enough buffers are
+     * available for a payload of the given length, a payload stored in chunks
+     * may need several buffers.
+     *
+     * @param payloadLength the payload length
+     */
+    protected void evictBuffer(int payloadLength) {
+        synchronized (evictionLock) {
+            if (bufferStore.hasAvailableBuffersFor(payloadLength)) {
+                return;
+            }
+            int bufferSize = bufferStore.getBufferSize();
+            int[] items = new int[bufferSize];
+            int[] referencedItems = new int[bufferSize];
+            for (Pointer pointer : pointerMap.values()) {
+                int bufferIndex = pointer.getOffHeapByteBuffer().getIndex();
+                items[bufferIndex]++;
+                if (pointer.isReferenced()) {
+                    referencedItems[bufferIndex]++;
+                    pointer.setReferenced(false);
+                }
+            }
+            OffHeapByteBuffer buffer;
+            while ((buffer = leastReferencedBuffer(items, referencedItems)) != null) {
+                if (bufferStore.seal(buffer)) {
+                    break;
+                }
+                // The buffer is being compacted.
+                items[buffer.getIndex()] = -1;
+            }
+            if (buffer == null) {
+                return;
+            }
+            awaitWriters();
+            for (Entry<K, Pointer> entry : pointerMap.entrySet()) {
+                if (bufferStore.isStoredIn(entry.getValue(), buffer)) {
+                    evict(entry.getKey(), buffer);
+                }
+            }
+            bufferStore.free(buffer.getIndex());
+        }
+    }
+
+    /**
+     * Finds the buffer whose items were referenced the least, relative to the
+     * number of its items, skipping the current and the available buffers.
+     *
+     * @param items the number of items of each buffer, -1 to skip a buffer
+     * @param referencedItems the number of referenced items of each buffer
+     * @return the least referenced buffer, null if there is none
+     */
+    private OffHeapByteBuffer leastReferencedBuffer(int[] items, int[] referencedItems) {
+        OffHeapByteBuffer leastReferencedBuffer = null;
+        double minRatio = Double.MAX_VALUE;
+        for (int i = 0; i < items.length; i++) {
+            OffHeapByteBuffer buffer = bufferStore.getBuffer(i);
+            if (items[i] < 0 || bufferStore.isCurrent(buffer) || bufferStore.isAvailable(buffer)) {
+                continue;
+            }
+            double ratio = items[i] == 0 ? 0 : (double) referencedItems[i] / items[i];
+            if (ratio < minRatio) {
+                leastReferencedBuffer = buffer;
+                minRatio = ratio;
+            }
+        }
+        return leastReferencedBuffer;
+    }
+
+    /**
+     * Evicts the item of the key if it is still in the buffer and calls the
+     * eviction listener.
+     *
+     * @param key the key
+     * @param buffer the buffer
+     */
+    protected void evict(K key, OffHeapByteBuffer buffer) {
+        byte[] payload = null;
+        writeLock(key);
+        try {
+            Pointer pointer = pointerMap.get(key);
+            if (pointer != null && bufferStore.isStoredIn(pointer, buffer)) {
+                synchronized (pointer) {
+                    // The buffer is freed afterwards, the payload is not removed
+                    // unless its chunks lie in other buffers too.
+                    payload = bufferStore.isChunked(pointer) ? bufferStore.remove(pointer) : bufferStore
+                            .retrieve(pointer);
+                    pointerMap.remove(key);
+                }
+            }
+        } finally {
+            writeUnlock(key);
+        }
+        if (payload != null && evictionListener != null) {
+            evictionListener.onEviction(key, serializer.deserialize(payload));
+        }
+    }
+
+    /**
+     * Moves the item of the key out of the buffer if it is still there. The
+     * time the key is locked is recorded as a compaction pause.
+     *
+     * @param key the key
+     * @param buffer the buffer
+     */
+    protected void move(K key, OffHeapByteBuffer buffer) {
+        writeLock(key);
+        long start = System.nanoTime();
+        try {
+            Pointer pointer = pointerMap.get(key);
+            if (pointer != null && bufferStore.isStoredIn(pointer, buffer)) {
+                compactedBytes.addAndGet(bufferStore.move(pointer, buffer));
+            }
+        } finally {
+            writeUnlock(key);
+            long pause = System.nanoTime() - start;
+            compactionPauseTime.addAndGet(pause);
+            long maxPause;
+            while (pause > (maxPause = maxCompactionPauseTime.get())
+                    && !maxCompactionPauseTime.compareAndSet(maxPause, pause)) {
+                // retry
+            }
         }
     }
 
     /**
-     * Gets the dirty ratio.
+     * Gets the ratio of the dirty memory of the buffer of the pointer that can
+     * be reclaimed by redistributing its pointers.
      *
      * @param pointer the pointer
      * @return the dirty ratio
      */
     protected float getDirtyRatio(Pointer pointer) {
-        return (float) ((double) pointer.getOffHeapByteBuffer().dirtyMemory() / (pointer.getOffHeapByteBuffer()
-                .freeMemory() + pointer.getOffHeapByteBuffer().usedMemory() + pointer.getOffHeapByteBuffer()
+        return getDirtyRatio(pointer.getOffHeapByteBuffer());
+    }
+
+    /**
+     * Gets the ratio of the dirty memory of the buffer that can be reclaimed by
+     * redistributing its pointers.
+     *
+     * @param buffer the buffer
+     * @return the dirty ratio
+     */
+    protected float getDirtyRatio(OffHeapByteBuffer buffer) {
+        return (float) ((double) buffer.reclaimableMemory() / (buffer.freeMemory() + buffer.usedMemory() + buffer
                 .dirtyMemory()));
     }
 
+    /**
+     * Gets the number of compactions.
+     *
+     * @return the number of compactions
+     */
+    public long getCompactionCount() {
+        return compactions.get();
+    }
+
+    /**
+     * Gets the number of bytes moved by compactions.
+     *
+     * @return the compacted bytes
+     */
+    public long getCompactedBytes() {
+        return compactedBytes.get();
+    }
+
+    /**
+     * Gets the total time in nanoseconds compactions kept keys locked.
+     *
+     * @return the compaction pause time
+     */
+    public long getCompactionPauseTime() {
+        return compactionPauseTime.get();
+    }
+
+    /**
+     * Gets the longest time in nanoseconds a compaction kept a key locked.
+     *
+     * @return the max compaction pause time
+     */
+    public long getMaxCompactionPauseTime() {
+        return maxCompactionPauseTime.get();
+    }
+
     /**
      * Do eviction.
      *
      * @param evictionPeriod the eviction period
      */
     protected void doEviction(final long evictionPeriod) {
+        long now = System.currentTimeMillis();
         Set<Entry<K, Pointer>> entries = pointerMap.entrySet();
         for (Entry<K, Pointer> entry : entries) {
-            synchronized (entry.getValue()) {
-                if (entry.getValue().getAccessTime() + evictionPeriod < System.currentTimeMillis()) {
+            Pointer pointer = entry.getValue();
+            synchronized (pointer) {
+                if (pointer.isReferenced()) {
+                    // Reads only set the bit, the access time is caught up here.
+                    pointer.setAccessTime(now);
+                    pointer.setReferenced(false);
+                } else if (pointer.getAccessTime() + evictionPeriod < now) {
                     invalidate(entry.getKey());
                 }
             }
         }
     }
 
+    /**
+     * The Class OffHeapMutableEntry writes to the payload of a pointer in
+     * place, or to a copy if the store does not allow it.
+     */
+    private class OffHeapMutableEntry implements MutableEntry {
+
+        /** The pointer, null if the entry is missing or copied. */
+        private Pointer pointer;
+
+        /** The payload, if the entry is copied. */
+        private byte[] payload;
+
+        /** The replaced, whether the copy is to be written back. */
+        private boolean replaced;
+
+        /**
+         * Instantiates a new off heap mutable entry.
+         *
+         * @param pointer the pointer, null if the entry is missing
+         */
+        OffHeapMutableEntry(Pointer pointer) {
+            if (pointer == null) {
+                return;
+            }
+            if (bufferStore.isWritableInPlace(pointer)) {
+                this.pointer = pointer;
+            } else {
+                this.payload = bufferStore.retrieve(pointer);
+            }
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.offheap.MutableEntry#exists()
+         */
+        public boolean exists() {
+            return pointer != null || payload != null;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.offheap.MutableEntry#length()
+         */
+        public int length() {
+            if (pointer != null) {
+                return pointer.getOffHeapByteBuffer().payloadLength(pointer.getPosition());
+            }
+            return payload == null ? 0 : payload.length;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.offheap.MutableEntry#getByte(int)
+         */
+        public byte getByte(int offset) {
+            if (pointer != null) {
+                return pointer.getOffHeapByteBuffer().retrieveByte(pointer.getPosition(), offset);
+            }
+            return copy(offset, 1).get(offset);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.offheap.MutableEntry#putByte(int, byte)
+         */
+        public void putByte(int offset, byte value) {
+            if (pointer != null) {
+                pointer.getOffHeapByteBuffer().storeByte(pointer.getPosition(), offset, value);
+            } else {
+                copy(offset, 1).put(offset, value);
+                replaced = true;
+            }
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.offheap.MutableEntry#getInt(int)
+         */
+        public int getInt(int offset) {
+            if (pointer != null) {
+                return pointer.getOffHeapByteBuffer().retrieveInt(pointer.getPosition(), offset);
+            }
+            return copy(offset, 4).getInt(offset);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.offheap.MutableEntry#putInt(int, int)
+         */
+        public void putInt(int offset, int value) {
+            if (pointer != null) {
+                pointer.getOffHeapByteBuffer().storeInt(pointer.getPosition(), offset, value);
+            } else {
+                copy(offset, 4).putInt(offset, value);
+                replaced = true;
+            }
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.offheap.MutableEntry#getLong(int)
+         */
+        public long getLong(int offset) {
+            if (pointer != null) {
+                return pointer.getOffHeapByteBuffer().retrieveLong(pointer.getPosition(), offset);
+            }
+            return copy(offset, 8).getLong(offset);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.offheap.MutableEntry#putLong(int, long)
+         */
+        public void putLong(int offset, long value) {
+            if (pointer != null) {
+                pointer.getOffHeapByteBuffer().storeLong(pointer.getPosition(), offset, value);
+            } else {
+                copy(offset, 8).putLong(offset, value);
+                replaced = true;
+            }
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.offheap.MutableEntry#get(int, byte[])
+         */
+        public void get(int offset, byte[] destination) {
+            if (pointer != null) {
+                pointer.getOffHeapByteBuffer().retrieveBytes(pointer.getPosition(), offset, destination);
+            } else {
+                copy(offset, destination.length);
+                System.arraycopy(payload, offset, destination, 0, destination.length);
+            }
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.offheap.MutableEntry#put(int, byte[])
+         */
+        public void put(int offset, byte[] source) {
+            if (pointer != null) {
+                pointer.getOffHeapByteBuffer().storeBytes(pointer.getPosition(), offset, source);
+            } else {
+                copy(offset, source.length);
+                System.arraycopy(source, 0, payload, offset, source.length);
+                replaced = true;
+            }
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.offheap.MutableEntry#getPayload()
+         */
+        public byte[] getPayload() {
+            if (pointer != null) {
+                return bufferStore.retrieve(pointer);
+            }
+            return payload == null ? new byte[0] : payload.clone();
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see com.KyleDing.imcache.offheap.MutableEntry#setPayload(byte[])
+         */
+        public void setPayload(byte[] payload) {
+            this.pointer = null;
+            this.payload = payload.clone();
+            this.replaced = true;
+        }
+
+        /**
+         * Wraps the copy, checking that the field of the given width lies
+         * within it.
+         *
+         * @param offset the offset
+         * @param width the width of the field
+         * @return the byte buffer
+         */
+        private java.nio.ByteBuffer copy(int offset, int width) {
+            if (payload == null || offset < 0 || offset > payload.length - width) {
+                throw new OffHeapByteBufferException("Offset is out of the payload!");
+            }
+            return java.nio.ByteBuffer.wrap(payload);
+        }
+    }
 }
@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import com.KyleDing.imcache.cache.CacheLoader;
+import com.KyleDing.imcache.cache.EvictionListener;
+import com.KyleDing.imcache.cache.search.IndexHandler;
+import com.KyleDing.imcache.offheap.bytebuffer.MappedOffHeapByteBuffer;
+import com.KyleDing.imcache.offheap.bytebuffer.MappedOffHeapByteBufferStore;
+import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferException;
+import com.KyleDing.imcache.offheap.bytebuffer.Pointer;
+import com.KyleDing.imcache.serialization.Serializer;
+
+/**
+ * The Class PersistentOffHeapCache is an offheap cache over a memory mapped
+ * store that survives restarts. On close it writes the changes of the buffers
+ * to their files and persists an index segment, the allocation state of the
+ * buffers and for each key the address and the checksum of its payload. A new
+ * cache over the same directory reads the index segment back, so it serves the
+ * items without warming up.
+ * <p>
+ * Recovery keeps only the payloads that are whole: an entry is discarded if
+ * its payload was removed or its checksum does not match, and reading stops at
+ * the first torn record of the index segment. The index segment is deleted once
+ * read since it describes the buffers only until they are written again, hence
+ * a cache that is not closed starts empty. Values stored in chunks are not
+ * persisted.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class PersistentOffHeapCache<K, V> extends OffHeapCache<K, V> implements Closeable {
+
+    /** The Constant MAGIC. */
+    static final int MAGIC = 0x494D4358;
+
+    /** The Constant VERSION. */
+    static final int VERSION = 1;
+
+    /** The Constant END_OF_RECORDS. */
+    static final int END_OF_RECORDS = -1;
+
+    /** The key serializer. */
+    private final Serializer<K> keySerializer;
+
+    /** The buffer store. */
+    private final MappedOffHeapByteBufferStore bufferStore;
+
+    /**
+     * Instantiates a new persistent offheap cache and recovers the items of the
+     * store.
+     *
+     * @param cacheLoader the cache loader
+     * @param evictionListener the eviction listener
+     * @param indexHandler the query executer
+     * @param byteBufferStore the byte buffer store
+     * @param serializer the serializer
+     * @param keySerializer the key serializer
+     * @param bufferCleanerPeriod the buffer cleaner period
+     * @param bufferCleanerThreshold the buffer cleaner threshold
+     * @param concurrencyLevel the concurrency level
+     * @param evictionPeriod the eviction period
+     * @param pointerMap the pointer map
+     */
+    public PersistentOffHeapCache(CacheLoader<K, V> cacheLoader, EvictionListener<K, V> evictionListener,
+            IndexHandler<K, V> indexHandler, MappedOffHeapByteBufferStore byteBufferStore, Serializer<V> serializer,
+            Serializer<K> keySerializer, long bufferCleanerPeriod, final float bufferCleanerThreshold,
+            int concurrencyLevel, final long evictionPeriod, ConcurrentMap<K, Pointer> pointerMap) {
+        super(cacheLoader, evictionListener, indexHandler, byteBufferStore, serializer, bufferCleanerPeriod,
+                bufferCleanerThreshold, concurrencyLevel, evictionPeriod, pointerMap);
+        this.keySerializer = keySerializer;
+        this.bufferStore = byteBufferStore;
+        recover();
+    }
+
+    /**
+     * Recovers the items from the index segment of the store.
+     *
+     * @return the number of recovered items
+     */
+    protected int recover() {
+        int bufferSize = bufferStore.getBufferSize();
+        int[] offsets = new int[bufferSize];
+        int[] usedMemory = new int[bufferSize];
+        int recovered = 0;
+        File indexFile = bufferStore.getIndexFile();
+        if (indexFile.exists()) {
+            try {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+                try {
+                    recovered = readIndex(in, offsets, usedMemory);
+                } finally {
+                    in.close();
+                }
+            } catch (IOException e) {
+                // The entries recovered before the failure are kept.
+            }
+            if (!indexFile.delete()) {
+                throw new OffHeapByteBufferException("Could not delete " + indexFile + ".");
+            }
+        }
+        for (int i = 0; i < bufferSize; i++) {
+            bufferStore.getBuffer(i).recover(offsets[i], usedMemory[i]);
+        }
+        return recovered;
+    }
+
+    /**
+     * Reads the index segment, putting the valid entries to the pointer map.
+     *
+     * @param in the input
+     * @param offsets the offsets of the buffers to be read
+     * @param usedMemory the used memory of the buffers to be calculated
+     * @return the number of recovered items
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected int readIndex(DataInputStream in, int[] offsets, int[] usedMemory) throws IOException {
+        DataInputStream header = readRecord(in);
+        if (header == null || header.readInt() != MAGIC || header.readInt() != VERSION
+                || header.readInt() != offsets.length) {
+            return 0;
+        }
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = header.readInt();
+        }
+        int recovered = 0;
+        DataInputStream record;
+        while ((record = readRecord(in)) != null) {
+            int bufferIndex = record.readInt();
+            int position = record.readInt();
+            long accessTime = record.readLong();
+            int checksum = record.readInt();
+            byte[] key = new byte[record.available()];
+            record.readFully(key);
+            if (bufferIndex < 0 || bufferIndex >= offsets.length) {
+                continue;
+            }
+            MappedOffHeapByteBuffer buffer = bufferStore.getBuffer(bufferIndex);
+            int length = buffer.validate(position, checksum, offsets[bufferIndex]);
+            if (length < 0) {
+                continue;
+            }
+            pointerMap.put(keySerializer.deserialize(key), new Pointer(position, accessTime, buffer));
+            usedMemory[bufferIndex] += length;
+            recovered++;
+        }
+        return recovered;
+    }
+
+    /**
+     * Reads a record, checking its checksum.
+     *
+     * @param in the input
+     * @return the record, null if there are no more records or the record is
+     *         torn
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static DataInputStream readRecord(DataInputStream in) throws IOException {
+        try {
+            int length = in.readInt();
+            if (length == END_OF_RECORDS || length < 0) {
+                return null;
+            }
+            byte[] record = new byte[length];
+            in.readFully(record);
+            if (in.readInt() != checksum(record)) {
+                return null;
+            }
+            return new DataInputStream(new ByteArrayInputStream(record));
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Stops the background services, writes the buffers and the index segment
+     * to the directory of the store and closes the store. The cache must not
+     * be used by other threads meanwhile nor afterwards.
+     */
+    public void close() {
+        cleanerService.shutdownNow();
+        evictionService.shutdownNow();
+        try {
+            cleanerService.awaitTermination(1, TimeUnit.MINUTES);
+            evictionService.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        bufferStore.force();
+        File indexFile = bufferStore.getIndexFile();
+        File temporaryFile = new File(indexFile.getPath() + ".tmp");
+        try {
+            FileOutputStream fileOut = new FileOutputStream(temporaryFile);
+            try {
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+                writeIndex(out);
+                out.flush();
+                fileOut.getFD().sync();
+            } finally {
+                fileOut.close();
+            }
+        } catch (IOException e) {
+            throw new OffHeapByteBufferException("Could not write " + temporaryFile + ".", e);
+        }
+        // The index segment appears whole or not at all.
+        if ((indexFile.exists() && !indexFile.delete()) || !temporaryFile.renameTo(indexFile)) {
+            throw new OffHeapByteBufferException("Could not write " + indexFile + ".");
+        }
+        bufferStore.close();
+    }
+
+    /**
+     * Writes the index segment.
+     *
+     * @param out the output
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    protected void writeIndex(DataOutputStream out) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream record = new DataOutputStream(bytes);
+        record.writeInt(MAGIC);
+        record.writeInt(VERSION);
+        record.writeInt(bufferStore.getBufferSize());
+        for (int i = 0; i < bufferStore.getBufferSize(); i++) {
+            record.writeInt(bufferStore.getBuffer(i).getOffset());
+        }
+        writeRecord(out, bytes);
+        for (Entry<K, Pointer> entry : pointerMap.entrySet()) {
+            Pointer pointer = entry.getValue();
+            if (bufferStore.isChunked(pointer)) {
+                continue;
+            }
+            MappedOffHeapByteBuffer buffer = (MappedOffHeapByteBuffer) pointer.getOffHeapByteBuffer();
+            bytes.reset();
+            record.writeInt(buffer.getIndex());
+            record.writeInt(pointer.getPosition());
+            record.writeLong(pointer.getAccessTime());
+            record.writeInt(buffer.checksum(pointer));
+            record.write(keySerializer.serialize(entry.getKey()));
+            writeRecord(out, bytes);
+        }
+        out.writeInt(END_OF_RECORDS);
+    }
+
+    /**
+     * Writes a record followed by its checksum.
+     *
+     * @param out the output
+     * @param bytes the bytes of the record
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static void writeRecord(DataOutputStream out, ByteArrayOutputStream bytes) throws IOException {
+        byte[] record = bytes.toByteArray();
+        out.writeInt(record.length);
+        out.write(record);
+        out.writeInt(checksum(record));
+    }
+
+    /**
+     * Calculates the checksum of the bytes.
+     *
+     * @param bytes the bytes
+     * @return the checksum
+     */
+    private static int checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+
+}
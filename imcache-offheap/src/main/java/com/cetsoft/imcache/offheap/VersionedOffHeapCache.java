@@ -7,7 +7,11 @@
  */
 package com.KyleDing.imcache.offheap;
 
+import java.nio.ByteBuffer;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import com.KyleDing.imcache.cache.CacheLoader;
 import com.KyleDing.imcache.cache.EvictionListener;
@@ -17,10 +21,11 @@ import com.KyleDing.imcache.cache.VersionedItem;
 import com.KyleDing.imcache.cache.search.Query;
 import com.KyleDing.imcache.cache.search.IndexHandler;
 import com.KyleDing.imcache.cache.search.index.IndexType;
-import com.KyleDing.imcache.cache.util.SerializationUtils;
 import com.KyleDing.imcache.concurrent.lock.StripedReadWriteLock;
 import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore;
 import com.KyleDing.imcache.serialization.Serializer;
+import com.KyleDing.imcache.serialization.SerializerAdapter;
+import com.KyleDing.imcache.serialization.StreamingSerializer;
 
 /**
  * The Class VersionedOffHeapCache is a type of offheap cache where cache items
@@ -40,6 +45,9 @@ public class VersionedOffHeapCache<K, V> implements SearchableCache<K, Versioned
     /** The read write lock. */
     private StripedReadWriteLock readWriteLock;
 
+    /** Whether the version is in the header of the payloads. */
+    private final boolean versionInHeader;
+
     /**
      * Instantiates a new versioned off heap cache.
      *
@@ -61,6 +69,7 @@ public class VersionedOffHeapCache<K, V> implements SearchableCache<K, Versioned
                 byteBufferStore, serializer, bufferCleanerPeriod, bufferCleanerThreshold, concurrencyLevel,
                 evictionPeriod);
         this.readWriteLock = new StripedReadWriteLock(concurrencyLevel);
+        this.versionInHeader = serializer instanceof CacheItemSerializer;
     }
 
     /**
@@ -92,24 +101,43 @@ public class VersionedOffHeapCache<K, V> implements SearchableCache<K, Versioned
      */
     public void put(K key, VersionedItem<V> value) {
         int version = value.getVersion();
-        VersionedItem<V> exValue = get(key);
-        if (exValue != null && version != exValue.getVersion()) {
-            throw new StaleItemException(version, exValue.getVersion());
-        }
-        version++;
         writeLock(key);
         try {
-            exValue = get(key);
-            if (value.getVersion() == version) {
-                throw new StaleItemException(version, exValue == null ? version - 1 : exValue.getVersion());
+            Integer exVersion = getVersion(key);
+            if (value.getVersion() == version + 1) {
+                // Another put of the same item got the lock first.
+                throw new StaleItemException(version + 1, exVersion == null ? version : exVersion);
+            }
+            if (exVersion != null && version != exVersion) {
+                throw new StaleItemException(version, exVersion);
             }
-            value.setVersion(version);
+            value.setVersion(version + 1);
             offHeapCache.put(key, value);
         } finally {
             writeUnlock(key);
         }
     }
 
+    /**
+     * Gets the version of the item of the key. The version is read in place
+     * from the header of the payload when the items are serialized by the
+     * {@link CacheItemSerializer}, the item is retrieved only if it is not
+     * cached and may be loaded.
+     *
+     * @param key the key
+     * @return the version, null if there is no item
+     */
+    protected Integer getVersion(K key) {
+        if (versionInHeader) {
+            Integer version = offHeapCache.retrieveInt(key, 0);
+            if (version != null) {
+                return version;
+            }
+        }
+        VersionedItem<V> exValue = get(key);
+        return exValue == null ? null : exValue.getVersion();
+    }
+
     /**
      * Write Lock for key is locked.
      *
@@ -146,6 +174,54 @@ public class VersionedOffHeapCache<K, V> implements SearchableCache<K, Versioned
         return offHeapCache.invalidate(key);
     }
 
+    /**
+     * Puts all of the items one by one since each of them has its own version
+     * check.
+     *
+     * @param entries the entries
+     */
+    public void putAll(Map<K, VersionedItem<V>> entries) {
+        for (Entry<K, VersionedItem<V>> entry : entries.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#getAll(java.util.Collection)
+     */
+    public Map<K, VersionedItem<V>> getAll(Collection<K> keys) {
+        return offHeapCache.getAll(keys);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.Cache#invalidateAll(java.util.Collection)
+     */
+    public void invalidateAll(Collection<K> keys) {
+        offHeapCache.invalidateAll(keys);
+    }
+
+    /**
+     * Sets how long a thread waits for another thread loading the same key.
+     *
+     * @param loadTimeout the load timeout in milliseconds
+     */
+    public void setLoadTimeout(long loadTimeout) {
+        offHeapCache.setLoadTimeout(loadTimeout);
+    }
+
+    /**
+     * Sets whether a failed load is propagated to the threads waiting for it.
+     *
+     * @param propagateLoadException the propagate load exception
+     */
+    public void setPropagateLoadException(boolean propagateLoadException) {
+        offHeapCache.setPropagateLoadException(propagateLoadException);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -266,16 +342,25 @@ public class VersionedOffHeapCache<K, V> implements SearchableCache<K, Versioned
     }
 
     /**
-     * The Class CacheItemSerializer.
+     * The Class CacheItemSerializer writes the version in the first four bytes
+     * of the payload, where puts read it in place. The value is written right
+     * after the version into the storage of the cache, a serializer of the
+     * values which is not a streaming serializer is adapted.
      *
      * @param <K> the key type
      * @param <V> the value type
      */
-    protected static class CacheItemSerializer<V> implements Serializer<VersionedItem<V>> {
+    protected static class CacheItemSerializer<V> implements StreamingSerializer<VersionedItem<V>> {
+
+        /** The Constant VERSION_SIZE, the version leads the payload. */
+        static final int VERSION_SIZE = 4;
 
         /** The serializer. */
         Serializer<V> serializer;
 
+        /** The streaming serializer. */
+        StreamingSerializer<V> streamingSerializer;
+
         /**
          * Instantiates a new cache item serializer.
          *
@@ -283,6 +368,30 @@ public class VersionedOffHeapCache<K, V> implements SearchableCache<K, Versioned
          */
         public CacheItemSerializer(Serializer<V> serializer) {
             this.serializer = serializer;
+            this.streamingSerializer = SerializerAdapter.adapt(serializer);
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * com.KyleDing.imcache.serialization.StreamingSerializer#size(java.lang
+         * .Object)
+         */
+        public int size(VersionedItem<V> value) {
+            return VERSION_SIZE + streamingSerializer.size(value.getValue());
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * com.KyleDing.imcache.serialization.StreamingSerializer#serialize(java
+         * .lang.Object, java.nio.ByteBuffer)
+         */
+        public void serialize(VersionedItem<V> value, ByteBuffer buffer) {
+            buffer.putInt(value.getVersion());
+            streamingSerializer.serialize(value.getValue(), buffer);
         }
 
         /*
@@ -293,10 +402,14 @@ public class VersionedOffHeapCache<K, V> implements SearchableCache<K, Versioned
          * Object)
          */
         public byte[] serialize(VersionedItem<V> value) {
-            byte[] payload = serializer.serialize(value.getValue());
-            byte[] newPayload = new byte[payload.length + 4];
-            System.arraycopy(payload, 0, newPayload, 0, payload.length);
-            System.arraycopy(SerializationUtils.serializeInt(value.getVersion()), 0, newPayload, payload.length, 4);
+            byte[] payload = streamingSerializer.serialize(value.getValue());
+            byte[] newPayload = new byte[VERSION_SIZE + payload.length];
+            int version = value.getVersion();
+            newPayload[0] = (byte) (version >>> 24);
+            newPayload[1] = (byte) (version >>> 16);
+            newPayload[2] = (byte) (version >>> 8);
+            newPayload[3] = (byte) version;
+            System.arraycopy(payload, 0, newPayload, VERSION_SIZE, payload.length);
             return newPayload;
         }
 
@@ -306,12 +419,11 @@ public class VersionedOffHeapCache<K, V> implements SearchableCache<K, Versioned
          * @see com.KyleDing.imcache.serialization.Serializer#deserialize(byte[])
          */
         public VersionedItem<V> deserialize(byte[] payload) {
-            byte[] newPayload = new byte[payload.length - 4];
-            byte[] version = new byte[4];
-            System.arraycopy(payload, 0, newPayload, 0, payload.length - 4);
-            System.arraycopy(payload, payload.length - 4, version, 0, 4);
+            byte[] newPayload = new byte[payload.length - VERSION_SIZE];
+            System.arraycopy(payload, VERSION_SIZE, newPayload, 0, newPayload.length);
             SimpleItem<V> cacheItem = new SimpleItem<V>(serializer.deserialize(newPayload));
-            cacheItem.setVersion(SerializationUtils.deserializeInt(version));
+            cacheItem.setVersion(((payload[0] & 0xFF) << 24) | ((payload[1] & 0xFF) << 16)
+                    | ((payload[2] & 0xFF) << 8) | (payload[3] & 0xFF));
             return cacheItem;
         }
 
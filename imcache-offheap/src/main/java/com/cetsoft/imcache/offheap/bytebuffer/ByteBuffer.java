@@ -8,7 +8,10 @@
 package com.KyleDing.imcache.offheap.bytebuffer;
 
 /**
- * The Interface ByteBuffer.
+ * The Interface ByteBuffer is a fixed block of native memory accessed at
+ * absolute positions. Multi byte values are in the native byte order.
+ *
+ * @see ByteBufferFactory
  */
 public interface ByteBuffer {
 
@@ -32,6 +35,77 @@ public interface ByteBuffer {
      */
     void put(int position, byte[] source, int offset, int length);
 
+    /**
+     * Gets the byte at the position.
+     *
+     * @param position the position
+     * @return the byte
+     */
+    byte getByte(int position);
+
+    /**
+     * Gets the int at the position.
+     *
+     * @param position the position
+     * @return the int
+     */
+    int getInt(int position);
+
+    /**
+     * Puts the int to the position.
+     *
+     * @param position the position
+     * @param value the value
+     */
+    void putInt(int position, int value);
+
+    /**
+     * Gets the long at the position.
+     *
+     * @param position the position
+     * @return the long
+     */
+    long getLong(int position);
+
+    /**
+     * Puts the long to the position.
+     *
+     * @param position the position
+     * @param value the value
+     */
+    void putLong(int position, long value);
+
+    /**
+     * Compares the bytes at the position with the given bytes in place,
+     * without copying them to the heap.
+     *
+     * @param position the position
+     * @param bytes the bytes
+     * @return true, if the bytes are equal
+     */
+    boolean contentEquals(int position, byte[] bytes);
+
+    /**
+     * Creates a read only view of the buffer in big endian order, it starts at
+     * position zero of the buffer and covers all of it.
+     *
+     * @return the read only byte buffer
+     */
+    java.nio.ByteBuffer asReadOnlyBuffer();
+
+    /**
+     * Creates a writable view of the buffer in big endian order, it starts at
+     * position zero of the buffer and covers all of it.
+     *
+     * @return the byte buffer
+     */
+    java.nio.ByteBuffer duplicate();
+
+    /**
+     * Writes the changes to the file if the buffer is mapped from a file.
+     */
+    void force();
+
     /**
      * Frees the buffer.
      */
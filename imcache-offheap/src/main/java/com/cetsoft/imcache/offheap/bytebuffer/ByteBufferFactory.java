@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.bytebuffer;
+
+/**
+ * The Class ByteBufferFactory creates the byte buffers backing the offheap
+ * buffers and indexes. {@link #UNSAFE} accesses memory through sun.misc.Unsafe
+ * while {@link #NIO} accesses memory only through the public API of java.nio,
+ * which is what the JDKs that restrict Unsafe leave, there its memory may be
+ * freed only by the garbage collector, see {@link NioByteBuffer}. The default factory is chosen once, by the
+ * system property {@value #BACKEND_PROPERTY} if it is set to "unsafe" or "nio",
+ * otherwise Unsafe is used if it is available.
+ */
+public abstract class ByteBufferFactory {
+
+    /** The Constant BACKEND_PROPERTY. */
+    public static final String BACKEND_PROPERTY = "imcache.byteBuffer";
+
+    /** The Constant UNSAFE. */
+    public static final ByteBufferFactory UNSAFE = new ByteBufferFactory() {
+        public ByteBuffer allocate(int capacity) {
+            return new DirectByteBuffer(capacity);
+        }
+
+        public ByteBuffer wrap(java.nio.ByteBuffer byteBuffer) {
+            return new DirectByteBuffer(byteBuffer);
+        }
+
+        public void loadFence() {
+            DirectByteBuffer.loadFence();
+        }
+
+        public String toString() {
+            return "unsafe";
+        }
+    };
+
+    /** The Constant NIO. */
+    public static final ByteBufferFactory NIO = new ByteBufferFactory() {
+        public ByteBuffer allocate(int capacity) {
+            return new NioByteBuffer(capacity);
+        }
+
+        public ByteBuffer wrap(java.nio.ByteBuffer byteBuffer) {
+            return new NioByteBuffer(byteBuffer);
+        }
+
+        public String toString() {
+            return "nio";
+        }
+    };
+
+    /** The default factory. */
+    private static final ByteBufferFactory DEFAULT = select(System.getProperty(BACKEND_PROPERTY));
+
+    /**
+     * Allocates a byte buffer of the capacity.
+     *
+     * @param capacity the capacity
+     * @return the byte buffer
+     */
+    public abstract ByteBuffer allocate(int capacity);
+
+    /**
+     * Wraps the direct buffer, such as a buffer mapped from a file.
+     *
+     * @param byteBuffer the direct byte buffer
+     * @return the byte buffer
+     */
+    public abstract ByteBuffer wrap(java.nio.ByteBuffer byteBuffer);
+
+    /**
+     * Keeps the reads of the byte buffers before the fence from being
+     * reordered after the reads following it. The public API of java.nio has
+     * no fence, so the nio backend relies on the volatile reads around it.
+     */
+    public void loadFence() {
+    }
+
+    /**
+     * Gets the default factory.
+     *
+     * @return the default factory
+     */
+    public static ByteBufferFactory getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Selects the factory of the backend.
+     *
+     * @param backend the name of the backend, null to detect it
+     * @return the factory
+     */
+    static ByteBufferFactory select(String backend) {
+        if ("nio".equalsIgnoreCase(backend)) {
+            return NIO;
+        }
+        if ("unsafe".equalsIgnoreCase(backend)) {
+            return UNSAFE;
+        }
+        try {
+            UNSAFE.allocate(1).free();
+            return UNSAFE;
+        } catch (Throwable e) {
+            // Unsafe is missing or its use is denied.
+            return NIO;
+        }
+    }
+}
@@ -0,0 +1,529 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.bytebuffer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.KyleDing.imcache.serialization.StreamingSerializer;
+
+/**
+ * The Class DeduplicatingOffHeapByteBufferStore stores identical payloads
+ * once. Each payload is hashed and looked up in a content table, a payload
+ * that is already stored gets a pointer to the stored copy and the copy
+ * counts its references. Removing or updating a payload drops a reference
+ * and the copy is removed with its last reference.
+ * <p>
+ * Compaction moves a shared copy with the first pointer that is moved and
+ * points the others to the new location as they are moved, the old location
+ * is removed with its last pointer. A freed buffer takes the references of
+ * the copies in it along. Payloads shorter than the minimum length and
+ * payloads stored in chunks are not deduplicated, since keeping them in the
+ * table costs more heap than it saves.
+ */
+public class DeduplicatingOffHeapByteBufferStore extends OffHeapByteBufferStore {
+
+    /** The Constant DEFAULT_MIN_PAYLOAD_LENGTH. */
+    public static final int DEFAULT_MIN_PAYLOAD_LENGTH = 64;
+
+    /** The Constant STRIPE_COUNT. */
+    private static final int STRIPE_COUNT = 16;
+
+    /** The min payload length. */
+    private final int minPayloadLength;
+
+    /** The contents by their hash, in stripes that are locked by themselves. */
+    private final Map<Integer, List<Content>>[] stripes;
+
+    /** The locations of the contents by the address of the location. */
+    private final ConcurrentHashMap<Long, Location> locations = new ConcurrentHashMap<Long, Location>();
+
+    /** The memory saved by sharing payloads. */
+    private final AtomicLong sharedMemory = new AtomicLong();
+
+    /**
+     * Instantiates a new deduplicating off heap byte buffer store.
+     *
+     * @param capacity the capacity
+     * @param bufferSize the buffer size
+     */
+    public DeduplicatingOffHeapByteBufferStore(int capacity, int bufferSize) {
+        this(capacity, bufferSize, OffHeapByteBuffer.DEFAULT_CONCURRENCY_LEVEL, DEFAULT_MIN_PAYLOAD_LENGTH);
+    }
+
+    /**
+     * Instantiates a new deduplicating off heap byte buffer store.
+     *
+     * @param capacity the capacity
+     * @param bufferSize the buffer size
+     * @param concurrencyLevel the concurrency level
+     * @param minPayloadLength the length from which payloads are deduplicated
+     */
+    @SuppressWarnings("unchecked")
+    public DeduplicatingOffHeapByteBufferStore(int capacity, int bufferSize, int concurrencyLevel,
+            int minPayloadLength) {
+        super(capacity, bufferSize, concurrencyLevel);
+        if (minPayloadLength < 0) {
+            throw new IllegalArgumentException("Min payload length must not be negative!");
+        }
+        this.minPayloadLength = minPayloadLength;
+        stripes = new Map[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            stripes[i] = new HashMap<Integer, List<Content>>();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#store(byte
+     * [])
+     */
+    public Pointer store(byte[] payload) {
+        if (payload.length < minPayloadLength || payload.length > maxPayloadLength()) {
+            return super.store(payload);
+        }
+        int hash = Arrays.hashCode(payload);
+        Map<Integer, List<Content>> stripe = stripe(hash);
+        synchronized (stripe) {
+            List<Content> contents = stripe.get(hash);
+            if (contents != null) {
+                for (Content content : contents) {
+                    Location location = content.current;
+                    // A sealed buffer is being emptied, its copies are not shared any more.
+                    if (content.length == payload.length && !location.buffer.isSealed()
+                            && location.buffer.contentEquals(location.position, payload)) {
+                        content.references++;
+                        location.references++;
+                        sharedMemory.addAndGet(payload.length + OffHeapByteBuffer.POINTER_SIZE);
+                        return new Pointer(location.position, location.buffer);
+                    }
+                }
+            }
+            Pointer pointer = allocate(payload);
+            Content content = new Content(hash, payload.length);
+            content.references = 1;
+            content.current = new Location(content, pointer.getOffHeapByteBuffer(), pointer.getPosition());
+            content.current.references = 1;
+            addContent(content);
+            locations.put(address(pointer), content.current);
+            return pointer;
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#remove(com
+     * .KyleDing.imcache.offheap.bytebuffer.Pointer)
+     */
+    public byte[] remove(Pointer pointer) {
+        while (true) {
+            Location location = locations.get(address(pointer));
+            if (location == null) {
+                return super.remove(pointer);
+            }
+            Content content = location.content;
+            synchronized (stripe(content.hash)) {
+                if (locations.get(address(pointer)) != location) {
+                    // The buffer was freed meanwhile.
+                    continue;
+                }
+                byte[] payload = location.buffer.retrieve(new Pointer(location.position, location.buffer));
+                if (content.references > 1) {
+                    sharedMemory.addAndGet(-(payload.length + OffHeapByteBuffer.POINTER_SIZE));
+                }
+                release(location);
+                return payload;
+            }
+        }
+    }
+
+    /**
+     * Drops a reference to the location, removing the location once it has no
+     * references unless it holds the copy other locations are moved to. The
+     * lock of the stripe of the content must be held.
+     *
+     * @param location the location
+     */
+    private void release(Location location) {
+        Content content = location.content;
+        location.references--;
+        content.references--;
+        if (location.references > 0) {
+            return;
+        }
+        if (content.current == location && content.references > 0) {
+            return;
+        }
+        removeLocation(location);
+        if (content.references == 0) {
+            if (content.current != null && content.current != location) {
+                removeLocation(content.current);
+            }
+            removeContent(content);
+        }
+    }
+
+    /**
+     * Removes the location and its copy.
+     *
+     * @param location the location
+     */
+    private void removeLocation(Location location) {
+        if (locations.remove(address(location.buffer, location.position), location)) {
+            location.buffer.remove(new Pointer(location.position, location.buffer));
+        }
+    }
+
+    /**
+     * Adds the content to the table so that it is shared.
+     *
+     * @param content the content
+     */
+    private void addContent(Content content) {
+        Map<Integer, List<Content>> stripe = stripe(content.hash);
+        List<Content> contents = stripe.get(content.hash);
+        if (contents == null) {
+            contents = new ArrayList<Content>(1);
+            stripe.put(content.hash, contents);
+        }
+        contents.add(content);
+    }
+
+    /**
+     * Removes the content from the table so that it is not shared any more.
+     *
+     * @param content the content
+     */
+    private void removeContent(Content content) {
+        Map<Integer, List<Content>> stripe = stripe(content.hash);
+        List<Content> contents = stripe.get(content.hash);
+        if (contents != null && contents.remove(content) && contents.isEmpty()) {
+            stripe.remove(content.hash);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#update(com
+     * .KyleDing.imcache.offheap.bytebuffer.Pointer, byte[])
+     */
+    public Pointer update(Pointer pointer, byte[] payload) {
+        // A shared copy cannot be updated in place.
+        remove(pointer);
+        return pointer.copy(store(payload));
+    }
+
+    /**
+     * Stores the serialized value, the payload is needed as a whole to find
+     * its copies.
+     *
+     * @param <V> the value type
+     * @param value the value
+     * @param serializer the serializer
+     * @return the pointer
+     */
+    public <V> Pointer store(V value, StreamingSerializer<V> serializer) {
+        return store(serializer.serialize(value));
+    }
+
+    /**
+     * Updates the payload the pointer points to with the serialized value.
+     *
+     * @param <V> the value type
+     * @param pointer the pointer
+     * @param value the value
+     * @param serializer the serializer
+     * @return the pointer
+     */
+    public <V> Pointer update(Pointer pointer, V value, StreamingSerializer<V> serializer) {
+        return update(pointer, serializer.serialize(value));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#move(com
+     * .KyleDing.imcache.offheap.bytebuffer.Pointer,
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer)
+     */
+    public int move(Pointer pointer, OffHeapByteBuffer buffer) {
+        synchronized (pointer) {
+            while (true) {
+                Location location = locations.get(address(pointer));
+                if (location == null) {
+                    return super.move(pointer, buffer);
+                }
+                Content content = location.content;
+                synchronized (stripe(content.hash)) {
+                    if (locations.get(address(pointer)) != location) {
+                        continue;
+                    }
+                    return move(pointer, location, buffer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Points the pointer to the location the content of the given location is
+     * moved to, moving the copy out of the buffer first if no other pointer
+     * did so. The lock of the stripe of the content must be held.
+     *
+     * @param pointer the pointer
+     * @param location the location
+     * @param buffer the buffer
+     * @return the length of the moved copy, 0 if it was moved already
+     */
+    private int move(Pointer pointer, Location location, OffHeapByteBuffer buffer) {
+        Content content = location.content;
+        int movedBytes = 0;
+        if (content.current == null || content.current == location) {
+            byte[] payload = location.buffer.retrieve(new Pointer(location.position, location.buffer));
+            while (currentBuffer() == buffer) {
+                nextBuffer();
+            }
+            Pointer newPointer = allocate(payload);
+            if (content.current == null) {
+                // The copy it was moved to was freed, it is shared again.
+                addContent(content);
+            }
+            content.current = new Location(content, newPointer.getOffHeapByteBuffer(), newPointer.getPosition());
+            locations.put(address(newPointer), content.current);
+            movedBytes = payload.length;
+        }
+        Location current = content.current;
+        current.references++;
+        content.references++;
+        release(location);
+        Pointer newPointer = new Pointer(current.position, pointer.getAccessTime(), current.buffer);
+        newPointer.setReferenced(pointer.isReferenced());
+        pointer.copy(newPointer);
+        return movedBytes;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#redistribute
+     * (java.util.List)
+     */
+    public void redistribute(List<Pointer> pointersToBeRedistributed) {
+        for (Pointer pointer : pointersToBeRedistributed) {
+            move(pointer);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#free()
+     */
+    public void free() {
+        for (Map<Integer, List<Content>> stripe : stripes) {
+            synchronized (stripe) {
+                stripe.clear();
+            }
+        }
+        locations.clear();
+        sharedMemory.set(0);
+        super.free();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#free(int)
+     */
+    public void free(int bufferIndex) {
+        OffHeapByteBuffer buffer = getBuffer(bufferIndex);
+        Iterator<Entry<Long, Location>> entries = locations.entrySet().iterator();
+        while (entries.hasNext()) {
+            Location location = entries.next().getValue();
+            if (location.buffer != buffer) {
+                continue;
+            }
+            Content content = location.content;
+            synchronized (stripe(content.hash)) {
+                if (!locations.remove(address(location.buffer, location.position), location)) {
+                    continue;
+                }
+                // The pointers of the location were evicted along with the buffer.
+                long size = content.length + OffHeapByteBuffer.POINTER_SIZE;
+                int references = content.references - location.references;
+                sharedMemory.addAndGet(-(Math.max(0, content.references - 1) - Math.max(0, references - 1)) * size);
+                content.references = references;
+                location.references = 0;
+                if (content.current == location) {
+                    content.current = null;
+                    removeContent(content);
+                } else if (references == 0 && content.current != null) {
+                    removeLocation(content.current);
+                    content.current = null;
+                    removeContent(content);
+                }
+            }
+        }
+        super.free(bufferIndex);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#isWritableInPlace
+     * (com.KyleDing.imcache.offheap.bytebuffer.Pointer)
+     */
+    public boolean isWritableInPlace(Pointer pointer) {
+        // A tracked copy may be shared and is found by its content.
+        return locations.get(address(pointer)) == null && super.isWritableInPlace(pointer);
+    }
+
+    /**
+     * Gets the memory saved by sharing payloads, the memory the copies that
+     * were not stored would have used.
+     *
+     * @return the shared memory
+     */
+    public long sharedMemory() {
+        return sharedMemory.get();
+    }
+
+    /**
+     * Gets the number of references to the payload the pointer points to.
+     *
+     * @param pointer the pointer
+     * @return the reference count, 1 if the payload is not deduplicated
+     */
+    public int referenceCount(Pointer pointer) {
+        Location location = locations.get(address(pointer));
+        if (location == null) {
+            return 1;
+        }
+        synchronized (stripe(location.content.hash)) {
+            return location.content.references;
+        }
+    }
+
+    /**
+     * Gets the min payload length.
+     *
+     * @return the min payload length
+     */
+    public int getMinPayloadLength() {
+        return minPayloadLength;
+    }
+
+    /**
+     * Gets the stripe of the hash.
+     *
+     * @param hash the hash
+     * @return the stripe
+     */
+    private Map<Integer, List<Content>> stripe(int hash) {
+        return stripes[(hash ^ (hash >>> 16)) & (STRIPE_COUNT - 1)];
+    }
+
+    /**
+     * Gets the address of the pointer.
+     *
+     * @param pointer the pointer
+     * @return the address
+     */
+    private static long address(Pointer pointer) {
+        return address(pointer.getOffHeapByteBuffer(), pointer.getPosition());
+    }
+
+    /**
+     * Gets the address of the position in the buffer.
+     *
+     * @param buffer the buffer
+     * @param position the position
+     * @return the address
+     */
+    private static long address(OffHeapByteBuffer buffer, int position) {
+        return ((long) buffer.getIndex() << 32) | (position & 0xFFFFFFFFL);
+    }
+
+    /**
+     * The Class Content is a payload stored once for all of its references.
+     */
+    private static class Content {
+
+        /** The hash. */
+        final int hash;
+
+        /** The length. */
+        final int length;
+
+        /** The location of the copy that is shared, null if it was freed. */
+        Location current;
+
+        /** The references from all locations. */
+        int references;
+
+        /**
+         * Instantiates a new content.
+         *
+         * @param hash the hash
+         * @param length the length
+         */
+        Content(int hash, int length) {
+            this.hash = hash;
+            this.length = length;
+        }
+    }
+
+    /**
+     * The Class Location is a copy of a content. A content has a single
+     * location unless it is being moved, when the pointers that are not moved
+     * yet refer to its old location.
+     */
+    private static class Location {
+
+        /** The content. */
+        final Content content;
+
+        /** The buffer. */
+        final OffHeapByteBuffer buffer;
+
+        /** The position. */
+        final int position;
+
+        /** The references from pointers to the location. */
+        int references;
+
+        /**
+         * Instantiates a new location.
+         *
+         * @param content the content
+         * @param buffer the buffer
+         * @param position the position
+         */
+        Location(Content content, OffHeapByteBuffer buffer, int position) {
+            this.content = content;
+            this.buffer = buffer;
+            this.position = position;
+        }
+    }
+}
@@ -7,6 +7,8 @@
  */
 package com.KyleDing.imcache.offheap.bytebuffer;
 
+import java.nio.ByteOrder;
+
 /**
  * The Class DirectByteBuffer.
  */
@@ -22,28 +24,67 @@ public class DirectByteBuffer implements ByteBuffer {
     /** The Constant UNSAFE. */
     private static final sun.misc.Unsafe UNSAFE = getUnsafe();
 
+    /** The Constant LOAD_FENCE, whether Unsafe.loadFence of Java 8 is available. */
+    private static final boolean LOAD_FENCE = hasLoadFence();
+
     /** The Constant UNSAFE_COPY_THRESHOLD. */
     private static final long UNSAFE_COPY_THRESHOLD = 1024L * 1024L;
 
     /** The Constant ARRAY_BASE_OFFSET. */
     private static final long ARRAY_BASE_OFFSET = (long) UNSAFE.arrayBaseOffset(byte[].class);
 
+    /** The Constant ADDRESS_OFFSET, the offset of the address field of buffers. */
+    private static final long ADDRESS_OFFSET = addressOffset();
+
     /**
      * Instantiates a new direct byte buffer.
      *
      * @param capacity the capacity
      */
     public DirectByteBuffer(int capacity) {
-        byteBuffer = java.nio.ByteBuffer.allocateDirect(capacity);
-        java.lang.reflect.Method method;
-        try {
-            // Get the actual address by calling address method
-            method = byteBuffer.getClass().getDeclaredMethod("address");
-            method.setAccessible(true);
-            address = (Long) method.invoke(byteBuffer);
-        } catch (Exception e) {
-            throw new Error(e);
+        this(java.nio.ByteBuffer.allocateDirect(capacity));
+    }
+
+    /**
+     * Instantiates a new direct byte buffer over the given direct buffer, such
+     * as a buffer mapped from a file.
+     *
+     * @param byteBuffer the direct byte buffer
+     */
+    public DirectByteBuffer(java.nio.ByteBuffer byteBuffer) {
+        if (!byteBuffer.isDirect()) {
+            throw new IllegalArgumentException("Byte buffer must be direct!");
         }
+        this.byteBuffer = byteBuffer;
+        // Reading the field through unsafe needs no access to java.nio
+        address = UNSAFE.getLong(byteBuffer, ADDRESS_OFFSET);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#getByte(int)
+     */
+    public byte getByte(int position) {
+        return UNSAFE.getByte(getPosition(position));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#asReadOnlyBuffer()
+     */
+    public java.nio.ByteBuffer asReadOnlyBuffer() {
+        return byteBuffer.asReadOnlyBuffer();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#duplicate()
+     */
+    public java.nio.ByteBuffer duplicate() {
+        return byteBuffer.duplicate().order(ByteOrder.BIG_ENDIAN);
     }
 
     /*
@@ -64,6 +105,63 @@ public class DirectByteBuffer implements ByteBuffer {
         copyFromArray(source, ARRAY_BASE_OFFSET, offset, getPosition(position), length);
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#getInt(int)
+     */
+    public int getInt(int position) {
+        return UNSAFE.getInt(getPosition(position));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#putInt(int, int)
+     */
+    public void putInt(int position, int value) {
+        UNSAFE.putInt(getPosition(position), value);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#getLong(int)
+     */
+    public long getLong(int position) {
+        return UNSAFE.getLong(getPosition(position));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#putLong(int, long)
+     */
+    public void putLong(int position, long value) {
+        UNSAFE.putLong(getPosition(position), value);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#contentEquals(int, byte[])
+     */
+    public boolean contentEquals(int position, byte[] bytes) {
+        long sourceAddress = getPosition(position);
+        int i = 0;
+        for (; i + 8 <= bytes.length; i += 8) {
+            if (UNSAFE.getLong(sourceAddress + i) != UNSAFE.getLong(bytes, ARRAY_BASE_OFFSET + i)) {
+                return false;
+            }
+        }
+        for (; i < bytes.length; i++) {
+            if (UNSAFE.getByte(sourceAddress + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Gets the position.
      *
@@ -124,20 +222,47 @@ public class DirectByteBuffer implements ByteBuffer {
         }
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#force()
+     */
+    public void force() {
+        if (byteBuffer instanceof java.nio.MappedByteBuffer) {
+            ((java.nio.MappedByteBuffer) byteBuffer).force();
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
      * @see com.KyleDing.imcache.bytebuffer.ByteBuffer#free()
      */
     public void free() {
+        NioByteBuffer.free(byteBuffer);
+    }
+
+    /**
+     * Keeps the reads before the fence from being reordered after the reads
+     * following it, if the JVM provides a load fence.
+     */
+    public static void loadFence() {
+        if (LOAD_FENCE) {
+            UNSAFE.loadFence();
+        }
+    }
+
+    /**
+     * Checks if Unsafe.loadFence is available.
+     *
+     * @return true, if it is available
+     */
+    private static boolean hasLoadFence() {
         try {
-            java.lang.reflect.Field cleanerField = byteBuffer.getClass().getDeclaredField("cleaner");
-            cleanerField.setAccessible(true);
-            // Cleaner can force freeing of native memory by clean method
-            sun.misc.Cleaner cleaner = (sun.misc.Cleaner) cleanerField.get(byteBuffer);
-            cleaner.clean();
-        } catch (Exception e) {
-            throw new Error(e);
+            sun.misc.Unsafe.class.getMethod("loadFence");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
         }
     }
 
@@ -156,4 +281,17 @@ public class DirectByteBuffer implements ByteBuffer {
         }
     }
 
+    /**
+     * Gets the offset of the address field of buffers.
+     *
+     * @return the address offset
+     */
+    private static long addressOffset() {
+        try {
+            return UNSAFE.objectFieldOffset(java.nio.Buffer.class.getDeclaredField("address"));
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+
 }
@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.bytebuffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * The Class MappedOffHeapByteBuffer is an off heap byte buffer whose memory is
+ * mapped from a file, so that its payloads survive a restart of the JVM. The
+ * buffer starts empty, {@link #recover(int, int)} restores its allocation state
+ * once its payloads are known to be valid.
+ */
+public class MappedOffHeapByteBuffer extends OffHeapByteBuffer {
+
+    /** The file. */
+    private final File file;
+
+    /**
+     * Instantiates a new mapped off heap byte buffer.
+     *
+     * @param index the index
+     * @param capacity the capacity
+     * @param concurrencyLevel the concurrency level
+     * @param file the file
+     */
+    public MappedOffHeapByteBuffer(int index, int capacity, int concurrencyLevel, File file) {
+        super(index, capacity, concurrencyLevel, map(file, capacity));
+        this.file = file;
+    }
+
+    /**
+     * Maps the file to memory, growing it to the capacity if it is smaller.
+     *
+     * @param file the file
+     * @param capacity the capacity
+     * @return the byte buffer
+     */
+    static ByteBuffer map(File file, int capacity) {
+        try {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+            try {
+                if (randomAccessFile.length() < capacity) {
+                    randomAccessFile.setLength(capacity);
+                }
+                // The mapping stays valid after the channel is closed.
+                return ByteBufferFactory.getDefault().wrap(
+                        randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+            } finally {
+                randomAccessFile.close();
+            }
+        } catch (IOException e) {
+            throw new OffHeapByteBufferException("Could not map " + file + ".", e);
+        }
+    }
+
+    /**
+     * Gets the checksum of the payload the pointer points to.
+     *
+     * @param pointer the pointer
+     * @return the checksum
+     */
+    public int checksum(Pointer pointer) {
+        readWriteLock.readLock(pointer.getPosition());
+        try {
+            byte[] payload = new byte[length(pointer.getPosition())];
+            directByteBuffer.get(pointer.getPosition() + POINTER_SIZE, payload, 0, payload.length);
+            return checksum(payload);
+        } finally {
+            readWriteLock.readUnlock(pointer.getPosition());
+        }
+    }
+
+    /**
+     * Checks that a whole payload with the given checksum is stored at the
+     * position below the limit, which discards payloads that were removed or
+     * torn by a crash.
+     *
+     * @param position the position
+     * @param checksum the checksum
+     * @param limit the end of the allocated memory
+     * @return the length of the payload including its header, -1 if it is not
+     *         valid
+     */
+    public int validate(int position, int checksum, int limit) {
+        if (position < 0 || position > limit - POINTER_SIZE) {
+            return -1;
+        }
+        int length;
+        try {
+            length = length(position);
+        } catch (OffHeapByteBufferException e) {
+            return -1;
+        }
+        if (length < 0 || length > limit - position - POINTER_SIZE) {
+            return -1;
+        }
+        byte[] payload = new byte[length];
+        directByteBuffer.get(position + POINTER_SIZE, payload, 0, length);
+        return checksum(payload) == checksum ? length + POINTER_SIZE : -1;
+    }
+
+    /**
+     * Calculates the checksum of the payload.
+     *
+     * @param payload the payload
+     * @return the checksum
+     */
+    static int checksum(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Restores the allocation state of the buffer, memory below the offset
+     * that is not used by a recovered payload becomes dirty.
+     *
+     * @param offset the end of the allocated memory
+     * @param usedMemory the memory used by the recovered payloads
+     */
+    public void recover(int offset, int usedMemory) {
+        this.offset.set(offset);
+        this.usedMemory.set(usedMemory);
+        this.dirtyMemory.set(offset - usedMemory);
+    }
+
+    /**
+     * Gets the end of the allocated memory.
+     *
+     * @return the offset
+     */
+    public int getOffset() {
+        return (int) Math.min(offset.get(), capacity);
+    }
+
+    /**
+     * Writes the changes to the file.
+     */
+    public void force() {
+        directByteBuffer.force();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer#decommit()
+     */
+    public boolean decommit() {
+        // The mapping is paged by the operating system and stays for the file.
+        return false;
+    }
+
+    /**
+     * Writes the changes to the file and unmaps it.
+     */
+    public void close() {
+        force();
+        directByteBuffer.free();
+    }
+
+    /**
+     * Gets the file.
+     *
+     * @return the file
+     */
+    public File getFile() {
+        return file;
+    }
+}
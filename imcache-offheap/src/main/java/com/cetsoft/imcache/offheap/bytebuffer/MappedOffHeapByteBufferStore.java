@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.bytebuffer;
+
+import java.io.File;
+
+/**
+ * The Class MappedOffHeapByteBufferStore is a store whose buffers are mapped
+ * from the files of a directory, one file per buffer, instead of being
+ * allocated directly. Together with the index segment that
+ * {@link com.KyleDing.imcache.offheap.PersistentOffHeapCache} writes on close,
+ * the payloads survive a restart.
+ */
+public class MappedOffHeapByteBufferStore extends OffHeapByteBufferStore {
+
+    /** The Constant INDEX_FILE_NAME. */
+    public static final String INDEX_FILE_NAME = "index.dat";
+
+    /** The directory. */
+    private final File directory;
+
+    /**
+     * Instantiates a new mapped off heap byte buffer store.
+     *
+     * @param directory the directory
+     * @param capacity the capacity
+     * @param bufferSize the buffer size
+     */
+    public MappedOffHeapByteBufferStore(File directory, int capacity, int bufferSize) {
+        this(directory, capacity, bufferSize, OffHeapByteBuffer.DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Instantiates a new mapped off heap byte buffer store.
+     *
+     * @param directory the directory
+     * @param capacity the capacity
+     * @param bufferSize the buffer size
+     * @param concurrencyLevel the concurrency level
+     */
+    public MappedOffHeapByteBufferStore(File directory, int capacity, int bufferSize, int concurrencyLevel) {
+        super(map(directory, capacity, bufferSize, concurrencyLevel));
+        this.directory = directory;
+    }
+
+    /**
+     * Maps the buffers from the files of the directory.
+     *
+     * @param directory the directory
+     * @param capacity the capacity
+     * @param bufferSize the buffer size
+     * @param concurrencyLevel the concurrency level
+     * @return the buffers
+     */
+    private static OffHeapByteBuffer[] map(File directory, int capacity, int bufferSize, int concurrencyLevel) {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new OffHeapByteBufferException("Could not create " + directory + ".");
+        }
+        OffHeapByteBuffer[] buffers = new OffHeapByteBuffer[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            buffers[i] = new MappedOffHeapByteBuffer(i, capacity, concurrencyLevel, new File(directory, "buffer-" + i
+                    + ".dat"));
+        }
+        return buffers;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#getBuffer
+     * (int)
+     */
+    public MappedOffHeapByteBuffer getBuffer(int bufferIndex) {
+        return (MappedOffHeapByteBuffer) super.getBuffer(bufferIndex);
+    }
+
+    /**
+     * Writes the changes of all buffers to their files.
+     */
+    public void force() {
+        for (int i = 0; i < getBufferSize(); i++) {
+            getBuffer(i).force();
+        }
+    }
+
+    /**
+     * Writes the changes of all buffers to their files and unmaps them. The
+     * store must not be used afterwards.
+     */
+    public void close() {
+        for (int i = 0; i < getBufferSize(); i++) {
+            getBuffer(i).close();
+        }
+    }
+
+    /**
+     * Gets the directory.
+     *
+     * @return the directory
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Gets the file of the index segment.
+     *
+     * @return the index file
+     */
+    public File getIndexFile() {
+        return new File(directory, INDEX_FILE_NAME);
+    }
+
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.bytebuffer;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+
+/**
+ * The Class NioByteBuffer is a byte buffer over a direct java.nio byte buffer
+ * that reads and writes only through its public, bounds checked methods, which
+ * the JIT compiles to plain memory accesses. Unlike {@link DirectByteBuffer},
+ * accessing memory needs neither sun.misc.Unsafe nor the internals of
+ * java.nio, so it works on any JDK without opening modules. Bulk copies go
+ * through a view of the buffer per thread, hence they do not allocate.
+ * <p>
+ * Freeing is best effort. {@link #free()} releases the memory right away
+ * through the cleaner of the JDK, which it reaches by reflection,
+ * Unsafe.invokeCleaner as of Java 9 and the cleaner of the buffer before. If
+ * the JDK does not allow that, for example without the jdk.unsupported module
+ * or under a security manager, the memory is freed only once the garbage
+ * collector collects the buffer.
+ */
+public class NioByteBuffer implements ByteBuffer {
+
+    /** The Constant THE_UNSAFE, the sun.misc.Unsafe instance if it is reachable. */
+    private static final Object THE_UNSAFE = theUnsafe();
+
+    /** The Constant INVOKE_CLEANER, Unsafe.invokeCleaner of Java 9 and later. */
+    private static final Method INVOKE_CLEANER = invokeCleaner(THE_UNSAFE);
+
+    /** The byte buffer. */
+    private final java.nio.ByteBuffer byteBuffer;
+
+    /** The buffer in native order. */
+    private final java.nio.ByteBuffer nativeBuffer;
+
+    /** The views used by bulk copies, one per thread. */
+    private final ThreadLocal<java.nio.ByteBuffer> views = new ThreadLocal<java.nio.ByteBuffer>() {
+        protected java.nio.ByteBuffer initialValue() {
+            return byteBuffer.duplicate();
+        }
+    };
+
+    /**
+     * Instantiates a new nio byte buffer.
+     *
+     * @param capacity the capacity
+     */
+    public NioByteBuffer(int capacity) {
+        this(java.nio.ByteBuffer.allocateDirect(capacity));
+    }
+
+    /**
+     * Instantiates a new nio byte buffer over the given direct buffer, such as
+     * a buffer mapped from a file.
+     *
+     * @param byteBuffer the direct byte buffer
+     */
+    public NioByteBuffer(java.nio.ByteBuffer byteBuffer) {
+        if (!byteBuffer.isDirect()) {
+            throw new IllegalArgumentException("Byte buffer must be direct!");
+        }
+        this.byteBuffer = byteBuffer;
+        this.nativeBuffer = byteBuffer.duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#get(int, byte[],
+     * int, int)
+     */
+    public void get(int position, byte[] destination, int offset, int length) {
+        java.nio.ByteBuffer view = views.get();
+        view.limit(position + length);
+        view.position(position);
+        view.get(destination, offset, length);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#put(int, byte[],
+     * int, int)
+     */
+    public void put(int position, byte[] source, int offset, int length) {
+        java.nio.ByteBuffer view = views.get();
+        view.limit(position + length);
+        view.position(position);
+        view.put(source, offset, length);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#getByte(int)
+     */
+    public byte getByte(int position) {
+        return byteBuffer.get(position);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#getInt(int)
+     */
+    public int getInt(int position) {
+        return nativeBuffer.getInt(position);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#putInt(int, int)
+     */
+    public void putInt(int position, int value) {
+        nativeBuffer.putInt(position, value);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#getLong(int)
+     */
+    public long getLong(int position) {
+        return nativeBuffer.getLong(position);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#putLong(int, long)
+     */
+    public void putLong(int position, long value) {
+        nativeBuffer.putLong(position, value);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#contentEquals(int,
+     * byte[])
+     */
+    public boolean contentEquals(int position, byte[] bytes) {
+        if (position + bytes.length > byteBuffer.capacity()) {
+            throw new IndexOutOfBoundsException();
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (byteBuffer.get(position + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#asReadOnlyBuffer()
+     */
+    public java.nio.ByteBuffer asReadOnlyBuffer() {
+        return byteBuffer.asReadOnlyBuffer();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#duplicate()
+     */
+    public java.nio.ByteBuffer duplicate() {
+        return byteBuffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#force()
+     */
+    public void force() {
+        if (byteBuffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) byteBuffer).force();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer#free()
+     */
+    public void free() {
+        free(byteBuffer);
+    }
+
+    /**
+     * Frees the memory of the direct buffer right away, or unmaps it if it is
+     * mapped from a file. If the JDK does not allow reaching its cleaner, the
+     * memory is freed only once the buffer is garbage collected.
+     *
+     * @param byteBuffer the direct byte buffer
+     */
+    static void free(java.nio.ByteBuffer byteBuffer) {
+        try {
+            if (INVOKE_CLEANER != null) {
+                INVOKE_CLEANER.invoke(THE_UNSAFE, byteBuffer);
+                return;
+            }
+            // Java 8 and earlier keep the cleaner in the buffer.
+            Method cleanerMethod = byteBuffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(byteBuffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (NoSuchMethodException e) {
+            // The buffer has no cleaner, the memory is freed by the garbage collector.
+        } catch (IllegalAccessException e) {
+            // The cleaner is not accessible, the memory is freed by the garbage collector.
+        } catch (InvocationTargetException e) {
+            // The buffer is a view, the memory is freed with the buffer it views.
+        } catch (SecurityException e) {
+            // The memory is freed by the garbage collector.
+        }
+    }
+
+    /**
+     * Gets the sun.misc.Unsafe instance by reflection, so that the class loads
+     * on JDKs without it.
+     *
+     * @return the instance, null if it is not reachable
+     */
+    private static Object theUnsafe() {
+        try {
+            Field field = Class.forName("sun.misc.Unsafe").getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return field.get(null);
+        } catch (ClassNotFoundException e) {
+            return null;
+        } catch (NoSuchFieldException e) {
+            return null;
+        } catch (IllegalAccessException e) {
+            return null;
+        } catch (SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Finds Unsafe.invokeCleaner, which is available as of Java 9.
+     *
+     * @param unsafe the sun.misc.Unsafe instance, may be null
+     * @return the method, null if it is not available
+     */
+    private static Method invokeCleaner(Object unsafe) {
+        if (unsafe == null) {
+            return null;
+        }
+        try {
+            return unsafe.getClass().getMethod("invokeCleaner", java.nio.ByteBuffer.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
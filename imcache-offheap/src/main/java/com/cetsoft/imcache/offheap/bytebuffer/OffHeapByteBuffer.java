@@ -8,9 +8,13 @@
 package com.KyleDing.imcache.offheap.bytebuffer;
 
 import java.nio.BufferOverflowException;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import com.KyleDing.imcache.concurrent.lock.StripedReadWriteLock;
+import com.KyleDing.imcache.serialization.ByteBufferSerializer;
+import com.KyleDing.imcache.serialization.StreamingSerializer;
 
 /**
  * The Class OffHeapByteBuffer.
@@ -20,28 +24,49 @@ public class OffHeapByteBuffer implements OffHeapStore {
     /** The index. */
     private volatile int index;
     /** The capacity. */
-    private volatile long capacity;
+    protected volatile long capacity;
 
-    /** The direct byte buffer. */
-    private DirectByteBuffer directByteBuffer;
+    /** The direct byte buffer, null until the buffer is committed. */
+    protected volatile ByteBuffer directByteBuffer;
 
     /** The read write lock. */
-    private StripedReadWriteLock readWriteLock;
+    protected StripedReadWriteLock readWriteLock;
 
     /** The Constant DEFAULT_CONCURRENCY_LEVEL. */
     public final static int DEFAULT_CONCURRENCY_LEVEL = 4;
 
     /** The Constant POINTER_SIZE. */
-    private final static int POINTER_SIZE = 5;
+    protected final static int POINTER_SIZE = 5;
 
     /** The offset. */
-    private AtomicInteger offset = new AtomicInteger(0);
+    protected AtomicInteger offset = new AtomicInteger(0);
 
     /** The used memory. */
-    private AtomicInteger usedMemory = new AtomicInteger(0);
+    protected AtomicInteger usedMemory = new AtomicInteger(0);
 
     /** The dirty memory. */
-    private AtomicInteger dirtyMemory = new AtomicInteger(0);
+    protected AtomicInteger dirtyMemory = new AtomicInteger(0);
+
+    /** The sealed, a sealed buffer does not take new payloads. */
+    private final AtomicBoolean sealed = new AtomicBoolean();
+
+    /** The generation, incremented each time the buffer is emptied. */
+    private final AtomicInteger generation = new AtomicInteger(0);
+
+    /** The memory of the buffer since it was decommitted, until it is released. */
+    private ByteBuffer retiredByteBuffer;
+
+    /** The time the memory was retired at. */
+    private long retiredAt;
+
+    /** The read only views of the buffer, one per thread. */
+    private volatile ThreadLocal<java.nio.ByteBuffer> views;
+
+    /** The writable views of the buffer, one per thread. */
+    private volatile ThreadLocal<java.nio.ByteBuffer> writers;
+
+    /** The Constant BIG_ENDIAN, the byte order of the length in the header. */
+    private final static boolean BIG_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN;
 
     /** The Constant USED. */
     private final static byte USED = 1;
@@ -52,6 +77,9 @@ public class OffHeapByteBuffer implements OffHeapStore {
     /** The Constant DIRTY. */
     private final static byte DIRTY = -1;
 
+    /** The Constant CHUNKED, the mark of the head of a payload stored in chunks. */
+    private final static byte CHUNKED = 2;
+
     /**
      * Instantiates a new off heap byte buffer.
      *
@@ -63,19 +91,129 @@ public class OffHeapByteBuffer implements OffHeapStore {
     }
 
     /**
-     * Instantiates a new off heap byte buffer.
+     * Instantiates a new off heap byte buffer. Its memory is allocated when
+     * the first payload is stored, see {@link #commit()}.
      *
      * @param index the index
      * @param capacity the capacity
      * @param concurrencyLevel the concurrency level
      */
     public OffHeapByteBuffer(int index, int capacity, int concurrencyLevel) {
+        this(index, capacity, concurrencyLevel, null);
+    }
+
+    /**
+     * Instantiates a new off heap byte buffer over the given direct byte
+     * buffer.
+     *
+     * @param index the index
+     * @param capacity the capacity
+     * @param concurrencyLevel the concurrency level
+     * @param directByteBuffer the direct byte buffer
+     */
+    protected OffHeapByteBuffer(int index, int capacity, int concurrencyLevel, ByteBuffer directByteBuffer) {
         this.index = index;
         this.capacity = capacity;
-        directByteBuffer = new DirectByteBuffer(capacity);
+        if (directByteBuffer != null) {
+            this.views = views(directByteBuffer);
+            this.writers = writers(directByteBuffer);
+            this.directByteBuffer = directByteBuffer;
+        }
         readWriteLock = new StripedReadWriteLock(concurrencyLevel);
     }
 
+    /**
+     * Creates the read only views of the direct byte buffer.
+     *
+     * @param directByteBuffer the direct byte buffer
+     * @return the views
+     */
+    private static ThreadLocal<java.nio.ByteBuffer> views(final ByteBuffer directByteBuffer) {
+        return new ThreadLocal<java.nio.ByteBuffer>() {
+            protected java.nio.ByteBuffer initialValue() {
+                return directByteBuffer.asReadOnlyBuffer();
+            }
+        };
+    }
+
+    /**
+     * Creates the writable views of the direct byte buffer.
+     *
+     * @param directByteBuffer the direct byte buffer
+     * @return the views
+     */
+    private static ThreadLocal<java.nio.ByteBuffer> writers(final ByteBuffer directByteBuffer) {
+        return new ThreadLocal<java.nio.ByteBuffer>() {
+            protected java.nio.ByteBuffer initialValue() {
+                return directByteBuffer.duplicate();
+            }
+        };
+    }
+
+    /**
+     * Allocates the memory of the buffer if it is not allocated yet, taking
+     * the retired memory back if it was not released yet.
+     */
+    public synchronized void commit() {
+        if (directByteBuffer == null) {
+            ByteBuffer byteBuffer = retiredByteBuffer;
+            if (byteBuffer == null) {
+                byteBuffer = ByteBufferFactory.getDefault().allocate((int) capacity);
+            }
+            retiredByteBuffer = null;
+            views = views(byteBuffer);
+            writers = writers(byteBuffer);
+            directByteBuffer = byteBuffer;
+        }
+    }
+
+    /**
+     * Decommits the buffer if it is empty, it is committed again when a
+     * payload is stored. The caller makes sure that no pointer refers to the
+     * buffer, but optimistic readers may still hold a stale one, so the
+     * memory is only retired here and given back to the operating system by
+     * {@link #releaseRetired(long)} once such readers are done with it.
+     *
+     * @return true, if the buffer is decommitted
+     */
+    public synchronized boolean decommit() {
+        ByteBuffer byteBuffer = directByteBuffer;
+        if (byteBuffer == null || offset.get() != 0) {
+            return false;
+        }
+        directByteBuffer = null;
+        views = null;
+        writers = null;
+        retiredByteBuffer = byteBuffer;
+        retiredAt = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * Gives the memory retired by {@link #decommit()} back to the operating
+     * system if it was retired before the given time.
+     *
+     * @param retiredBefore the time in milliseconds
+     * @return true, if the memory is released
+     */
+    public synchronized boolean releaseRetired(long retiredBefore) {
+        if (retiredByteBuffer == null || retiredAt > retiredBefore) {
+            return false;
+        }
+        retiredByteBuffer.free();
+        retiredByteBuffer = null;
+        return true;
+    }
+
+    /**
+     * Checks if the memory of the buffer is allocated.
+     *
+     * @return true, if the buffer is committed
+     */
+    public boolean isCommitted() {
+        return directByteBuffer != null;
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -86,18 +224,326 @@ public class OffHeapByteBuffer implements OffHeapStore {
     public byte[] retrieve(Pointer pointer) {
         readWriteLock.readLock(pointer.getPosition());
         try {
-            byte[] header = new byte[POINTER_SIZE];
-            directByteBuffer.get(pointer.getPosition(), header, 0, POINTER_SIZE);
-            int length = header(header);
+            int length = length(pointer.getPosition());
             byte[] payload = new byte[length];
             directByteBuffer.get(pointer.getPosition() + POINTER_SIZE, payload, 0, length);
-            pointer.setAccessTime(System.currentTimeMillis());
+            pointer.reference();
             return payload;
         } finally {
             readWriteLock.readUnlock(pointer.getPosition());
         }
     }
 
+    /**
+     * Deserializes the payload the pointer points to straight from the buffer,
+     * without copying it to an array.
+     *
+     * @param <V> the value type
+     * @param pointer the pointer
+     * @param serializer the serializer
+     * @return the value
+     */
+    public <V> V retrieve(Pointer pointer, ByteBufferSerializer<V> serializer) {
+        readWriteLock.readLock(pointer.getPosition());
+        try {
+            int position = pointer.getPosition() + POINTER_SIZE;
+            java.nio.ByteBuffer view = views.get();
+            view.limit(position + length(pointer.getPosition()));
+            view.position(position);
+            pointer.reference();
+            return serializer.deserialize(view);
+        } finally {
+            readWriteLock.readUnlock(pointer.getPosition());
+        }
+    }
+
+    /**
+     * Copies the payload at the position to the destination, which lets a
+     * payload stored in chunks be reassembled without copying its chunks.
+     *
+     * @param position the position
+     * @param destination the destination
+     * @param offset the offset in the destination
+     * @return the length of the payload
+     */
+    public int retrieve(int position, byte[] destination, int offset) {
+        readWriteLock.readLock(position);
+        try {
+            int length = length(position);
+            if (length > destination.length - offset) {
+                throw new OffHeapByteBufferException("Wrong chunk!");
+            }
+            directByteBuffer.get(position + POINTER_SIZE, destination, offset, length);
+            return length;
+        } finally {
+            readWriteLock.readUnlock(position);
+        }
+    }
+
+    /**
+     * Gets the length of the payload at the position.
+     *
+     * @param position the position
+     * @return the length
+     */
+    public int payloadLength(int position) {
+        readWriteLock.readLock(position);
+        try {
+            return length(position);
+        } finally {
+            readWriteLock.readUnlock(position);
+        }
+    }
+
+    /**
+     * Reads the byte at the offset of the payload at the position in place.
+     *
+     * @param position the position
+     * @param offset the offset in the payload
+     * @return the byte
+     */
+    public byte retrieveByte(int position, int offset) {
+        readWriteLock.readLock(position);
+        try {
+            return directByteBuffer.getByte(address(position, offset, 1));
+        } finally {
+            readWriteLock.readUnlock(position);
+        }
+    }
+
+    /**
+     * Reads the big endian int at the offset of the payload at the position in
+     * place, so that a field at a fixed place is read without copying the
+     * payload.
+     *
+     * @param position the position
+     * @param offset the offset in the payload
+     * @return the int
+     */
+    public int retrieveInt(int position, int offset) {
+        readWriteLock.readLock(position);
+        try {
+            int value = directByteBuffer.getInt(address(position, offset, 4));
+            return BIG_ENDIAN ? value : Integer.reverseBytes(value);
+        } finally {
+            readWriteLock.readUnlock(position);
+        }
+    }
+
+    /**
+     * Reads the big endian long at the offset of the payload at the position
+     * in place.
+     *
+     * @param position the position
+     * @param offset the offset in the payload
+     * @return the long
+     */
+    public long retrieveLong(int position, int offset) {
+        readWriteLock.readLock(position);
+        try {
+            long value = directByteBuffer.getLong(address(position, offset, 8));
+            return BIG_ENDIAN ? value : Long.reverseBytes(value);
+        } finally {
+            readWriteLock.readUnlock(position);
+        }
+    }
+
+    /**
+     * Copies the bytes at the offset of the payload at the position to the
+     * destination, filling it.
+     *
+     * @param position the position
+     * @param offset the offset in the payload
+     * @param destination the destination
+     */
+    public void retrieveBytes(int position, int offset, byte[] destination) {
+        readWriteLock.readLock(position);
+        try {
+            directByteBuffer.get(address(position, offset, destination.length), destination, 0, destination.length);
+        } finally {
+            readWriteLock.readUnlock(position);
+        }
+    }
+
+    /**
+     * Writes the source to the offset of the payload at the position in
+     * place, the length of the payload does not change.
+     *
+     * @param position the position
+     * @param offset the offset in the payload
+     * @param source the source
+     */
+    public void storeBytes(int position, int offset, byte[] source) {
+        readWriteLock.writeLock(position);
+        try {
+            directByteBuffer.put(address(position, offset, source.length), source, 0, source.length);
+        } finally {
+            readWriteLock.writeUnlock(position);
+        }
+    }
+
+    /**
+     * Writes the byte to the offset of the payload at the position in place,
+     * the length of the payload does not change.
+     *
+     * @param position the position
+     * @param offset the offset in the payload
+     * @param value the value
+     */
+    public void storeByte(int position, int offset, byte value) {
+        readWriteLock.writeLock(position);
+        try {
+            byte[] bytes = { value };
+            directByteBuffer.put(address(position, offset, 1), bytes, 0, 1);
+        } finally {
+            readWriteLock.writeUnlock(position);
+        }
+    }
+
+    /**
+     * Writes the int big endian to the offset of the payload at the position
+     * in place, the length of the payload does not change.
+     *
+     * @param position the position
+     * @param offset the offset in the payload
+     * @param value the value
+     */
+    public void storeInt(int position, int offset, int value) {
+        readWriteLock.writeLock(position);
+        try {
+            directByteBuffer.putInt(address(position, offset, 4), BIG_ENDIAN ? value : Integer.reverseBytes(value));
+        } finally {
+            readWriteLock.writeUnlock(position);
+        }
+    }
+
+    /**
+     * Writes the long big endian to the offset of the payload at the position
+     * in place, the length of the payload does not change.
+     *
+     * @param position the position
+     * @param offset the offset in the payload
+     * @param value the value
+     */
+    public void storeLong(int position, int offset, long value) {
+        readWriteLock.writeLock(position);
+        try {
+            directByteBuffer.putLong(address(position, offset, 8), BIG_ENDIAN ? value : Long.reverseBytes(value));
+        } finally {
+            readWriteLock.writeUnlock(position);
+        }
+    }
+
+    /**
+     * Calculates the address of the offset of the payload at the position,
+     * checking that the field of the given width lies within the payload.
+     *
+     * @param position the position
+     * @param offset the offset in the payload
+     * @param width the width of the field
+     * @return the address
+     */
+    private int address(int position, int offset, int width) {
+        if (offset < 0 || offset > length(position) - width) {
+            throw new OffHeapByteBufferException("Offset is out of the payload!");
+        }
+        return position + POINTER_SIZE + offset;
+    }
+
+    /**
+     * Reads the payload at the position without locking, for optimistic
+     * readers that validate the read afterwards. The payload may be torn by a
+     * concurrent writer and the position may be stale, so the header is
+     * checked against the bounds of the buffer instead of being trusted. The
+     * memory of a buffer decommitted meanwhile stays readable until it is
+     * released, and the read is then invalidated by the writer that emptied
+     * the buffer.
+     *
+     * @param position the position
+     * @return the payload
+     * @throws OffHeapByteBufferException if there is no payload at the position
+     */
+    public byte[] readOptimistically(int position) {
+        ByteBuffer byteBuffer = directByteBuffer;
+        if (byteBuffer == null) {
+            throw new OffHeapByteBufferException("Buffer is not committed!");
+        }
+        int length = boundedLength(byteBuffer, position);
+        byte[] payload = new byte[length];
+        byteBuffer.get(position + POINTER_SIZE, payload, 0, length);
+        return payload;
+    }
+
+    /**
+     * Deserializes the payload at the position straight from a read only view
+     * of the buffer without locking or copying, for optimistic readers that
+     * validate the read afterwards. The serializer may see a torn payload,
+     * whose value is discarded, see {@link ByteBufferSerializer}.
+     *
+     * @param <V> the value type
+     * @param position the position
+     * @param serializer the serializer
+     * @return the value
+     * @throws OffHeapByteBufferException if there is no payload at the position
+     */
+    public <V> V readOptimistically(int position, ByteBufferSerializer<V> serializer) {
+        // The views are renewed after the memory, so they are read first.
+        ThreadLocal<java.nio.ByteBuffer> views = this.views;
+        ByteBuffer byteBuffer = directByteBuffer;
+        if (views == null || byteBuffer == null) {
+            throw new OffHeapByteBufferException("Buffer is not committed!");
+        }
+        int length = boundedLength(byteBuffer, position);
+        java.nio.ByteBuffer view = views.get();
+        view.limit(position + POINTER_SIZE + length);
+        view.position(position + POINTER_SIZE);
+        return serializer.deserialize(view);
+    }
+
+    /**
+     * Reads the length of the payload at the position, checking that the
+     * payload lies within the buffer.
+     *
+     * @param byteBuffer the memory of the buffer
+     * @param position the position
+     * @return the length
+     * @throws OffHeapByteBufferException if there is no payload at the position
+     */
+    private int boundedLength(ByteBuffer byteBuffer, int position) {
+        if (position < 0 || position > capacity - POINTER_SIZE) {
+            throw new OffHeapByteBufferException("Position is out of the buffer!");
+        }
+        byte mark = byteBuffer.getByte(position);
+        if (mark == CHUNKED) {
+            // The head of a chunked payload holds its chunk table.
+            throw new OffHeapByteBufferException("Object is chunked!");
+        } else if (mark != USED) {
+            throw new OffHeapByteBufferException("Object is not used!");
+        }
+        int length = byteBuffer.getInt(position + 1);
+        length = BIG_ENDIAN ? length : Integer.reverseBytes(length);
+        if (length < 0 || length > capacity - position - POINTER_SIZE) {
+            throw new OffHeapByteBufferException("Wrong header!");
+        }
+        return length;
+    }
+
+    /**
+     * Compares the payload at the position with the given payload in place.
+     *
+     * @param position the position
+     * @param payload the payload
+     * @return true, if the payloads are equal
+     */
+    public boolean contentEquals(int position, byte[] payload) {
+        readWriteLock.readLock(position);
+        try {
+            return length(position) == payload.length && directByteBuffer.contentEquals(position + POINTER_SIZE, payload);
+        } finally {
+            readWriteLock.readUnlock(position);
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -109,6 +555,7 @@ public class OffHeapByteBuffer implements OffHeapStore {
         readWriteLock.writeLock(pointer.getPosition());
         try {
             byte[] payload = retrieve(pointer);
+            usedMemory.addAndGet(-(payload.length + POINTER_SIZE));
             dirtyMemory.addAndGet(payload.length + POINTER_SIZE);
             markAsDirty(pointer.getPosition());
             return payload;
@@ -123,6 +570,12 @@ public class OffHeapByteBuffer implements OffHeapStore {
      * @see com.KyleDing.imcache.bytebuffer.OffHeapStore#store(byte[])
      */
     public Pointer store(byte[] payload) {
+        if (sealed.get()) {
+            throw new BufferOverflowException();
+        }
+        if (directByteBuffer == null) {
+            commit();
+        }
         Allocation allocation = allocate(payload);
         Pointer pointer = store(allocation, payload);
         return pointer;
@@ -137,6 +590,18 @@ public class OffHeapByteBuffer implements OffHeapStore {
      */
     public Pointer store(Allocation allocation, byte[] payload) {
         usedMemory.addAndGet(allocation.getLength());
+        return write(allocation, payload);
+    }
+
+    /**
+     * Writes the payload with its header to the allocation, which is accounted
+     * for already.
+     *
+     * @param allocation the allocation
+     * @param payload the payload
+     * @return the pointer
+     */
+    protected Pointer write(Allocation allocation, byte[] payload) {
         Pointer pointer = new Pointer(allocation.getOffset(), this);
         byte[] header = header(payload.length);
         directByteBuffer.put(allocation.getOffset(), header, 0, POINTER_SIZE);
@@ -144,6 +609,98 @@ public class OffHeapByteBuffer implements OffHeapStore {
         return pointer;
     }
 
+    /**
+     * Stores the value by letting the serializer write it straight into the
+     * buffer, without serializing it to an array first.
+     *
+     * @param <V> the value type
+     * @param value the value
+     * @param length the serialized size of the value
+     * @param serializer the serializer
+     * @return the pointer
+     * @throws OffHeapByteBufferException if the serializer writes another
+     *             number of bytes than its size
+     */
+    public <V> Pointer store(V value, int length, StreamingSerializer<V> serializer) {
+        if (sealed.get()) {
+            throw new BufferOverflowException();
+        }
+        if (directByteBuffer == null) {
+            commit();
+        }
+        Allocation allocation = allocate(length);
+        usedMemory.addAndGet(allocation.getLength());
+        return write(allocation, value, length, serializer);
+    }
+
+    /**
+     * Updates the payload the pointer points to with the value, which is
+     * written in place if it is not longer than the payload.
+     *
+     * @param <V> the value type
+     * @param pointer the pointer
+     * @param value the value
+     * @param length the serialized size of the value
+     * @param serializer the serializer
+     * @return the pointer
+     * @see #update(Pointer, byte[])
+     */
+    public <V> Pointer update(Pointer pointer, V value, int length, StreamingSerializer<V> serializer) {
+        readWriteLock.writeLock(pointer.getPosition());
+        try {
+            int exLength = length(pointer.getPosition());
+            usedMemory.addAndGet(-(exLength + POINTER_SIZE));
+            if (exLength >= length) {
+                dirtyMemory.addAndGet(exLength - length);
+                usedMemory.addAndGet(length + POINTER_SIZE);
+                return write(new Allocation(pointer.getPosition(), length + POINTER_SIZE), value, length, serializer);
+            }
+            dirtyMemory.addAndGet(exLength + POINTER_SIZE);
+            markAsDirty(pointer.getPosition());
+            return store(value, length, serializer);
+        } finally {
+            readWriteLock.writeUnlock(pointer.getPosition());
+        }
+    }
+
+    /**
+     * Writes the header and lets the serializer write the value to the
+     * allocation, which is accounted for already. The allocation is marked
+     * as dirty if the serializer fails.
+     *
+     * @param <V> the value type
+     * @param allocation the allocation
+     * @param value the value
+     * @param length the serialized size of the value
+     * @param serializer the serializer
+     * @return the pointer
+     */
+    protected <V> Pointer write(Allocation allocation, V value, int length, StreamingSerializer<V> serializer) {
+        int position = allocation.getOffset() + POINTER_SIZE;
+        directByteBuffer.put(allocation.getOffset(), header(length), 0, POINTER_SIZE);
+        java.nio.ByteBuffer view = writers.get();
+        view.order(ByteOrder.BIG_ENDIAN);
+        view.limit(position + length);
+        view.position(position);
+        boolean written = false;
+        try {
+            serializer.serialize(value, view);
+            written = !view.hasRemaining();
+        } catch (BufferOverflowException exception) {
+            // Not to be taken for a full buffer.
+        } finally {
+            if (!written) {
+                usedMemory.addAndGet(-allocation.getLength());
+                dirtyMemory.addAndGet(allocation.getLength());
+                markAsDirty(allocation.getOffset());
+            }
+        }
+        if (!written) {
+            throw new OffHeapByteBufferException("Serialized size is wrong!");
+        }
+        return new Pointer(allocation.getOffset(), this);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -159,10 +716,12 @@ public class OffHeapByteBuffer implements OffHeapStore {
                 // Note that updated payload should be always less than
                 // exPayload,
                 // otherwise new location is allocated.
+                usedMemory.addAndGet(-(exPayload.length + POINTER_SIZE));
                 dirtyMemory.addAndGet(exPayload.length - payload.length);
                 Allocation allocation = new Allocation(pointer.getPosition(), payload.length + POINTER_SIZE);
                 return store(allocation, payload);
             } else {
+                usedMemory.addAndGet(-(exPayload.length + POINTER_SIZE));
                 dirtyMemory.addAndGet(exPayload.length + POINTER_SIZE);
                 markAsDirty(pointer.getPosition());
                 return store(payload);
@@ -207,6 +766,27 @@ public class OffHeapByteBuffer implements OffHeapStore {
         return length;
     }
 
+    /**
+     * Reads the length of the payload from the header at the position, the
+     * length is read with a single access to the memory. The length of the
+     * head of a chunked payload is the length of its chunk table.
+     *
+     * @param position the position
+     * @return the length
+     */
+    protected int length(int position) {
+        byte mark = directByteBuffer.getByte(position);
+        if (mark == DIRTY) {
+            throw new OffHeapByteBufferException("Object is dirty!");
+        } else if (mark == FREE) {
+            throw new OffHeapByteBufferException("Object is free!");
+        } else if (mark != USED && mark != CHUNKED) {
+            throw new OffHeapByteBufferException("Wrong header!");
+        }
+        int length = directByteBuffer.getInt(position + 1);
+        return BIG_ENDIAN ? length : Integer.reverseBytes(length);
+    }
+
     /**
      * Mark as dirty.
      *
@@ -217,6 +797,28 @@ public class OffHeapByteBuffer implements OffHeapStore {
         directByteBuffer.put(offset, dirtyMark, 0, 1);
     }
 
+    /**
+     * Marks the payload at the position as the head of a chunked payload.
+     *
+     * @param position the position
+     */
+    protected void markAsChunked(int position) {
+        byte[] chunkedMark = { CHUNKED };
+        directByteBuffer.put(position, chunkedMark, 0, 1);
+    }
+
+    /**
+     * Checks if the payload at the position is the head of a chunked payload.
+     * The header is read without locking, the caller keeps the payload from
+     * being removed meanwhile.
+     *
+     * @param position the position
+     * @return true, if the payload is chunked
+     */
+    public boolean isChunked(int position) {
+        return directByteBuffer.getByte(position) == CHUNKED;
+    }
+
     /**
      * Allocates memory for the payload.
      *
@@ -224,7 +826,17 @@ public class OffHeapByteBuffer implements OffHeapStore {
      * @return the allocation
      */
     protected Allocation allocate(byte[] payload) {
-        int payloadLength = payload.length + POINTER_SIZE;
+        return allocate(payload.length);
+    }
+
+    /**
+     * Allocates memory for a payload of the given length.
+     *
+     * @param length the length of the payload
+     * @return the allocation
+     */
+    protected Allocation allocate(int length) {
+        int payloadLength = length + POINTER_SIZE;
         int allocationOffset = offset.addAndGet(payloadLength);
         if (this.capacity < allocationOffset) {
             throw new BufferOverflowException();
@@ -234,10 +846,91 @@ public class OffHeapByteBuffer implements OffHeapStore {
     }
 
     /**
-     * Frees the buffer.
+     * Reserves a region of the buffer for a single writer, which then
+     * allocates payloads inside it without touching the shared offset. The
+     * region is accounted as used memory until its unused part is given back
+     * by {@link #discard(int)}. The region is cut short at the end of the
+     * buffer.
+     *
+     * @param length the length of the region
+     * @return the allocation of the region
+     * @throws BufferOverflowException if the buffer is sealed or full
+     */
+    public Allocation reserve(int length) {
+        if (sealed.get()) {
+            throw new BufferOverflowException();
+        }
+        if (directByteBuffer == null) {
+            commit();
+        }
+        int end = offset.addAndGet(length);
+        int start = end - length;
+        if (start >= capacity) {
+            throw new BufferOverflowException();
+        }
+        int reserved = (int) Math.min(end, capacity) - start;
+        usedMemory.addAndGet(reserved);
+        return new Allocation(start, reserved);
+    }
+
+    /**
+     * Accounts memory of a reserved region that is no longer going to be used
+     * as dirty memory, so that compaction reclaims it.
+     *
+     * @param length the length
+     */
+    public void discard(int length) {
+        usedMemory.addAndGet(-length);
+        dirtyMemory.addAndGet(length);
+    }
+
+    /**
+     * Empties the buffer to be reused, its memory stays allocated until it is
+     * decommitted.
      */
     public void free() {
-        directByteBuffer.free();
+        offset.set(0);
+        usedMemory.set(0);
+        dirtyMemory.set(0);
+        generation.incrementAndGet();
+        sealed.set(false);
+    }
+
+    /**
+     * Gets the generation of the buffer, which changes each time the buffer is
+     * freed. Regions reserved in an earlier generation must not be used.
+     *
+     * @return the generation
+     */
+    public int getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Seals the buffer so that new payloads are not stored to it, which lets
+     * its payloads be moved to other buffers. The buffer is unsealed when it is
+     * freed.
+     *
+     * @return true, if the buffer was not sealed already
+     */
+    public boolean seal() {
+        return sealed.compareAndSet(false, true);
+    }
+
+    /**
+     * Unseals the buffer.
+     */
+    public void unseal() {
+        sealed.set(false);
+    }
+
+    /**
+     * Checks if the buffer is sealed.
+     *
+     * @return true, if the buffer is sealed
+     */
+    public boolean isSealed() {
+        return sealed.get();
     }
 
     /*
@@ -258,6 +951,27 @@ public class OffHeapByteBuffer implements OffHeapStore {
         return usedMemory.get();
     }
 
+    /**
+     * Gets the memory allocated for the buffer, which is either its capacity
+     * or nothing if it is not committed, even while its retired memory waits
+     * to be released.
+     *
+     * @return the committed memory
+     */
+    public long committedMemory() {
+        return directByteBuffer == null ? 0 : capacity;
+    }
+
+    /**
+     * Returns the amount of dirty memory that can be reclaimed by copying the
+     * live payloads to another buffer and freeing this one.
+     *
+     * @return the reclaimable memory
+     */
+    public long reclaimableMemory() {
+        return dirtyMemory();
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -270,7 +984,7 @@ public class OffHeapByteBuffer implements OffHeapStore {
     /**
      * The Class Allocation.
      */
-    private static class Allocation {
+    protected static class Allocation {
 
         /** The offset. */
         private int offset;
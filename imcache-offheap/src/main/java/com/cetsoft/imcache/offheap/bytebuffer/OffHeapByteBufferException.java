@@ -24,4 +24,14 @@ public class OffHeapByteBufferException extends RuntimeException {
         super(string);
     }
 
+    /**
+     * Instantiates a new off heap byte buffer exception.
+     *
+     * @param string the string
+     * @param cause the cause
+     */
+    public OffHeapByteBufferException(String string, Throwable cause) {
+        super(string, cause);
+    }
+
 }
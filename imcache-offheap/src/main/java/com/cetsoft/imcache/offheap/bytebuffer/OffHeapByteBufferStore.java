@@ -8,15 +8,30 @@
 package com.KyleDing.imcache.offheap.bytebuffer;
 
 import java.nio.BufferOverflowException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+import com.KyleDing.imcache.serialization.ByteBufferSerializer;
+import com.KyleDing.imcache.serialization.StreamingSerializer;
+
 /**
- * The Class OffHeapByteBufferStore.
+ * The Class OffHeapByteBufferStore. The capacity of its buffers is reserved
+ * up front as the ceiling of the store while their memory is committed when
+ * they are first stored to, and a buffer that stays empty for the idle period
+ * is decommitted by {@link #releaseIdleBuffers()}.
+ * <p>
+ * A payload that does not fit a buffer is split into chunks of a quarter of a
+ * buffer, which are stored like other payloads in as many buffers as needed.
+ * Its pointer points to a head that holds the chunk table, the length of the
+ * payload and the buffer and the position of each chunk, and reads reassemble
+ * the chunks in place into the payload.
  */
 public class OffHeapByteBufferStore implements OffHeapStore {
 
@@ -33,7 +48,7 @@ public class OffHeapByteBufferStore implements OffHeapStore {
     private AtomicInteger currentBuffer = new AtomicInteger(0);
 
     /** The buffer change lock. */
-    private Lock bufferChangeLock = new ReentrantLock();
+    protected Lock bufferChangeLock = new ReentrantLock();
 
     /** The Constant DEFAULT_BUFFER_CLEANER_PERIOD. */
     public final static long DEFAULT_BUFFER_CLEANER_PERIOD = 10 * 60 * 1000;// 10
@@ -42,6 +57,27 @@ public class OffHeapByteBufferStore implements OffHeapStore {
     /** The Constant DEFAULT_BUFFER_CLEANER_THRESHOLD. */
     public final static float DEFAULT_BUFFER_CLEANER_THRESHOLD = 0.5f;
 
+    /** The Constant CHUNKS_PER_BUFFER, the number of chunks that fill a buffer. */
+    public final static int CHUNKS_PER_BUFFER = 4;
+
+    /** The number of payloads stored in chunks. */
+    private final AtomicInteger chunkedPayloads = new AtomicInteger(0);
+
+    /** The Constant DEFAULT_IDLE_PERIOD. */
+    public final static long DEFAULT_IDLE_PERIOD = DEFAULT_BUFFER_CLEANER_PERIOD;
+
+    /**
+     * The Constant RETIREMENT_PERIOD, the time the memory of a decommitted
+     * buffer is kept for the optimistic readers that may still be reading it.
+     */
+    public final static long RETIREMENT_PERIOD = 1000;
+
+    /** The idle period after which an empty buffer is decommitted. */
+    private volatile long idlePeriod = DEFAULT_IDLE_PERIOD;
+
+    /** The times the buffers were emptied. */
+    private final AtomicLongArray idleSince;
+
     /**
      * Instantiates a new off heap byte buffer store.
      *
@@ -60,12 +96,38 @@ public class OffHeapByteBufferStore implements OffHeapStore {
      * @param concurrencyLevel the concurrency level
      */
     public OffHeapByteBufferStore(int capacity, int bufferSize, int concurrencyLevel) {
-        this.bufferSize = bufferSize;
-        buffers = new OffHeapByteBuffer[bufferSize];
+        this(new OffHeapByteBuffer[bufferSize]);
+        for (int i = 0; i < bufferSize; i++) {
+            buffers[i] = newBuffer(i, capacity, concurrencyLevel);
+        }
+    }
+
+    /**
+     * Creates the buffer of the given index.
+     *
+     * @param index the index
+     * @param capacity the capacity
+     * @param concurrencyLevel the concurrency level
+     * @return the off heap byte buffer
+     */
+    protected OffHeapByteBuffer newBuffer(int index, int capacity, int concurrencyLevel) {
+        return new OffHeapByteBuffer(index, capacity, concurrencyLevel);
+    }
+
+    /**
+     * Instantiates a new off heap byte buffer store of the given buffers.
+     *
+     * @param buffers the buffers
+     */
+    protected OffHeapByteBufferStore(OffHeapByteBuffer[] buffers) {
+        this.bufferSize = buffers.length;
+        this.buffers = buffers;
         availableBuffers = new LinkedBlockingQueue<Integer>(bufferSize);
+        idleSince = new AtomicLongArray(bufferSize);
+        long now = System.currentTimeMillis();
         for (int i = 0; i < bufferSize; i++) {
             availableBuffers.add(i);
-            buffers[i] = new OffHeapByteBuffer(i, capacity, concurrencyLevel);
+            idleSince.set(i, now);
         }
         currentBuffer.set(availableBuffers.poll());
     }
@@ -78,9 +140,52 @@ public class OffHeapByteBufferStore implements OffHeapStore {
      * .bytebuffer.Pointer)
      */
     public byte[] retrieve(Pointer pointer) {
+        if (isChunked(pointer)) {
+            return retrieveChunked(pointer);
+        }
         return pointer.getOffHeapByteBuffer().retrieve(pointer);
     }
 
+    /**
+     * Deserializes the payload the pointer points to straight from its buffer.
+     *
+     * @param <V> the value type
+     * @param pointer the pointer
+     * @param serializer the serializer
+     * @return the value
+     */
+    public <V> V retrieve(Pointer pointer, ByteBufferSerializer<V> serializer) {
+        if (isChunked(pointer)) {
+            return serializer.deserialize(java.nio.ByteBuffer.wrap(retrieveChunked(pointer)));
+        }
+        return pointer.getOffHeapByteBuffer().retrieve(pointer, serializer);
+    }
+
+    /**
+     * Reads the big endian int at the offset of the payload the pointer points
+     * to without retrieving the payload.
+     *
+     * @param pointer the pointer
+     * @param offset the offset in the payload
+     * @return the int
+     */
+    public int retrieveInt(Pointer pointer, int offset) {
+        if (!isChunked(pointer)) {
+            return pointer.getOffHeapByteBuffer().retrieveInt(pointer.getPosition(), offset);
+        }
+        Pointer[] chunks = chunks(pointer);
+        int chunkLength = chunkLength();
+        if (offset >= 0 && offset / chunkLength == (offset + 3) / chunkLength && offset / chunkLength < chunks.length) {
+            Pointer chunk = chunks[offset / chunkLength];
+            return chunk.getOffHeapByteBuffer().retrieveInt(chunk.getPosition(), offset % chunkLength);
+        }
+        byte[] payload = retrieveChunked(pointer);
+        if (offset < 0 || offset > payload.length - 4) {
+            throw new OffHeapByteBufferException("Offset is out of the payload!");
+        }
+        return java.nio.ByteBuffer.wrap(payload).getInt(offset);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -89,6 +194,9 @@ public class OffHeapByteBufferStore implements OffHeapStore {
      * .bytebuffer.Pointer)
      */
     public byte[] remove(Pointer pointer) {
+        if (isChunked(pointer)) {
+            return removeChunked(pointer);
+        }
         return pointer.getOffHeapByteBuffer().remove(pointer);
     }
 
@@ -98,6 +206,21 @@ public class OffHeapByteBufferStore implements OffHeapStore {
      * @see com.KyleDing.imcache.bytebuffer.OffHeapStore#store(byte[])
      */
     public Pointer store(byte[] payload) {
+        if (payload.length > maxPayloadLength()) {
+            return storeChunked(payload);
+        }
+        return allocate(payload);
+    }
+
+    /**
+     * Stores the payload, which fits a buffer, to the current buffer, moving
+     * to the next buffer if it is full.
+     *
+     * @param payload the payload
+     * @return the pointer
+     * @throws BufferOverflowException if there is no buffer available
+     */
+    protected Pointer allocate(byte[] payload) {
         while (true) {
             try {
                 return currentBuffer().store(payload);
@@ -106,10 +229,242 @@ public class OffHeapByteBufferStore implements OffHeapStore {
                     return currentBuffer().store(payload);
                 } catch (BufferOverflowException overflowException) {
                     nextBuffer();
-                    return store(payload);
+                    return allocate(payload);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores the value by letting the serializer write it straight into a
+     * buffer. A value longer than a buffer is serialized to an array and
+     * stored in chunks.
+     *
+     * @param <V> the value type
+     * @param value the value
+     * @param serializer the serializer
+     * @return the pointer
+     */
+    public <V> Pointer store(V value, StreamingSerializer<V> serializer) {
+        int length = serializer.size(value);
+        if (length > maxPayloadLength()) {
+            return storeChunked(serializer.serialize(value));
+        }
+        return allocate(value, length, serializer);
+    }
+
+    /**
+     * Stores the value, which fits a buffer, to the current buffer, moving to
+     * the next buffer if it is full.
+     *
+     * @param <V> the value type
+     * @param value the value
+     * @param length the serialized size of the value
+     * @param serializer the serializer
+     * @return the pointer
+     * @throws BufferOverflowException if there is no buffer available
+     */
+    protected <V> Pointer allocate(V value, int length, StreamingSerializer<V> serializer) {
+        while (true) {
+            try {
+                return currentBuffer().store(value, length, serializer);
+            } catch (BufferOverflowException exception) {
+                try {
+                    return currentBuffer().store(value, length, serializer);
+                } catch (BufferOverflowException overflowException) {
+                    nextBuffer();
+                    return allocate(value, length, serializer);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores the payload in chunks. The chunks stored so far are removed if
+     * the store runs out of memory.
+     *
+     * @param payload the payload
+     * @return the pointer of the head
+     * @throws BufferOverflowException if there is not enough memory available
+     */
+    protected Pointer storeChunked(byte[] payload) {
+        if (!hasAvailableBuffersFor(payload.length)) {
+            throw new BufferOverflowException();
+        }
+        int chunkLength = chunkLength();
+        int chunkCount = chunkCount(payload.length);
+        java.nio.ByteBuffer table = java.nio.ByteBuffer.allocate(8 + chunkCount * 8);
+        table.putInt(payload.length).putInt(chunkCount);
+        List<Pointer> chunks = new ArrayList<Pointer>(chunkCount);
+        try {
+            for (int offset = 0; offset < payload.length; offset += chunkLength) {
+                Pointer chunk = allocate(Arrays.copyOfRange(payload, offset, Math.min(offset + chunkLength,
+                        payload.length)));
+                chunks.add(chunk);
+                table.putInt(chunk.getOffHeapByteBuffer().getIndex()).putInt(chunk.getPosition());
+            }
+            Pointer head = allocate(table.array());
+            head.getOffHeapByteBuffer().markAsChunked(head.getPosition());
+            chunkedPayloads.incrementAndGet();
+            return head;
+        } catch (BufferOverflowException exception) {
+            for (Pointer chunk : chunks) {
+                chunk.getOffHeapByteBuffer().remove(chunk);
+            }
+            throw exception;
+        }
+    }
+
+    /**
+     * Reassembles the chunked payload the pointer points to, copying each
+     * chunk straight to its place in the payload.
+     *
+     * @param pointer the pointer of the head
+     * @return the payload
+     */
+    protected byte[] retrieveChunked(Pointer pointer) {
+        java.nio.ByteBuffer table = java.nio.ByteBuffer.wrap(pointer.getOffHeapByteBuffer().retrieve(pointer));
+        byte[] payload = new byte[table.getInt()];
+        int chunkCount = table.getInt();
+        int offset = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            OffHeapByteBuffer buffer = buffers[table.getInt()];
+            offset += buffer.retrieve(table.getInt(), payload, offset);
+        }
+        if (offset != payload.length) {
+            throw new OffHeapByteBufferException("Wrong chunk!");
+        }
+        return payload;
+    }
+
+    /**
+     * Removes the chunked payload the pointer points to with its chunks.
+     *
+     * @param pointer the pointer of the head
+     * @return the payload
+     */
+    protected byte[] removeChunked(Pointer pointer) {
+        byte[] payload = retrieveChunked(pointer);
+        for (Pointer chunk : chunks(pointer)) {
+            chunk.getOffHeapByteBuffer().remove(chunk);
+        }
+        pointer.getOffHeapByteBuffer().remove(pointer);
+        chunkedPayloads.decrementAndGet();
+        return payload;
+    }
+
+    /**
+     * Reads the chunk table of the chunked payload the pointer points to.
+     *
+     * @param pointer the pointer of the head
+     * @return the pointers of the chunks
+     */
+    private Pointer[] chunks(Pointer pointer) {
+        // A copy of the pointer is read so that its reference bit is kept.
+        Pointer head = new Pointer(pointer.getPosition(), pointer.getOffHeapByteBuffer());
+        java.nio.ByteBuffer table = java.nio.ByteBuffer.wrap(head.getOffHeapByteBuffer().retrieve(head));
+        table.getInt();
+        Pointer[] chunks = new Pointer[table.getInt()];
+        for (int i = 0; i < chunks.length; i++) {
+            OffHeapByteBuffer buffer = buffers[table.getInt()];
+            chunks[i] = new Pointer(table.getInt(), buffer);
+        }
+        return chunks;
+    }
+
+    /**
+     * Checks if the payload the pointer points to is stored in chunks.
+     *
+     * @param pointer the pointer
+     * @return true, if the payload is chunked
+     */
+    public boolean isChunked(Pointer pointer) {
+        return chunkedPayloads.get() > 0 && pointer.getOffHeapByteBuffer().isChunked(pointer.getPosition());
+    }
+
+    /**
+     * Checks if the payload the pointer points to may be written in place
+     * through its buffer, which holds for payloads that are not chunked.
+     *
+     * @param pointer the pointer
+     * @return true, if the payload is writable in place
+     */
+    public boolean isWritableInPlace(Pointer pointer) {
+        return !isChunked(pointer);
+    }
+
+    /**
+     * Checks if the payload the pointer points to or any of its chunks is
+     * stored in the buffer.
+     *
+     * @param pointer the pointer
+     * @param buffer the buffer
+     * @return true, if the payload is stored in the buffer
+     */
+    public boolean isStoredIn(Pointer pointer, OffHeapByteBuffer buffer) {
+        if (pointer.getOffHeapByteBuffer() == buffer) {
+            return true;
+        }
+        try {
+            if (!isChunked(pointer)) {
+                return false;
+            }
+            for (Pointer chunk : chunks(pointer)) {
+                if (chunk.getOffHeapByteBuffer() == buffer) {
+                    return true;
                 }
             }
+        } catch (OffHeapByteBufferException exception) {
+            // The payload was removed meanwhile.
         }
+        return false;
+    }
+
+    /**
+     * Checks if enough buffers are available to store a payload of the given
+     * length without evicting, a chunked payload needs room for all of its
+     * chunks.
+     *
+     * @param payloadLength the payload length
+     * @return true, if there are enough buffers available
+     */
+    public boolean hasAvailableBuffersFor(int payloadLength) {
+        if (payloadLength <= maxPayloadLength()) {
+            return getAvailableBufferCount() > 0;
+        }
+        long chunkSize = chunkLength() + OffHeapByteBuffer.POINTER_SIZE;
+        long chunks = getAvailableBufferCount() * (buffers[0].capacity / chunkSize) + currentBuffer().freeMemory()
+                / chunkSize;
+        return chunks >= chunkCount(payloadLength);
+    }
+
+    /**
+     * Gets the length of the largest payload that is stored without chunks.
+     *
+     * @return the max payload length
+     */
+    public int maxPayloadLength() {
+        return (int) buffers[0].capacity - OffHeapByteBuffer.POINTER_SIZE;
+    }
+
+    /**
+     * Gets the length of the chunks of a chunked payload.
+     *
+     * @return the chunk length
+     */
+    protected int chunkLength() {
+        return Math.max(1, (int) (buffers[0].capacity / CHUNKS_PER_BUFFER) - OffHeapByteBuffer.POINTER_SIZE);
+    }
+
+    /**
+     * Gets the number of chunks of a payload of the given length.
+     *
+     * @param payloadLength the payload length
+     * @return the chunk count
+     */
+    private int chunkCount(int payloadLength) {
+        int chunkLength = chunkLength();
+        return (payloadLength + chunkLength - 1) / chunkLength;
     }
 
     /**
@@ -150,13 +505,69 @@ public class OffHeapByteBufferStore implements OffHeapStore {
      * .bytebuffer.Pointer, byte[])
      */
     public Pointer update(Pointer pointer, byte[] payload) {
+        OffHeapByteBuffer buffer = pointer.getOffHeapByteBuffer();
+        if (isChunked(pointer) || payload.length > maxPayloadLength()) {
+            remove(pointer);
+            return pointer.copy(store(payload));
+        }
+        if (buffer.isSealed()) {
+            // Updating in place would leave the payload behind in a buffer being emptied.
+            buffer.remove(pointer);
+            return pointer.copy(store(payload));
+        }
         try {
-            return pointer.getOffHeapByteBuffer().update(pointer, payload);
+            return buffer.update(pointer, payload);
         } catch (BufferOverflowException exception) {
             return pointer.copy(store(payload));
         }
     }
 
+    /**
+     * Replaces the payload the pointer points to. Unlike
+     * {@link #update(Pointer, byte[])} the payload is stored before the
+     * replaced payload is removed, so the pointer still points to the replaced
+     * payload if the store runs out of memory.
+     *
+     * @param pointer the pointer
+     * @param payload the payload
+     * @return the pointer
+     * @throws BufferOverflowException if there is not enough memory available
+     */
+    public Pointer replace(Pointer pointer, byte[] payload) {
+        Pointer stored = store(payload);
+        remove(pointer);
+        return pointer.copy(stored);
+    }
+
+    /**
+     * Updates the payload the pointer points to with the value, which the
+     * serializer writes straight into a buffer.
+     *
+     * @param <V> the value type
+     * @param pointer the pointer
+     * @param value the value
+     * @param serializer the serializer
+     * @return the pointer
+     * @see #update(Pointer, byte[])
+     */
+    public <V> Pointer update(Pointer pointer, V value, StreamingSerializer<V> serializer) {
+        OffHeapByteBuffer buffer = pointer.getOffHeapByteBuffer();
+        int length = serializer.size(value);
+        if (isChunked(pointer) || length > maxPayloadLength()) {
+            remove(pointer);
+            return pointer.copy(store(value, serializer));
+        }
+        if (buffer.isSealed()) {
+            buffer.remove(pointer);
+            return pointer.copy(store(value, serializer));
+        }
+        try {
+            return buffer.update(pointer, value, length, serializer);
+        } catch (BufferOverflowException exception) {
+            return pointer.copy(allocate(value, length, serializer));
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -183,10 +594,11 @@ public class OffHeapByteBufferStore implements OffHeapStore {
         return usedMemory;
     }
 
-    /*
-     * (non-Javadoc)
+    /**
+     * Gets the free memory of the buffers, including the memory of the
+     * buffers that are not committed.
      *
-     * @see com.KyleDing.imcache.bytebuffer.OffHeapStore#freeMemory()
+     * @return the free memory
      */
     public long freeMemory() {
         long freeMemory = 0;
@@ -196,6 +608,85 @@ public class OffHeapByteBufferStore implements OffHeapStore {
         return freeMemory;
     }
 
+    /**
+     * Gets the memory allocated for the buffers that are committed.
+     *
+     * @return the committed memory
+     */
+    public long committedMemory() {
+        long committedMemory = 0;
+        for (int i = 0; i < bufferSize; i++) {
+            committedMemory += buffers[i].committedMemory();
+        }
+        return committedMemory;
+    }
+
+    /**
+     * Gets the memory reserved for the buffers, the ceiling of the committed
+     * memory.
+     *
+     * @return the reserved memory
+     */
+    public long reservedMemory() {
+        long reservedMemory = 0;
+        for (int i = 0; i < bufferSize; i++) {
+            reservedMemory += buffers[i].capacity;
+        }
+        return reservedMemory;
+    }
+
+    /**
+     * Decommits the buffers that have been empty for the idle period, except
+     * the current ones. The memory of a decommitted buffer is given back to
+     * the operating system by the first call after the retirement period.
+     *
+     * @return the number of decommitted buffers
+     */
+    public int releaseIdleBuffers() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < bufferSize; i++) {
+            buffers[i].releaseRetired(now - RETIREMENT_PERIOD);
+        }
+        long idleBefore = now - idlePeriod;
+        int released = 0;
+        // Buffers are made current under the lock, so they stay available.
+        bufferChangeLock.lock();
+        try {
+            for (int i = 0; i < bufferSize; i++) {
+                OffHeapByteBuffer buffer = buffers[i];
+                if (buffer.isCommitted() && idleSince.get(i) <= idleBefore && availableBuffers.contains(i)
+                        && !isCurrent(buffer) && buffer.decommit()) {
+                    released++;
+                }
+            }
+        } finally {
+            bufferChangeLock.unlock();
+        }
+        return released;
+    }
+
+    /**
+     * Gets the idle period.
+     *
+     * @return the idle period
+     */
+    public long getIdlePeriod() {
+        return idlePeriod;
+    }
+
+    /**
+     * Sets the period an empty buffer stays committed, a buffer is
+     * decommitted with the first release that follows the period.
+     *
+     * @param idlePeriod the idle period in milliseconds
+     */
+    public void setIdlePeriod(long idlePeriod) {
+        if (idlePeriod < 0) {
+            throw new IllegalArgumentException("Idle period must not be negative!");
+        }
+        this.idlePeriod = idlePeriod;
+    }
+
     /**
      * Free.
      */
@@ -203,6 +694,7 @@ public class OffHeapByteBufferStore implements OffHeapStore {
         for (int i = 0; i < bufferSize; i++) {
             free(i);
         }
+        chunkedPayloads.set(0);
     }
 
     /**
@@ -213,19 +705,141 @@ public class OffHeapByteBufferStore implements OffHeapStore {
     public void free(int bufferIndex) {
         if(!availableBuffers.contains(bufferIndex)){
             buffers[bufferIndex].free();
+            idleSince.set(bufferIndex, System.currentTimeMillis());
             availableBuffers.add(bufferIndex);
         }
     }
 
+    /**
+     * Gets the number of buffers.
+     *
+     * @return the buffer size
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * Gets the buffer of the given index.
+     *
+     * @param bufferIndex the buffer index
+     * @return the off heap byte buffer
+     */
+    public OffHeapByteBuffer getBuffer(int bufferIndex) {
+        return buffers[bufferIndex];
+    }
+
+    /**
+     * Gets the number of buffers that are not in use.
+     *
+     * @return the available buffer count
+     */
+    public int getAvailableBufferCount() {
+        return availableBuffers.size();
+    }
+
     /**
      * Returns the Current buffer.
      *
      * @return the off heap byte buffer
      */
-    protected OffHeapByteBuffer currentBuffer() {
+    public OffHeapByteBuffer currentBuffer() {
         return buffers[currentBuffer.get()];
     }
 
+    /**
+     * Seals the buffer and makes another buffer current if it is the current
+     * one, so that no payload is stored to it until it is freed. A buffer is
+     * sealed by one caller at a time.
+     *
+     * @param buffer the buffer
+     * @return true, if the buffer is sealed by this call, false if it was
+     *         sealed already
+     * @throws BufferOverflowException if there is no other buffer available
+     */
+    public boolean seal(OffHeapByteBuffer buffer) {
+        bufferChangeLock.lock();
+        try {
+            if (!buffer.seal()) {
+                return false;
+            }
+            retire(buffer);
+            return true;
+        } catch (BufferOverflowException exception) {
+            buffer.unseal();
+            throw exception;
+        } finally {
+            bufferChangeLock.unlock();
+        }
+    }
+
+    /**
+     * Makes another buffer current in place of the given buffer if it is
+     * current.
+     *
+     * @param buffer the buffer
+     * @throws BufferOverflowException if there is no other buffer available
+     */
+    protected void retire(OffHeapByteBuffer buffer) {
+        while (currentBuffer() == buffer) {
+            nextBuffer();
+        }
+    }
+
+    /**
+     * Checks if the buffer is free to be made current.
+     *
+     * @param buffer the buffer
+     * @return true, if the buffer is available
+     */
+    public boolean isAvailable(OffHeapByteBuffer buffer) {
+        return availableBuffers.contains(buffer.getIndex());
+    }
+
+    /**
+     * Checks if payloads are being stored to the buffer.
+     *
+     * @param buffer the buffer
+     * @return true, if the buffer is current
+     */
+    public boolean isCurrent(OffHeapByteBuffer buffer) {
+        return currentBuffer() == buffer;
+    }
+
+    /**
+     * Moves the payload of the pointer to another buffer, keeping its access
+     * time and reference bit, and marks its old location as dirty. The pointer is updated to the
+     * new location.
+     *
+     * @param pointer the pointer
+     * @return the length of the moved payload
+     */
+    public int move(Pointer pointer) {
+        return move(pointer, pointer.getOffHeapByteBuffer());
+    }
+
+    /**
+     * Moves the payload of the pointer out of the given buffer, which holds
+     * the payload or one of its chunks.
+     *
+     * @param pointer the pointer
+     * @param buffer the buffer
+     * @return the length of the moved payload
+     */
+    public int move(Pointer pointer, OffHeapByteBuffer buffer) {
+        synchronized (pointer) {
+            Pointer exPointer = new Pointer(pointer.getPosition(), pointer.getAccessTime(),
+                    pointer.getOffHeapByteBuffer());
+            byte[] payload = retrieve(exPointer);
+            Pointer newPointer = store(payload, buffer);
+            newPointer.setAccessTime(pointer.getAccessTime());
+            newPointer.setReferenced(pointer.isReferenced());
+            pointer.copy(newPointer);
+            remove(exPointer);
+            return payload.length;
+        }
+    }
+
     /**
      * Redistributes the pointers to the store.
      *
@@ -10,7 +10,8 @@ package com.KyleDing.imcache.offheap.bytebuffer;
 /**
  * The Class Pointer is a pointer to the stored elements, which keeps position
  * of the payload and related OffHeapByteBuffer. Additionally, it keeps track of
- * access time of the payload.
+ * access time of the payload and whether the payload was referenced since the
+ * last sweep of the cache, reads only set that bit instead of the access time.
  */
 public class Pointer {
 
@@ -23,6 +24,9 @@ public class Pointer {
     /** The off heap byte buffer. */
     protected OffHeapByteBuffer offHeapByteBuffer;
 
+    /** The referenced. */
+    protected boolean referenced;
+
     /**
      * Instantiates a new pointer.
      *
@@ -82,6 +86,34 @@ public class Pointer {
         this.accessTime = accessTime;
     }
 
+    /**
+     * Checks if the payload was referenced since the bit was cleared.
+     *
+     * @return true, if referenced
+     */
+    public boolean isReferenced() {
+        return referenced;
+    }
+
+    /**
+     * Sets the referenced.
+     *
+     * @param referenced the new referenced
+     */
+    public void setReferenced(boolean referenced) {
+        this.referenced = referenced;
+    }
+
+    /**
+     * Marks the payload as referenced, the bit is written only if it is not
+     * set yet so that reads of a hot payload do not write.
+     */
+    public void reference() {
+        if (!referenced) {
+            setReferenced(true);
+        }
+    }
+
     /**
      * Gets the off heap byte buffer.
      *
@@ -108,6 +140,7 @@ public class Pointer {
      */
     public Pointer copy(Pointer pointer) {
         this.accessTime = pointer.accessTime;
+        this.referenced = pointer.referenced;
         this.offHeapByteBuffer = pointer.offHeapByteBuffer;
         this.position = pointer.position;
         return this;
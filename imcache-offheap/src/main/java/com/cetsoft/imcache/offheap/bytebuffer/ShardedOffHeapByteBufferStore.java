@@ -0,0 +1,369 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.bytebuffer;
+
+import java.nio.BufferOverflowException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.KyleDing.imcache.serialization.StreamingSerializer;
+
+/**
+ * The Class ShardedOffHeapByteBufferStore spreads the writers over shards so
+ * that they do not all allocate from a single current buffer. Each thread is
+ * assigned a shard on its first store and each shard has a current buffer of
+ * its own, taken from the available buffers shared by the shards.
+ * <p>
+ * A thread reserves a region of its shard's current buffer at a time and
+ * allocates small payloads inside it with a plain increment, so the offset of
+ * the buffer is updated once per region instead of once per payload. Payloads
+ * larger than a region are stored as in {@link OffHeapByteBufferStore}. The
+ * unused end of a region becomes dirty memory when the thread moves to the
+ * next region; the end of the region of a thread that dies is only reclaimed
+ * when its buffer is compacted or evicted.
+ */
+public class ShardedOffHeapByteBufferStore extends OffHeapByteBufferStore {
+
+    /** The Constant DEFAULT_SHARD_COUNT. */
+    public static final int DEFAULT_SHARD_COUNT = 4;
+
+    /** The Constant DEFAULT_REGION_SIZE. */
+    public static final int DEFAULT_REGION_SIZE = 64 * 1024;
+
+    /** The current buffers of the shards. */
+    private final AtomicIntegerArray currentBuffers;
+
+    /** The region size. */
+    private final int regionSize;
+
+    /** The shard to be assigned to the next thread. */
+    private final AtomicInteger nextShard = new AtomicInteger(0);
+
+    /** The regions, one per thread. */
+    private final ThreadLocal<Region> regions = new ThreadLocal<Region>() {
+        protected Region initialValue() {
+            return new Region((nextShard.getAndIncrement() & Integer.MAX_VALUE) % currentBuffers.length());
+        }
+    };
+
+    /**
+     * Instantiates a new sharded off heap byte buffer store.
+     *
+     * @param capacity the capacity
+     * @param bufferSize the buffer size
+     */
+    public ShardedOffHeapByteBufferStore(int capacity, int bufferSize) {
+        this(capacity, bufferSize, DEFAULT_SHARD_COUNT);
+    }
+
+    /**
+     * Instantiates a new sharded off heap byte buffer store.
+     *
+     * @param capacity the capacity
+     * @param bufferSize the buffer size
+     * @param shardCount the shard count
+     */
+    public ShardedOffHeapByteBufferStore(int capacity, int bufferSize, int shardCount) {
+        this(new OffHeapByteBufferStore(capacity, bufferSize), shardCount);
+    }
+
+    /**
+     * Instantiates a new sharded off heap byte buffer store over the buffers
+     * of the given store, which must not be used afterwards. The number of
+     * shards is limited to half of the buffers, so that buffers are left to
+     * move to when the current ones are full.
+     *
+     * @param bufferStore the buffer store
+     * @param shardCount the shard count
+     */
+    public ShardedOffHeapByteBufferStore(OffHeapByteBufferStore bufferStore, int shardCount) {
+        super(bufferStore.buffers);
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive!");
+        }
+        currentBuffers = new AtomicIntegerArray(Math.max(1, Math.min(shardCount, getBufferSize() / 2)));
+        currentBuffers.set(0, super.currentBuffer().getIndex());
+        for (int i = 1; i < currentBuffers.length(); i++) {
+            currentBuffers.set(i, availableBuffers.poll());
+        }
+        regionSize = (int) Math.min(DEFAULT_REGION_SIZE, buffers[0].capacity / 16);
+        setIdlePeriod(bufferStore.getIdlePeriod());
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#allocate
+     * (byte[])
+     */
+    protected Pointer allocate(byte[] payload) {
+        int length = payload.length + OffHeapByteBuffer.POINTER_SIZE;
+        if (length > regionSize) {
+            return super.allocate(payload);
+        }
+        Region region = regions.get();
+        while (!region.fits(length)) {
+            region.retire();
+            OffHeapByteBuffer buffer = buffers[currentBuffers.get(region.shard)];
+            int generation = buffer.getGeneration();
+            try {
+                region.reset(buffer, generation, buffer.reserve(regionSize));
+            } catch (BufferOverflowException exception) {
+                nextBuffer(region.shard, buffer);
+            }
+        }
+        return region.allocate(payload, length);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#allocate
+     * (java.lang.Object, int,
+     * com.KyleDing.imcache.serialization.StreamingSerializer)
+     */
+    protected <V> Pointer allocate(V value, int payloadLength, StreamingSerializer<V> serializer) {
+        int length = payloadLength + OffHeapByteBuffer.POINTER_SIZE;
+        if (length > regionSize) {
+            return super.allocate(value, payloadLength, serializer);
+        }
+        Region region = regions.get();
+        while (!region.fits(length)) {
+            region.retire();
+            OffHeapByteBuffer buffer = buffers[currentBuffers.get(region.shard)];
+            int generation = buffer.getGeneration();
+            try {
+                region.reset(buffer, generation, buffer.reserve(regionSize));
+            } catch (BufferOverflowException exception) {
+                nextBuffer(region.shard, buffer);
+            }
+        }
+        return region.allocate(value, payloadLength, serializer, length);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#store(byte
+     * [], com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer)
+     */
+    protected Pointer store(byte[] payload, OffHeapByteBuffer buffer) {
+        Region region = regions.get();
+        if (region.buffer == buffer) {
+            region.retire();
+        }
+        return super.store(payload, buffer);
+    }
+
+    /**
+     * Makes the next available buffer current for the shard, unless another
+     * thread of the shard did so since the given buffer was found full.
+     *
+     * @param shard the shard
+     * @param fullBuffer the full buffer
+     * @throws BufferOverflowException if there is no buffer available
+     */
+    protected void nextBuffer(int shard, OffHeapByteBuffer fullBuffer) {
+        bufferChangeLock.lock();
+        try {
+            if (currentBuffers.get(shard) != fullBuffer.getIndex()) {
+                return;
+            }
+            Integer currentBuffer = availableBuffers.poll();
+            if (currentBuffer == null) {
+                throw new BufferOverflowException();
+            }
+            currentBuffers.set(shard, currentBuffer);
+        } finally {
+            bufferChangeLock.unlock();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#nextBuffer
+     * ()
+     */
+    protected void nextBuffer() {
+        int shard = regions.get().shard;
+        nextBuffer(shard, buffers[currentBuffers.get(shard)]);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#currentBuffer
+     * ()
+     */
+    public OffHeapByteBuffer currentBuffer() {
+        return buffers[currentBuffers.get(regions.get().shard)];
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#retire(com
+     * .KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer)
+     */
+    protected void retire(OffHeapByteBuffer buffer) {
+        for (int i = 0; i < currentBuffers.length(); i++) {
+            if (currentBuffers.get(i) == buffer.getIndex()) {
+                nextBuffer(i, buffer);
+            }
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#isCurrent
+     * (com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer)
+     */
+    public boolean isCurrent(OffHeapByteBuffer buffer) {
+        for (int i = 0; i < currentBuffers.length(); i++) {
+            if (currentBuffers.get(i) == buffer.getIndex()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the number of shards.
+     *
+     * @return the shard count
+     */
+    public int getShardCount() {
+        return currentBuffers.length();
+    }
+
+    /**
+     * Gets the size of the regions.
+     *
+     * @return the region size
+     */
+    public int getRegionSize() {
+        return regionSize;
+    }
+
+    /**
+     * The Class Region is the part of a buffer a thread allocates from. It is
+     * only accessed by its thread.
+     */
+    static class Region {
+
+        /** The shard. */
+        final int shard;
+
+        /** The buffer. */
+        OffHeapByteBuffer buffer;
+
+        /** The generation of the buffer the region was reserved in. */
+        int generation;
+
+        /** The position. */
+        int position;
+
+        /** The limit. */
+        int limit;
+
+        /**
+         * Instantiates a new region.
+         *
+         * @param shard the shard
+         */
+        Region(int shard) {
+            this.shard = shard;
+        }
+
+        /**
+         * Checks if a payload of the length can be allocated in the region,
+         * which is not the case once its buffer is sealed or freed.
+         *
+         * @param length the length including the header
+         * @return true, if it fits
+         */
+        boolean fits(int length) {
+            return isValid() && limit - position >= length;
+        }
+
+        /**
+         * Checks if the region still belongs to its buffer.
+         *
+         * @return true, if it is valid
+         */
+        boolean isValid() {
+            return buffer != null && buffer.getGeneration() == generation && !buffer.isSealed();
+        }
+
+        /**
+         * Allocates the payload in the region.
+         *
+         * @param payload the payload
+         * @param length the length including the header
+         * @return the pointer
+         */
+        Pointer allocate(byte[] payload, int length) {
+            Pointer pointer = buffer.write(new OffHeapByteBuffer.Allocation(position, length), payload);
+            position += length;
+            return pointer;
+        }
+
+        /**
+         * Allocates the value in the region, the serializer writes it straight
+         * into the buffer.
+         *
+         * @param <V> the value type
+         * @param value the value
+         * @param payloadLength the serialized size of the value
+         * @param serializer the serializer
+         * @param length the length including the header
+         * @return the pointer
+         */
+        <V> Pointer allocate(V value, int payloadLength, StreamingSerializer<V> serializer, int length) {
+            OffHeapByteBuffer.Allocation allocation = new OffHeapByteBuffer.Allocation(position, length);
+            // The allocation is consumed even if the serializer fails.
+            position += length;
+            return buffer.write(allocation, value, payloadLength, serializer);
+        }
+
+        /**
+         * Resets the region to the allocation.
+         *
+         * @param buffer the buffer
+         * @param generation the generation of the buffer
+         * @param allocation the allocation
+         */
+        void reset(OffHeapByteBuffer buffer, int generation, OffHeapByteBuffer.Allocation allocation) {
+            this.buffer = buffer;
+            this.generation = generation;
+            this.position = allocation.getOffset();
+            this.limit = allocation.getOffset() + allocation.getLength();
+        }
+
+        /**
+         * Gives the unused part of the region back to its buffer as dirty
+         * memory. A buffer that is sealed or freed is left alone since its
+         * memory is reclaimed as a whole.
+         */
+        void retire() {
+            if (isValid() && limit > position) {
+                buffer.discard(limit - position);
+            }
+            buffer = null;
+        }
+    }
+}
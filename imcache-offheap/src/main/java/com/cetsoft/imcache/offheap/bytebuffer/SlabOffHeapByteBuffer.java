@@ -0,0 +1,396 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.bytebuffer;
+
+import java.nio.BufferOverflowException;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.KyleDing.imcache.serialization.StreamingSerializer;
+
+/**
+ * The Class SlabOffHeapByteBuffer allocates payloads in chunks of fixed size
+ * classes instead of bumping a pointer. The classes are spaced by 16 bytes up to
+ * 128 bytes and by four classes per power of two above, as in jemalloc, so a
+ * chunk larger than 128 bytes wastes less than a fifth of its size. Each class keeps a free list of the
+ * chunks that were removed and allocation takes from it before carving a new
+ * chunk out of the buffer, hence freed memory is reused right away and the
+ * buffer does not need to be cleaned.
+ * <p>
+ * The slack of the chunks, the part of a chunk not used by its payload, is
+ * reported as dirty memory while the chunks on the free lists are reported as
+ * free memory, both per size class and for the whole buffer.
+ */
+public class SlabOffHeapByteBuffer extends OffHeapByteBuffer {
+
+    /** The Constant QUANTUM, the spacing of the smallest classes. */
+    static final int QUANTUM = 16;
+
+    /** The Constant QUANTUM_CLASSES, the number of classes spaced by quantum. */
+    static final int QUANTUM_CLASSES = 8;
+
+    /** The Constant CLASSES_PER_DOUBLING. */
+    static final int CLASSES_PER_DOUBLING = 4;
+
+    /** The Constant QUANTUM_SHIFT, the shift of the largest quantum class. */
+    private static final int QUANTUM_SHIFT = 7;
+
+    /** The free lists of the size classes. */
+    private final FreeList[] freeLists;
+
+    /** The used memory of the size classes. */
+    private final AtomicLongArray usedMemory;
+
+    /** The dirty memory of the size classes. */
+    private final AtomicLongArray dirtyMemory;
+
+    /**
+     * Instantiates a new slab off heap byte buffer.
+     *
+     * @param index the index
+     * @param capacity the capacity
+     */
+    public SlabOffHeapByteBuffer(int index, int capacity) {
+        this(index, capacity, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Instantiates a new slab off heap byte buffer.
+     *
+     * @param index the index
+     * @param capacity the capacity
+     * @param concurrencyLevel the concurrency level
+     */
+    public SlabOffHeapByteBuffer(int index, int capacity, int concurrencyLevel) {
+        super(index, capacity, concurrencyLevel);
+        // Only the classes whose chunks fit the buffer are kept.
+        int largestClass = sizeClass(capacity);
+        int sizeClasses = chunkSize(largestClass) == capacity ? largestClass + 1 : largestClass;
+        freeLists = new FreeList[sizeClasses];
+        for (int i = 0; i < sizeClasses; i++) {
+            freeLists[i] = new FreeList();
+        }
+        usedMemory = new AtomicLongArray(sizeClasses);
+        dirtyMemory = new AtomicLongArray(sizeClasses);
+    }
+
+    /**
+     * Finds the smallest size class whose chunks can hold the given length.
+     *
+     * @param length the length including the header
+     * @return the size class
+     */
+    public static int sizeClass(int length) {
+        if (length <= QUANTUM * QUANTUM_CLASSES) {
+            return Math.max(length - 1, 0) / QUANTUM;
+        }
+        int shift = 31 - Integer.numberOfLeadingZeros(length - 1);
+        int spacingShift = shift - 2;
+        int group = shift - QUANTUM_SHIFT;
+        return QUANTUM_CLASSES + group * CLASSES_PER_DOUBLING + ((length - 1 - (1 << shift)) >>> spacingShift);
+    }
+
+    /**
+     * Gets the chunk size of the size class.
+     *
+     * @param sizeClass the size class
+     * @return the chunk size
+     */
+    public static int chunkSize(int sizeClass) {
+        if (sizeClass < QUANTUM_CLASSES) {
+            return (sizeClass + 1) * QUANTUM;
+        }
+        int group = (sizeClass - QUANTUM_CLASSES) / CLASSES_PER_DOUBLING;
+        int step = (sizeClass - QUANTUM_CLASSES) % CLASSES_PER_DOUBLING + 1;
+        int shift = QUANTUM_SHIFT + group;
+        return (1 << shift) + (step << (shift - 2));
+    }
+
+    /**
+     * Gets the number of size classes of the buffer.
+     *
+     * @return the number of size classes
+     */
+    public int sizeClasses() {
+        return freeLists.length;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer#remove(com.
+     * KyleDing.imcache.offheap.bytebuffer.Pointer)
+     */
+    public byte[] remove(Pointer pointer) {
+        readWriteLock.writeLock(pointer.getPosition());
+        try {
+            byte[] payload = retrieve(pointer);
+            release(pointer.getPosition(), payload.length);
+            return payload;
+        } finally {
+            readWriteLock.writeUnlock(pointer.getPosition());
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer#update(com.
+     * KyleDing.imcache.offheap.bytebuffer.Pointer, byte[])
+     */
+    public Pointer update(Pointer pointer, byte[] payload) {
+        readWriteLock.writeLock(pointer.getPosition());
+        try {
+            byte[] exPayload = retrieve(pointer);
+            int sizeClass = sizeClass(exPayload.length + POINTER_SIZE);
+            if (sizeClass == sizeClass(payload.length + POINTER_SIZE)) {
+                // The payload fits the chunk, it is overwritten in place.
+                unaccount(sizeClass, exPayload.length);
+                return store(new Allocation(pointer.getPosition(), chunkSize(sizeClass)), payload);
+            }
+            release(pointer.getPosition(), exPayload.length);
+            return store(payload);
+        } finally {
+            readWriteLock.writeUnlock(pointer.getPosition());
+        }
+    }
+
+    /**
+     * Stores the serialized value, the chunks of the size classes are
+     * accounted for by the payload.
+     *
+     * @param <V> the value type
+     * @param value the value
+     * @param length the serialized size of the value
+     * @param serializer the serializer
+     * @return the pointer
+     */
+    public <V> Pointer store(V value, int length, StreamingSerializer<V> serializer) {
+        return store(serializer.serialize(value));
+    }
+
+    /**
+     * Updates the payload the pointer points to with the serialized value.
+     *
+     * @param <V> the value type
+     * @param pointer the pointer
+     * @param value the value
+     * @param length the serialized size of the value
+     * @param serializer the serializer
+     * @return the pointer
+     */
+    public <V> Pointer update(Pointer pointer, V value, int length, StreamingSerializer<V> serializer) {
+        return update(pointer, serializer.serialize(value));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer#store(com.KyleDing
+     * .imcache.offheap.bytebuffer.OffHeapByteBuffer.Allocation, byte[])
+     */
+    public Pointer store(Allocation allocation, byte[] payload) {
+        int length = payload.length + POINTER_SIZE;
+        int sizeClass = sizeClass(length);
+        usedMemory.addAndGet(sizeClass, length);
+        dirtyMemory.addAndGet(sizeClass, allocation.getLength() - length);
+        directByteBuffer.put(allocation.getOffset(), header(payload.length), 0, POINTER_SIZE);
+        directByteBuffer.put(allocation.getOffset() + POINTER_SIZE, payload, 0, payload.length);
+        return new Pointer(allocation.getOffset(), this);
+    }
+
+    /**
+     * Allocates a chunk of the size class of the payload, reusing a free one if
+     * there is any.
+     *
+     * @param payload the payload
+     * @return the allocation
+     */
+    protected Allocation allocate(byte[] payload) {
+        int sizeClass = sizeClass(payload.length + POINTER_SIZE);
+        if (sizeClass >= freeLists.length) {
+            throw new BufferOverflowException();
+        }
+        int chunkSize = chunkSize(sizeClass);
+        int chunkOffset = freeLists[sizeClass].pop();
+        if (chunkOffset == FreeList.EMPTY) {
+            int allocationOffset = offset.addAndGet(chunkSize);
+            if (allocationOffset > capacity) {
+                throw new BufferOverflowException();
+            }
+            chunkOffset = allocationOffset - chunkSize;
+        }
+        return new Allocation(chunkOffset, chunkSize);
+    }
+
+    /**
+     * Marks the chunk as dirty and puts it to the free list of its class.
+     *
+     * @param chunkOffset the chunk offset
+     * @param payloadLength the payload length
+     */
+    protected void release(int chunkOffset, int payloadLength) {
+        int sizeClass = sizeClass(payloadLength + POINTER_SIZE);
+        unaccount(sizeClass, payloadLength);
+        markAsDirty(chunkOffset);
+        freeLists[sizeClass].push(chunkOffset);
+    }
+
+    /**
+     * Removes the payload from the used and dirty memory of its class.
+     *
+     * @param sizeClass the size class
+     * @param payloadLength the payload length
+     */
+    private void unaccount(int sizeClass, int payloadLength) {
+        int length = payloadLength + POINTER_SIZE;
+        usedMemory.addAndGet(sizeClass, -length);
+        dirtyMemory.addAndGet(sizeClass, length - chunkSize(sizeClass));
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer#free()
+     */
+    public void free() {
+        super.free();
+        for (int i = 0; i < freeLists.length; i++) {
+            freeLists[i].clear();
+            usedMemory.set(i, 0);
+            dirtyMemory.set(i, 0);
+        }
+    }
+
+    /**
+     * Gets the used memory of the size class.
+     *
+     * @param sizeClass the size class
+     * @return the used memory
+     */
+    public long usedMemory(int sizeClass) {
+        return usedMemory.get(sizeClass);
+    }
+
+    /**
+     * Gets the dirty memory of the size class, the slack of its chunks in use.
+     *
+     * @param sizeClass the size class
+     * @return the dirty memory
+     */
+    public long dirtyMemory(int sizeClass) {
+        return dirtyMemory.get(sizeClass);
+    }
+
+    /**
+     * Gets the free memory of the size class, the chunks on its free list.
+     *
+     * @param sizeClass the size class
+     * @return the free memory
+     */
+    public long freeMemory(int sizeClass) {
+        return (long) freeLists[sizeClass].size() * chunkSize(sizeClass);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer#dirtyMemory()
+     */
+    public long dirtyMemory() {
+        long memory = 0;
+        for (int i = 0; i < freeLists.length; i++) {
+            memory += dirtyMemory.get(i);
+        }
+        return memory;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer#usedMemory()
+     */
+    public long usedMemory() {
+        long memory = 0;
+        for (int i = 0; i < freeLists.length; i++) {
+            memory += usedMemory.get(i);
+        }
+        return memory;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer#reclaimableMemory
+     * ()
+     */
+    public long reclaimableMemory() {
+        // Slack moves along with the payloads, copying them reclaims nothing.
+        return 0;
+    }
+
+    /**
+     * The Class FreeList is a stack of chunk offsets.
+     */
+    static class FreeList {
+
+        /** The Constant EMPTY. */
+        static final int EMPTY = -1;
+
+        /** The offsets. */
+        private int[] offsets = new int[16];
+
+        /** The size. */
+        private int size;
+
+        /**
+         * Pushes the offset.
+         *
+         * @param offset the offset
+         */
+        synchronized void push(int offset) {
+            if (size == offsets.length) {
+                int[] newOffsets = new int[size * 2];
+                System.arraycopy(offsets, 0, newOffsets, 0, size);
+                offsets = newOffsets;
+            }
+            offsets[size++] = offset;
+        }
+
+        /**
+         * Pops the last pushed offset.
+         *
+         * @return the offset, {@link #EMPTY} if there is none
+         */
+        synchronized int pop() {
+            if (size == 0) {
+                return EMPTY;
+            }
+            return offsets[--size];
+        }
+
+        /**
+         * Gets the size.
+         *
+         * @return the size
+         */
+        synchronized int size() {
+            return size;
+        }
+
+        /**
+         * Clears the list.
+         */
+        synchronized void clear() {
+            size = 0;
+        }
+    }
+}
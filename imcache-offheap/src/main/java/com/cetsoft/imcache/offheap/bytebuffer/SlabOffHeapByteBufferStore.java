@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.bytebuffer;
+
+/**
+ * The Class SlabOffHeapByteBufferStore is a store of
+ * {@link SlabOffHeapByteBuffer}s, whose removed chunks are reused by the next
+ * payloads of the same size class.
+ */
+public class SlabOffHeapByteBufferStore extends OffHeapByteBufferStore {
+
+    /**
+     * Instantiates a new slab off heap byte buffer store.
+     *
+     * @param capacity the capacity
+     * @param bufferSize the buffer size
+     */
+    public SlabOffHeapByteBufferStore(int capacity, int bufferSize) {
+        super(capacity, bufferSize);
+    }
+
+    /**
+     * Instantiates a new slab off heap byte buffer store.
+     *
+     * @param capacity the capacity
+     * @param bufferSize the buffer size
+     * @param concurrencyLevel the concurrency level
+     */
+    public SlabOffHeapByteBufferStore(int capacity, int bufferSize, int concurrencyLevel) {
+        super(capacity, bufferSize, concurrencyLevel);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore#newBuffer
+     * (int, int, int)
+     */
+    protected OffHeapByteBuffer newBuffer(int index, int capacity, int concurrencyLevel) {
+        return new SlabOffHeapByteBuffer(index, capacity, concurrencyLevel);
+    }
+
+}
@@ -0,0 +1,918 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.index;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.KyleDing.imcache.offheap.bytebuffer.ByteBuffer;
+import com.KyleDing.imcache.offheap.bytebuffer.ByteBufferFactory;
+import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer;
+import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore;
+import com.KyleDing.imcache.offheap.bytebuffer.Pointer;
+import com.KyleDing.imcache.offheap.bytebuffer.SlabOffHeapByteBufferStore;
+import com.KyleDing.imcache.serialization.Serializer;
+
+/**
+ * The Class OffHeapHashIndex is a map from keys to pointers that lives in
+ * native memory, so that an off heap cache does not keep a heap object per
+ * entry. The index is split into segments, each of which is an open addressing
+ * hash table with linear probing guarded by its own lock. A slot keeps the hash
+ * of the serialized key, its length and address in the key store, and the
+ * address and access time of the payload, where an address packs the index of
+ * a buffer and the position in it. Keys are serialized with the key serializer
+ * and stored in a slab store, lookups compare the serialized key with the
+ * stored one in place.
+ * <p>
+ * Pointers returned by the index are views of their slot, setting their access
+ * time or reference bit or copying another pointer to them writes through to
+ * the index, where the reference bit is the sign bit of the access time. The
+ * key store must not be the store of the payloads.
+ *
+ * @param <K> the key type
+ */
+public class OffHeapHashIndex<K> extends AbstractMap<K, Pointer> implements ConcurrentMap<K, Pointer> {
+
+    /** The Constant DEFAULT_CONCURRENCY_LEVEL. */
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    /** The Constant DEFAULT_INITIAL_CAPACITY. */
+    public static final int DEFAULT_INITIAL_CAPACITY = 1024;
+
+    /** The Constant SLOT_SIZE. */
+    static final int SLOT_SIZE = 32;
+
+    /** The Constant HASH_OFFSET. */
+    static final int HASH_OFFSET = 0;
+
+    /** The Constant KEY_LENGTH_OFFSET. */
+    static final int KEY_LENGTH_OFFSET = 4;
+
+    /** The Constant KEY_ADDRESS_OFFSET. */
+    static final int KEY_ADDRESS_OFFSET = 8;
+
+    /** The Constant VALUE_ADDRESS_OFFSET. */
+    static final int VALUE_ADDRESS_OFFSET = 16;
+
+    /** The Constant ACCESS_TIME_OFFSET. */
+    static final int ACCESS_TIME_OFFSET = 24;
+
+    /** The Constant REFERENCED, the bit of the access time marking a referenced payload. */
+    static final long REFERENCED = Long.MIN_VALUE;
+
+    /** The Constant EMPTY, the hash of an empty slot. */
+    static final int EMPTY = 0;
+
+    /** The Constant MAXIMUM_SLOTS of a segment, bounded by a buffer. */
+    static final int MAXIMUM_SLOTS = 1 << 25;
+
+    /** The Constant LOAD_FACTOR. */
+    static final float LOAD_FACTOR = 0.75f;
+
+    /** The key serializer. */
+    private final Serializer<K> keySerializer;
+
+    /** The buffer store of the payloads. */
+    private final OffHeapByteBufferStore bufferStore;
+
+    /** The key store. */
+    private final SlabOffHeapByteBufferStore keyStore;
+
+    /** The segments. */
+    private final Segment[] segments;
+
+    /** The segment shift. */
+    private final int segmentShift;
+
+    /**
+     * Instantiates a new off heap hash index.
+     *
+     * @param keySerializer the key serializer
+     * @param bufferStore the buffer store of the payloads
+     * @param keyStore the key store
+     */
+    public OffHeapHashIndex(Serializer<K> keySerializer, OffHeapByteBufferStore bufferStore,
+            SlabOffHeapByteBufferStore keyStore) {
+        this(keySerializer, bufferStore, keyStore, DEFAULT_INITIAL_CAPACITY, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Instantiates a new off heap hash index.
+     *
+     * @param keySerializer the key serializer
+     * @param bufferStore the buffer store of the payloads
+     * @param keyStore the key store
+     * @param initialCapacity the initial capacity
+     * @param concurrencyLevel the concurrency level
+     */
+    @SuppressWarnings("unchecked")
+    public OffHeapHashIndex(Serializer<K> keySerializer, OffHeapByteBufferStore bufferStore,
+            SlabOffHeapByteBufferStore keyStore, int initialCapacity, int concurrencyLevel) {
+        if (initialCapacity < 0 || concurrencyLevel <= 0) {
+            throw new IllegalArgumentException();
+        }
+        if (keyStore == bufferStore) {
+            throw new IllegalArgumentException("Key store must not be the buffer store!");
+        }
+        this.keySerializer = keySerializer;
+        this.bufferStore = bufferStore;
+        this.keyStore = keyStore;
+        int segmentCount = 1;
+        int segmentBits = 0;
+        while (segmentCount < concurrencyLevel) {
+            segmentCount <<= 1;
+            segmentBits++;
+        }
+        segmentShift = 32 - segmentBits;
+        int slots = 2;
+        while (slots * segmentCount * LOAD_FACTOR < initialCapacity && slots < MAXIMUM_SLOTS) {
+            slots <<= 1;
+        }
+        segments = new OffHeapHashIndex.Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(slots);
+        }
+    }
+
+    /**
+     * Spreads the hash of the serialized key, never returning {@link #EMPTY}.
+     *
+     * @param key the serialized key
+     * @return the hash
+     */
+    static int hash(byte[] key) {
+        int hash = Arrays.hashCode(key);
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash == EMPTY ? 1 : hash;
+    }
+
+    /**
+     * Packs the buffer index and the position into an address.
+     *
+     * @param bufferIndex the buffer index
+     * @param position the position
+     * @return the address
+     */
+    static long address(int bufferIndex, int position) {
+        return ((long) bufferIndex << 32) | (position & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Gets the address of the pointer.
+     *
+     * @param pointer the pointer
+     * @return the address
+     */
+    static long address(Pointer pointer) {
+        return address(pointer.getOffHeapByteBuffer().getIndex(), pointer.getPosition());
+    }
+
+    /**
+     * Gets the access time of the pointer with its reference bit.
+     *
+     * @param pointer the pointer
+     * @return the stamp
+     */
+    static long stamp(Pointer pointer) {
+        return pointer.isReferenced() ? pointer.getAccessTime() | REFERENCED : pointer.getAccessTime();
+    }
+
+    /**
+     * Gets the buffer index of the address.
+     *
+     * @param address the address
+     * @return the buffer index
+     */
+    static int bufferIndex(long address) {
+        return (int) (address >>> 32);
+    }
+
+    /**
+     * Gets the position of the address.
+     *
+     * @param address the address
+     * @return the position
+     */
+    static int position(long address) {
+        return (int) address;
+    }
+
+    /**
+     * Gets the segment of the hash.
+     *
+     * @param hash the hash
+     * @return the segment
+     */
+    Segment segmentFor(int hash) {
+        return segments[segmentShift == 32 ? 0 : hash >>> segmentShift];
+    }
+
+    /**
+     * Serializes the key.
+     *
+     * @param key the key
+     * @return the serialized key
+     */
+    @SuppressWarnings("unchecked")
+    byte[] serialize(Object key) {
+        return keySerializer.serialize((K) key);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.AbstractMap#get(java.lang.Object)
+     */
+    @Override
+    public Pointer get(Object key) {
+        byte[] serializedKey = serialize(key);
+        int hash = hash(serializedKey);
+        Segment segment = segmentFor(hash);
+        segment.readLock().lock();
+        try {
+            int slot = segment.find(hash, serializedKey);
+            return slot < 0 ? null : segment.pointer(slot, serializedKey, hash);
+        } finally {
+            segment.readLock().unlock();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.AbstractMap#containsKey(java.lang.Object)
+     */
+    @Override
+    public boolean containsKey(Object key) {
+        byte[] serializedKey = serialize(key);
+        int hash = hash(serializedKey);
+        Segment segment = segmentFor(hash);
+        segment.readLock().lock();
+        try {
+            return segment.find(hash, serializedKey) >= 0;
+        } finally {
+            segment.readLock().unlock();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.AbstractMap#put(java.lang.Object, java.lang.Object)
+     */
+    @Override
+    public Pointer put(K key, Pointer pointer) {
+        return put(key, pointer, false);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.concurrent.ConcurrentMap#putIfAbsent(java.lang.Object,
+     * java.lang.Object)
+     */
+    public Pointer putIfAbsent(K key, Pointer pointer) {
+        return put(key, pointer, true);
+    }
+
+    /**
+     * Puts the pointer of the key.
+     *
+     * @param key the key
+     * @param pointer the pointer
+     * @param onlyIfAbsent the only if absent
+     * @return the previous pointer
+     */
+    Pointer put(K key, Pointer pointer, boolean onlyIfAbsent) {
+        byte[] serializedKey = serialize(key);
+        int hash = hash(serializedKey);
+        Segment segment = segmentFor(hash);
+        segment.writeLock().lock();
+        try {
+            int slot = segment.find(hash, serializedKey);
+            if (slot >= 0) {
+                Pointer previous = segment.pointer(slot, serializedKey, hash);
+                if (!onlyIfAbsent) {
+                    segment.setValue(slot, address(pointer), stamp(pointer));
+                }
+                return previous;
+            }
+            segment.insert(hash, serializedKey, address(pointer), stamp(pointer));
+            return null;
+        } finally {
+            segment.writeLock().unlock();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.concurrent.ConcurrentMap#replace(java.lang.Object,
+     * java.lang.Object)
+     */
+    public Pointer replace(K key, Pointer pointer) {
+        byte[] serializedKey = serialize(key);
+        int hash = hash(serializedKey);
+        Segment segment = segmentFor(hash);
+        segment.writeLock().lock();
+        try {
+            int slot = segment.find(hash, serializedKey);
+            if (slot < 0) {
+                return null;
+            }
+            Pointer previous = segment.pointer(slot, serializedKey, hash);
+            segment.setValue(slot, address(pointer), stamp(pointer));
+            return previous;
+        } finally {
+            segment.writeLock().unlock();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.concurrent.ConcurrentMap#replace(java.lang.Object,
+     * java.lang.Object, java.lang.Object)
+     */
+    public boolean replace(K key, Pointer oldPointer, Pointer newPointer) {
+        byte[] serializedKey = serialize(key);
+        int hash = hash(serializedKey);
+        Segment segment = segmentFor(hash);
+        segment.writeLock().lock();
+        try {
+            int slot = segment.find(hash, serializedKey);
+            if (slot < 0 || segment.valueAddress(slot) != address(oldPointer)) {
+                return false;
+            }
+            segment.setValue(slot, address(newPointer), stamp(newPointer));
+            return true;
+        } finally {
+            segment.writeLock().unlock();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.AbstractMap#remove(java.lang.Object)
+     */
+    @Override
+    public Pointer remove(Object key) {
+        byte[] serializedKey = serialize(key);
+        int hash = hash(serializedKey);
+        Segment segment = segmentFor(hash);
+        segment.writeLock().lock();
+        try {
+            int slot = segment.find(hash, serializedKey);
+            if (slot < 0) {
+                return null;
+            }
+            Pointer previous = segment.pointer(slot, serializedKey, hash);
+            segment.delete(slot);
+            return previous;
+        } finally {
+            segment.writeLock().unlock();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.concurrent.ConcurrentMap#remove(java.lang.Object,
+     * java.lang.Object)
+     */
+    public boolean remove(Object key, Object value) {
+        if (!(value instanceof Pointer)) {
+            return false;
+        }
+        byte[] serializedKey = serialize(key);
+        int hash = hash(serializedKey);
+        Segment segment = segmentFor(hash);
+        segment.writeLock().lock();
+        try {
+            int slot = segment.find(hash, serializedKey);
+            if (slot < 0 || segment.valueAddress(slot) != address((Pointer) value)) {
+                return false;
+            }
+            segment.delete(slot);
+            return true;
+        } finally {
+            segment.writeLock().unlock();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.AbstractMap#size()
+     */
+    @Override
+    public int size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.count;
+        }
+        return size > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) size;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.AbstractMap#isEmpty()
+     */
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.util.AbstractMap#clear()
+     */
+    @Override
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.writeLock().lock();
+            try {
+                segment.clear();
+            } finally {
+                segment.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the entries, whose keys are deserialized and whose
+     * pointers write through to the index. Removing an entry by the iterator
+     * removes its key from the index.
+     *
+     * @return the set of entries
+     */
+    @Override
+    public Set<Map.Entry<K, Pointer>> entrySet() {
+        final List<Map.Entry<K, Pointer>> entries = new ArrayList<Map.Entry<K, Pointer>>();
+        for (Segment segment : segments) {
+            segment.readLock().lock();
+            try {
+                segment.collect(entries);
+            } finally {
+                segment.readLock().unlock();
+            }
+        }
+        return new AbstractSet<Map.Entry<K, Pointer>>() {
+            public Iterator<Map.Entry<K, Pointer>> iterator() {
+                final Iterator<Map.Entry<K, Pointer>> iterator = entries.iterator();
+                return new Iterator<Map.Entry<K, Pointer>>() {
+                    Map.Entry<K, Pointer> current;
+
+                    public boolean hasNext() {
+                        return iterator.hasNext();
+                    }
+
+                    public Map.Entry<K, Pointer> next() {
+                        current = iterator.next();
+                        return current;
+                    }
+
+                    public void remove() {
+                        if (current == null) {
+                            throw new IllegalStateException();
+                        }
+                        OffHeapHashIndex.this.remove(current.getKey());
+                        current = null;
+                    }
+                };
+            }
+
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+    /**
+     * The Class Segment is an open addressing hash table in native memory.
+     */
+    final class Segment extends ReentrantReadWriteLock {
+
+        /** The Constant serialVersionUID. */
+        private static final long serialVersionUID = -2382624470215407587L;
+
+        /** The table. */
+        ByteBuffer table;
+
+        /** The number of slots, a power of two. */
+        int slots;
+
+        /** The number of keys. */
+        volatile int count;
+
+        /**
+         * The generation, changed whenever keys move between slots, so that a
+         * pointer knows whether its slot is still its own.
+         */
+        int generation;
+
+        /**
+         * Instantiates a new segment.
+         *
+         * @param slots the slots
+         */
+        Segment(int slots) {
+            this.slots = slots;
+            this.table = ByteBufferFactory.getDefault().allocate(slots * SLOT_SIZE);
+        }
+
+        /**
+         * Finds the slot of the key, must be called holding a lock.
+         *
+         * @param hash the hash
+         * @param key the serialized key
+         * @return the slot, -1 if the key is absent
+         */
+        int find(int hash, byte[] key) {
+            int mask = slots - 1;
+            for (int slot = hash & mask;; slot = (slot + 1) & mask) {
+                int slotHash = hash(slot);
+                if (slotHash == EMPTY) {
+                    return -1;
+                }
+                if (slotHash == hash && table.getInt(slot * SLOT_SIZE + KEY_LENGTH_OFFSET) == key.length
+                        && keyEquals(slot, key)) {
+                    return slot;
+                }
+            }
+        }
+
+        /**
+         * Compares the stored key of the slot with the key in place.
+         *
+         * @param slot the slot
+         * @param key the serialized key
+         * @return true, if equal
+         */
+        boolean keyEquals(int slot, byte[] key) {
+            long keyAddress = keyAddress(slot);
+            return keyStore.getBuffer(bufferIndex(keyAddress)).contentEquals(position(keyAddress), key);
+        }
+
+        /**
+         * Inserts the key, which must be absent, must be called holding the
+         * write lock.
+         *
+         * @param hash the hash
+         * @param key the serialized key
+         * @param valueAddress the value address
+         * @param accessTime the access time
+         */
+        void insert(int hash, byte[] key, long valueAddress, long accessTime) {
+            if (count + 1 > slots * LOAD_FACTOR) {
+                resize();
+            }
+            long keyAddress = address(keyStore.store(key));
+            int mask = slots - 1;
+            int slot = hash & mask;
+            while (hash(slot) != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            int offset = slot * SLOT_SIZE;
+            table.putInt(offset + HASH_OFFSET, hash);
+            table.putInt(offset + KEY_LENGTH_OFFSET, key.length);
+            table.putLong(offset + KEY_ADDRESS_OFFSET, keyAddress);
+            setValue(slot, valueAddress, accessTime);
+            count++;
+        }
+
+        /**
+         * Deletes the key of the slot, shifting the following keys of the
+         * probe sequence back, must be called holding the write lock.
+         *
+         * @param slot the slot
+         */
+        void delete(int slot) {
+            long keyAddress = keyAddress(slot);
+            keyStore.remove(new Pointer(position(keyAddress), keyStore.getBuffer(bufferIndex(keyAddress))));
+            int mask = slots - 1;
+            int hole = slot;
+            for (int next = (slot + 1) & mask; hash(next) != EMPTY; next = (next + 1) & mask) {
+                int home = hash(next) & mask;
+                // The key moves to the hole unless its home lies between them.
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    move(next, hole);
+                    hole = next;
+                }
+            }
+            clearSlot(hole);
+            count--;
+            generation++;
+        }
+
+        /**
+         * Doubles the number of slots.
+         */
+        void resize() {
+            if (slots >= MAXIMUM_SLOTS) {
+                throw new IllegalStateException("Off heap hash index segment is full!");
+            }
+            ByteBuffer oldTable = table;
+            int oldSlots = slots;
+            slots = oldSlots << 1;
+            table = ByteBufferFactory.getDefault().allocate(slots * SLOT_SIZE);
+            int mask = slots - 1;
+            for (int oldSlot = 0; oldSlot < oldSlots; oldSlot++) {
+                int oldOffset = oldSlot * SLOT_SIZE;
+                int hash = oldTable.getInt(oldOffset + HASH_OFFSET);
+                if (hash == EMPTY) {
+                    continue;
+                }
+                int slot = hash & mask;
+                while (hash(slot) != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                int offset = slot * SLOT_SIZE;
+                for (int i = 0; i < SLOT_SIZE; i += 8) {
+                    table.putLong(offset + i, oldTable.getLong(oldOffset + i));
+                }
+            }
+            oldTable.free();
+            generation++;
+        }
+
+        /**
+         * Removes all of the keys, must be called holding the write lock.
+         */
+        void clear() {
+            for (int slot = 0; slot < slots; slot++) {
+                if (hash(slot) != EMPTY) {
+                    long keyAddress = keyAddress(slot);
+                    keyStore.remove(new Pointer(position(keyAddress), keyStore.getBuffer(bufferIndex(keyAddress))));
+                    clearSlot(slot);
+                }
+            }
+            count = 0;
+            generation++;
+        }
+
+        /**
+         * Adds the entries of the segment, must be called holding a lock.
+         *
+         * @param entries the entries
+         */
+        void collect(List<Map.Entry<K, Pointer>> entries) {
+            for (int slot = 0; slot < slots; slot++) {
+                int hash = hash(slot);
+                if (hash == EMPTY) {
+                    continue;
+                }
+                long keyAddress = keyAddress(slot);
+                byte[] serializedKey = keyStore.retrieve(new Pointer(position(keyAddress), keyStore
+                        .getBuffer(bufferIndex(keyAddress))));
+                entries.add(new SimpleEntry<K, Pointer>(keySerializer.deserialize(serializedKey), pointer(slot,
+                        serializedKey, hash)));
+            }
+        }
+
+        /**
+         * Creates a pointer viewing the slot, must be called holding a lock.
+         *
+         * @param slot the slot
+         * @param key the serialized key
+         * @param hash the hash
+         * @return the pointer
+         */
+        Pointer pointer(int slot, byte[] key, int hash) {
+            long valueAddress = valueAddress(slot);
+            OffHeapByteBuffer buffer = bufferStore.getBuffer(bufferIndex(valueAddress));
+            long accessTime = accessTime(slot);
+            return new IndexPointer(position(valueAddress), accessTime & ~REFERENCED, (accessTime & REFERENCED) != 0,
+                    buffer, this, key, hash, slot, generation);
+        }
+
+        /**
+         * Sets the value address and the access time of the slot.
+         *
+         * @param slot the slot
+         * @param valueAddress the value address
+         * @param accessTime the access time
+         */
+        void setValue(int slot, long valueAddress, long accessTime) {
+            int offset = slot * SLOT_SIZE;
+            table.putLong(offset + VALUE_ADDRESS_OFFSET, valueAddress);
+            table.putLong(offset + ACCESS_TIME_OFFSET, accessTime);
+        }
+
+        /**
+         * Sets the access time of the slot.
+         *
+         * @param slot the slot
+         * @param accessTime the access time
+         */
+        void setAccessTime(int slot, long accessTime) {
+            table.putLong(slot * SLOT_SIZE + ACCESS_TIME_OFFSET, accessTime);
+        }
+
+        /**
+         * Gets the hash of the slot.
+         *
+         * @param slot the slot
+         * @return the hash
+         */
+        int hash(int slot) {
+            return table.getInt(slot * SLOT_SIZE + HASH_OFFSET);
+        }
+
+        /**
+         * Gets the key address of the slot.
+         *
+         * @param slot the slot
+         * @return the key address
+         */
+        long keyAddress(int slot) {
+            return table.getLong(slot * SLOT_SIZE + KEY_ADDRESS_OFFSET);
+        }
+
+        /**
+         * Gets the value address of the slot.
+         *
+         * @param slot the slot
+         * @return the value address
+         */
+        long valueAddress(int slot) {
+            return table.getLong(slot * SLOT_SIZE + VALUE_ADDRESS_OFFSET);
+        }
+
+        /**
+         * Gets the access time of the slot.
+         *
+         * @param slot the slot
+         * @return the access time
+         */
+        long accessTime(int slot) {
+            return table.getLong(slot * SLOT_SIZE + ACCESS_TIME_OFFSET);
+        }
+
+        /**
+         * Moves the slot to another one.
+         *
+         * @param from the from
+         * @param to the to
+         */
+        void move(int from, int to) {
+            for (int i = 0; i < SLOT_SIZE; i += 8) {
+                table.putLong(to * SLOT_SIZE + i, table.getLong(from * SLOT_SIZE + i));
+            }
+        }
+
+        /**
+         * Clears the slot.
+         *
+         * @param slot the slot
+         */
+        void clearSlot(int slot) {
+            for (int i = 0; i < SLOT_SIZE; i += 8) {
+                table.putLong(slot * SLOT_SIZE + i, 0L);
+            }
+        }
+    }
+
+    /**
+     * The Class IndexPointer is a pointer that writes its changes through to
+     * its slot in the index.
+     */
+    final class IndexPointer extends Pointer {
+
+        /** The segment. */
+        private final Segment segment;
+
+        /** The serialized key. */
+        private final byte[] key;
+
+        /** The hash. */
+        private final int hash;
+
+        /** The slot. */
+        private int slot;
+
+        /** The generation of the segment the slot belongs to. */
+        private int generation;
+
+        /**
+         * Instantiates a new index pointer.
+         *
+         * @param position the position
+         * @param accessTime the access time
+         * @param referenced the referenced
+         * @param offHeapByteBuffer the off heap byte buffer
+         * @param segment the segment
+         * @param key the serialized key
+         * @param hash the hash
+         * @param slot the slot
+         * @param generation the generation
+         */
+        IndexPointer(int position, long accessTime, boolean referenced, OffHeapByteBuffer offHeapByteBuffer,
+                Segment segment, byte[] key, int hash, int slot, int generation) {
+            super(position, accessTime, offHeapByteBuffer);
+            this.referenced = referenced;
+            this.segment = segment;
+            this.key = key;
+            this.hash = hash;
+            this.slot = slot;
+            this.generation = generation;
+        }
+
+        /**
+         * Finds the slot of the key, must be called holding a lock.
+         *
+         * @return the slot, -1 if the key is removed
+         */
+        private int slot() {
+            if (generation != segment.generation) {
+                slot = segment.find(hash, key);
+                generation = segment.generation;
+            }
+            return slot;
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * com.KyleDing.imcache.offheap.bytebuffer.Pointer#setAccessTime(long)
+         */
+        @Override
+        public void setAccessTime(long accessTime) {
+            super.setAccessTime(accessTime);
+            writeAccessTime();
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * com.KyleDing.imcache.offheap.bytebuffer.Pointer#setReferenced(boolean)
+         */
+        @Override
+        public void setReferenced(boolean referenced) {
+            super.setReferenced(referenced);
+            writeAccessTime();
+        }
+
+        /**
+         * Writes the access time and the reference bit through to the slot.
+         */
+        private void writeAccessTime() {
+            // Racing access times are fine, the latest one wins.
+            segment.readLock().lock();
+            try {
+                int slot = slot();
+                if (slot >= 0) {
+                    segment.setAccessTime(slot, stamp(this));
+                }
+            } finally {
+                segment.readLock().unlock();
+            }
+        }
+
+        /*
+         * (non-Javadoc)
+         *
+         * @see
+         * com.KyleDing.imcache.offheap.bytebuffer.Pointer#copy(com.KyleDing.
+         * imcache.offheap.bytebuffer.Pointer)
+         */
+        @Override
+        public Pointer copy(Pointer pointer) {
+            long oldAddress = address(this);
+            super.copy(pointer);
+            segment.writeLock().lock();
+            try {
+                int slot = slot();
+                // The key is left alone if it was updated meanwhile.
+                if (slot >= 0 && segment.valueAddress(slot) == oldAddress) {
+                    segment.setValue(slot, address(this), stamp(this));
+                }
+            } finally {
+                segment.writeLock().unlock();
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.KyleDing.imcache.cache.CollectionItem;
+import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore;
+import com.KyleDing.imcache.serialization.Serializer;
+
+/**
+ * The Class CollectionOffHeapCacheTest.
+ */
+public class CollectionOffHeapCacheTest {
+
+    /** The store. */
+    OffHeapByteBufferStore store;
+
+    /** The cache. */
+    CollectionOffHeapCache<String, Integer> cache;
+
+    /**
+     * Setup.
+     */
+    @Before
+    public void setup() {
+        store = new OffHeapByteBufferStore(100000, 2);
+        cache = new CollectionOffHeapCache<String, Integer>(store, OffHeapCacheTest.INTEGER_SERIALIZER, 100000000,
+                0.5f, 1, 100000000);
+    }
+
+    /**
+     * Appended elements are iterated in order, segments double as they fill.
+     */
+    @Test
+    public void appendAndIterate() {
+        for (int i = 0; i < 100; i++) {
+            cache.append("feed", i);
+        }
+        Iterator<Integer> iterator = cache.iterate("feed");
+        for (int i = 0; i < 100; i++) {
+            assertEquals(Integer.valueOf(i), iterator.next());
+        }
+        assertFalse(iterator.hasNext());
+        // Each element takes 8 bytes, 256 + 512 bytes hold 96 of them.
+        assertEquals(3, cache.getSegmentCount("feed"));
+        assertEquals(100, cache.get("feed").getValue().size());
+        assertFalse(cache.iterate("other").hasNext());
+        assertNull(cache.get("other"));
+    }
+
+    /**
+     * Appends to a segment with room write the element in place.
+     */
+    @Test
+    public void appendInPlace() {
+        cache.append("feed", 1);
+        long usedMemory = store.usedMemory();
+        long dirtyMemory = store.dirtyMemory();
+        for (int i = 0; i < 31; i++) {
+            cache.append("feed", i);
+        }
+        assertEquals(usedMemory, store.usedMemory());
+        assertEquals(dirtyMemory, store.dirtyMemory());
+        assertEquals(1, cache.getSegmentCount("feed"));
+        cache.append("feed", 32);
+        assertEquals(2, cache.getSegmentCount("feed"));
+        assertEquals(usedMemory + 512 + 5, store.usedMemory());
+    }
+
+    /**
+     * Chains of too many segments are packed into one segment.
+     */
+    @Test
+    public void compactChains() {
+        cache.setMaxSegments(2);
+        for (int i = 0; i < 100; i++) {
+            cache.append("feed", i);
+        }
+        cache.append("short", 1);
+        cache.compactChains();
+        assertEquals(1, cache.getSegmentCount("feed"));
+        assertEquals(1, cache.getSegmentCount("short"));
+        // 800 bytes with a half more room.
+        assertEquals(1200 + 5 + 256 + 5, store.usedMemory());
+        cache.append("feed", 100);
+        List<Integer> elements = new ArrayList<Integer>(cache.get("feed").getValue());
+        assertEquals(101, elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            assertEquals(Integer.valueOf(i), elements.get(i));
+        }
+    }
+
+    /**
+     * Put replaces a collection, invalidate removes its segments.
+     */
+    @Test
+    public void putAndInvalidate() {
+        for (int i = 0; i < 50; i++) {
+            cache.append("feed", i);
+        }
+        cache.put("feed", new CollectionItem<Integer>(Arrays.asList(7, 8)));
+        assertEquals(Arrays.asList(7, 8), new ArrayList<Integer>(cache.get("feed").getValue()));
+        assertEquals(1, cache.getSegmentCount("feed"));
+        cache.append("feed", 9);
+        assertEquals(Arrays.asList(7, 8, 9), new ArrayList<Integer>(cache.invalidate("feed").getValue()));
+        assertFalse(cache.contains("feed"));
+        assertNull(cache.invalidate("feed"));
+        assertEquals(0, store.usedMemory());
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * Idle chains are evicted as a whole.
+     */
+    @Test
+    public void doEviction() {
+        cache.append("idle", 1);
+        cache.append("active", 2);
+        cache.chains.get("idle").accessTime = 0;
+        cache.doEviction(1000);
+        assertFalse(cache.contains("idle"));
+        assertTrue(cache.contains("active"));
+        assertEquals(256 + 5, store.usedMemory());
+    }
+
+    /**
+     * Evicting a segment evicts its chain, no collection loses elements in
+     * the middle.
+     */
+    @Test
+    public void evictSegments() {
+        OffHeapByteBufferStore smallStore = new OffHeapByteBufferStore(1024, 2);
+        CollectionOffHeapCache<String, Integer> smallCache = new CollectionOffHeapCache<String, Integer>(smallStore,
+                OffHeapCacheTest.INTEGER_SERIALIZER, 100000000, 0.5f, 1, 100000000);
+        for (int i = 0; i < 20; i++) {
+            for (int key = 0; key < 10; key++) {
+                smallCache.append("feed" + key, i);
+            }
+        }
+        int evictedKeys = 0;
+        for (int key = 0; key < 10; key++) {
+            CollectionItem<Integer> item = smallCache.get("feed" + key);
+            if (item == null || item.getValue().size() < 20) {
+                evictedKeys++;
+            }
+            if (item != null) {
+                List<Integer> elements = new ArrayList<Integer>(item.getValue());
+                for (int i = 0; i < elements.size(); i++) {
+                    assertEquals(Integer.valueOf(20 - elements.size() + i), elements.get(i));
+                }
+            }
+        }
+        assertTrue(evictedKeys > 0);
+    }
+
+    /**
+     * Elements of any length are appended.
+     */
+    @Test
+    public void appendLargeElements() {
+        CollectionOffHeapCache<String, byte[]> bytesCache = new CollectionOffHeapCache<String, byte[]>(store,
+                new Serializer<byte[]>() {
+                    public byte[] serialize(byte[] value) {
+                        return value;
+                    }
+
+                    public byte[] deserialize(byte[] payload) {
+                        return payload;
+                    }
+                }, 100000000, 0.5f, 1, 100000000);
+        byte[] large = new byte[1000];
+        large[999] = 1;
+        bytesCache.append("feed", new byte[] { 1 });
+        bytesCache.append("feed", large);
+        bytesCache.append("feed", new byte[0]);
+        Iterator<byte[]> iterator = bytesCache.iterate("feed");
+        assertArrayEquals(new byte[] { 1 }, iterator.next());
+        assertArrayEquals(large, iterator.next());
+        assertArrayEquals(new byte[0], iterator.next());
+        assertFalse(iterator.hasNext());
+    }
+}
@@ -7,13 +7,18 @@
  */
 package com.KyleDing.imcache.offheap;
 
-import java.util.ArrayList;
-import java.util.Collection;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -28,9 +33,14 @@ import com.KyleDing.imcache.cache.CacheLoader;
 import com.KyleDing.imcache.cache.EvictionListener;
 import com.KyleDing.imcache.cache.search.IndexHandler;
 import com.KyleDing.imcache.offheap.OffHeapCache;
+import com.KyleDing.imcache.offheap.bytebuffer.DeduplicatingOffHeapByteBufferStore;
 import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer;
+import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferException;
 import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore;
+import com.KyleDing.imcache.offheap.bytebuffer.ShardedOffHeapByteBufferStore;
 import com.KyleDing.imcache.offheap.bytebuffer.Pointer;
+import com.KyleDing.imcache.serialization.ByteBufferSerializer;
+import com.KyleDing.imcache.serialization.LongSerializer;
 import com.KyleDing.imcache.serialization.Serializer;
 
 /**
@@ -74,6 +84,30 @@ public class OffHeapCacheTest {
     @Mock
     Pointer pointer;
 
+    /** The Constant INTEGER_SERIALIZER. */
+    static final Serializer<Integer> INTEGER_SERIALIZER = new Serializer<Integer>() {
+        public byte[] serialize(Integer value) {
+            return new byte[] { (byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8),
+                    value.byteValue() };
+        }
+
+        public Integer deserialize(byte[] payload) {
+            return ((payload[0] & 0xff) << 24) | ((payload[1] & 0xff) << 16) | ((payload[2] & 0xff) << 8)
+                    | (payload[3] & 0xff);
+        }
+    };
+
+    /** The Constant BYTES_SERIALIZER. */
+    static final Serializer<byte[]> BYTES_SERIALIZER = new Serializer<byte[]>() {
+        public byte[] serialize(byte[] value) {
+            return value;
+        }
+
+        public byte[] deserialize(byte[] payload) {
+            return payload;
+        }
+    };
+
     /** The cache. */
     OffHeapCache<Object, Object> cache;
 
@@ -175,6 +209,62 @@ public class OffHeapCacheTest {
         assertEquals(object, actualObject);
     }
 
+    /**
+     * Put all.
+     */
+    @Test
+    public void putAll() {
+        byte[] bytes = new byte[100];
+        random.nextBytes(bytes);
+        Object object = new Object();
+        Map<Object, Object> entries = new HashMap<Object, Object>();
+        entries.put(object, object);
+        doReturn(null).when(pointerMap).get(object);
+        doReturn(pointer).when(bufferStore).store(bytes);
+        doReturn(bytes).when(serializer).serialize(object);
+        cache.putAll(entries);
+        verify(pointerMap).put(object, pointer);
+    }
+
+    /**
+     * Gets the all.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void getAll() {
+        byte[] bytes = new byte[100];
+        random.nextBytes(bytes);
+        Object cachedObject = new Object();
+        Object loadedObject = new Object();
+        doReturn(pointer).when(pointerMap).get(cachedObject);
+        doReturn(null).when(pointerMap).get(loadedObject);
+        doReturn(bytes).when(bufferStore).retrieve(pointer);
+        doReturn(cachedObject).when(serializer).deserialize(bytes);
+        doReturn(loadedObject).when(cacheLoader).load(loadedObject);
+        doNothing().when(cache).put(loadedObject, loadedObject);
+        Map<Object, Object> values = cache.getAll(Arrays.asList(cachedObject, loadedObject));
+        assertEquals(2, values.size());
+        assertEquals(cachedObject, values.get(cachedObject));
+        assertEquals(loadedObject, values.get(loadedObject));
+        verify(cache).put(loadedObject, loadedObject);
+    }
+
+    /**
+     * Invalidate all.
+     */
+    @Test
+    public void invalidateAll() {
+        Object object = new Object();
+        Object missingObject = new Object();
+        doReturn(pointer).when(pointerMap).remove(object);
+        doReturn(null).when(pointerMap).remove(missingObject);
+        doReturn(new byte[0]).when(bufferStore).remove(pointer);
+        cache.invalidateAll(Arrays.asList(object, missingObject));
+        verify(pointerMap).remove(object);
+        verify(pointerMap).remove(missingObject);
+        verify(bufferStore).remove(pointer);
+    }
+
     /**
      * Contains.
      */
@@ -235,25 +325,289 @@ public class OffHeapCacheTest {
         verify(cache).invalidate(object);
     }
 
+    /**
+     * Do eviction of a referenced item, its access time is caught up.
+     */
+    @Test
+    public void doEvictionReferenced() {
+        Set<Entry<Object, Pointer>> entries = new HashSet<Entry<Object, Pointer>>();
+        entries.add(entry);
+        doReturn(entries).when(pointerMap).entrySet();
+        doReturn(pointer).when(entry).getValue();
+        doReturn(true).when(pointer).isReferenced();
+        doReturn(-1000L).when(pointer).getAccessTime();
+        cache.doEviction(-1110000L);
+        verify(pointer).setAccessTime(anyLong());
+        verify(pointer).setReferenced(false);
+        verify(cache, never()).invalidate(any());
+    }
+
+    /**
+     * Put from threads with sharded store.
+     */
+    @Test
+    public void putFromThreadsWithShardedStore() throws InterruptedException {
+        ShardedOffHeapByteBufferStore store = new ShardedOffHeapByteBufferStore(65536, 8, 4);
+        final OffHeapCache<Integer, Integer> offHeapCache = new OffHeapCache<Integer, Integer>(null, null, null,
+                store, INTEGER_SERIALIZER, 100000000, 0.5f, 4, 100000000);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final int from = i * 1000;
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int key = from; key < from + 1000; key++) {
+                        offHeapCache.put(key, key);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4000, offHeapCache.size());
+        for (int key = 0; key < 4000; key++) {
+            assertEquals(Integer.valueOf(key), offHeapCache.get(key));
+        }
+    }
+
+    /**
+     * Evict when full with sharded store.
+     */
+    @Test
+    public void evictWhenFullWithShardedStore() {
+        ShardedOffHeapByteBufferStore store = new ShardedOffHeapByteBufferStore(1600, 4, 2);
+        OffHeapCache<Integer, Integer> offHeapCache = new OffHeapCache<Integer, Integer>(null, null, null, store,
+                INTEGER_SERIALIZER, 100000000, 0.5f, 1, 100000000);
+        for (int i = 0; i < 1000; i++) {
+            offHeapCache.put(i, i);
+            assertEquals(Integer.valueOf(i), offHeapCache.get(i));
+        }
+        assertTrue(offHeapCache.size() < 1000);
+    }
+
+    /**
+     * Evicts instead of overflowing when every buffer is in use.
+     */
+    @Test
+    public void evictWhenFull() {
+        final Map<Integer, Integer> evicted = new HashMap<Integer, Integer>();
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 3);
+        OffHeapCache<Integer, Integer> offHeapCache = new OffHeapCache<Integer, Integer>(null,
+                new EvictionListener<Integer, Integer>() {
+                    public void onEviction(Integer key, Integer value) {
+                        evicted.put(key, value);
+                    }
+                }, null, store, INTEGER_SERIALIZER, 100000000, 0.5f, 1, 100000000);
+        // A buffer holds 111 items.
+        for (int i = 0; i < 333; i++) {
+            offHeapCache.put(i, i);
+        }
+        assertTrue(evicted.isEmpty());
+        for (int i = 0; i < 111; i++) {
+            assertEquals(Integer.valueOf(i), offHeapCache.get(i));
+        }
+        offHeapCache.put(333, 333);
+        // The second buffer was not referenced.
+        assertEquals(111, evicted.size());
+        for (int i = 111; i < 222; i++) {
+            assertEquals(Integer.valueOf(i), evicted.get(i));
+            assertFalse(offHeapCache.contains(i));
+        }
+        for (int i = 0; i < 111; i++) {
+            assertEquals(Integer.valueOf(i), offHeapCache.get(i));
+        }
+        assertEquals(Integer.valueOf(333), offHeapCache.get(333));
+        assertEquals(223, offHeapCache.size());
+    }
+
+    /**
+     * Put all evicts instead of overflowing when every buffer is in use.
+     */
+    @Test
+    public void putAllEvictsWhenFull() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 3);
+        OffHeapCache<Integer, Integer> offHeapCache = new OffHeapCache<Integer, Integer>(null, null, null, store,
+                INTEGER_SERIALIZER, 100000000, 0.5f, 1, 100000000);
+        Map<Integer, Integer> entries = new HashMap<Integer, Integer>();
+        for (int i = 0; i < 1000; i++) {
+            entries.put(i, i);
+        }
+        offHeapCache.putAll(entries);
+        assertTrue(offHeapCache.size() < 1000);
+        for (int i = 0; i < 1000; i++) {
+            if (offHeapCache.contains(i)) {
+                assertEquals(Integer.valueOf(i), offHeapCache.get(i));
+            }
+        }
+    }
+
     /**
      * Clean buffers.
      */
     @Test
-    @SuppressWarnings("unchecked")
     public void cleanBuffers() {
         float bufferCleanerThreshold = 0.5f;
-        Collection<Pointer> values = new ArrayList<Pointer>();
-        values.add(pointer);
-        doReturn(values).when(pointerMap).values();
-        doReturn(buffer).when(pointer).getOffHeapByteBuffer();
-        doReturn(0).when(buffer).getIndex();
-        doReturn(bufferCleanerThreshold + 0.1f).when(cache).getDirtyRatio(pointer);
-        doNothing().when(bufferStore).redistribute(anyList());
-        doNothing().when(bufferStore).free(0);
+        OffHeapByteBuffer dirtyBuffer = bufferStore.getBuffer(1);
+        OffHeapByteBuffer dirtierBuffer = bufferStore.getBuffer(2);
+        doReturn(bufferCleanerThreshold + 0.1f).when(cache).getDirtyRatio(dirtyBuffer);
+        doReturn(bufferCleanerThreshold + 0.2f).when(cache).getDirtyRatio(dirtierBuffer);
+        doNothing().when(cache).compact(dirtierBuffer);
         cache.cleanBuffers(bufferCleanerThreshold);
-        verify(cache).getDirtyRatio(pointer);
-        verify(bufferStore).free(0);
-        verify(bufferStore).redistribute(anyList());
+        verify(cache).compact(dirtierBuffer);
+        verify(cache, never()).compact(dirtyBuffer);
+    }
+
+    /**
+     * Clean buffers when no buffer exceeds the threshold.
+     */
+    @Test
+    public void cleanBuffersBelowThreshold() {
+        cache.cleanBuffers(0.5f);
+        verify(cache, never()).compact(any(OffHeapByteBuffer.class));
+    }
+
+    /**
+     * Gets while the item is written, moved and removed, reads never see a
+     * torn value.
+     */
+    @Test
+    public void getWhileWriting() throws InterruptedException {
+        final OffHeapByteBufferStore store = new OffHeapByteBufferStore(100000, 4);
+        final OffHeapCache<Integer, byte[]> offHeapCache = new OffHeapCache<Integer, byte[]>(null, null, null,
+                store, new Serializer<byte[]>() {
+                    public byte[] serialize(byte[] value) {
+                        return value;
+                    }
+
+                    public byte[] deserialize(byte[] payload) {
+                        return payload;
+                    }
+                }, 100000000, 0.5f, 1, 100000000);
+        final AtomicBoolean torn = new AtomicBoolean();
+        final AtomicBoolean done = new AtomicBoolean();
+        Thread reader = new Thread() {
+            public void run() {
+                while (!done.get()) {
+                    byte[] value = offHeapCache.get(1);
+                    for (int i = 0; value != null && i < value.length; i++) {
+                        if (value[i] != value.length) {
+                            torn.set(true);
+                        }
+                    }
+                }
+            }
+        };
+        reader.start();
+        for (int i = 0; i < 20000; i++) {
+            // Shorter values are written in place, longer ones elsewhere.
+            byte[] value = new byte[1 + i % 50];
+            Arrays.fill(value, (byte) value.length);
+            offHeapCache.put(1, value);
+            if (i % 1000 == 0) {
+                offHeapCache.compact(store.getBuffer(0));
+                offHeapCache.invalidate(1);
+            }
+        }
+        done.set(true);
+        reader.join();
+        assertFalse(torn.get());
+    }
+
+    /**
+     * Gets with a byte buffer serializer, the payload is not copied.
+     */
+    @Test
+    public void getWithByteBufferSerializer() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 1);
+        OffHeapCache<Integer, Integer> offHeapCache = new OffHeapCache<Integer, Integer>(null, null, null, store,
+                new ByteBufferSerializer<Integer>() {
+                    public byte[] serialize(Integer value) {
+                        return INTEGER_SERIALIZER.serialize(value);
+                    }
+
+                    public Integer deserialize(byte[] payload) {
+                        throw new UnsupportedOperationException();
+                    }
+
+                    public Integer deserialize(ByteBuffer buffer) {
+                        return buffer.getInt();
+                    }
+                }, 100000000, 0.5f, 1, 100000000);
+        offHeapCache.put(1, 42);
+        offHeapCache.put(2, -7);
+        assertEquals(Integer.valueOf(42), offHeapCache.get(1));
+        assertEquals(Integer.valueOf(-7), offHeapCache.getAll(Arrays.asList(1, 2)).get(2));
+    }
+
+    /**
+     * Compaction moves the items of the most fragmented buffer and frees it.
+     */
+    @Test
+    public void compact() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 3);
+        OffHeapCache<Integer, Integer> offHeapCache = new OffHeapCache<Integer, Integer>(null, null, null, store,
+                INTEGER_SERIALIZER, 100000000, 0.5f, 1, 100000000);
+        for (int i = 0; i < 100; i++) {
+            offHeapCache.put(i, i);
+        }
+        OffHeapByteBuffer firstBuffer = store.getBuffer(0);
+        for (int i = 0; i < 100; i += 2) {
+            offHeapCache.invalidate(i);
+        }
+        offHeapCache.compact(firstBuffer);
+        assertEquals(0, firstBuffer.usedMemory());
+        assertEquals(0, firstBuffer.dirtyMemory());
+        assertFalse(firstBuffer.isSealed());
+        assertEquals(50, offHeapCache.size());
+        for (int i = 1; i < 100; i += 2) {
+            assertEquals(Integer.valueOf(i), offHeapCache.get(i));
+        }
+        assertEquals(1, offHeapCache.getCompactionCount());
+        assertTrue(offHeapCache.getCompactedBytes() > 0);
+        assertTrue(offHeapCache.getCompactionPauseTime() >= offHeapCache.getMaxCompactionPauseTime());
+    }
+
+    /**
+     * Compaction is requested once a buffer exceeds the threshold.
+     *
+     * @throws InterruptedException the interrupted exception
+     */
+    @Test
+    public void compactWhenDirty() throws InterruptedException {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 3);
+        OffHeapCache<Integer, Integer> offHeapCache = new OffHeapCache<Integer, Integer>(null, null, null, store,
+                INTEGER_SERIALIZER, 100000000, 0.5f, 1, 100000000);
+        for (int i = 0; i < 200; i++) {
+            offHeapCache.put(i, i);
+        }
+        for (int i = 0; i < 200; i++) {
+            if (i % 10 != 0) {
+                offHeapCache.invalidate(i);
+            }
+        }
+        for (int i = 0; i < 100 && offHeapCache.getCompactionCount() == 0; i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(offHeapCache.getCompactionCount() > 0);
+        for (int i = 0; i < 200; i += 10) {
+            assertEquals(Integer.valueOf(i), offHeapCache.get(i));
+        }
+    }
+
+    /**
+     * Compaction is given up if there is no other buffer to move to.
+     */
+    @Test
+    public void compactWithoutAvailableBuffer() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 1);
+        OffHeapCache<Integer, Integer> offHeapCache = new OffHeapCache<Integer, Integer>(null, null, null, store,
+                INTEGER_SERIALIZER, 100000000, 0.5f, 1, 100000000);
+        offHeapCache.put(1, 1);
+        offHeapCache.compact(store.getBuffer(0));
+        assertFalse(store.getBuffer(0).isSealed());
+        assertEquals(Integer.valueOf(1), offHeapCache.get(1));
+        assertEquals(0, offHeapCache.getCompactionCount());
     }
 
     /**
@@ -293,4 +647,388 @@ public class OffHeapCacheTest {
         verify(cache, atLeast(1)).cleanBuffers(1);
         verify(cache, atLeast(1)).doEviction(1);
     }
+
+    /**
+     * Values larger than a buffer are stored in chunks.
+     */
+    @Test
+    public void putLargeValue() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 8);
+        OffHeapCache<Integer, byte[]> offHeapCache = new OffHeapCache<Integer, byte[]>(null, null, null, store,
+                BYTES_SERIALIZER, 100000000, 0.5f, 1, 100000000);
+        byte[] value = new byte[2500];
+        random.nextBytes(value);
+        offHeapCache.put(1, value);
+        offHeapCache.put(2, new byte[] { 2 });
+        assertArrayEquals(value, offHeapCache.get(1));
+        byte[] newValue = new byte[1500];
+        random.nextBytes(newValue);
+        offHeapCache.put(1, newValue);
+        assertArrayEquals(newValue, offHeapCache.get(1));
+        assertArrayEquals(newValue, offHeapCache.invalidate(1));
+        assertArrayEquals(new byte[] { 2 }, offHeapCache.get(2));
+        assertEquals(6, store.usedMemory());
+    }
+
+    /**
+     * Evicting a buffer evicts the values with a chunk in it.
+     */
+    @Test
+    public void evictLargeValues() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 4);
+        OffHeapCache<Integer, byte[]> offHeapCache = new OffHeapCache<Integer, byte[]>(null, null, null, store,
+                BYTES_SERIALIZER, 100000000, 0.5f, 1, 100000000);
+        for (int i = 0; i < 20; i++) {
+            byte[] value = new byte[1200 + i];
+            Arrays.fill(value, (byte) i);
+            offHeapCache.put(i, value);
+            byte[] actualValue = offHeapCache.get(i);
+            assertEquals(1200 + i, actualValue.length);
+            assertEquals((byte) i, actualValue[actualValue.length - 1]);
+        }
+        for (int i = 0; i < 20; i++) {
+            if (offHeapCache.contains(i)) {
+                byte[] expectedValue = new byte[1200 + i];
+                Arrays.fill(expectedValue, (byte) i);
+                assertArrayEquals(expectedValue, offHeapCache.get(i));
+            }
+        }
+        assertTrue(offHeapCache.size() < 20);
+    }
+
+    /**
+     * Compaction moves the values with a chunk in the buffer.
+     */
+    @Test
+    public void compactLargeValues() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 4);
+        OffHeapCache<Integer, byte[]> offHeapCache = new OffHeapCache<Integer, byte[]>(null, null, null, store,
+                BYTES_SERIALIZER, 100000000, 0.5f, 1, 100000000);
+        byte[] value = new byte[1500];
+        random.nextBytes(value);
+        offHeapCache.put(1, value);
+        // The head is in the second buffer, the first one holds chunks only.
+        OffHeapByteBuffer firstBuffer = store.getBuffer(0);
+        offHeapCache.compact(firstBuffer);
+        assertEquals(1, offHeapCache.getCompactionCount());
+        // The freed buffer is overwritten by the next value.
+        offHeapCache.put(2, new byte[900]);
+        assertArrayEquals(value, offHeapCache.get(1));
+    }
+
+    /**
+     * Identical values share one copy, which is compacted once for all keys.
+     */
+    @Test
+    public void putDeduplicatedValues() {
+        DeduplicatingOffHeapByteBufferStore store = new DeduplicatingOffHeapByteBufferStore(4096, 4);
+        OffHeapCache<Integer, byte[]> offHeapCache = new OffHeapCache<Integer, byte[]>(null, null, null, store,
+                BYTES_SERIALIZER, 100000000, 0.5f, 1, 100000000);
+        byte[] template = new byte[500];
+        random.nextBytes(template);
+        for (int i = 0; i < 5; i++) {
+            offHeapCache.put(i, template.clone());
+        }
+        offHeapCache.put(5, new byte[500]);
+        assertEquals(2 * 505, store.usedMemory());
+        assertArrayEquals(template, offHeapCache.invalidate(0));
+        assertEquals(2 * 505, store.usedMemory());
+        offHeapCache.put(1, new byte[500]);
+        assertEquals(3, store.referenceCount(offHeapCache.pointerMap.get(2)));
+        OffHeapByteBuffer buffer = offHeapCache.pointerMap.get(2).getOffHeapByteBuffer();
+        offHeapCache.compact(buffer);
+        assertEquals(1, offHeapCache.getCompactionCount());
+        assertEquals(2 * 500, offHeapCache.getCompactedBytes());
+        for (int i = 2; i < 5; i++) {
+            assertArrayEquals(template, offHeapCache.get(i));
+        }
+        assertEquals(2 * 505, store.usedMemory());
+    }
+
+    /**
+     * Evicting a buffer evicts all keys sharing its copies.
+     */
+    @Test
+    public void evictDeduplicatedValues() {
+        DeduplicatingOffHeapByteBufferStore store = new DeduplicatingOffHeapByteBufferStore(1024, 2);
+        OffHeapCache<Integer, byte[]> offHeapCache = new OffHeapCache<Integer, byte[]>(null, null, null, store,
+                BYTES_SERIALIZER, 100000000, 0.5f, 1, 100000000);
+        byte[] template = new byte[600];
+        for (int i = 0; i < 3; i++) {
+            offHeapCache.put(i, template.clone());
+        }
+        byte[] other = new byte[600];
+        other[0] = 1;
+        offHeapCache.put(3, other);
+        byte[] another = new byte[600];
+        another[0] = 2;
+        offHeapCache.put(4, another);
+        assertArrayEquals(another, offHeapCache.get(4));
+        for (int i = 0; i < 3; i++) {
+            assertFalse(offHeapCache.contains(i));
+        }
+        assertArrayEquals(other, offHeapCache.get(3));
+        assertEquals(0, store.sharedMemory());
+    }
+
+    /**
+     * Counters are added to in place.
+     */
+    @Test
+    public void addAndGet() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 2);
+        OffHeapCache<String, Long> offHeapCache = new OffHeapCache<String, Long>(null, null, null, store,
+                new LongSerializer(), 100000000, 0.5f, 1, 100000000);
+        assertEquals(5, offHeapCache.addAndGet("counter", 5));
+        Pointer pointer = offHeapCache.pointerMap.get("counter");
+        assertEquals(-2, offHeapCache.addAndGet("counter", -7));
+        assertSame(pointer, offHeapCache.pointerMap.get("counter"));
+        assertEquals(0, pointer.getPosition());
+        assertEquals(Long.valueOf(-2), offHeapCache.get("counter"));
+        offHeapCache.put("counter", 40L);
+        assertEquals(42, offHeapCache.addAndGet("counter", 2));
+        assertEquals(13, store.usedMemory());
+        assertEquals(0, store.dirtyMemory());
+    }
+
+    /**
+     * Values of a streaming serializer are written straight into the buffers.
+     */
+    @Test
+    public void putStreaming() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 2);
+        LongSerializer serializer = spy(new LongSerializer());
+        OffHeapCache<String, Long> offHeapCache = new OffHeapCache<String, Long>(null, null, null, store,
+                serializer, 100000000, 0.5f, 1, 100000000);
+        offHeapCache.put("a", 1L);
+        offHeapCache.put("b", 2L);
+        offHeapCache.put("a", 3L);
+        assertEquals(Long.valueOf(3L), offHeapCache.get("a"));
+        assertEquals(Long.valueOf(2L), offHeapCache.get("b"));
+        verify(serializer, never()).serialize(anyLong());
+        assertEquals(2 * (LongSerializer.SIZE + 5), store.usedMemory());
+        assertEquals(0, store.dirtyMemory());
+    }
+
+    /**
+     * An item whose serializer fails while it is updated is removed.
+     */
+    @Test
+    public void putStreamingFails() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 2);
+        OffHeapCache<String, Long> offHeapCache = new OffHeapCache<String, Long>(null, null, null, store,
+                new LongSerializer() {
+                    public void serialize(Long value, ByteBuffer buffer) {
+                        if (value < 0) {
+                            throw new IllegalArgumentException();
+                        }
+                        super.serialize(value, buffer);
+                    }
+                }, 100000000, 0.5f, 1, 100000000);
+        offHeapCache.put("a", 1L);
+        try {
+            offHeapCache.put("a", -1L);
+            fail();
+        } catch (IllegalArgumentException exception) {
+            // expected
+        }
+        assertFalse(offHeapCache.contains("a"));
+        assertEquals(0, store.usedMemory());
+    }
+
+    /**
+     * Counters are set in place if they hold the expected value.
+     */
+    @Test
+    public void compareAndSet() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 2);
+        OffHeapCache<String, Long> offHeapCache = new OffHeapCache<String, Long>(null, null, null, store,
+                new LongSerializer(), 100000000, 0.5f, 1, 100000000);
+        assertFalse(offHeapCache.compareAndSet("counter", 0, 1));
+        assertFalse(offHeapCache.contains("counter"));
+        offHeapCache.put("counter", 7L);
+        assertFalse(offHeapCache.compareAndSet("counter", 6, 1));
+        assertEquals(Long.valueOf(7), offHeapCache.get("counter"));
+        assertTrue(offHeapCache.compareAndSet("counter", 7, 1));
+        assertEquals(Long.valueOf(1), offHeapCache.get("counter"));
+        assertEquals(13, store.usedMemory());
+    }
+
+    /**
+     * A value of another width is not a counter.
+     */
+    @Test(expected = OffHeapByteBufferException.class)
+    public void addAndGetNotLong() {
+        OffHeapCache<Integer, Integer> offHeapCache = new OffHeapCache<Integer, Integer>(null, null, null,
+                new OffHeapByteBufferStore(1000, 2), INTEGER_SERIALIZER, 100000000, 0.5f, 1, 100000000);
+        offHeapCache.put(1, 3);
+        offHeapCache.addAndGet(1, 1);
+    }
+
+    /**
+     * Concurrent increments are not lost.
+     */
+    @Test
+    public void addAndGetConcurrently() throws InterruptedException {
+        final OffHeapCache<Integer, Long> offHeapCache = new OffHeapCache<Integer, Long>(null, null, null,
+                new OffHeapByteBufferStore(1000, 2), new LongSerializer(), 100000000, 0.5f, 2, 100000000);
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        offHeapCache.addAndGet(j % 4, 1);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < 4; i++) {
+            assertEquals(Long.valueOf(threads.length * 2500), offHeapCache.get(i));
+        }
+    }
+
+    /**
+     * Concurrent increments are not lost while counters are created in a full
+     * store, every increment is either in a counter or in an evicted one.
+     */
+    @Test
+    public void addAndGetConcurrentlyWhileEvicting() throws InterruptedException {
+        final AtomicLong evicted = new AtomicLong();
+        final AtomicInteger evictions = new AtomicInteger();
+        final OffHeapCache<Integer, Long> offHeapCache = new OffHeapCache<Integer, Long>(null,
+                new EvictionListener<Integer, Long>() {
+                    public void onEviction(Integer key, Long value) {
+                        evicted.addAndGet(value);
+                        evictions.incrementAndGet();
+                    }
+                }, null, new OffHeapByteBufferStore(1000, 4), new LongSerializer(), 100000000, 0.5f, 2, 100000000);
+        final int keys = 1000;
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            final int offset = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < 10000; j++) {
+                        offHeapCache.addAndGet((j * 7 + offset) % keys, 1);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long sum = evicted.get();
+        for (int i = 0; i < keys; i++) {
+            if (offHeapCache.contains(i)) {
+                sum += offHeapCache.get(i);
+            }
+        }
+        assertTrue(evictions.get() > 0);
+        assertEquals(threads.length * 10000, sum);
+    }
+
+    /**
+     * Processors write fields in place and set payloads of other lengths.
+     */
+    @Test
+    public void invoke() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 2);
+        OffHeapCache<Integer, byte[]> offHeapCache = new OffHeapCache<Integer, byte[]>(null, null, null, store,
+                BYTES_SERIALIZER, 100000000, 0.5f, 1, 100000000);
+        offHeapCache.put(1, new byte[] { 0, 0, 0, 0, 0, 1 });
+        Integer result = offHeapCache.invoke(1, new EntryProcessor<Integer>() {
+            public Integer process(MutableEntry entry) {
+                assertTrue(entry.exists());
+                assertEquals(6, entry.length());
+                entry.putByte(0, (byte) 9);
+                entry.putInt(1, entry.getInt(2) + 1);
+                return entry.getInt(2);
+            }
+        });
+        assertEquals(Integer.valueOf(513), result);
+        assertArrayEquals(new byte[] { 9, 0, 0, 0, 2, 1 }, offHeapCache.get(1));
+        offHeapCache.invoke(1, new EntryProcessor<Void>() {
+            public Void process(MutableEntry entry) {
+                byte[] payload = entry.getPayload();
+                entry.setPayload(Arrays.copyOf(payload, 10));
+                entry.putByte(9, (byte) 7);
+                return null;
+            }
+        });
+        assertArrayEquals(new byte[] { 9, 0, 0, 0, 2, 1, 0, 0, 0, 7 }, offHeapCache.get(1));
+        final AtomicInteger calls = new AtomicInteger();
+        offHeapCache.invoke(2, new EntryProcessor<Void>() {
+            public Void process(MutableEntry entry) {
+                calls.incrementAndGet();
+                assertFalse(entry.exists());
+                assertEquals(0, entry.length());
+                return null;
+            }
+        });
+        assertEquals(1, calls.get());
+        assertFalse(offHeapCache.contains(2));
+    }
+
+    /**
+     * Fields out of the payload are not written.
+     */
+    @Test
+    public void invokeOutOfPayload() {
+        OffHeapCache<Integer, byte[]> offHeapCache = new OffHeapCache<Integer, byte[]>(null, null, null,
+                new OffHeapByteBufferStore(1000, 2), BYTES_SERIALIZER, 100000000, 0.5f, 1, 100000000);
+        offHeapCache.put(1, new byte[] { 1, 2, 3, 4, 5 });
+        offHeapCache.put(2, new byte[] { 6 });
+        try {
+            offHeapCache.invoke(1, new EntryProcessor<Void>() {
+                public Void process(MutableEntry entry) {
+                    entry.putInt(2, 0);
+                    return null;
+                }
+            });
+            fail();
+        } catch (OffHeapByteBufferException exception) {
+            // expected
+        }
+        assertArrayEquals(new byte[] { 1, 2, 3, 4, 5 }, offHeapCache.get(1));
+        assertArrayEquals(new byte[] { 6 }, offHeapCache.get(2));
+    }
+
+    /**
+     * Chunked and shared payloads are processed as copies.
+     */
+    @Test
+    public void invokeCopies() {
+        EntryProcessor<Void> processor = new EntryProcessor<Void>() {
+            public Void process(MutableEntry entry) {
+                entry.putLong(entry.length() - 8, entry.getLong(entry.length() - 8) + 1);
+                return null;
+            }
+        };
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 8);
+        OffHeapCache<Integer, byte[]> offHeapCache = new OffHeapCache<Integer, byte[]>(null, null, null, store,
+                BYTES_SERIALIZER, 100000000, 0.5f, 1, 100000000);
+        byte[] value = new byte[2500];
+        offHeapCache.put(1, value.clone());
+        offHeapCache.invoke(1, processor);
+        value[2499] = 1;
+        assertArrayEquals(value, offHeapCache.get(1));
+        DeduplicatingOffHeapByteBufferStore deduplicatingStore = new DeduplicatingOffHeapByteBufferStore(4096, 2);
+        offHeapCache = new OffHeapCache<Integer, byte[]>(null, null, null, deduplicatingStore, BYTES_SERIALIZER,
+                100000000, 0.5f, 1, 100000000);
+        byte[] template = new byte[500];
+        offHeapCache.put(1, template.clone());
+        offHeapCache.put(2, template.clone());
+        assertEquals(2, deduplicatingStore.referenceCount(offHeapCache.pointerMap.get(1)));
+        offHeapCache.invoke(1, processor);
+        byte[] expectedValue = template.clone();
+        expectedValue[499] = 1;
+        assertArrayEquals(expectedValue, offHeapCache.get(1));
+        assertArrayEquals(template, offHeapCache.get(2));
+        assertEquals(1, deduplicatingStore.referenceCount(offHeapCache.pointerMap.get(2)));
+    }
 }
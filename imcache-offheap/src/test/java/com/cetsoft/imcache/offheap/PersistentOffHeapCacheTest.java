@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.KyleDing.imcache.cache.CacheLoader;
+import com.KyleDing.imcache.cache.EvictionListener;
+import com.KyleDing.imcache.offheap.bytebuffer.MappedOffHeapByteBufferStore;
+import com.KyleDing.imcache.offheap.bytebuffer.Pointer;
+import com.KyleDing.imcache.serialization.Serializer;
+
+/**
+ * The Class PersistentOffHeapCacheTest.
+ */
+public class PersistentOffHeapCacheTest {
+
+    /** The Constant SERIALIZER. */
+    static final Serializer<String> SERIALIZER = new Serializer<String>() {
+        public byte[] serialize(String value) {
+            return value.getBytes();
+        }
+
+        public String deserialize(byte[] payload) {
+            return new String(payload);
+        }
+    };
+
+    /** The Constant PERIOD. */
+    static final long PERIOD = 60 * 60 * 1000;
+
+    /** The folder. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /** The directory. */
+    File directory;
+
+    /**
+     * Setup.
+     */
+    @Before
+    public void setup() {
+        directory = new File(folder.getRoot(), "cache");
+    }
+
+    /**
+     * Opens the cache over the directory.
+     *
+     * @return the persistent off heap cache
+     */
+    PersistentOffHeapCache<String, String> open() {
+        MappedOffHeapByteBufferStore bufferStore = new MappedOffHeapByteBufferStore(directory, 1024, 2);
+        return new PersistentOffHeapCache<String, String>(new CacheLoader<String, String>() {
+            public String load(String key) {
+                return null;
+            }
+        }, new EvictionListener<String, String>() {
+            public void onEviction(String key, String value) {
+            }
+        }, null, bufferStore, SERIALIZER, SERIALIZER, PERIOD, 0.5f, 2, PERIOD,
+                new ConcurrentHashMap<String, Pointer>());
+    }
+
+    /**
+     * Items survive reopening.
+     */
+    @Test
+    public void reopen() {
+        PersistentOffHeapCache<String, String> cache = open();
+        cache.put("a", "apple");
+        cache.put("b", "banana");
+        cache.put("c", "cherry");
+        cache.put("b", "blueberry blueberry");
+        cache.invalidate("c");
+        cache.close();
+        assertTrue(new File(directory, MappedOffHeapByteBufferStore.INDEX_FILE_NAME).exists());
+        cache = open();
+        assertEquals(2, cache.size());
+        assertEquals("apple", cache.get("a"));
+        assertEquals("blueberry blueberry", cache.get("b"));
+        assertNull(cache.get("c"));
+        assertFalse(new File(directory, MappedOffHeapByteBufferStore.INDEX_FILE_NAME).exists());
+        cache.put("d", "date");
+        assertEquals("date", cache.get("d"));
+        assertEquals("apple", cache.get("a"));
+        cache.close();
+    }
+
+    /**
+     * A cache that is not closed starts empty.
+     */
+    @Test
+    public void notClosed() {
+        PersistentOffHeapCache<String, String> cache = open();
+        cache.put("a", "apple");
+        cache.close();
+        cache = open();
+        assertEquals("apple", cache.get("a"));
+        cache.put("b", "banana");
+        // The cache is dropped without closing it, as if the JVM crashed.
+        cache = open();
+        assertEquals(0, cache.size());
+        cache.close();
+    }
+
+    /**
+     * Torn payload is discarded.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void tornPayloadIsDiscarded() throws IOException {
+        PersistentOffHeapCache<String, String> cache = open();
+        cache.put("a", "apple");
+        cache.put("b", "banana");
+        cache.close();
+        // The first payload is at the start of the first buffer after its header.
+        RandomAccessFile file = new RandomAccessFile(new File(directory, "buffer-0.dat"), "rw");
+        try {
+            file.seek(5);
+            file.write('A');
+        } finally {
+            file.close();
+        }
+        cache = open();
+        assertEquals(1, cache.size());
+        assertEquals("banana", cache.get("b"));
+        cache.close();
+    }
+
+    /**
+     * Torn index segment keeps the whole records.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void tornIndexSegment() throws IOException {
+        PersistentOffHeapCache<String, String> cache = open();
+        for (int i = 0; i < 10; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+        cache.close();
+        RandomAccessFile file = new RandomAccessFile(new File(directory, MappedOffHeapByteBufferStore.INDEX_FILE_NAME),
+                "rw");
+        try {
+            // Drops the end marker and the checksum of the last record.
+            file.setLength(file.length() - 6);
+        } finally {
+            file.close();
+        }
+        cache = open();
+        assertEquals(9, cache.size());
+        for (int i = 0; i < 10; i++) {
+            String value = cache.get("key" + i);
+            assertTrue(value == null || value.equals("value" + i));
+        }
+        cache.close();
+    }
+}
@@ -7,6 +7,7 @@
  */
 package com.KyleDing.imcache.offheap;
 
+import java.nio.ByteBuffer;
 import java.util.Random;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentMap;
@@ -22,6 +23,7 @@ import org.mockito.Spy;
 
 import com.KyleDing.imcache.cache.CacheLoader;
 import com.KyleDing.imcache.cache.EvictionListener;
+import com.KyleDing.imcache.cache.SimpleItem;
 import com.KyleDing.imcache.cache.VersionedItem;
 import com.KyleDing.imcache.cache.search.IndexHandler;
 import com.KyleDing.imcache.offheap.StaleItemException;
@@ -154,4 +156,65 @@ public class VersionedOffHeapCacheTest {
         assertEquals(13, item.getVersion());
         assertEquals(object, item.getValue());
     }
+
+    /**
+     * The version leads the payload.
+     */
+    @Test
+    public void serializeCacheItemSerializerVersionHeader() {
+        CacheItemSerializer<Object> cacheItemSerializer = new CacheItemSerializer<Object>(serializer);
+        doReturn(new byte[] { 9, 9 }).when(serializer).serialize(any());
+        doReturn(258).when(value).getVersion();
+        assertArrayEquals(new byte[] { 0, 0, 1, 2, 9, 9 }, cacheItemSerializer.serialize(value));
+    }
+
+    /**
+     * The version and the value are written into the buffer of the cache.
+     */
+    @Test
+    public void serializeCacheItemSerializerIntoByteBuffer() {
+        CacheItemSerializer<Object> cacheItemSerializer = new CacheItemSerializer<Object>(serializer);
+        doReturn(new byte[] { 9, 9 }).when(serializer).serialize(any());
+        doReturn(258).when(value).getVersion();
+        ByteBuffer buffer = ByteBuffer.allocate(cacheItemSerializer.size(value));
+        cacheItemSerializer.serialize(value, buffer);
+        assertArrayEquals(new byte[] { 0, 0, 1, 2, 9, 9 }, buffer.array());
+        verify(serializer, times(1)).serialize(any());
+    }
+
+    /**
+     * Put checks the version in place without getting the item.
+     */
+    @Test
+    public void putReadsVersionInPlace() {
+        Serializer<Object> stringSerializer = new Serializer<Object>() {
+            public byte[] serialize(Object value) {
+                return ((String) value).getBytes();
+            }
+
+            public Object deserialize(byte[] payload) {
+                return new String(payload);
+            }
+        };
+        VersionedOffHeapCache<Object, Object> versionedCache = spy(new VersionedOffHeapCache<Object, Object>(
+                new OffHeapByteBufferStore(10000, 2), stringSerializer, cacheLoader, evictionListener, indexHandler,
+                100000L, 0.5f, 1, 100000L));
+        versionedCache.put("key", new SimpleItem<Object>("value"));
+        SimpleItem<Object> item = new SimpleItem<Object>("new value");
+        item.setVersion(1);
+        versionedCache.put("key", item);
+        assertEquals(2, item.getVersion());
+        verify(versionedCache, times(1)).get("key");
+        SimpleItem<Object> staleItem = new SimpleItem<Object>("stale value");
+        staleItem.setVersion(1);
+        try {
+            versionedCache.put("key", staleItem);
+            fail();
+        } catch (StaleItemException exception) {
+            // expected
+        }
+        VersionedItem<Object> actualItem = versionedCache.get("key");
+        assertEquals("new value", actualItem.getValue());
+        assertEquals(2, actualItem.getVersion());
+    }
 }
@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.bytebuffer;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * The Class ByteBufferFactoryTest.
+ */
+public class ByteBufferFactoryTest {
+
+    /**
+     * Select.
+     */
+    @Test
+    public void select() {
+        assertSame(ByteBufferFactory.NIO, ByteBufferFactory.select("nio"));
+        assertSame(ByteBufferFactory.UNSAFE, ByteBufferFactory.select("UNSAFE"));
+        // Unsafe is available on the JDKs the tests run on.
+        assertSame(ByteBufferFactory.UNSAFE, ByteBufferFactory.select(null));
+    }
+
+    /**
+     * Allocate.
+     */
+    @Test
+    public void allocate() {
+        assertTrue(ByteBufferFactory.UNSAFE.allocate(16) instanceof DirectByteBuffer);
+        assertTrue(ByteBufferFactory.NIO.allocate(16) instanceof NioByteBuffer);
+    }
+
+    /**
+     * Wrap.
+     */
+    @Test
+    public void wrap() {
+        java.nio.ByteBuffer byteBuffer = java.nio.ByteBuffer.allocateDirect(16);
+        byteBuffer.put(3, (byte) 7);
+        assertEquals(7, ByteBufferFactory.UNSAFE.wrap(byteBuffer).getByte(3));
+        assertEquals(7, ByteBufferFactory.NIO.wrap(byteBuffer).getByte(3));
+    }
+
+    /**
+     * Offheap buffer over nio.
+     */
+    @Test
+    public void offHeapByteBuffer() {
+        OffHeapByteBuffer offHeapByteBuffer = new OffHeapByteBuffer(0, 1024, 2,
+                ByteBufferFactory.NIO.allocate(1024));
+        byte[] payload = new byte[] { 1, 2, 3 };
+        Pointer pointer = offHeapByteBuffer.store(payload);
+        assertArrayEquals(payload, offHeapByteBuffer.retrieve(pointer));
+        assertTrue(offHeapByteBuffer.contentEquals(pointer.getPosition(), payload));
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.bytebuffer;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * The Class DeduplicatingOffHeapByteBufferStoreTest.
+ */
+public class DeduplicatingOffHeapByteBufferStoreTest {
+
+    /** The buffer store, deduplicating payloads from 16 bytes. */
+    DeduplicatingOffHeapByteBufferStore bufferStore = new DeduplicatingOffHeapByteBufferStore(4096, 4, 4, 16);
+
+    /**
+     * Creates a payload.
+     *
+     * @param value the value of its bytes
+     * @param length the length
+     * @return the payload
+     */
+    static byte[] payload(int value, int length) {
+        byte[] payload = new byte[length];
+        Arrays.fill(payload, (byte) value);
+        return payload;
+    }
+
+    /**
+     * Identical payloads share one copy.
+     */
+    @Test
+    public void storeShared() {
+        Pointer first = bufferStore.store(payload(1, 100));
+        Pointer second = bufferStore.store(payload(1, 100));
+        assertSame(first.getOffHeapByteBuffer(), second.getOffHeapByteBuffer());
+        assertEquals(first.getPosition(), second.getPosition());
+        assertEquals(105, bufferStore.usedMemory());
+        assertEquals(105, bufferStore.sharedMemory());
+        assertEquals(2, bufferStore.referenceCount(first));
+        assertArrayEquals(payload(1, 100), bufferStore.retrieve(second));
+    }
+
+    /**
+     * Different payloads and payloads below the min length are not shared.
+     */
+    @Test
+    public void storeNotShared() {
+        Pointer first = bufferStore.store(payload(1, 100));
+        Pointer second = bufferStore.store(payload(2, 100));
+        assertFalse(first.getPosition() == second.getPosition());
+        Pointer third = bufferStore.store(payload(3, 8));
+        Pointer fourth = bufferStore.store(payload(3, 8));
+        assertFalse(third.getPosition() == fourth.getPosition());
+        assertEquals(1, bufferStore.referenceCount(third));
+        assertEquals(0, bufferStore.sharedMemory());
+    }
+
+    /**
+     * The copy is removed with its last reference.
+     */
+    @Test
+    public void remove() {
+        Pointer first = bufferStore.store(payload(1, 100));
+        Pointer second = bufferStore.store(payload(1, 100));
+        assertArrayEquals(payload(1, 100), bufferStore.remove(first));
+        assertEquals(105, bufferStore.usedMemory());
+        assertEquals(0, bufferStore.dirtyMemory());
+        assertEquals(0, bufferStore.sharedMemory());
+        assertArrayEquals(payload(1, 100), bufferStore.retrieve(second));
+        assertArrayEquals(payload(1, 100), bufferStore.remove(second));
+        assertEquals(0, bufferStore.usedMemory());
+        assertEquals(105, bufferStore.dirtyMemory());
+        // The payload is stored again rather than shared with a removed copy.
+        Pointer third = bufferStore.store(payload(1, 100));
+        assertFalse(third.getPosition() == second.getPosition());
+        assertEquals(1, bufferStore.referenceCount(third));
+    }
+
+    /**
+     * Updating a shared payload leaves the others untouched.
+     */
+    @Test
+    public void update() {
+        Pointer first = bufferStore.store(payload(1, 100));
+        Pointer second = bufferStore.store(payload(1, 100));
+        bufferStore.update(first, payload(2, 100));
+        assertArrayEquals(payload(2, 100), bufferStore.retrieve(first));
+        assertArrayEquals(payload(1, 100), bufferStore.retrieve(second));
+        assertEquals(1, bufferStore.referenceCount(second));
+        bufferStore.update(second, payload(2, 100));
+        assertEquals(first.getPosition(), second.getPosition());
+        assertEquals(2, bufferStore.referenceCount(first));
+        assertEquals(105, bufferStore.usedMemory());
+    }
+
+    /**
+     * Moving a shared payload moves the copy once and points the others to it.
+     */
+    @Test
+    public void move() {
+        Pointer first = bufferStore.store(payload(1, 100));
+        Pointer second = bufferStore.store(payload(1, 100));
+        OffHeapByteBuffer buffer = first.getOffHeapByteBuffer();
+        bufferStore.seal(buffer);
+        assertEquals(100, bufferStore.move(first, buffer));
+        assertNotSame(buffer, first.getOffHeapByteBuffer());
+        assertSame(buffer, second.getOffHeapByteBuffer());
+        assertArrayEquals(payload(1, 100), bufferStore.retrieve(second));
+        assertEquals(0, bufferStore.move(second, buffer));
+        assertSame(first.getOffHeapByteBuffer(), second.getOffHeapByteBuffer());
+        assertEquals(first.getPosition(), second.getPosition());
+        assertEquals(2, bufferStore.referenceCount(second));
+        assertEquals(0, buffer.usedMemory());
+        bufferStore.free(buffer.getIndex());
+        assertArrayEquals(payload(1, 100), bufferStore.retrieve(first));
+        bufferStore.remove(first);
+        bufferStore.remove(second);
+        assertEquals(0, bufferStore.usedMemory());
+    }
+
+    /**
+     * A sealed copy is not shared.
+     */
+    @Test
+    public void storeNotSharedWithSealedBuffer() {
+        Pointer first = bufferStore.store(payload(1, 100));
+        bufferStore.seal(first.getOffHeapByteBuffer());
+        Pointer second = bufferStore.store(payload(1, 100));
+        assertNotSame(first.getOffHeapByteBuffer(), second.getOffHeapByteBuffer());
+        assertEquals(1, bufferStore.referenceCount(first));
+        assertEquals(1, bufferStore.referenceCount(second));
+    }
+
+    /**
+     * Freeing a buffer drops the references of its copies.
+     */
+    @Test
+    public void freeBuffer() {
+        Pointer first = bufferStore.store(payload(1, 100));
+        bufferStore.store(payload(1, 100));
+        OffHeapByteBuffer buffer = first.getOffHeapByteBuffer();
+        bufferStore.seal(buffer);
+        bufferStore.free(buffer.getIndex());
+        assertEquals(0, bufferStore.sharedMemory());
+        Pointer third = bufferStore.store(payload(1, 100));
+        assertEquals(1, bufferStore.referenceCount(third));
+    }
+
+    /**
+     * Chunked payloads are stored as they are.
+     */
+    @Test
+    public void storeChunked() {
+        byte[] payload = payload(1, 5000);
+        Pointer first = bufferStore.store(payload);
+        Pointer second = bufferStore.store(payload);
+        assertTrue(bufferStore.isChunked(first));
+        assertFalse(first.getPosition() == second.getPosition() && first.getOffHeapByteBuffer() == second
+                .getOffHeapByteBuffer());
+        assertArrayEquals(payload, bufferStore.retrieve(first));
+        assertArrayEquals(payload, bufferStore.remove(second));
+        assertArrayEquals(payload, bufferStore.retrieve(first));
+    }
+}
@@ -72,4 +72,17 @@ public class DirectByteBufferTest {
         random.nextBytes(bytes);
         buffer.free();
     }
+
+    /**
+     * Read only view.
+     */
+    @Test
+    public void asReadOnlyBuffer() {
+        byte[] bytes = new byte[] { 1, 2, 3, 4 };
+        buffer.put(8, bytes, 0, bytes.length);
+        java.nio.ByteBuffer view = buffer.asReadOnlyBuffer();
+        assertTrue(view.isReadOnly());
+        assertEquals(0x01020304, view.getInt(8));
+        assertEquals(3, buffer.getByte(10));
+    }
 }
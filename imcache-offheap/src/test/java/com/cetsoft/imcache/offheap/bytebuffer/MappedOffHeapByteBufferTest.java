@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.bytebuffer;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * The Class MappedOffHeapByteBufferTest.
+ */
+public class MappedOffHeapByteBufferTest {
+
+    /** The folder. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Payloads survive remapping.
+     */
+    @Test
+    public void remap() {
+        File file = new File(folder.getRoot(), "buffer.dat");
+        MappedOffHeapByteBuffer buffer = new MappedOffHeapByteBuffer(0, 1024, 1, file);
+        byte[] payload = { 1, 2, 3 };
+        Pointer pointer = buffer.store(payload);
+        int checksum = buffer.checksum(pointer);
+        int offset = buffer.getOffset();
+        buffer.close();
+        assertEquals(1024, file.length());
+        buffer = new MappedOffHeapByteBuffer(0, 1024, 1, file);
+        assertEquals(payload.length + 5, buffer.validate(pointer.getPosition(), checksum, offset));
+        buffer.recover(offset, payload.length + 5);
+        assertArrayEquals(payload, buffer.retrieve(new Pointer(pointer.getPosition(), buffer)));
+        assertEquals(offset, buffer.getOffset());
+        buffer.close();
+    }
+
+    /**
+     * Validate discards removed and torn payloads.
+     */
+    @Test
+    public void validate() {
+        MappedOffHeapByteBuffer buffer = new MappedOffHeapByteBuffer(0, 1024, 1, new File(folder.getRoot(),
+                "buffer.dat"));
+        Pointer pointer = buffer.store(new byte[] { 1, 2, 3 });
+        Pointer removedPointer = buffer.store(new byte[] { 4, 5, 6 });
+        int checksum = buffer.checksum(pointer);
+        int removedChecksum = buffer.checksum(removedPointer);
+        buffer.remove(removedPointer);
+        assertEquals(8, buffer.validate(pointer.getPosition(), checksum, buffer.getOffset()));
+        assertEquals(-1, buffer.validate(pointer.getPosition(), checksum + 1, buffer.getOffset()));
+        assertEquals(-1, buffer.validate(pointer.getPosition(), checksum, 7));
+        assertEquals(-1, buffer.validate(removedPointer.getPosition(), removedChecksum, buffer.getOffset()));
+        assertEquals(-1, buffer.validate(-1, checksum, buffer.getOffset()));
+        buffer.close();
+    }
+
+    /**
+     * Free keeps the file mapped.
+     */
+    @Test
+    public void free() {
+        MappedOffHeapByteBuffer buffer = new MappedOffHeapByteBuffer(0, 1024, 1, new File(folder.getRoot(),
+                "buffer.dat"));
+        buffer.store(new byte[] { 1, 2, 3 });
+        buffer.free();
+        assertEquals(0, buffer.getOffset());
+        assertEquals(1024, buffer.freeMemory());
+        Pointer pointer = buffer.store(new byte[] { 4 });
+        assertEquals(0, pointer.getPosition());
+        assertArrayEquals(new byte[] { 4 }, buffer.retrieve(pointer));
+        buffer.close();
+    }
+
+    /**
+     * Decommit keeps the file mapped.
+     */
+    @Test
+    public void decommit() {
+        MappedOffHeapByteBuffer buffer = new MappedOffHeapByteBuffer(0, 1024, 1, new File(folder.getRoot(),
+                "buffer.dat"));
+        assertTrue(buffer.isCommitted());
+        buffer.free();
+        assertFalse(buffer.decommit());
+        assertTrue(buffer.isCommitted());
+        buffer.close();
+    }
+}
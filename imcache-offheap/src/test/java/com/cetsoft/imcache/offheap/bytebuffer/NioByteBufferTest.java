@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.bytebuffer;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The Class NioByteBufferTest.
+ */
+public class NioByteBufferTest {
+
+    /** The random. */
+    Random random;
+
+    /** The buffer. */
+    NioByteBuffer buffer = new NioByteBuffer(1024 * 1024);
+
+    /**
+     * Setup.
+     */
+    @Before
+    public void setup() {
+        random = new Random();
+    }
+
+    /**
+     * Put.
+     */
+    @Test
+    public void put() {
+        byte[] expectedBytes = new byte[100];
+        random.nextBytes(expectedBytes);
+        buffer.put(16, expectedBytes, 0, expectedBytes.length);
+        byte[] actualBytes = new byte[expectedBytes.length];
+        buffer.get(16, actualBytes, 0, actualBytes.length);
+        assertArrayEquals(expectedBytes, actualBytes);
+        assertEquals(expectedBytes[3], buffer.getByte(19));
+    }
+
+    /**
+     * Put with offset.
+     */
+    @Test
+    public void putWithOffset() {
+        byte[] bytes = new byte[] { 1, 2, 3, 4, 5 };
+        buffer.put(0, bytes, 1, 3);
+        byte[] actualBytes = new byte[5];
+        buffer.get(0, actualBytes, 2, 3);
+        assertArrayEquals(new byte[] { 0, 0, 2, 3, 4 }, actualBytes);
+    }
+
+    /**
+     * Put beyond capacity.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void putBeyondCapacity() {
+        buffer.put(1024 * 1024 - 2, new byte[4], 0, 4);
+    }
+
+    /**
+     * Int and long values.
+     */
+    @Test
+    public void primitives() {
+        buffer.putInt(4, 0x01020304);
+        buffer.putLong(8, 0x0102030405060708L);
+        assertEquals(0x01020304, buffer.getInt(4));
+        assertEquals(0x0102030405060708L, buffer.getLong(8));
+    }
+
+    /**
+     * Same layout as the unsafe buffer.
+     */
+    @Test
+    public void nativeOrder() {
+        DirectByteBuffer directBuffer = new DirectByteBuffer(16);
+        directBuffer.putLong(0, 0x0102030405060708L);
+        directBuffer.putInt(8, 0x0A0B0C0D);
+        byte[] expectedBytes = new byte[12];
+        directBuffer.get(0, expectedBytes, 0, expectedBytes.length);
+        buffer.putLong(0, 0x0102030405060708L);
+        buffer.putInt(8, 0x0A0B0C0D);
+        byte[] actualBytes = new byte[12];
+        buffer.get(0, actualBytes, 0, actualBytes.length);
+        assertArrayEquals(expectedBytes, actualBytes);
+        directBuffer.free();
+    }
+
+    /**
+     * Content equals.
+     */
+    @Test
+    public void contentEquals() {
+        byte[] bytes = new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+        buffer.put(32, bytes, 0, bytes.length);
+        assertTrue(buffer.contentEquals(32, bytes));
+        assertFalse(buffer.contentEquals(33, bytes));
+    }
+
+    /**
+     * Read only view.
+     */
+    @Test
+    public void asReadOnlyBuffer() {
+        byte[] bytes = new byte[] { 1, 2, 3, 4 };
+        buffer.put(8, bytes, 0, bytes.length);
+        java.nio.ByteBuffer view = buffer.asReadOnlyBuffer();
+        assertTrue(view.isReadOnly());
+        assertEquals(0x01020304, view.getInt(8));
+    }
+
+    /**
+     * Heap buffers are refused.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void heapBuffer() {
+        new NioByteBuffer(java.nio.ByteBuffer.allocate(16));
+    }
+
+    /**
+     * Free.
+     */
+    @Test
+    public void free() {
+        new NioByteBuffer(1024).free();
+    }
+}
@@ -25,6 +25,10 @@ import org.mockito.Spy;
 import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer;
 import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore;
 import com.KyleDing.imcache.offheap.bytebuffer.Pointer;
+import com.KyleDing.imcache.serialization.ByteBufferSerializer;
+import com.KyleDing.imcache.serialization.LongSerializer;
+import com.KyleDing.imcache.serialization.Serializer;
+import com.KyleDing.imcache.serialization.SerializerAdapter;
 
 /**
  * The Class DirectByteBufferTest.
@@ -257,4 +261,280 @@ public class OffHeapByteBufferStoreTest {
         assertEquals(expectedBytes, actualBytes);
     }
 
+    /**
+     * Seal moves the current buffer.
+     */
+    @Test
+    public void seal() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 2);
+        OffHeapByteBuffer firstBuffer = store.getBuffer(0);
+        assertTrue(store.seal(firstBuffer));
+        assertTrue(firstBuffer.isSealed());
+        assertFalse(store.seal(firstBuffer));
+        assertSame(store.getBuffer(1), store.store(new byte[10]).getOffHeapByteBuffer());
+    }
+
+    /**
+     * Seal without another buffer.
+     */
+    @Test(expected = BufferOverflowException.class)
+    public void sealWithoutAvailableBuffer() {
+        try {
+            bufferStore.seal(bufferStore.getBuffer(0));
+        } finally {
+            assertFalse(bufferStore.getBuffer(0).isSealed());
+        }
+    }
+
+    /**
+     * Move.
+     */
+    @Test
+    public void move() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 2);
+        byte[] expectedBytes = new byte[100];
+        random.nextBytes(expectedBytes);
+        Pointer pointer = store.store(expectedBytes);
+        pointer.setAccessTime(42);
+        pointer.reference();
+        OffHeapByteBuffer firstBuffer = pointer.getOffHeapByteBuffer();
+        assertEquals(100, store.move(pointer));
+        assertNotSame(firstBuffer, pointer.getOffHeapByteBuffer());
+        assertEquals(42, pointer.getAccessTime());
+        assertTrue(pointer.isReferenced());
+        assertEquals(105, firstBuffer.dirtyMemory());
+        assertArrayEquals(expectedBytes, store.retrieve(pointer));
+    }
+
+    /**
+     * Update of a sealed buffer moves the payload.
+     */
+    @Test
+    public void updateSealed() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 2);
+        Pointer pointer = store.store(new byte[100]);
+        OffHeapByteBuffer firstBuffer = pointer.getOffHeapByteBuffer();
+        store.seal(firstBuffer);
+        byte[] expectedBytes = new byte[10];
+        random.nextBytes(expectedBytes);
+        store.update(pointer, expectedBytes);
+        assertNotSame(firstBuffer, pointer.getOffHeapByteBuffer());
+        assertArrayEquals(expectedBytes, store.retrieve(pointer));
+    }
+
+    /**
+     * Buffers are committed as they are stored to.
+     */
+    @Test
+    public void committedMemory() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 4);
+        assertEquals(4000, store.reservedMemory());
+        assertEquals(0, store.committedMemory());
+        store.store(new byte[600]);
+        assertEquals(1000, store.committedMemory());
+        store.store(new byte[600]);
+        assertEquals(2000, store.committedMemory());
+        assertEquals(4000, store.reservedMemory());
+    }
+
+    /**
+     * Release idle buffers.
+     */
+    @Test
+    public void releaseIdleBuffers() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 2);
+        store.setIdlePeriod(0);
+        Pointer pointer = store.store(new byte[600]);
+        OffHeapByteBuffer firstBuffer = pointer.getOffHeapByteBuffer();
+        store.store(new byte[600]);
+        // The current buffer is kept even if it is emptied.
+        store.free(store.currentBuffer().getIndex());
+        assertEquals(0, store.releaseIdleBuffers());
+        store.free(firstBuffer.getIndex());
+        assertEquals(1, store.releaseIdleBuffers());
+        assertFalse(firstBuffer.isCommitted());
+        assertEquals(1000, store.committedMemory());
+        store.seal(store.currentBuffer());
+        store.store(new byte[600]);
+        assertTrue(firstBuffer.isCommitted());
+    }
+
+    /**
+     * Buffers are kept for the idle period.
+     */
+    @Test
+    public void releaseIdleBuffersWithinIdlePeriod() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 2);
+        OffHeapByteBuffer firstBuffer = store.store(new byte[600]).getOffHeapByteBuffer();
+        store.store(new byte[600]);
+        store.free(firstBuffer.getIndex());
+        assertEquals(0, store.releaseIdleBuffers());
+        assertTrue(firstBuffer.isCommitted());
+    }
+
+    /**
+     * Set idle period negative.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void setIdlePeriodNegative() {
+        new OffHeapByteBufferStore(1000, 1).setIdlePeriod(-1);
+    }
+
+    /**
+     * Store a payload larger than a buffer.
+     */
+    @Test
+    public void storeChunked() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 4);
+        byte[] expectedBytes = new byte[2500];
+        random.nextBytes(expectedBytes);
+        Pointer pointer = store.store(expectedBytes);
+        assertTrue(store.isChunked(pointer));
+        assertArrayEquals(expectedBytes, store.retrieve(pointer));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(store.isStoredIn(pointer, store.getBuffer(i)));
+        }
+        assertFalse(store.isStoredIn(pointer, store.getBuffer(3)));
+        Pointer smallPointer = store.store(new byte[10]);
+        assertFalse(store.isChunked(smallPointer));
+        assertArrayEquals(expectedBytes, store.remove(pointer));
+        assertEquals(15, store.usedMemory());
+    }
+
+    /**
+     * Store a payload larger than the free memory.
+     */
+    @Test
+    public void storeChunkedOverflow() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 2);
+        assertFalse(store.hasAvailableBuffersFor(2500));
+        assertTrue(store.hasAvailableBuffersFor(1500));
+        try {
+            store.store(new byte[2500]);
+            fail();
+        } catch (BufferOverflowException exception) {
+            assertEquals(0, store.usedMemory());
+        }
+    }
+
+    /**
+     * Update a chunked payload.
+     */
+    @Test
+    public void updateChunked() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 8);
+        Pointer pointer = store.store(new byte[10]);
+        byte[] expectedBytes = new byte[2500];
+        random.nextBytes(expectedBytes);
+        store.update(pointer, expectedBytes);
+        assertTrue(store.isChunked(pointer));
+        assertArrayEquals(expectedBytes, store.retrieve(pointer));
+        store.update(pointer, new byte[] { 1 });
+        assertFalse(store.isChunked(pointer));
+        assertArrayEquals(new byte[] { 1 }, store.retrieve(pointer));
+        assertEquals(6, store.usedMemory());
+    }
+
+    /**
+     * Move a chunked payload out of a buffer holding one of its chunks.
+     */
+    @Test
+    public void moveChunked() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 8);
+        byte[] expectedBytes = new byte[1500];
+        random.nextBytes(expectedBytes);
+        Pointer pointer = store.store(expectedBytes);
+        OffHeapByteBuffer firstBuffer = store.getBuffer(0);
+        store.seal(firstBuffer);
+        assertEquals(1500, store.move(pointer, firstBuffer));
+        assertFalse(store.isStoredIn(pointer, firstBuffer));
+        assertEquals(0, firstBuffer.usedMemory());
+        assertArrayEquals(expectedBytes, store.retrieve(pointer));
+    }
+
+    /**
+     * Retrieve a chunked payload with a byte buffer serializer.
+     */
+    @Test
+    public void retrieveChunkedWithByteBufferSerializer() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 4);
+        Pointer pointer = store.store(new byte[2000]);
+        ByteBufferSerializer<Integer> serializer = new ByteBufferSerializer<Integer>() {
+            public byte[] serialize(Integer value) {
+                throw new UnsupportedOperationException();
+            }
+
+            public Integer deserialize(byte[] payload) {
+                throw new UnsupportedOperationException();
+            }
+
+            public Integer deserialize(java.nio.ByteBuffer buffer) {
+                return buffer.remaining();
+            }
+        };
+        assertEquals(Integer.valueOf(2000), store.retrieve(pointer, serializer));
+    }
+
+    /**
+     * Retrieve an int in place, also from a chunked payload.
+     */
+    @Test
+    public void retrieveInt() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 4);
+        java.nio.ByteBuffer payload = java.nio.ByteBuffer.allocate(2000);
+        payload.putInt(0, 13).putInt(100, 42).putInt(244, 7).putInt(1996, -1);
+        Pointer pointer = store.store(new byte[] { 0, 0, 0, 5, 1 });
+        assertEquals(5, store.retrieveInt(pointer, 0));
+        Pointer chunked = store.store(payload.array());
+        assertEquals(13, store.retrieveInt(chunked, 0));
+        assertEquals(42, store.retrieveInt(chunked, 100));
+        // The int spans the first two chunks.
+        assertEquals(7, store.retrieveInt(chunked, 244));
+        assertEquals(-1, store.retrieveInt(chunked, 1996));
+    }
+
+    /**
+     * Retrieve an int out of the payload.
+     */
+    @Test(expected = OffHeapByteBufferException.class)
+    public void retrieveIntOutOfPayload() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 4);
+        store.retrieveInt(store.store(new byte[] { 0, 0, 0, 5 }), 1);
+    }
+
+    /**
+     * Values are written straight into the buffers and updated in place.
+     */
+    @Test
+    public void storeAndUpdateStreaming() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 2);
+        LongSerializer serializer = new LongSerializer();
+        Pointer pointer = store.store(5L, serializer);
+        assertEquals(Long.valueOf(5L), store.retrieve(pointer, serializer));
+        Pointer updatedPointer = store.update(pointer, 6L, serializer);
+        assertEquals(pointer.getPosition(), updatedPointer.getPosition());
+        assertEquals(Long.valueOf(6L), store.retrieve(updatedPointer, serializer));
+        assertEquals(LongSerializer.SIZE + 5, store.usedMemory());
+    }
+
+    /**
+     * Values longer than a buffer are serialized and stored in chunks.
+     */
+    @Test
+    public void storeStreamingChunked() {
+        OffHeapByteBufferStore store = new OffHeapByteBufferStore(1000, 4);
+        byte[] payload = new byte[1500];
+        random.nextBytes(payload);
+        Pointer pointer = store.store(payload, new SerializerAdapter<byte[]>(new Serializer<byte[]>() {
+            public byte[] serialize(byte[] value) {
+                return value;
+            }
+
+            public byte[] deserialize(byte[] payload) {
+                return payload;
+            }
+        }));
+        assertTrue(store.isChunked(pointer));
+        assertArrayEquals(payload, store.retrieve(pointer));
+    }
 }
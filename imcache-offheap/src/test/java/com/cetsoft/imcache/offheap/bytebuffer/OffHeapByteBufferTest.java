@@ -10,7 +10,9 @@ package com.KyleDing.imcache.offheap.bytebuffer;
 import static org.junit.Assert.*;
 
 import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 import java.util.Random;
+import java.util.concurrent.CountDownLatch;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -19,6 +21,8 @@ import org.mockito.MockitoAnnotations;
 import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBuffer;
 import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferException;
 import com.KyleDing.imcache.offheap.bytebuffer.Pointer;
+import com.KyleDing.imcache.serialization.ByteBufferSerializer;
+import com.KyleDing.imcache.serialization.LongSerializer;
 
 /**
  * The Class DirectByteBufferTest.
@@ -53,6 +57,102 @@ public class OffHeapByteBufferTest {
         assertArrayEquals(expectedBytes, actualBytes);
     }
 
+    /**
+     * A streaming serializer writes the value straight into the buffer.
+     */
+    @Test
+    public void storeStreaming() {
+        LongSerializer serializer = new LongSerializer();
+        Pointer pointer = buffer.store(258L, LongSerializer.SIZE, serializer);
+        assertArrayEquals(serializer.serialize(258L), buffer.retrieve(pointer));
+        assertEquals(LongSerializer.SIZE + 5, buffer.usedMemory());
+    }
+
+    /**
+     * A value not longer than the payload is updated in place.
+     */
+    @Test
+    public void updateStreamingInPlace() {
+        LongSerializer serializer = new LongSerializer();
+        Pointer pointer = buffer.store(new byte[10]);
+        Pointer updatedPointer = buffer.update(pointer, -1L, LongSerializer.SIZE, serializer);
+        assertEquals(pointer.getPosition(), updatedPointer.getPosition());
+        assertEquals(Long.valueOf(-1L), serializer.deserialize(buffer.retrieve(updatedPointer)));
+        assertEquals(LongSerializer.SIZE + 5, buffer.usedMemory());
+        assertEquals(2, buffer.dirtyMemory());
+        Pointer movedPointer = buffer.update(updatedPointer, 3L, LongSerializer.SIZE + 1, new LongSerializer() {
+            public void serialize(Long value, ByteBuffer buffer) {
+                buffer.put((byte) 0);
+                super.serialize(value, buffer);
+            }
+        });
+        assertTrue(movedPointer.getPosition() > pointer.getPosition());
+        assertEquals(LongSerializer.SIZE + 6, buffer.usedMemory());
+    }
+
+    /**
+     * A serializer writing another number of bytes than its size fails and
+     * leaves its allocation dirty.
+     */
+    @Test
+    public void storeStreamingWrongSize() {
+        try {
+            buffer.store(1L, LongSerializer.SIZE - 1, new LongSerializer());
+            fail();
+        } catch (OffHeapByteBufferException exception) {
+            // expected
+        }
+        try {
+            buffer.store(1L, LongSerializer.SIZE + 1, new LongSerializer());
+            fail();
+        } catch (OffHeapByteBufferException exception) {
+            // expected
+        }
+        assertEquals(0, buffer.usedMemory());
+        assertEquals(2 * (LongSerializer.SIZE + 5), buffer.dirtyMemory());
+    }
+
+    /**
+     * Fields of a payload are written in place in big endian order.
+     */
+    @Test
+    public void storeInPlace() {
+        Pointer pointer = buffer.store(new byte[16]);
+        Pointer otherPointer = buffer.store(new byte[] { 7 });
+        buffer.storeByte(pointer.getPosition(), 0, (byte) 1);
+        buffer.storeInt(pointer.getPosition(), 1, 258);
+        buffer.storeLong(pointer.getPosition(), 8, -2L);
+        assertEquals(16, buffer.payloadLength(pointer.getPosition()));
+        assertEquals(1, buffer.retrieveByte(pointer.getPosition(), 0));
+        assertEquals(258, buffer.retrieveInt(pointer.getPosition(), 1));
+        assertEquals(-2L, buffer.retrieveLong(pointer.getPosition(), 8));
+        assertArrayEquals(new byte[] { 1, 0, 0, 1, 2, 0, 0, 0, -1, -1, -1, -1, -1, -1, -1, -2 },
+                buffer.retrieve(pointer));
+        assertArrayEquals(new byte[] { 7 }, buffer.retrieve(otherPointer));
+    }
+
+    /**
+     * Bytes of a payload are written in place.
+     */
+    @Test
+    public void storeBytesInPlace() {
+        Pointer pointer = buffer.store(new byte[6]);
+        buffer.storeBytes(pointer.getPosition(), 2, new byte[] { 1, 2, 3 });
+        byte[] bytes = new byte[4];
+        buffer.retrieveBytes(pointer.getPosition(), 2, bytes);
+        assertArrayEquals(new byte[] { 1, 2, 3, 0 }, bytes);
+        assertArrayEquals(new byte[] { 0, 0, 1, 2, 3, 0 }, buffer.retrieve(pointer));
+    }
+
+    /**
+     * A field out of the payload is not written.
+     */
+    @Test(expected = OffHeapByteBufferException.class)
+    public void storeOutOfPayload() {
+        Pointer pointer = buffer.store(new byte[16]);
+        buffer.storeLong(pointer.getPosition(), 9, 1L);
+    }
+
     /**
      * Allocate.
      */
@@ -145,4 +245,354 @@ public class OffHeapByteBufferTest {
         assertArrayEquals(expectedBytes, actualBytes);
     }
 
+    /**
+     * Free empties the buffer to be reused.
+     */
+    @Test
+    public void free() {
+        buffer.store(new byte[100]);
+        buffer.seal();
+        buffer.free();
+        assertEquals(0, buffer.usedMemory());
+        assertEquals(0, buffer.dirtyMemory());
+        assertFalse(buffer.isSealed());
+        byte[] expectedBytes = new byte[] { 1, 2, 3 };
+        Pointer pointer = buffer.store(expectedBytes);
+        assertEquals(0, pointer.getPosition());
+        assertArrayEquals(expectedBytes, buffer.retrieve(pointer));
+    }
+
+    /**
+     * Sealed buffer does not store.
+     */
+    @Test(expected = BufferOverflowException.class)
+    public void storeSealed() {
+        buffer.seal();
+        buffer.store(new byte[100]);
+    }
+
+    /**
+     * Read optimistically.
+     */
+    @Test
+    public void readOptimistically() {
+        byte[] payload = new byte[] { 1, 2, 3 };
+        Pointer pointer = buffer.store(payload);
+        assertArrayEquals(payload, buffer.readOptimistically(pointer.getPosition()));
+        ByteBufferSerializer<Integer> serializer = new ByteBufferSerializer<Integer>() {
+            public byte[] serialize(Integer value) {
+                throw new UnsupportedOperationException();
+            }
+
+            public Integer deserialize(byte[] payload) {
+                throw new UnsupportedOperationException();
+            }
+
+            public Integer deserialize(ByteBuffer buffer) {
+                assertTrue(buffer.isReadOnly());
+                return buffer.remaining();
+            }
+        };
+        assertEquals(Integer.valueOf(3), buffer.readOptimistically(pointer.getPosition(), serializer));
+        assertFalse(pointer.isReferenced());
+    }
+
+    /**
+     * Read optimistically a removed payload.
+     */
+    @Test(expected = OffHeapByteBufferException.class)
+    public void readOptimisticallyRemoved() {
+        Pointer pointer = buffer.store(new byte[] { 1, 2, 3 });
+        buffer.remove(pointer);
+        buffer.readOptimistically(pointer.getPosition());
+    }
+
+    /**
+     * Read optimistically out of the buffer.
+     */
+    @Test(expected = OffHeapByteBufferException.class)
+    public void readOptimisticallyOutOfBuffer() {
+        OffHeapByteBuffer buffer = new OffHeapByteBuffer(0, 100);
+        buffer.readOptimistically(98);
+    }
+
+    /**
+     * Read optimistically a header whose length runs past the buffer.
+     */
+    @Test(expected = OffHeapByteBufferException.class)
+    public void readOptimisticallyWrongLength() {
+        OffHeapByteBuffer buffer = new OffHeapByteBuffer(0, 100);
+        Pointer pointer = buffer.store(new byte[10]);
+        buffer.directByteBuffer.put(pointer.getPosition(), buffer.header(200), 0, 5);
+        buffer.readOptimistically(pointer.getPosition());
+    }
+
+    /**
+     * Reserve.
+     */
+    @Test
+    public void reserve() {
+        OffHeapByteBuffer buffer = new OffHeapByteBuffer(0, 100);
+        buffer.store(new byte[5]);
+        OffHeapByteBuffer.Allocation allocation = buffer.reserve(60);
+        assertEquals(10, allocation.getOffset());
+        assertEquals(60, allocation.getLength());
+        assertEquals(70, buffer.usedMemory());
+        Pointer pointer = buffer.write(new OffHeapByteBuffer.Allocation(allocation.getOffset(), 8), new byte[] { 1, 2, 3 });
+        assertArrayEquals(new byte[] { 1, 2, 3 }, buffer.retrieve(pointer));
+        // The last region is cut short at the end of the buffer.
+        assertEquals(30, buffer.reserve(60).getLength());
+    }
+
+    /**
+     * Reserve full.
+     */
+    @Test(expected = BufferOverflowException.class)
+    public void reserveFull() {
+        OffHeapByteBuffer buffer = new OffHeapByteBuffer(0, 100);
+        buffer.reserve(100);
+        buffer.reserve(1);
+    }
+
+    /**
+     * Reserve sealed.
+     */
+    @Test(expected = BufferOverflowException.class)
+    public void reserveSealed() {
+        buffer.seal();
+        buffer.reserve(100);
+    }
+
+    /**
+     * Discard.
+     */
+    @Test
+    public void discard() {
+        buffer.reserve(100);
+        buffer.discard(40);
+        assertEquals(60, buffer.usedMemory());
+        assertEquals(40, buffer.dirtyMemory());
+    }
+
+    /**
+     * Free changes the generation.
+     */
+    @Test
+    public void freeChangesGeneration() {
+        int generation = buffer.getGeneration();
+        buffer.free();
+        assertEquals(generation + 1, buffer.getGeneration());
+    }
+
+    /**
+     * Retrieve with byte buffer serializer.
+     */
+    @Test
+    public void retrieveWithByteBufferSerializer() {
+        buffer.store(new byte[] { 9, 9, 9 });
+        Pointer pointer = buffer.store(new byte[] { 0, 0, 1, 0, 0, 0, 0, 0, 0, 0, 0, 2 });
+        ByteBufferSerializer<Long> serializer = new ByteBufferSerializer<Long>() {
+            public byte[] serialize(Long value) {
+                throw new UnsupportedOperationException();
+            }
+
+            public Long deserialize(byte[] payload) {
+                throw new UnsupportedOperationException();
+            }
+
+            public Long deserialize(ByteBuffer byteBuffer) {
+                assertEquals(12, byteBuffer.remaining());
+                return (long) byteBuffer.getInt() + byteBuffer.getLong();
+            }
+        };
+        assertEquals(Long.valueOf(256 + 2), buffer.retrieve(pointer, serializer));
+        assertEquals(Long.valueOf(256 + 2), buffer.retrieve(pointer, serializer));
+    }
+
+    /**
+     * Retrieve sets the reference bit instead of the access time.
+     */
+    @Test
+    public void retrieveReferences() {
+        Pointer pointer = buffer.store(new byte[] { 1 });
+        pointer.setAccessTime(42);
+        assertFalse(pointer.isReferenced());
+        buffer.retrieve(pointer);
+        assertTrue(pointer.isReferenced());
+        assertEquals(42, pointer.getAccessTime());
+    }
+
+    /**
+     * Length of the header.
+     */
+    @Test
+    public void length() {
+        Pointer pointer = buffer.store(new byte[300]);
+        assertEquals(300, buffer.length(pointer.getPosition()));
+        buffer.remove(pointer);
+        try {
+            buffer.length(pointer.getPosition());
+            fail();
+        } catch (OffHeapByteBufferException e) {
+            assertEquals("Object is dirty!", e.getMessage());
+        }
+    }
+
+    /**
+     * Remove moves the payload from used to dirty memory.
+     */
+    @Test
+    public void removeAccounting() {
+        Pointer pointer = buffer.store(new byte[100]);
+        buffer.store(new byte[10]);
+        buffer.remove(pointer);
+        assertEquals(15, buffer.usedMemory());
+        assertEquals(105, buffer.dirtyMemory());
+        assertEquals(1024 * 1024 * 10 - 120, buffer.freeMemory());
+    }
+
+    /**
+     * Update in place accounts the old payload as dirty.
+     */
+    @Test
+    public void updateAccounting() {
+        Pointer pointer = buffer.store(new byte[100]);
+        buffer.update(pointer, new byte[60]);
+        assertEquals(65, buffer.usedMemory());
+        assertEquals(40, buffer.dirtyMemory());
+    }
+
+    /**
+     * Commit on the first store.
+     */
+    @Test
+    public void commitOnStore() {
+        assertFalse(buffer.isCommitted());
+        assertEquals(0, buffer.committedMemory());
+        buffer.store(new byte[10]);
+        assertTrue(buffer.isCommitted());
+        assertEquals(1024 * 1024 * 10, buffer.committedMemory());
+    }
+
+    /**
+     * Decommit.
+     */
+    @Test
+    public void decommit() {
+        byte[] expectedBytes = new byte[100];
+        random.nextBytes(expectedBytes);
+        buffer.store(expectedBytes);
+        assertFalse(buffer.decommit());
+        buffer.free();
+        assertTrue(buffer.decommit());
+        assertFalse(buffer.isCommitted());
+        assertFalse(buffer.decommit());
+        Pointer pointer = buffer.store(expectedBytes);
+        assertArrayEquals(expectedBytes, buffer.retrieve(pointer));
+    }
+
+    /**
+     * Read optimistically a decommitted buffer.
+     */
+    @Test(expected = OffHeapByteBufferException.class)
+    public void readOptimisticallyDecommitted() {
+        Pointer pointer = buffer.store(new byte[] { 1, 2, 3 });
+        buffer.free();
+        buffer.decommit();
+        buffer.readOptimistically(pointer.getPosition());
+    }
+
+    /**
+     * Read optimistically takes no lock, a writer holding the stripe does not
+     * fail it.
+     */
+    @Test
+    public void readOptimisticallyWhileWriteLocked() throws InterruptedException {
+        final Pointer pointer = buffer.store(new byte[] { 1, 2, 3 });
+        final CountDownLatch locked = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        Thread writer = new Thread(new Runnable() {
+            public void run() {
+                buffer.readWriteLock.writeLock(pointer.getPosition());
+                try {
+                    locked.countDown();
+                    done.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    buffer.readWriteLock.writeUnlock(pointer.getPosition());
+                }
+            }
+        });
+        writer.start();
+        locked.await();
+        try {
+            assertArrayEquals(new byte[] { 1, 2, 3 }, buffer.readOptimistically(pointer.getPosition()));
+        } finally {
+            done.countDown();
+            writer.join();
+        }
+    }
+
+    /**
+     * Decommitted memory is released after it was retired.
+     */
+    @Test
+    public void releaseRetired() {
+        buffer.store(new byte[] { 1, 2, 3 });
+        assertFalse(buffer.releaseRetired(Long.MAX_VALUE));
+        buffer.free();
+        assertTrue(buffer.decommit());
+        assertFalse(buffer.releaseRetired(System.currentTimeMillis() - 1000));
+        assertTrue(buffer.releaseRetired(Long.MAX_VALUE));
+        assertFalse(buffer.releaseRetired(Long.MAX_VALUE));
+        Pointer pointer = buffer.store(new byte[] { 4, 5 });
+        assertArrayEquals(new byte[] { 4, 5 }, buffer.retrieve(pointer));
+    }
+
+    /**
+     * Views are renewed when the buffer is committed again.
+     */
+    @Test
+    public void retrieveWithSerializerAfterDecommit() {
+        ByteBufferSerializer<Integer> serializer = new ByteBufferSerializer<Integer>() {
+            public byte[] serialize(Integer value) {
+                return ByteBuffer.allocate(4).putInt(value).array();
+            }
+
+            public Integer deserialize(byte[] payload) {
+                return ByteBuffer.wrap(payload).getInt();
+            }
+
+            public Integer deserialize(ByteBuffer buffer) {
+                return buffer.getInt();
+            }
+        };
+        assertEquals(Integer.valueOf(1), buffer.retrieve(buffer.store(serializer.serialize(1)), serializer));
+        buffer.free();
+        buffer.decommit();
+        assertEquals(Integer.valueOf(2), buffer.retrieve(buffer.store(serializer.serialize(2)), serializer));
+    }
+
+    /**
+     * Retrieve to a destination.
+     */
+    @Test
+    public void retrieveToDestination() {
+        Pointer pointer = buffer.store(new byte[] { 1, 2, 3 });
+        byte[] destination = new byte[5];
+        assertEquals(3, buffer.retrieve(pointer.getPosition(), destination, 2));
+        assertArrayEquals(new byte[] { 0, 0, 1, 2, 3 }, destination);
+    }
+
+    /**
+     * Read optimistically the head of a chunked payload.
+     */
+    @Test(expected = OffHeapByteBufferException.class)
+    public void readOptimisticallyChunked() {
+        Pointer pointer = buffer.store(new byte[16]);
+        buffer.markAsChunked(pointer.getPosition());
+        assertTrue(buffer.isChunked(pointer.getPosition()));
+        buffer.readOptimistically(pointer.getPosition());
+    }
 }
@@ -29,7 +29,9 @@ public class PointerTest {
         pointerToCopy.setAccessTime(accessTime);
         pointerToCopy.setPosition(position);
         pointerToCopy.setOffHeapByteBuffer(offHeapByteBuffer);
+        pointerToCopy.reference();
         pointer.copy(pointerToCopy);
+        assertTrue(pointer.isReferenced());
         assertEquals(position, pointer.getPosition());
         assertEquals(accessTime, pointer.getAccessTime());
         assertEquals(offHeapByteBuffer, pointer.getOffHeapByteBuffer());
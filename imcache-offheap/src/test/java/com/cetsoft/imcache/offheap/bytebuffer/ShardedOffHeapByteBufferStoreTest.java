@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.bytebuffer;
+
+import static org.junit.Assert.*;
+
+import java.nio.BufferOverflowException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.KyleDing.imcache.serialization.LongSerializer;
+
+/**
+ * The Class ShardedOffHeapByteBufferStoreTest.
+ */
+public class ShardedOffHeapByteBufferStoreTest {
+
+    /** The buffer store, with regions of 1024 bytes. */
+    ShardedOffHeapByteBufferStore bufferStore = new ShardedOffHeapByteBufferStore(16384, 8, 4);
+
+    /**
+     * Shard count is limited to half of the buffers.
+     */
+    @Test
+    public void shardCount() {
+        assertEquals(4, bufferStore.getShardCount());
+        assertEquals(4, bufferStore.getAvailableBufferCount());
+        assertEquals(2, new ShardedOffHeapByteBufferStore(1024, 4, 8).getShardCount());
+        assertEquals(1, new ShardedOffHeapByteBufferStore(1024, 1, 8).getShardCount());
+    }
+
+    /**
+     * Payloads of a thread are allocated one after another in its region.
+     */
+    @Test
+    public void storeInRegion() {
+        assertEquals(1024, bufferStore.getRegionSize());
+        Pointer first = bufferStore.store(new byte[] { 1, 2, 3 });
+        Pointer second = bufferStore.store(new byte[] { 4, 5 });
+        assertSame(first.getOffHeapByteBuffer(), second.getOffHeapByteBuffer());
+        assertEquals(first.getPosition() + 8, second.getPosition());
+        assertArrayEquals(new byte[] { 1, 2, 3 }, bufferStore.retrieve(first));
+        assertArrayEquals(new byte[] { 4, 5 }, bufferStore.retrieve(second));
+        assertEquals(1024, bufferStore.usedMemory());
+    }
+
+    /**
+     * Values are written straight into the region of the thread.
+     */
+    @Test
+    public void storeStreamingInRegion() {
+        LongSerializer serializer = new LongSerializer();
+        Pointer first = bufferStore.store(new byte[] { 1, 2, 3 });
+        Pointer second = bufferStore.store(7L, serializer);
+        assertSame(first.getOffHeapByteBuffer(), second.getOffHeapByteBuffer());
+        assertEquals(first.getPosition() + 8, second.getPosition());
+        assertEquals(Long.valueOf(7L), bufferStore.retrieve(second, serializer));
+        assertEquals(1024, bufferStore.usedMemory());
+    }
+
+    /**
+     * Payloads larger than a region are stored to the buffer directly.
+     */
+    @Test
+    public void storeLargerThanRegion() {
+        byte[] payload = new byte[2000];
+        payload[1999] = 1;
+        Pointer pointer = bufferStore.store(payload);
+        assertArrayEquals(payload, bufferStore.retrieve(pointer));
+        assertEquals(2005, bufferStore.usedMemory());
+    }
+
+    /**
+     * The unused end of a region becomes dirty.
+     */
+    @Test
+    public void regionRetiredAsDirty() {
+        // 9 payloads of 105 bytes fill 945 bytes of the first region.
+        for (int i = 0; i < 10; i++) {
+            bufferStore.store(new byte[100]);
+        }
+        assertEquals(79, bufferStore.dirtyMemory());
+        assertEquals(2048 - 79, bufferStore.usedMemory());
+    }
+
+    /**
+     * Threads store to the current buffers of their shards.
+     */
+    @Test
+    public void threadsUseShards() throws InterruptedException {
+        final Set<OffHeapByteBuffer> buffers = new HashSet<OffHeapByteBuffer>();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    Pointer pointer = bufferStore.store(new byte[10]);
+                    synchronized (buffers) {
+                        buffers.add(pointer.getOffHeapByteBuffer());
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4, buffers.size());
+        for (OffHeapByteBuffer buffer : buffers) {
+            assertTrue(bufferStore.isCurrent(buffer));
+        }
+    }
+
+    /**
+     * A full shard moves to the next available buffer.
+     */
+    @Test
+    public void storeNextBuffer() {
+        Pointer[] pointers = new Pointer[200];
+        for (int i = 0; i < pointers.length; i++) {
+            byte[] payload = new byte[100];
+            payload[0] = (byte) i;
+            pointers[i] = bufferStore.store(payload);
+        }
+        for (int i = 0; i < pointers.length; i++) {
+            assertEquals((byte) i, bufferStore.retrieve(pointers[i])[0]);
+        }
+        assertEquals(3, bufferStore.getAvailableBufferCount());
+        assertNotSame(pointers[0].getOffHeapByteBuffer(), pointers[199].getOffHeapByteBuffer());
+    }
+
+    /**
+     * Store overflows once every buffer is full.
+     */
+    @Test(expected = BufferOverflowException.class)
+    public void storeBufferOverFlow() {
+        ShardedOffHeapByteBufferStore bufferStore = new ShardedOffHeapByteBufferStore(2048, 2, 1);
+        for (int i = 0; i < 100; i++) {
+            bufferStore.store(new byte[100]);
+        }
+    }
+
+    /**
+     * Sealing a buffer moves the shards off it and the regions in it are not
+     * used anymore.
+     */
+    @Test
+    public void seal() {
+        OffHeapByteBuffer buffer = bufferStore.store(new byte[10]).getOffHeapByteBuffer();
+        assertTrue(bufferStore.seal(buffer));
+        assertFalse(bufferStore.isCurrent(buffer));
+        Pointer pointer = bufferStore.store(new byte[10]);
+        assertNotSame(buffer, pointer.getOffHeapByteBuffer());
+    }
+
+    /**
+     * A region in a freed buffer is not used, even once the buffer is current
+     * again.
+     */
+    @Test
+    public void storeAfterFree() {
+        ShardedOffHeapByteBufferStore bufferStore = new ShardedOffHeapByteBufferStore(16384, 2, 1);
+        Pointer pointer = bufferStore.store(new byte[] { 1 });
+        OffHeapByteBuffer buffer = pointer.getOffHeapByteBuffer();
+        bufferStore.seal(buffer);
+        bufferStore.free(buffer.getIndex());
+        Pointer other = bufferStore.store(new byte[] { 2 });
+        bufferStore.seal(other.getOffHeapByteBuffer());
+        // The freed buffer is current again and a new region is reserved from its start.
+        assertTrue(bufferStore.isCurrent(buffer));
+        Pointer newPointer = bufferStore.store(new byte[] { 3 });
+        assertSame(buffer, newPointer.getOffHeapByteBuffer());
+        assertEquals(0, newPointer.getPosition());
+        assertEquals(1024, buffer.usedMemory());
+        assertEquals(0, buffer.dirtyMemory());
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.bytebuffer;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * The Class SlabOffHeapByteBufferStoreTest.
+ */
+public class SlabOffHeapByteBufferStoreTest {
+
+    /** The buffer store. */
+    SlabOffHeapByteBufferStore bufferStore = new SlabOffHeapByteBufferStore(1024, 2);
+
+    /**
+     * Buffers are slab buffers.
+     */
+    @Test
+    public void buffersAreSlabBuffers() {
+        for (OffHeapByteBuffer buffer : bufferStore.buffers) {
+            assertTrue(buffer instanceof SlabOffHeapByteBuffer);
+        }
+    }
+
+    /**
+     * Removed memory is reused.
+     */
+    @Test
+    public void removedMemoryIsReused() {
+        // Without reuse 100 chunks of 112 bytes would overflow both buffers.
+        for (int i = 0; i < 100; i++) {
+            byte[] payload = new byte[100];
+            payload[0] = (byte) i;
+            Pointer pointer = bufferStore.store(payload);
+            assertArrayEquals(payload, bufferStore.retrieve(pointer));
+            bufferStore.remove(pointer);
+        }
+        assertEquals(0, bufferStore.usedMemory());
+        assertEquals(2 * 1024, bufferStore.freeMemory());
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.bytebuffer;
+
+import static org.junit.Assert.*;
+
+import java.nio.BufferOverflowException;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * The Class SlabOffHeapByteBufferTest.
+ */
+public class SlabOffHeapByteBufferTest {
+
+    /** The Constant HEADER. */
+    static final int HEADER = 5;
+
+    /** The random. */
+    Random random;
+
+    /** The buffer. */
+    SlabOffHeapByteBuffer buffer = new SlabOffHeapByteBuffer(0, 1024 * 1024);
+
+    /**
+     * Setup.
+     */
+    @Before
+    public void setup() {
+        random = new Random();
+    }
+
+    /**
+     * Size classes.
+     */
+    @Test
+    public void sizeClasses() {
+        assertEquals(0, SlabOffHeapByteBuffer.sizeClass(1));
+        assertEquals(0, SlabOffHeapByteBuffer.sizeClass(16));
+        assertEquals(1, SlabOffHeapByteBuffer.sizeClass(17));
+        assertEquals(7, SlabOffHeapByteBuffer.sizeClass(128));
+        assertEquals(8, SlabOffHeapByteBuffer.sizeClass(129));
+        assertEquals(160, SlabOffHeapByteBuffer.chunkSize(8));
+        assertEquals(256, SlabOffHeapByteBuffer.chunkSize(11));
+        assertEquals(320, SlabOffHeapByteBuffer.chunkSize(12));
+        int previousChunkSize = 0;
+        for (int sizeClass = 0; sizeClass < buffer.sizeClasses(); sizeClass++) {
+            int chunkSize = SlabOffHeapByteBuffer.chunkSize(sizeClass);
+            assertTrue(chunkSize > previousChunkSize);
+            assertEquals(sizeClass, SlabOffHeapByteBuffer.sizeClass(chunkSize));
+            assertEquals(sizeClass, SlabOffHeapByteBuffer.sizeClass(previousChunkSize + 1));
+            previousChunkSize = chunkSize;
+        }
+        assertEquals(1024 * 1024, previousChunkSize);
+    }
+
+    /**
+     * Store.
+     */
+    @Test
+    public void store() {
+        byte[] expectedBytes = randomBytes(100);
+        Pointer pointer = buffer.store(expectedBytes);
+        assertArrayEquals(expectedBytes, buffer.retrieve(pointer));
+        int sizeClass = SlabOffHeapByteBuffer.sizeClass(100 + HEADER);
+        int chunkSize = SlabOffHeapByteBuffer.chunkSize(sizeClass);
+        assertEquals(100 + HEADER, buffer.usedMemory(sizeClass));
+        assertEquals(chunkSize - 100 - HEADER, buffer.dirtyMemory(sizeClass));
+        assertEquals(0, buffer.freeMemory(sizeClass));
+        assertEquals(1024 * 1024 - chunkSize, buffer.freeMemory());
+    }
+
+    /**
+     * Removed chunk is reused.
+     */
+    @Test
+    public void removedChunkIsReused() {
+        Pointer first = buffer.store(randomBytes(100));
+        buffer.store(randomBytes(100));
+        buffer.remove(first);
+        int sizeClass = SlabOffHeapByteBuffer.sizeClass(100 + HEADER);
+        assertEquals(SlabOffHeapByteBuffer.chunkSize(sizeClass), buffer.freeMemory(sizeClass));
+        byte[] expectedBytes = randomBytes(101);
+        Pointer pointer = buffer.store(expectedBytes);
+        assertEquals(first.getPosition(), pointer.getPosition());
+        assertArrayEquals(expectedBytes, buffer.retrieve(pointer));
+        assertEquals(0, buffer.freeMemory(sizeClass));
+    }
+
+    /**
+     * Remove.
+     */
+    @Test(expected = OffHeapByteBufferException.class)
+    public void remove() {
+        byte[] expectedBytes = randomBytes(100);
+        Pointer pointer = buffer.store(expectedBytes);
+        assertArrayEquals(expectedBytes, buffer.remove(pointer));
+        assertEquals(0, buffer.usedMemory());
+        assertEquals(0, buffer.dirtyMemory());
+        assertEquals(1024 * 1024, buffer.freeMemory());
+        buffer.retrieve(pointer);
+    }
+
+    /**
+     * Update in place.
+     */
+    @Test
+    public void updateInPlace() {
+        Pointer pointer = buffer.store(randomBytes(100));
+        byte[] expectedBytes = randomBytes(104);
+        Pointer updatedPointer = buffer.update(pointer, expectedBytes);
+        assertEquals(pointer.getPosition(), updatedPointer.getPosition());
+        assertArrayEquals(expectedBytes, buffer.retrieve(updatedPointer));
+        assertEquals(104 + HEADER, buffer.usedMemory());
+    }
+
+    /**
+     * Update to another size class.
+     */
+    @Test
+    public void updateToAnotherSizeClass() {
+        Pointer pointer = buffer.store(randomBytes(100));
+        byte[] expectedBytes = randomBytes(1000);
+        Pointer updatedPointer = buffer.update(pointer, expectedBytes);
+        assertNotEquals(pointer.getPosition(), updatedPointer.getPosition());
+        assertArrayEquals(expectedBytes, buffer.retrieve(updatedPointer));
+        int sizeClass = SlabOffHeapByteBuffer.sizeClass(100 + HEADER);
+        assertEquals(0, buffer.usedMemory(sizeClass));
+        assertEquals(SlabOffHeapByteBuffer.chunkSize(sizeClass), buffer.freeMemory(sizeClass));
+        assertEquals(1000 + HEADER, buffer.usedMemory());
+    }
+
+    /**
+     * Allocate.
+     */
+    @Test(expected = BufferOverflowException.class)
+    public void allocate() {
+        buffer.allocate(new byte[1024 * 1024]);
+    }
+
+    /**
+     * Reclaimable memory.
+     */
+    @Test
+    public void reclaimableMemory() {
+        buffer.store(randomBytes(100));
+        assertTrue(buffer.dirtyMemory() > 0);
+        assertEquals(0, buffer.reclaimableMemory());
+    }
+
+    /**
+     * Random bytes.
+     *
+     * @param size the size
+     * @return the byte[]
+     */
+    byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.offheap.index;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore;
+import com.KyleDing.imcache.offheap.bytebuffer.Pointer;
+import com.KyleDing.imcache.offheap.bytebuffer.SlabOffHeapByteBufferStore;
+import com.KyleDing.imcache.serialization.Serializer;
+
+/**
+ * The Class OffHeapHashIndexTest.
+ */
+public class OffHeapHashIndexTest {
+
+    /** The Constant KEY_SERIALIZER. */
+    static final Serializer<String> KEY_SERIALIZER = new Serializer<String>() {
+        public byte[] serialize(String value) {
+            return value.getBytes();
+        }
+
+        public String deserialize(byte[] payload) {
+            return new String(payload);
+        }
+    };
+
+    /** The buffer store. */
+    OffHeapByteBufferStore bufferStore;
+
+    /** The key store. */
+    SlabOffHeapByteBufferStore keyStore;
+
+    /** The index. */
+    OffHeapHashIndex<String> index;
+
+    /**
+     * Setup.
+     */
+    @Before
+    public void setup() {
+        bufferStore = new OffHeapByteBufferStore(1024 * 1024, 2);
+        keyStore = new SlabOffHeapByteBufferStore(1024 * 1024, 2);
+        index = new OffHeapHashIndex<String>(KEY_SERIALIZER, bufferStore, keyStore, 4, 2);
+    }
+
+    /**
+     * Put and get.
+     */
+    @Test
+    public void putAndGet() {
+        Pointer pointer = bufferStore.store(new byte[] { 1, 2, 3 });
+        assertNull(index.put("a", pointer));
+        Pointer actualPointer = index.get("a");
+        assertEquals(pointer.getPosition(), actualPointer.getPosition());
+        assertSame(pointer.getOffHeapByteBuffer(), actualPointer.getOffHeapByteBuffer());
+        assertEquals(pointer.getAccessTime(), actualPointer.getAccessTime());
+        assertArrayEquals(new byte[] { 1, 2, 3 }, bufferStore.retrieve(actualPointer));
+        assertNull(index.get("b"));
+        assertTrue(index.containsKey("a"));
+        assertFalse(index.containsKey("b"));
+        assertEquals(1, index.size());
+    }
+
+    /**
+     * Put replaces the pointer.
+     */
+    @Test
+    public void putReplacesPointer() {
+        Pointer pointer = bufferStore.store(new byte[] { 1 });
+        Pointer newPointer = bufferStore.store(new byte[] { 2 });
+        index.put("a", pointer);
+        assertEquals(pointer.getPosition(), index.put("a", newPointer).getPosition());
+        assertEquals(newPointer.getPosition(), index.get("a").getPosition());
+        assertEquals(pointer.getPosition(), index.putIfAbsent("b", pointer) == null ? pointer.getPosition() : -1);
+        assertEquals(pointer.getPosition(), index.putIfAbsent("b", newPointer).getPosition());
+        assertEquals(2, index.size());
+    }
+
+    /**
+     * Many keys are kept through resizes and removals.
+     */
+    @Test
+    public void manyKeys() {
+        Pointer pointer = bufferStore.store(new byte[] { 1 });
+        int count = 10000;
+        for (int i = 0; i < count; i++) {
+            pointer.setPosition(i);
+            index.put("key" + i, pointer);
+        }
+        assertEquals(count, index.size());
+        for (int i = 0; i < count; i += 2) {
+            assertEquals(i, index.remove("key" + i).getPosition());
+        }
+        assertEquals(count / 2, index.size());
+        for (int i = 0; i < count; i++) {
+            Pointer actualPointer = index.get("key" + i);
+            if (i % 2 == 0) {
+                assertNull(actualPointer);
+            } else {
+                assertEquals(i, actualPointer.getPosition());
+            }
+        }
+    }
+
+    /**
+     * Removed keys are freed.
+     */
+    @Test
+    public void removedKeysAreFreed() {
+        Pointer pointer = bufferStore.store(new byte[] { 1 });
+        index.put("a", pointer);
+        index.put("b", pointer);
+        assertTrue(keyStore.usedMemory() > 0);
+        index.remove("a");
+        assertNull(index.remove("a"));
+        index.clear();
+        assertEquals(0, index.size());
+        assertNull(index.get("b"));
+        assertEquals(0, keyStore.usedMemory());
+    }
+
+    /**
+     * Access time writes through.
+     */
+    @Test
+    public void accessTimeWritesThrough() {
+        index.put("a", bufferStore.store(new byte[] { 1 }));
+        index.get("a").setAccessTime(42);
+        assertEquals(42, index.get("a").getAccessTime());
+        Pointer pointer = index.get("a");
+        // Moves the keys around, the pointer finds its slot again.
+        for (int i = 0; i < 100; i++) {
+            index.put("key" + i, pointer);
+        }
+        pointer.setAccessTime(43);
+        assertEquals(43, index.get("a").getAccessTime());
+    }
+
+    /**
+     * Reference bit writes through, apart from the access time.
+     */
+    @Test
+    public void referencedWritesThrough() {
+        index.put("a", bufferStore.store(new byte[] { 1 }));
+        index.get("a").setAccessTime(42);
+        assertFalse(index.get("a").isReferenced());
+        index.get("a").reference();
+        assertTrue(index.get("a").isReferenced());
+        assertEquals(42, index.get("a").getAccessTime());
+        index.get("a").setReferenced(false);
+        assertFalse(index.get("a").isReferenced());
+        assertEquals(42, index.get("a").getAccessTime());
+    }
+
+    /**
+     * Copy writes through.
+     */
+    @Test
+    public void copyWritesThrough() {
+        index.put("a", bufferStore.store(new byte[] { 1 }));
+        Pointer newPointer = bufferStore.store(new byte[] { 2 });
+        index.get("a").copy(newPointer);
+        assertArrayEquals(new byte[] { 2 }, bufferStore.retrieve(index.get("a")));
+    }
+
+    /**
+     * Copy does not override a newer pointer.
+     */
+    @Test
+    public void copyDoesNotOverrideNewerPointer() {
+        index.put("a", bufferStore.store(new byte[] { 1 }));
+        Pointer stalePointer = index.get("a");
+        index.put("a", bufferStore.store(new byte[] { 2 }));
+        stalePointer.copy(bufferStore.store(new byte[] { 3 }));
+        assertArrayEquals(new byte[] { 2 }, bufferStore.retrieve(index.get("a")));
+    }
+
+    /**
+     * Replace and remove with values.
+     */
+    @Test
+    public void replaceAndRemoveWithValues() {
+        Pointer pointer = bufferStore.store(new byte[] { 1 });
+        Pointer newPointer = bufferStore.store(new byte[] { 2 });
+        assertNull(index.replace("a", pointer));
+        index.put("a", pointer);
+        assertFalse(index.replace("a", newPointer, pointer));
+        assertTrue(index.replace("a", pointer, newPointer));
+        assertFalse(index.remove("a", pointer));
+        assertTrue(index.remove("a", newPointer));
+        assertTrue(index.isEmpty());
+    }
+
+    /**
+     * Entry set.
+     */
+    @Test
+    public void entrySet() {
+        Pointer pointer = bufferStore.store(new byte[] { 1 });
+        Set<String> expectedKeys = new HashSet<String>();
+        for (int i = 0; i < 10; i++) {
+            index.put("key" + i, pointer);
+            expectedKeys.add("key" + i);
+        }
+        Set<String> keys = new HashSet<String>();
+        Iterator<Map.Entry<String, Pointer>> iterator = index.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Pointer> entry = iterator.next();
+            keys.add(entry.getKey());
+            assertEquals(pointer.getPosition(), entry.getValue().getPosition());
+            iterator.remove();
+        }
+        assertEquals(expectedKeys, keys);
+        assertTrue(index.isEmpty());
+    }
+
+    /**
+     * Key store must not be the buffer store.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void keyStoreMustNotBeBufferStore() {
+        new OffHeapHashIndex<String>(KEY_SERIALIZER, keyStore, keyStore);
+    }
+}
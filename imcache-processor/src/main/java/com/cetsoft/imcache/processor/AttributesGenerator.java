@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.processor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.TypeElement;
+
+/**
+ * The Class AttributesGenerator generates Foo_CacheAttributes, an
+ * {@link com.KyleDing.imcache.cache.search.AttributeAccessorFactory} with an
+ * accessor constant per field.
+ */
+class AttributesGenerator extends CodeGenerator {
+
+    /** The Constant SUFFIX. */
+    static final String SUFFIX = "_CacheAttributes";
+
+    /**
+     * Instantiates a new attributes generator.
+     *
+     * @param processingEnv the processing environment
+     */
+    AttributesGenerator(ProcessingEnvironment processingEnv) {
+        super(processingEnv);
+    }
+
+    /**
+     * Generates the accessors of the fields of the type.
+     *
+     * @param type the type
+     * @param fields the fields
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    void generate(TypeElement type, List<ValueField> fields) throws IOException {
+        String name = generatedName(type, SUFFIX);
+        String valueType = type.getQualifiedName().toString();
+        String accessorType = "com.KyleDing.imcache.cache.search.AttributeAccessor<" + valueType + ">";
+        StringBuilder source = startSource(name);
+        source.append("/**\n");
+        source.append(" * The Class ").append(simpleName(name)).append(" reads the attributes of\n");
+        source.append(" * {@link ").append(valueType).append("} without reflection, it is generated by\n");
+        source.append(" * imcache-processor.\n");
+        source.append(" */\n");
+        source.append("public final class ").append(simpleName(name))
+                .append(" implements com.KyleDing.imcache.cache.search.AttributeAccessorFactory<").append(valueType)
+                .append("> {\n");
+        List<String> constants = new ArrayList<String>();
+        Set<String> used = new HashSet<String>();
+        for (ValueField field : fields) {
+            String constant = toConstant(field.getName());
+            if (!used.add(constant)) {
+                constant = constant + "_" + constants.size();
+                used.add(constant);
+            }
+            constants.add(constant);
+            source.append("\n");
+            source.append("    /** The accessor of ").append(field.getName()).append(". */\n");
+            source.append("    public static final ").append(accessorType).append(" ").append(constant)
+                    .append(" = new ").append(accessorType).append("() {\n");
+            source.append("        public Object get(").append(valueType).append(" object) {\n");
+            source.append("            return ").append(field.read("object")).append(";\n");
+            source.append("        }\n");
+            source.append("    };\n");
+        }
+        source.append("\n");
+        source.append("    public ").append(accessorType).append(" getAccessor(String attributeName) {\n");
+        for (int i = 0; i < fields.size(); i++) {
+            source.append("        if (\"").append(fields.get(i).getName()).append("\".equals(attributeName)) {\n");
+            source.append("            return ").append(constants.get(i)).append(";\n");
+            source.append("        }\n");
+        }
+        source.append("        return null;\n");
+        source.append("    }\n");
+        source.append("}\n");
+        write(name, type, source);
+    }
+
+    /**
+     * Converts a field name to a constant name, firstName becomes FIRST_NAME.
+     *
+     * @param name the name
+     * @return the constant name
+     */
+    static String toConstant(String name) {
+        StringBuilder constant = new StringBuilder(name.length() + 4);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isUpperCase(c) && i > 0 && !Character.isUpperCase(name.charAt(i - 1))) {
+                constant.append('_');
+            }
+            constant.append(Character.toUpperCase(c));
+        }
+        return constant.toString();
+    }
+}
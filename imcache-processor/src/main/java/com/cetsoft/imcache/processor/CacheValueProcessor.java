@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.processor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic.Kind;
+
+/**
+ * The Class CacheValueProcessor generates Foo_CacheSerializer for classes
+ * annotated with {@link com.KyleDing.imcache.annotation.CacheValue} and
+ * Foo_CacheAttributes for them and for classes with
+ * {@link com.KyleDing.imcache.annotation.Indexed} fields. It runs when
+ * imcache-processor is on the compile classpath, classes it can not handle
+ * are reported as compile errors.
+ */
+@SupportedAnnotationTypes({ CacheValueProcessor.CACHE_VALUE, CacheValueProcessor.INDEXED })
+public class CacheValueProcessor extends AbstractProcessor {
+
+    /** The Constant CACHE_VALUE. */
+    static final String CACHE_VALUE = "com.KyleDing.imcache.annotation.CacheValue";
+
+    /** The Constant INDEXED. */
+    static final String INDEXED = "com.KyleDing.imcache.annotation.Indexed";
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see javax.annotation.processing.AbstractProcessor#getSupportedSourceVersion()
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see javax.annotation.processing.AbstractProcessor#process(java.util.Set,
+     * javax.annotation.processing.RoundEnvironment)
+     */
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Elements elements = processingEnv.getElementUtils();
+        TypeElement cacheValue = elements.getTypeElement(CACHE_VALUE);
+        TypeElement indexed = elements.getTypeElement(INDEXED);
+        if (cacheValue == null || indexed == null) {
+            return false;
+        }
+        Set<TypeElement> types = new LinkedHashSet<TypeElement>();
+        for (Element element : roundEnv.getElementsAnnotatedWith(cacheValue)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error("@CacheValue can only be put on classes.", element);
+            } else {
+                types.add((TypeElement) element);
+            }
+        }
+        for (Element element : roundEnv.getElementsAnnotatedWith(indexed)) {
+            types.add((TypeElement) element.getEnclosingElement());
+        }
+        SerializerGenerator serializers = new SerializerGenerator(processingEnv, cacheValue);
+        AttributesGenerator attributes = new AttributesGenerator(processingEnv);
+        for (TypeElement type : types) {
+            process(type, hasAnnotation(type, cacheValue), indexed, serializers, attributes);
+        }
+        return false;
+    }
+
+    /**
+     * Checks the class and its fields and generates its code.
+     *
+     * @param type the type
+     * @param isCacheValue whether the class is a cache value
+     * @param indexed the indexed annotation
+     * @param serializers the serializer generator
+     * @param attributes the attributes generator
+     */
+    private void process(TypeElement type, boolean isCacheValue, TypeElement indexed,
+            SerializerGenerator serializers, AttributesGenerator attributes) {
+        if (!checkType(type, isCacheValue)) {
+            return;
+        }
+        boolean valid = true;
+        List<ValueField> serialized = new ArrayList<ValueField>();
+        List<ValueField> accessed = new ArrayList<ValueField>();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            boolean isIndexed = hasAnnotation(field, indexed);
+            if (modifiers.contains(Modifier.STATIC)) {
+                if (isIndexed) {
+                    error("Static field " + field.getSimpleName() + " can not be indexed.", field);
+                    valid = false;
+                }
+                continue;
+            }
+            boolean isSerialized = isCacheValue && !modifiers.contains(Modifier.TRANSIENT);
+            if (!isSerialized && !isIndexed) {
+                continue;
+            }
+            ValueField valueField = toValueField(type, field, isSerialized);
+            if (valueField == null) {
+                valid = false;
+                continue;
+            }
+            if (isSerialized) {
+                if (!serializers.isSupported(field.asType())) {
+                    error("Type " + field.asType() + " of field " + field.getSimpleName()
+                            + " is not supported, annotate it with @CacheValue or make the field transient.", field);
+                    valid = false;
+                    continue;
+                }
+                serialized.add(valueField);
+            }
+            accessed.add(valueField);
+        }
+        if (!valid) {
+            return;
+        }
+        try {
+            if (isCacheValue) {
+                serializers.generate(type, serialized);
+            }
+            attributes.generate(type, accessed);
+        } catch (IOException e) {
+            error("Code of " + type.getQualifiedName() + " can not be generated, " + e.getMessage(), type);
+        }
+    }
+
+    /**
+     * Checks that the generated code can create and access the class.
+     *
+     * @param type the type
+     * @param isCacheValue whether the class is a cache value
+     * @return true, if the class is valid
+     */
+    private boolean checkType(TypeElement type, boolean isCacheValue) {
+        if (!type.getTypeParameters().isEmpty()) {
+            error("Generic class " + type.getQualifiedName() + " is not supported.", type);
+            return false;
+        }
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            TypeElement enclosing = (TypeElement) element;
+            if (enclosing.getModifiers().contains(Modifier.PRIVATE)) {
+                error("Class " + enclosing.getQualifiedName() + " can not be private.", type);
+                return false;
+            }
+            NestingKind nestingKind = enclosing.getNestingKind();
+            if (nestingKind == NestingKind.LOCAL || nestingKind == NestingKind.ANONYMOUS
+                    || (nestingKind == NestingKind.MEMBER && !enclosing.getModifiers().contains(Modifier.STATIC))) {
+                error("Class " + type.getQualifiedName() + " must be a top level or a static nested class.", type);
+                return false;
+            }
+        }
+        if (!isCacheValue) {
+            return true;
+        }
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            error("Abstract class " + type.getQualifiedName() + " can not be deserialized.", type);
+            return false;
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                return true;
+            }
+        }
+        error("Class " + type.getQualifiedName() + " needs a non private no argument constructor.", type);
+        return false;
+    }
+
+    /**
+     * Finds how the generated code reads and writes the field.
+     *
+     * @param type the type
+     * @param field the field
+     * @param isSerialized whether the field is serialized
+     * @return the value field, null if it can not be accessed
+     */
+    private ValueField toValueField(TypeElement type, VariableElement field, boolean isSerialized) {
+        String name = field.getSimpleName().toString();
+        Set<Modifier> modifiers = field.getModifiers();
+        if (!modifiers.contains(Modifier.PRIVATE)) {
+            if (isSerialized && modifiers.contains(Modifier.FINAL)) {
+                error("Final field " + name + " can not be deserialized, make it transient to skip it.", field);
+                return null;
+            }
+            return new ValueField(name, field.asType(), null, null);
+        }
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        String getter = findMethod(type, field, "get" + capitalized, false);
+        if (getter == null && field.asType().getKind() == TypeKind.BOOLEAN) {
+            getter = findMethod(type, field, "is" + capitalized, false);
+        }
+        if (getter == null) {
+            error("Private field " + name + " needs a non private getter.", field);
+            return null;
+        }
+        String setter = null;
+        if (isSerialized) {
+            setter = findMethod(type, field, "set" + capitalized, true);
+            if (setter == null) {
+                error("Private field " + name + " needs a non private setter.", field);
+                return null;
+            }
+        }
+        return new ValueField(name, field.asType(), getter, setter);
+    }
+
+    /**
+     * Finds the non private getter or setter of the field.
+     *
+     * @param type the type
+     * @param field the field
+     * @param name the method name
+     * @param isSetter whether a setter is looked for
+     * @return the method name, null if it is not found
+     */
+    private String findMethod(TypeElement type, VariableElement field, String name, boolean isSetter) {
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if (!method.getSimpleName().contentEquals(name) || modifiers.contains(Modifier.PRIVATE)
+                    || modifiers.contains(Modifier.STATIC)) {
+                continue;
+            }
+            List<? extends VariableElement> parameters = method.getParameters();
+            if (isSetter ? parameters.size() == 1
+                    && processingEnv.getTypeUtils().isSameType(parameters.get(0).asType(), field.asType())
+                    : parameters.isEmpty()
+                            && processingEnv.getTypeUtils().isSameType(method.getReturnType(), field.asType())) {
+                return name;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the element is annotated with the annotation.
+     *
+     * @param element the element
+     * @param annotation the annotation
+     * @return true, if it is
+     */
+    static boolean hasAnnotation(Element element, TypeElement annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (mirror.getAnnotationType().asElement().equals(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reports an error on the element.
+     *
+     * @param message the message
+     * @param element the element
+     */
+    private void error(String message, Element element) {
+        processingEnv.getMessager().printMessage(Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.processor;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaFileObject;
+
+/**
+ * The Class CodeGenerator names and writes the classes generated for a value
+ * class. They go to the package of the value class, a nested class is named
+ * after its enclosing classes, so Outer.Inner gets Outer_Inner_ and the
+ * suffix.
+ */
+abstract class CodeGenerator {
+
+    /** The processing environment. */
+    protected final ProcessingEnvironment processingEnv;
+
+    /**
+     * Instantiates a new code generator.
+     *
+     * @param processingEnv the processing environment
+     */
+    CodeGenerator(ProcessingEnvironment processingEnv) {
+        this.processingEnv = processingEnv;
+    }
+
+    /**
+     * Gets the qualified name of the class generated for the type.
+     *
+     * @param type the type
+     * @param suffix the suffix
+     * @return the qualified name
+     */
+    static String generatedName(TypeElement type, String suffix) {
+        StringBuilder name = new StringBuilder(suffix);
+        Element element = type;
+        while (element instanceof TypeElement) {
+            name.insert(0, element.getSimpleName());
+            element = element.getEnclosingElement();
+            if (element instanceof TypeElement) {
+                name.insert(0, '_');
+            }
+        }
+        if (element instanceof PackageElement && !((PackageElement) element).isUnnamed()) {
+            name.insert(0, ((PackageElement) element).getQualifiedName() + ".");
+        }
+        return name.toString();
+    }
+
+    /**
+     * Starts the source of the generated class with its package.
+     *
+     * @param qualifiedName the qualified name
+     * @return the source
+     */
+    static StringBuilder startSource(String qualifiedName) {
+        StringBuilder source = new StringBuilder();
+        int packageEnd = qualifiedName.lastIndexOf('.');
+        if (packageEnd > 0) {
+            source.append("package ").append(qualifiedName.substring(0, packageEnd)).append(";\n\n");
+        }
+        return source;
+    }
+
+    /**
+     * Gets the simple name of the class.
+     *
+     * @param qualifiedName the qualified name
+     * @return the simple name
+     */
+    static String simpleName(String qualifiedName) {
+        return qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Writes the source of the generated class.
+     *
+     * @param qualifiedName the qualified name
+     * @param type the type it is generated for
+     * @param source the source
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    void write(String qualifiedName, TypeElement type, CharSequence source) throws IOException {
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, type);
+        Writer writer = file.openWriter();
+        try {
+            writer.write(source.toString());
+        } finally {
+            writer.close();
+        }
+    }
+}
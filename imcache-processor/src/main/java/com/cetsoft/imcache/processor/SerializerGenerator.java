@@ -0,0 +1,400 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.processor;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+
+/**
+ * The Class SerializerGenerator generates Foo_CacheSerializer, a
+ * {@link com.KyleDing.imcache.serialization.ByteBufferSerializer} writing the
+ * fields one after the other with
+ * {@link com.KyleDing.imcache.serialization.BinaryWriter}. Primitives are
+ * written as they are, wrappers and nested values get a presence byte and
+ * arrays, lists, strings and enums a length or an ordinal that is -1 for
+ * null. Nested values are written by the static write method of their own
+ * generated serializer.
+ */
+class SerializerGenerator extends CodeGenerator {
+
+    /** The Constant SUFFIX. */
+    static final String SUFFIX = "_CacheSerializer";
+
+    /** The Constant WRITER. */
+    private static final String WRITER = "com.KyleDing.imcache.serialization.BinaryWriter";
+
+    /** The Constant READER. */
+    private static final String READER = "com.KyleDing.imcache.serialization.BinaryReader";
+
+    /** The cache value annotation. */
+    private final TypeElement cacheValue;
+
+    /** The type utils. */
+    private final Types types;
+
+    /**
+     * Instantiates a new serializer generator.
+     *
+     * @param processingEnv the processing environment
+     * @param cacheValue the cache value annotation
+     */
+    SerializerGenerator(ProcessingEnvironment processingEnv, TypeElement cacheValue) {
+        super(processingEnv);
+        this.cacheValue = cacheValue;
+        this.types = processingEnv.getTypeUtils();
+    }
+
+    /**
+     * Checks if fields of the type can be serialized.
+     *
+     * @param type the type
+     * @return true, if they can
+     */
+    boolean isSupported(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return true;
+        }
+        if (type.getKind() == TypeKind.ARRAY) {
+            return ((ArrayType) type).getComponentType().getKind().isPrimitive();
+        }
+        if (isScalar(type)) {
+            return true;
+        }
+        if (!isList(type)) {
+            return false;
+        }
+        List<? extends TypeMirror> arguments = ((DeclaredType) type).getTypeArguments();
+        return arguments.size() == 1 && isScalar(arguments.get(0));
+    }
+
+    /**
+     * Generates the serializer of the type.
+     *
+     * @param type the type
+     * @param fields the fields
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    void generate(TypeElement type, List<ValueField> fields) throws IOException {
+        String name = generatedName(type, SUFFIX);
+        String valueType = type.getQualifiedName().toString();
+        Map<String, String> enums = new LinkedHashMap<String, String>();
+        StringBuilder write = new StringBuilder();
+        StringBuilder read = new StringBuilder();
+        for (int i = 0; i < fields.size(); i++) {
+            ValueField field = fields.get(i);
+            String local = "f" + i;
+            write.append("        ").append(field.getType()).append(" ").append(local).append(" = ")
+                    .append(field.read("value")).append(";\n");
+            appendWrite(write, "        ", field.getType(), local);
+            appendRead(read, field.getType(), local, i, enums);
+            read.append("        ").append(field.write("value", local)).append("\n");
+        }
+        StringBuilder source = startSource(name);
+        source.append("/**\n");
+        source.append(" * The Class ").append(simpleName(name)).append(" writes {@link ").append(valueType)
+                .append("}\n");
+        source.append(" * in the compact binary format of {@link ").append(WRITER).append("},\n");
+        source.append(" * it is generated by imcache-processor.\n");
+        source.append(" */\n");
+        source.append("public final class ").append(simpleName(name))
+                .append(" implements com.KyleDing.imcache.serialization.ByteBufferSerializer<").append(valueType)
+                .append("> {\n");
+        for (Map.Entry<String, String> entry : enums.entrySet()) {
+            source.append("\n");
+            source.append("    /** The constants of ").append(entry.getKey()).append(". */\n");
+            source.append("    private static final ").append(entry.getKey()).append("[] ").append(entry.getValue())
+                    .append(" = ").append(entry.getKey()).append(".values();\n");
+        }
+        source.append("\n");
+        source.append("    public byte[] serialize(").append(valueType).append(" value) {\n");
+        source.append("        ").append(WRITER).append(" writer = new ").append(WRITER).append("();\n");
+        source.append("        write(writer, value);\n");
+        source.append("        return writer.toByteArray();\n");
+        source.append("    }\n\n");
+        source.append("    public ").append(valueType).append(" deserialize(byte[] payload) {\n");
+        source.append("        return read(new ").append(READER).append("(payload));\n");
+        source.append("    }\n\n");
+        source.append("    public ").append(valueType).append(" deserialize(java.nio.ByteBuffer buffer) {\n");
+        source.append("        return read(new ").append(READER).append("(buffer));\n");
+        source.append("    }\n\n");
+        source.append("    /**\n");
+        source.append("     * Writes the fields of the value.\n");
+        source.append("     */\n");
+        source.append("    public static void write(").append(WRITER).append(" writer, ").append(valueType)
+                .append(" value) {\n");
+        source.append(write);
+        source.append("    }\n\n");
+        source.append("    /**\n");
+        source.append("     * Reads a value written by write.\n");
+        source.append("     */\n");
+        source.append("    public static ").append(valueType).append(" read(").append(READER).append(" reader) {\n");
+        source.append("        ").append(valueType).append(" value = new ").append(valueType).append("();\n");
+        source.append(read);
+        source.append("        return value;\n");
+        source.append("    }\n");
+        for (Map.Entry<String, String> entry : enums.entrySet()) {
+            source.append("\n");
+            source.append("    private static ").append(entry.getKey()).append(" readEnum")
+                    .append(entry.getValue().substring("ENUM_".length())).append("(").append(READER).append(" reader) {\n");
+            source.append("        int ordinal = reader.readOrdinal();\n");
+            source.append("        return ordinal < 0 ? null : ").append(entry.getValue()).append("[ordinal];\n");
+            source.append("    }\n");
+        }
+        source.append("}\n");
+        write(name, type, source);
+    }
+
+    /**
+     * Appends the statements writing the expression.
+     *
+     * @param source the source
+     * @param indent the indent
+     * @param type the type
+     * @param expression the expression
+     */
+    private void appendWrite(StringBuilder source, String indent, TypeMirror type, String expression) {
+        if (type.getKind().isPrimitive()) {
+            source.append(indent).append("writer.write").append(suffix(type)).append("(").append(expression)
+                    .append(");\n");
+        } else if (type.getKind() == TypeKind.ARRAY) {
+            TypeMirror component = ((ArrayType) type).getComponentType();
+            if (component.getKind() == TypeKind.BYTE) {
+                source.append(indent).append("writer.writeBytes(").append(expression).append(");\n");
+                return;
+            }
+            source.append(indent).append("writer.writeLength(").append(expression).append(" == null ? -1 : ")
+                    .append(expression).append(".length);\n");
+            source.append(indent).append("if (").append(expression).append(" != null) {\n");
+            source.append(indent).append("    for (int i = 0; i < ").append(expression).append(".length; i++) {\n");
+            source.append(indent).append("        writer.write").append(suffix(component)).append("(")
+                    .append(expression).append("[i]);\n");
+            source.append(indent).append("    }\n");
+            source.append(indent).append("}\n");
+        } else if (isList(type)) {
+            TypeMirror element = ((DeclaredType) type).getTypeArguments().get(0);
+            source.append(indent).append("writer.writeLength(").append(expression).append(" == null ? -1 : ")
+                    .append(expression).append(".size());\n");
+            source.append(indent).append("if (").append(expression).append(" != null) {\n");
+            source.append(indent).append("    for (").append(element).append(" element : ").append(expression)
+                    .append(") {\n");
+            appendWrite(source, indent + "        ", element, "element");
+            source.append(indent).append("    }\n");
+            source.append(indent).append("}\n");
+        } else if (isString(type)) {
+            source.append(indent).append("writer.writeString(").append(expression).append(");\n");
+        } else if (isEnum(type)) {
+            source.append(indent).append("writer.writeOrdinal(").append(expression).append(" == null ? -1 : ")
+                    .append(expression).append(".ordinal());\n");
+        } else {
+            source.append(indent).append("writer.writeBoolean(").append(expression).append(" != null);\n");
+            source.append(indent).append("if (").append(expression).append(" != null) {\n");
+            PrimitiveType primitive = unbox(type);
+            if (primitive != null) {
+                source.append(indent).append("    writer.write").append(suffix(primitive)).append("(")
+                        .append(expression).append(");\n");
+            } else {
+                source.append(indent).append("    ").append(serializerOf(type)).append(".write(writer, ")
+                        .append(expression).append(");\n");
+            }
+            source.append(indent).append("}\n");
+        }
+    }
+
+    /**
+     * Appends the statements reading a field into a local.
+     *
+     * @param source the source
+     * @param type the type
+     * @param local the local
+     * @param index the index of the field
+     * @param enums the enum constants by enum type
+     */
+    private void appendRead(StringBuilder source, TypeMirror type, String local, int index,
+            Map<String, String> enums) {
+        String length = "l" + index;
+        if (type.getKind() == TypeKind.ARRAY && ((ArrayType) type).getComponentType().getKind() != TypeKind.BYTE) {
+            TypeMirror component = ((ArrayType) type).getComponentType();
+            source.append("        int ").append(length).append(" = reader.readLength();\n");
+            source.append("        ").append(type).append(" ").append(local).append(" = null;\n");
+            source.append("        if (").append(length).append(" >= 0) {\n");
+            source.append("            ").append(local).append(" = new ").append(component).append("[")
+                    .append(length).append("];\n");
+            source.append("            for (int i = 0; i < ").append(length).append("; i++) {\n");
+            source.append("                ").append(local).append("[i] = reader.read").append(suffix(component))
+                    .append("();\n");
+            source.append("            }\n");
+            source.append("        }\n");
+        } else if (isList(type)) {
+            TypeMirror element = ((DeclaredType) type).getTypeArguments().get(0);
+            String listType = "java.util.ArrayList<" + element + ">";
+            source.append("        int ").append(length).append(" = reader.readLength();\n");
+            source.append("        ").append(listType).append(" ").append(local).append(" = null;\n");
+            source.append("        if (").append(length).append(" >= 0) {\n");
+            source.append("            ").append(local).append(" = new ").append(listType).append("(")
+                    .append(length).append(");\n");
+            source.append("            for (int i = 0; i < ").append(length).append("; i++) {\n");
+            source.append("                ").append(local).append(".add(")
+                    .append(readExpression(element, enums)).append(");\n");
+            source.append("            }\n");
+            source.append("        }\n");
+        } else {
+            source.append("        ").append(type).append(" ").append(local).append(" = ")
+                    .append(readExpression(type, enums)).append(";\n");
+        }
+    }
+
+    /**
+     * Gets the expression reading a primitive, a byte array or a scalar.
+     *
+     * @param type the type
+     * @param enums the enum constants by enum type
+     * @return the expression
+     */
+    private String readExpression(TypeMirror type, Map<String, String> enums) {
+        if (type.getKind().isPrimitive()) {
+            return "reader.read" + suffix(type) + "()";
+        } else if (type.getKind() == TypeKind.ARRAY) {
+            return "reader.readBytes()";
+        } else if (isString(type)) {
+            return "reader.readString()";
+        } else if (isEnum(type)) {
+            String enumType = types.erasure(type).toString();
+            String constants = enums.get(enumType);
+            if (constants == null) {
+                constants = "ENUM_" + enums.size();
+                enums.put(enumType, constants);
+            }
+            return "readEnum" + constants.substring("ENUM_".length()) + "(reader)";
+        }
+        PrimitiveType primitive = unbox(type);
+        if (primitive != null) {
+            return "reader.readBoolean() ? " + types.erasure(type) + ".valueOf(reader.read" + suffix(primitive)
+                    + "()) : null";
+        }
+        return "reader.readBoolean() ? " + serializerOf(type) + ".read(reader) : null";
+    }
+
+    /**
+     * Gets the suffix of the writer and reader methods of a primitive.
+     *
+     * @param type the type
+     * @return the suffix
+     */
+    private static String suffix(TypeMirror type) {
+        switch (type.getKind()) {
+        case BOOLEAN:
+            return "Boolean";
+        case BYTE:
+            return "Byte";
+        case SHORT:
+            return "Short";
+        case CHAR:
+            return "Char";
+        case INT:
+            return "Int";
+        case LONG:
+            return "Long";
+        case FLOAT:
+            return "Float";
+        default:
+            return "Double";
+        }
+    }
+
+    /**
+     * Gets the generated serializer of a cache value type.
+     *
+     * @param type the type
+     * @return the qualified name of the serializer
+     */
+    private String serializerOf(TypeMirror type) {
+        return generatedName((TypeElement) types.asElement(type), SUFFIX);
+    }
+
+    /**
+     * Checks if the type is a string, a wrapper, an enum or a cache value.
+     *
+     * @param type the type
+     * @return true, if it is
+     */
+    private boolean isScalar(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        Element element = types.asElement(type);
+        return isString(type) || unbox(type) != null || element.getKind() == ElementKind.ENUM
+                || (CacheValueProcessor.hasAnnotation(element, cacheValue)
+                        && ((TypeElement) element).getTypeParameters().isEmpty());
+    }
+
+    /**
+     * Checks if the type is a list, an array list or a collection.
+     *
+     * @param type the type
+     * @return true, if it is
+     */
+    private boolean isList(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        String name = ((TypeElement) types.asElement(type)).getQualifiedName().toString();
+        return name.equals("java.util.List") || name.equals("java.util.ArrayList")
+                || name.equals("java.util.Collection");
+    }
+
+    /**
+     * Checks if the type is a string.
+     *
+     * @param type the type
+     * @return true, if it is
+     */
+    private boolean isString(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) types.asElement(type)).getQualifiedName().contentEquals("java.lang.String");
+    }
+
+    /**
+     * Checks if the type is an enum.
+     *
+     * @param type the type
+     * @return true, if it is
+     */
+    private boolean isEnum(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED && types.asElement(type).getKind() == ElementKind.ENUM;
+    }
+
+    /**
+     * Unboxes a wrapper type.
+     *
+     * @param type the type
+     * @return the primitive type, null if the type is not a wrapper
+     */
+    private PrimitiveType unbox(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        try {
+            return types.unboxedType(type);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.processor;
+
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * The Class ValueField is a field of a value class as the generated code sees
+ * it, read and written either directly or through its getter and setter.
+ */
+class ValueField {
+
+    /** The name. */
+    private final String name;
+
+    /** The type. */
+    private final TypeMirror type;
+
+    /** The getter, null if the field is read directly. */
+    private final String getter;
+
+    /** The setter, null if the field is written directly. */
+    private final String setter;
+
+    /**
+     * Instantiates a new value field.
+     *
+     * @param name the name
+     * @param type the type
+     * @param getter the getter
+     * @param setter the setter
+     */
+    ValueField(String name, TypeMirror type, String getter, String setter) {
+        this.name = name;
+        this.type = type;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    /**
+     * Gets the name.
+     *
+     * @return the name
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the type.
+     *
+     * @return the type
+     */
+    TypeMirror getType() {
+        return type;
+    }
+
+    /**
+     * Gets the expression reading the field of the object.
+     *
+     * @param object the object
+     * @return the expression
+     */
+    String read(String object) {
+        return getter == null ? object + "." + name : object + "." + getter + "()";
+    }
+
+    /**
+     * Gets the statement writing the value to the field of the object.
+     *
+     * @param object the object
+     * @param value the value
+     * @return the statement
+     */
+    String write(String object, String value) {
+        return setter == null ? object + "." + name + " = " + value + ";" : object + "." + setter + "(" + value
+                + ");";
+    }
+}
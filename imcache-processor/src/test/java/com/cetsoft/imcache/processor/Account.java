@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.processor;
+
+import com.KyleDing.imcache.annotation.Indexed;
+
+/**
+ * The Class Account is not serialized by imcache, only its indexed fields get
+ * accessors.
+ */
+public class Account {
+
+    /** The owner. */
+    @Indexed
+    String owner;
+
+    /** The balance. */
+    @Indexed
+    private long balance;
+
+    /** The note. */
+    String note;
+
+    /**
+     * Instantiates a new account.
+     *
+     * @param owner the owner
+     * @param balance the balance
+     */
+    public Account(String owner, long balance) {
+        this.owner = owner;
+        this.balance = balance;
+    }
+
+    /**
+     * Gets the balance.
+     *
+     * @return the balance
+     */
+    public long getBalance() {
+        return balance;
+    }
+}
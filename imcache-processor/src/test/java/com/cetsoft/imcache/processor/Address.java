@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.processor;
+
+import java.io.Serializable;
+
+import com.KyleDing.imcache.annotation.CacheValue;
+
+/**
+ * The Class Address.
+ */
+@CacheValue
+public class Address implements Serializable {
+
+    /** The Constant serialVersionUID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The city. */
+    String city;
+
+    /** The zip. */
+    int zip;
+
+    /**
+     * Instantiates a new address.
+     */
+    public Address() {
+    }
+
+    /**
+     * Instantiates a new address.
+     *
+     * @param city the city
+     * @param zip the zip
+     */
+    public Address(String city, int zip) {
+        this.city = city;
+        this.zip = zip;
+    }
+}
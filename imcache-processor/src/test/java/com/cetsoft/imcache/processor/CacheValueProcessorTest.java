@@ -0,0 +1,325 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.processor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringWriter;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.KyleDing.imcache.annotation.CacheValue;
+import com.KyleDing.imcache.cache.search.Attributes;
+
+/**
+ * The Class CacheValueProcessorTest uses the code generated for the classes of
+ * this package while the tests were compiled.
+ */
+public class CacheValueProcessorTest {
+
+    /** The folder. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The Class Point.
+     */
+    @CacheValue
+    public static class Point {
+
+        /** The x. */
+        int x;
+
+        /** The y. */
+        int y;
+    }
+
+    /**
+     * Serialize deserialize.
+     */
+    @Test
+    public void serializeDeserialize() {
+        Person person = person();
+        Person_CacheSerializer serializer = new Person_CacheSerializer();
+        assertPerson(person, serializer.deserialize(serializer.serialize(person)));
+    }
+
+    /**
+     * Deserialize byte buffer.
+     */
+    @Test
+    public void deserializeByteBuffer() {
+        Person person = person();
+        Person_CacheSerializer serializer = new Person_CacheSerializer();
+        byte[] payload = serializer.serialize(person);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(payload.length + 3);
+        buffer.position(3);
+        buffer.put(payload);
+        buffer.position(3);
+        assertPerson(person, serializer.deserialize(buffer));
+        assertEquals(3, buffer.position());
+    }
+
+    /**
+     * Serialize nulls.
+     */
+    @Test
+    public void serializeNulls() {
+        Person person = new Person();
+        person.tags = new ArrayList<String>();
+        person.tags.add(null);
+        Person_CacheSerializer serializer = new Person_CacheSerializer();
+        Person result = serializer.deserialize(serializer.serialize(person));
+        assertPerson(person, result);
+        assertEquals(1, result.tags.size());
+        assertNull(result.tags.get(0));
+    }
+
+    /**
+     * Serialize skips transient fields.
+     */
+    @Test
+    public void serializeSkipsTransientFields() {
+        Person person = person();
+        person.hash = 42;
+        Person_CacheSerializer serializer = new Person_CacheSerializer();
+        assertEquals(0, serializer.deserialize(serializer.serialize(person)).hash);
+    }
+
+    /**
+     * Serialize is smaller than java serialization.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void serializeIsSmallerThanJavaSerialization() throws Exception {
+        Person person = person();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream stream = new ObjectOutputStream(bytes);
+        stream.writeObject(person);
+        stream.close();
+        assertTrue(new Person_CacheSerializer().serialize(person).length * 5 < bytes.size());
+    }
+
+    /**
+     * Serialize nested class.
+     */
+    @Test
+    public void serializeNestedClass() {
+        Point point = new Point();
+        point.x = -3;
+        point.y = 1 << 20;
+        CacheValueProcessorTest_Point_CacheSerializer serializer = new CacheValueProcessorTest_Point_CacheSerializer();
+        byte[] payload = serializer.serialize(point);
+        Point result = serializer.deserialize(payload);
+        assertEquals(5, payload.length);
+        assertEquals(point.x, result.x);
+        assertEquals(point.y, result.y);
+    }
+
+    /**
+     * Get accessor.
+     */
+    @Test
+    public void getAccessor() {
+        Person person = person();
+        Person_CacheAttributes attributes = new Person_CacheAttributes();
+        assertEquals(person.getNickname(), attributes.getAccessor("nickname").get(person));
+        assertEquals(person.age, attributes.getAccessor("age").get(person));
+        assertSame(Person_CacheAttributes.PARENT_ID, attributes.getAccessor("parentId"));
+        assertNull(attributes.getAccessor("hash"));
+        assertNull(attributes.getAccessor("unknown"));
+    }
+
+    /**
+     * Get accessor of indexed fields.
+     */
+    @Test
+    public void getAccessorOfIndexedFields() {
+        Account account = new Account("kyle", 100L);
+        Account_CacheAttributes attributes = new Account_CacheAttributes();
+        assertEquals(100L, attributes.getAccessor("balance").get(account));
+        assertEquals("kyle", attributes.getAccessor("owner").get(account));
+        assertNull(attributes.getAccessor("note"));
+        assertEquals(100L, Attributes.getValue(account, "balance"));
+    }
+
+    /**
+     * Process reports private fields without getters.
+     */
+    @Test
+    public void processReportsPrivateFieldsWithoutGetters() {
+        String errors = compile("Value", "@CacheValue public class Value { private int x; }");
+        assertTrue(errors, errors.contains("Private field x needs a non private getter."));
+    }
+
+    /**
+     * Process reports unsupported types.
+     */
+    @Test
+    public void processReportsUnsupportedTypes() {
+        String errors = compile("Value", "@CacheValue public class Value { java.util.Date date; }");
+        assertTrue(errors, errors.contains("Type java.util.Date of field date is not supported"));
+    }
+
+    /**
+     * Process reports missing constructors.
+     */
+    @Test
+    public void processReportsMissingConstructors() {
+        String errors = compile("Value", "@CacheValue public class Value { int x; Value(int x) { this.x = x; } }");
+        assertTrue(errors, errors.contains("Class Value needs a non private no argument constructor."));
+    }
+
+    /**
+     * Process reports inner classes.
+     */
+    @Test
+    public void processReportsInnerClasses() {
+        String errors = compile("Value", "public class Value { @CacheValue public class Inner { int x; } }");
+        assertTrue(errors, errors.contains("must be a top level or a static nested class."));
+    }
+
+    /**
+     * Process accepts valid classes.
+     */
+    @Test
+    public void processAcceptsValidClasses() {
+        assertEquals("", compile("Value", "@CacheValue public class Value { int x; java.util.List<Value> children; }"));
+    }
+
+    /**
+     * Compiles the class with the processor.
+     *
+     * @param name the name
+     * @param body the body
+     * @return the errors
+     */
+    private String compile(String name, final String body) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        JavaFileObject source = new SimpleJavaFileObject(URI.create("string:///" + name + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return "import com.KyleDing.imcache.annotation.*;\n" + body;
+            }
+        };
+        String output = folder.getRoot().getAbsolutePath();
+        List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"), "-d", output,
+                "-s", output);
+        JavaCompiler.CompilationTask task = compiler.getTask(new StringWriter(), null, diagnostics, options, null,
+                Arrays.asList(source));
+        task.setProcessors(Arrays.asList(new CacheValueProcessor()));
+        task.call();
+        StringBuilder errors = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.append(diagnostic.getMessage(null)).append('\n');
+            }
+        }
+        return errors.toString();
+    }
+
+    /**
+     * Creates a person with every field set.
+     *
+     * @return the person
+     */
+    private static Person person() {
+        Person person = new Person();
+        person.active = true;
+        person.level = -7;
+        person.rank = 300;
+        person.initial = '\u00e7';
+        person.age = 42;
+        person.id = Long.MIN_VALUE;
+        person.height = 1.82f;
+        person.balance = -1234.5;
+        person.score = 99;
+        person.parentId = 12345678901L;
+        person.name = "Kyle Ding \u4e01";
+        person.status = Person.Status.SUSPENDED;
+        person.numbers = new int[] { 1, -1, Integer.MAX_VALUE };
+        person.avatar = new byte[] { 1, 2, 3 };
+        person.tags = Arrays.asList("cache", "offheap");
+        person.addresses = Arrays.asList(new Address("Istanbul", 34000), new Address("Ankara", 6000));
+        person.address = new Address("Izmir", 35000);
+        person.setNickname("kd");
+        return person;
+    }
+
+    /**
+     * Asserts that the people are equal.
+     *
+     * @param expected the expected
+     * @param actual the actual
+     */
+    private static void assertPerson(Person expected, Person actual) {
+        assertEquals(expected.active, actual.active);
+        assertEquals(expected.level, actual.level);
+        assertEquals(expected.rank, actual.rank);
+        assertEquals(expected.initial, actual.initial);
+        assertEquals(expected.age, actual.age);
+        assertEquals(expected.id, actual.id);
+        assertEquals(expected.height, actual.height, 0);
+        assertEquals(expected.balance, actual.balance, 0);
+        assertEquals(expected.score, actual.score);
+        assertEquals(expected.parentId, actual.parentId);
+        assertEquals(expected.name, actual.name);
+        assertEquals(expected.status, actual.status);
+        assertArrayEquals(expected.numbers, actual.numbers);
+        assertArrayEquals(expected.avatar, actual.avatar);
+        assertEquals(expected.tags, actual.tags);
+        assertEquals(expected.getNickname(), actual.getNickname());
+        assertAddress(expected.address, actual.address);
+        if (expected.addresses == null) {
+            assertNull(actual.addresses);
+        } else {
+            assertEquals(expected.addresses.size(), actual.addresses.size());
+            for (int i = 0; i < expected.addresses.size(); i++) {
+                assertAddress(expected.addresses.get(i), actual.addresses.get(i));
+            }
+        }
+    }
+
+    /**
+     * Asserts that the addresses are equal.
+     *
+     * @param expected the expected
+     * @param actual the actual
+     */
+    private static void assertAddress(Address expected, Address actual) {
+        if (expected == null) {
+            assertNull(actual);
+            return;
+        }
+        assertEquals(expected.city, actual.city);
+        assertEquals(expected.zip, actual.zip);
+    }
+}
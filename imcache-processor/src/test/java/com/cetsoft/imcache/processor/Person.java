@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2015 KyleDing, http://www.kyleding.com
+ *
+ *
+ * Author : Kyle Ding
+ * Date   : Oct 18, 2026
+ */
+package com.KyleDing.imcache.processor;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.KyleDing.imcache.annotation.CacheValue;
+import com.KyleDing.imcache.annotation.Indexed;
+
+/**
+ * The Class Person has a field of every supported kind.
+ */
+@CacheValue
+public class Person implements Serializable {
+
+    /** The Constant serialVersionUID. */
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The Enum Status.
+     */
+    public enum Status {
+        ACTIVE, SUSPENDED
+    }
+
+    /** The active. */
+    boolean active;
+
+    /** The level. */
+    byte level;
+
+    /** The rank. */
+    short rank;
+
+    /** The initial. */
+    char initial;
+
+    /** The age. */
+    @Indexed
+    int age;
+
+    /** The id. */
+    long id;
+
+    /** The height. */
+    float height;
+
+    /** The balance. */
+    double balance;
+
+    /** The score. */
+    Integer score;
+
+    /** The parent id. */
+    Long parentId;
+
+    /** The name. */
+    String name;
+
+    /** The status. */
+    Status status;
+
+    /** The numbers. */
+    int[] numbers;
+
+    /** The avatar. */
+    byte[] avatar;
+
+    /** The tags. */
+    List<String> tags;
+
+    /** The addresses. */
+    List<Address> addresses;
+
+    /** The address. */
+    Address address;
+
+    /** The nickname, read and written through its getter and setter. */
+    private String nickname;
+
+    /** The cached hash, it is not serialized. */
+    transient int hash;
+
+    /**
+     * Gets the nickname.
+     *
+     * @return the nickname
+     */
+    public String getNickname() {
+        return nickname;
+    }
+
+    /**
+     * Sets the nickname.
+     *
+     * @param nickname the new nickname
+     */
+    public void setNickname(String nickname) {
+        this.nickname = nickname;
+    }
+}
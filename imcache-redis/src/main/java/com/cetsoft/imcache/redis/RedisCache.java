@@ -8,6 +8,12 @@
 package com.KyleDing.imcache.redis;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicLong;
 
 import com.KyleDing.imcache.cache.AbstractCache;
@@ -16,6 +22,7 @@ import com.KyleDing.imcache.cache.EvictionListener;
 import com.KyleDing.imcache.redis.client.Client;
 import com.KyleDing.imcache.redis.client.ConnectionException;
 import com.KyleDing.imcache.serialization.Serializer;
+import com.KyleDing.imcache.serialization.StreamingSerializer;
 
 /**
  * The Class RedisCache is a cache that uses redis server. to store or retrieve
@@ -34,6 +41,9 @@ public class RedisCache<K, V> extends AbstractCache<K, V> {
     /** The serializer. */
     Serializer<Object> serializer;
 
+    /** The serializer if it writes into byte buffers, null otherwise. */
+    StreamingSerializer<Object> streamingSerializer;
+
     /** The hit. */
     protected AtomicLong hit = new AtomicLong();
 
@@ -53,6 +63,9 @@ public class RedisCache<K, V> extends AbstractCache<K, V> {
         super(cacheLoader, evictionListener);
         this.client = client;
         this.serializer = serializer;
+        if (serializer instanceof StreamingSerializer) {
+            this.streamingSerializer = (StreamingSerializer<Object>) serializer;
+        }
     }
 
     /*
@@ -64,7 +77,12 @@ public class RedisCache<K, V> extends AbstractCache<K, V> {
     @Override
     public void put(K key, V value) {
         try {
-            client.set(serializer.serialize(key), serializer.serialize(value));
+            if (streamingSerializer != null) {
+                // The value is written straight into the output of the connection.
+                client.set(serializer.serialize(key), value, streamingSerializer);
+            } else {
+                client.set(serializer.serialize(key), serializer.serialize(value));
+            }
         } catch (ConnectionException e) {
             throw new RedisCacheException(e);
         } catch (IOException e) {
@@ -85,9 +103,7 @@ public class RedisCache<K, V> extends AbstractCache<K, V> {
             V value = (V) serializer.deserialize(client.get(serializedKey));
             if (value == null) {
                 miss.incrementAndGet();
-                value = cacheLoader.load(key);
-                byte[] serializedValue = serializer.serialize(value);
-                client.set(serializedKey, serializedValue);
+                value = load(key);
             } else {
                 hit.incrementAndGet();
             }
@@ -120,6 +136,112 @@ public class RedisCache<K, V> extends AbstractCache<K, V> {
         }
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.AbstractCache#putAll(java.util.Map)
+     */
+    @Override
+    public void putAll(Map<K, V> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        byte[][] keysAndValues = new byte[entries.size() * 2][];
+        int index = 0;
+        for (Entry<K, V> entry : entries.entrySet()) {
+            keysAndValues[index++] = serializer.serialize(entry.getKey());
+            keysAndValues[index++] = serializer.serialize(entry.getValue());
+        }
+        try {
+            client.mset(keysAndValues);
+        } catch (ConnectionException e) {
+            throw new RedisCacheException(e);
+        } catch (IOException e) {
+            throw new RedisCacheException(e);
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.cache.AbstractCache#getAll(java.util.Collection)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map<K, V> getAll(Collection<K> keys) {
+        Map<K, V> values = new HashMap<K, V>();
+        if (keys.isEmpty()) {
+            return values;
+        }
+        List<K> orderedKeys = new ArrayList<K>(keys);
+        List<K> missingKeys = new ArrayList<K>();
+        try {
+            List<byte[]> serializedValues = client.mget(serializeKeys(orderedKeys));
+            for (int i = 0; i < orderedKeys.size(); i++) {
+                byte[] serializedValue = serializedValues.get(i);
+                if (serializedValue == null) {
+                    missingKeys.add(orderedKeys.get(i));
+                } else {
+                    values.put(orderedKeys.get(i), (V) serializer.deserialize(serializedValue));
+                }
+            }
+        } catch (ConnectionException e) {
+            throw new RedisCacheException(e);
+        } catch (IOException e) {
+            throw new RedisCacheException(e);
+        }
+        hit.addAndGet(values.size());
+        if (!missingKeys.isEmpty()) {
+            miss.addAndGet(missingKeys.size());
+            values.putAll(loadAll(missingKeys));
+        }
+        return values;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.cache.AbstractCache#invalidateAll(java.util.Collection)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void invalidateAll(Collection<K> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<K> orderedKeys = new ArrayList<K>(keys);
+        byte[][] serializedKeys = serializeKeys(orderedKeys);
+        try {
+            List<byte[]> serializedValues = client.mget(serializedKeys);
+            client.del(serializedKeys);
+            for (int i = 0; i < orderedKeys.size(); i++) {
+                byte[] serializedValue = serializedValues.get(i);
+                if (serializedValue != null) {
+                    evictionListener.onEviction(orderedKeys.get(i), (V) serializer.deserialize(serializedValue));
+                }
+            }
+        } catch (ConnectionException e) {
+            throw new RedisCacheException(e);
+        } catch (IOException e) {
+            throw new RedisCacheException(e);
+        }
+    }
+
+    /**
+     * Serializes the keys.
+     *
+     * @param keys the keys
+     * @return the serialized keys
+     */
+    protected byte[][] serializeKeys(List<K> keys) {
+        byte[][] serializedKeys = new byte[keys.size()][];
+        for (int i = 0; i < serializedKeys.length; i++) {
+            serializedKeys[i] = serializer.serialize(keys.get(i));
+        }
+        return serializedKeys;
+    }
+
     /*
      * (non-Javadoc)
      *
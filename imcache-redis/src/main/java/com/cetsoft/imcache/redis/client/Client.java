@@ -8,6 +8,9 @@
 package com.KyleDing.imcache.redis.client;
 
 import java.io.IOException;
+import java.util.List;
+
+import com.KyleDing.imcache.serialization.StreamingSerializer;
 
 /**
  * The Interface Client provides redis commands. Methods in this interface have
@@ -37,6 +40,20 @@ public interface Client {
      */
     void set(byte[] key, byte[] value) throws ConnectionException, IOException;
 
+    /**
+     * Set key to hold the value, which the serializer writes straight into
+     * the output of the connection. If key already holds a value, it is
+     * overwritten.
+     *
+     * @param <V> the value type
+     * @param key the key
+     * @param value the value
+     * @param serializer the serializer
+     * @throws ConnectionException
+     * @throws IOException
+     */
+    <V> void set(byte[] key, V value, StreamingSerializer<V> serializer) throws ConnectionException, IOException;
+
     /**
      * Get the value of key. If the key does not exist the special value null is
      * returned.
@@ -76,4 +93,34 @@ public interface Client {
      */
     int dbsize() throws ConnectionException, IOException;
 
+    /**
+     * Gets the values of all the keys in a single round trip. Missing keys
+     * have null values.
+     *
+     * @param keys the keys
+     * @return the values in the order of the keys
+     * @throws IOException
+     * @throws ConnectionException
+     */
+    List<byte[]> mget(byte[]... keys) throws ConnectionException, IOException;
+
+    /**
+     * Sets the values of all the keys in a single round trip.
+     *
+     * @param keysAndValues the keys each followed by its value
+     * @throws IOException
+     * @throws ConnectionException
+     */
+    void mset(byte[]... keysAndValues) throws ConnectionException, IOException;
+
+    /**
+     * Deletes all the keys in a single round trip.
+     *
+     * @param keys the keys
+     * @return the number of keys deleted
+     * @throws IOException
+     * @throws ConnectionException
+     */
+    int del(byte[]... keys) throws ConnectionException, IOException;
+
 }
@@ -9,6 +9,8 @@ package com.KyleDing.imcache.redis.client;
 
 import java.io.IOException;
 
+import com.KyleDing.imcache.serialization.StreamingSerializer;
+
 /**
  * The Interface CommandExecutor is responsible for executing given byte
  * command. It throws ConnectionException in case of a connection failure.
@@ -24,4 +26,19 @@ public interface CommandExecutor {
      * @throws IOException Signals that an I/O exception has occurred.
      */
     void execute(final ByteCommand command, final byte[]... args) throws ConnectionException, IOException;
+
+    /**
+     * Executes the given byte command whose last argument is the value, the
+     * serializer writes the value straight into the output of the connection.
+     *
+     * @param <V> the value type
+     * @param command the command
+     * @param value the value
+     * @param serializer the serializer
+     * @param args the args before the value
+     * @throws ConnectionException the connection exception
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    <V> void execute(final ByteCommand command, final V value, final StreamingSerializer<V> serializer,
+            final byte[]... args) throws ConnectionException, IOException;
 }
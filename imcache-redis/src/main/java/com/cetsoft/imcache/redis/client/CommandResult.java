@@ -8,6 +8,7 @@
 package com.KyleDing.imcache.redis.client;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * The Interface CommandResult returns the byte result of an executed command.
@@ -41,4 +42,14 @@ public interface CommandResult {
      */
     int getInt() throws ConnectionException, IOException;
 
+    /**
+     * Gets the list of bytes returned by an executed command, such as the
+     * values of a multi get.
+     *
+     * @return the list of bytes
+     * @throws ConnectionException the connection exception
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    List<byte[]> getMultiBytes() throws ConnectionException, IOException;
+
 }
@@ -12,6 +12,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.KyleDing.imcache.serialization.StreamingSerializer;
+
 /**
  * The Class MultiRedisClient is a container for multiple clients. Upon
  * initialization, it creates n client where n equals to concurrencyLevel. This
@@ -77,6 +79,18 @@ public class MultiRedisClient implements Client {
         getClient().set(key, value);
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.redis.client.Client#set(byte[],
+     * java.lang.Object, com.KyleDing.imcache.serialization.StreamingSerializer)
+     */
+    @Override
+    public <V> void set(byte[] key, V value, StreamingSerializer<V> serializer) throws ConnectionException,
+            IOException {
+        getClient().set(key, value, serializer);
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -117,6 +131,36 @@ public class MultiRedisClient implements Client {
         return getClient().dbsize();
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.redis.client.Client#mget(byte[][])
+     */
+    @Override
+    public List<byte[]> mget(byte[]... keys) throws ConnectionException, IOException {
+        return getClient().mget(keys);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.redis.client.Client#mset(byte[][])
+     */
+    @Override
+    public void mset(byte[]... keysAndValues) throws ConnectionException, IOException {
+        getClient().mset(keysAndValues);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.redis.client.Client#del(byte[][])
+     */
+    @Override
+    public int del(byte[]... keys) throws ConnectionException, IOException {
+        return getClient().del(keys);
+    }
+
     /**
      * Gets a client from array of clients sequentially. We aim to distribute
      * clients as evenly as possible.
@@ -8,6 +8,9 @@
 package com.KyleDing.imcache.redis.client;
 
 import java.io.IOException;
+import java.util.List;
+
+import com.KyleDing.imcache.serialization.StreamingSerializer;
 
 /**
  * The Class RedisClient.
@@ -102,6 +105,27 @@ public class RedisClient implements Client {
         runVoidCommand(RedisCommands.SET, key, value);
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.redis.client.Client#set(byte[],
+     * java.lang.Object, com.KyleDing.imcache.serialization.StreamingSerializer)
+     */
+    @Override
+    public <V> void set(byte[] key, V value, StreamingSerializer<V> serializer) throws ConnectionException,
+            IOException {
+        transaction.open();
+        try {
+            commandExecutor.execute(RedisCommands.SET, value, serializer, key);
+            String status = commandResult.getStatus();
+            if (!status.equals(STATUS_OK)) {
+                throw new ConnectionException("Command couldn't run successfully " + RedisCommands.SET.toString());
+            }
+        } finally {
+            transaction.close();
+        }
+    }
+
     /*
      * (non-Javadoc)
      *
@@ -162,4 +186,46 @@ public class RedisClient implements Client {
         }
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.redis.client.Client#mget(byte[][])
+     */
+    @Override
+    public List<byte[]> mget(byte[]... keys) throws ConnectionException, IOException {
+        transaction.open();
+        try {
+            commandExecutor.execute(RedisCommands.MGET, keys);
+            return commandResult.getMultiBytes();
+        } finally {
+            transaction.close();
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.redis.client.Client#mset(byte[][])
+     */
+    @Override
+    public void mset(byte[]... keysAndValues) throws ConnectionException, IOException {
+        runVoidCommand(RedisCommands.MSET, keysAndValues);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.redis.client.Client#del(byte[][])
+     */
+    @Override
+    public int del(byte[]... keys) throws ConnectionException, IOException {
+        transaction.open();
+        try {
+            commandExecutor.execute(RedisCommands.DEL, keys);
+            return commandResult.getInt();
+        } finally {
+            transaction.close();
+        }
+    }
+
 }
@@ -9,6 +9,8 @@ package com.KyleDing.imcache.redis.client;
 
 import java.io.IOException;
 
+import com.KyleDing.imcache.serialization.StreamingSerializer;
+
 /**
  * The Class RedisCommandExecutor.
  */
@@ -34,11 +36,47 @@ public class RedisCommandExecutor implements CommandExecutor {
      * imcache.redis.client.ByteCommand, byte[][])
      */
     public void execute(final ByteCommand command, final byte[]... args) throws ConnectionException, IOException {
+        RedisStreamWriter streamWriter = writeCommand(command, args.length, args);
+        streamWriter.flush();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see
+     * com.KyleDing.imcache.redis.client.CommandExecutor#execute(com.KyleDing.
+     * imcache.redis.client.ByteCommand, java.lang.Object,
+     * com.KyleDing.imcache.serialization.StreamingSerializer, byte[][])
+     */
+    public <V> void execute(final ByteCommand command, final V value, final StreamingSerializer<V> serializer,
+            final byte[]... args) throws ConnectionException, IOException {
+        int length = serializer.size(value);
+        RedisStreamWriter streamWriter = writeCommand(command, args.length + 1, args);
+        streamWriter.write(RedisBytes.DOLLAR_BYTE);
+        streamWriter.write(length);
+        streamWriter.writeNewLine();
+        streamWriter.write(value, length, serializer);
+        streamWriter.writeNewLine();
+        streamWriter.flush();
+    }
+
+    /**
+     * Writes the command and the args without flushing them.
+     *
+     * @param command the command
+     * @param argCount the number of args of the command
+     * @param args the args
+     * @return the stream writer
+     * @throws ConnectionException the connection exception
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private RedisStreamWriter writeCommand(final ByteCommand command, int argCount, final byte[]... args)
+            throws ConnectionException, IOException {
         connection.open();
         RedisStreamWriter streamWriter = connection.getStreamWriter();
 
         streamWriter.write(RedisBytes.ASTERISK_BYTE);
-        streamWriter.write(args.length + 1);// 1 comes from set
+        streamWriter.write(argCount + 1);// 1 comes from set
         streamWriter.writeNewLine();
         streamWriter.write(RedisBytes.DOLLAR_BYTE);
         streamWriter.write(command.getBytes().length);
@@ -53,7 +91,7 @@ public class RedisCommandExecutor implements CommandExecutor {
             streamWriter.write(arg);
             streamWriter.writeNewLine();
         }
-        streamWriter.flush();
+        return streamWriter;
     }
 
 }
@@ -8,6 +8,8 @@
 package com.KyleDing.imcache.redis.client;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The Class RedisCommandResult.
@@ -63,6 +65,25 @@ public class RedisCommandResult implements CommandResult {
         return streamReader.readInt();
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see com.KyleDing.imcache.redis.client.CommandResult#getMultiBytes()
+     */
+    @Override
+    public List<byte[]> getMultiBytes() throws ConnectionException, IOException {
+        RedisStreamReader streamReader = getStreamReader();
+        checkMessageType(streamReader, RedisBytes.ASTERISK_BYTE);
+        int size = streamReader.readInt();
+        List<byte[]> multiBytes = new ArrayList<byte[]>(Math.max(size, 0));
+        for (int i = 0; i < size; i++) {
+            checkMessageType(streamReader, RedisBytes.DOLLAR_BYTE);
+            int length = streamReader.readInt();
+            multiBytes.add(streamReader.read(length));
+        }
+        return multiBytes;
+    }
+
     /**
      * Checks message type received. If it's unexpected throws an exception.
      *
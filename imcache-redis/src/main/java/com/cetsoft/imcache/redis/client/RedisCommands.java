@@ -14,7 +14,7 @@ import java.io.UnsupportedEncodingException;
  */
 public enum RedisCommands implements ByteCommand {
 
-    PING, SET, GET, EXPIRE, FLUSHDB, DBSIZE;
+    PING, SET, GET, EXPIRE, FLUSHDB, DBSIZE, MGET, MSET, DEL;
 
     public static final String CHARSET = "UTF-8";
 
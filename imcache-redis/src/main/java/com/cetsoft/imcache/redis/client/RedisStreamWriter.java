@@ -9,6 +9,10 @@ package com.KyleDing.imcache.redis.client;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+import com.KyleDing.imcache.serialization.StreamingSerializer;
 
 /**
  * The Class RedisStreamWriter.
@@ -104,6 +108,40 @@ public class RedisStreamWriter {
         }
     }
 
+    /**
+     * Lets the serializer write the value straight into the buffer, the buffer
+     * is flushed first if the value does not fit its free part. A value
+     * longer than the buffer is serialized on its own and written as bytes.
+     *
+     * @param <V> the value type
+     * @param value the value
+     * @param length the serialized size of the value
+     * @param serializer the serializer
+     * @throws IOException Signals that an I/O exception has occurred.
+     * @throws IllegalStateException if the serializer writes another number of
+     *             bytes than its size
+     */
+    public <V> void write(V value, int length, StreamingSerializer<V> serializer) throws IOException {
+        if (length > buffer.length - position) {
+            flushBuffer();
+        }
+        boolean fits = length <= buffer.length;
+        ByteBuffer view = fits ? ByteBuffer.wrap(buffer, position, length) : ByteBuffer.allocate(length);
+        try {
+            serializer.serialize(value, view);
+        } catch (BufferOverflowException exception) {
+            throw new IllegalStateException("Serialized size is wrong!");
+        }
+        if (view.hasRemaining()) {
+            throw new IllegalStateException("Serialized size is wrong!");
+        }
+        if (fits) {
+            position += length;
+        } else {
+            write(view.array());
+        }
+    }
+
     /**
      * Flushes buffer.
      *
@@ -11,6 +11,9 @@ import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -22,6 +25,8 @@ import com.KyleDing.imcache.cache.EvictionListener;
 import com.KyleDing.imcache.redis.client.Client;
 import com.KyleDing.imcache.redis.client.ConnectionException;
 import com.KyleDing.imcache.serialization.Serializer;
+import com.KyleDing.imcache.serialization.SerializerAdapter;
+import com.KyleDing.imcache.serialization.StreamingSerializer;
 
 public class RedisCacheTest {
 
@@ -107,6 +112,17 @@ public class RedisCacheTest {
         verify(client).set(serializer.serialize(key), serializer.serialize(value));
     }
 
+    @Test
+    public void putStreaming() throws ConnectionException, IOException {
+        StreamingSerializer<Object> streamingSerializer = new SerializerAdapter<Object>(serializer);
+        cache = new RedisCache<Integer, Integer>(cacheLoader, evictionListener, streamingSerializer, client);
+        int key = 3;
+        Integer value = 5;
+        cache.put(key, value);
+        verify(client).set(serializer.serialize(key), (Object) value, streamingSerializer);
+        verify(client, never()).set((byte[]) any(), (byte[]) any());
+    }
+
     @Test(expected = RedisCacheException.class)
     public void putConnectionException() throws ConnectionException, IOException {
         doThrow(new ConnectionException("")).when(client).set((byte[]) any(), (byte[]) any());
@@ -187,4 +203,47 @@ public class RedisCacheTest {
         assertEquals(0.5, cache.hitRatio(), 0.0001);
     }
 
+    @Test
+    public void putAll() throws ConnectionException, IOException {
+        Map<Integer, Integer> entries = new HashMap<Integer, Integer>();
+        entries.put(3, 5);
+        cache.putAll(entries);
+        verify(client).mset(serializer.serialize(3), serializer.serialize(5));
+    }
+
+    @Test(expected = RedisCacheException.class)
+    public void putAllThrowIOException() throws ConnectionException, IOException {
+        Map<Integer, Integer> entries = new HashMap<Integer, Integer>();
+        entries.put(3, 5);
+        doThrow(new IOException("")).when(client).mset((byte[][]) anyVararg());
+        cache.putAll(entries);
+    }
+
+    @Test
+    public void getAll() throws ConnectionException, IOException {
+        doReturn(Arrays.asList(serializer.serialize(5), null)).when(client).mget(serializer.serialize(3),
+                serializer.serialize(4));
+        doReturn(6).when(cacheLoader).load(4);
+        Map<Integer, Integer> values = cache.getAll(Arrays.asList(3, 4));
+        assertEquals(Integer.valueOf(5), values.get(3));
+        assertEquals(Integer.valueOf(6), values.get(4));
+        verify(client).set(serializer.serialize(4), serializer.serialize(6));
+        assertEquals(0.5, cache.hitRatio(), 0.0001);
+    }
+
+    @Test(expected = RedisCacheException.class)
+    public void getAllThrowConnectionException() throws ConnectionException, IOException {
+        doThrow(new ConnectionException("")).when(client).mget((byte[][]) anyVararg());
+        cache.getAll(Arrays.asList(3, 4));
+    }
+
+    @Test
+    public void invalidateAll() throws ConnectionException, IOException {
+        doReturn(Arrays.asList(serializer.serialize(5), null)).when(client).mget(serializer.serialize(3),
+                serializer.serialize(4));
+        cache.invalidateAll(Arrays.asList(3, 4));
+        verify(client).del(serializer.serialize(3), serializer.serialize(4));
+        verify(evictionListener).onEviction(3, 5);
+        verify(evictionListener, never()).onEviction(eq(4), anyInt());
+    }
 }
@@ -11,12 +11,16 @@ import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.KyleDing.imcache.serialization.LongSerializer;
+
 public class MultiRedisClientTest {
 
     byte[] key = { '0' };
@@ -51,6 +55,13 @@ public class MultiRedisClientTest {
         verify(client).set(key, value);
     }
 
+    @Test
+    public void setStreaming() throws ConnectionException, IOException {
+        LongSerializer serializer = new LongSerializer();
+        redisClient.set(key, 1L, serializer);
+        verify(client).set(key, 1L, serializer);
+    }
+
     @Test
     public void get() throws ConnectionException, IOException {
         doReturn(value).when(client).get(key);
@@ -65,6 +76,27 @@ public class MultiRedisClientTest {
         assertEquals(value, actualValue);
     }
 
+    @Test
+    public void mget() throws ConnectionException, IOException {
+        List<byte[]> values = Arrays.asList(value);
+        doReturn(values).when(client).mget(key);
+        List<byte[]> actualValues = redisClient.mget(key);
+        assertEquals(values, actualValues);
+    }
+
+    @Test
+    public void mset() throws ConnectionException, IOException {
+        redisClient.mset(key, value);
+        verify(client).mset(key, value);
+    }
+
+    @Test
+    public void del() throws ConnectionException, IOException {
+        doReturn(1).when(client).del(key);
+        int actualCount = redisClient.del(key);
+        assertEquals(1, actualCount);
+    }
+
     @Test
     public void flushdb() throws ConnectionException, IOException {
         redisClient.flushdb();
@@ -11,12 +11,16 @@ import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.KyleDing.imcache.serialization.LongSerializer;
+
 public class RedisClientTest {
 
     @Mock
@@ -77,6 +81,21 @@ public class RedisClientTest {
         verify(commandExecutor).execute(RedisCommands.SET, key, value);
     }
 
+    @Test
+    public void setStreaming() throws ConnectionException, IOException {
+        byte[] key = { '1' };
+        LongSerializer serializer = new LongSerializer();
+        doReturn("OK").when(commandResult).getStatus();
+        redisClient.set(key, 1L, serializer);
+        verify(commandExecutor).execute(RedisCommands.SET, 1L, serializer, key);
+    }
+
+    @Test(expected = ConnectionException.class)
+    public void setStreamingThrowsConnectionException() throws ConnectionException, IOException {
+        doReturn("ADA").when(commandResult).getStatus();
+        redisClient.set(new byte[] { '1' }, 1L, new LongSerializer());
+    }
+
     @Test
     public void get() throws ConnectionException, IOException {
         byte[] key = { '1' };
@@ -107,4 +126,34 @@ public class RedisClientTest {
         verify(commandExecutor).execute(RedisCommands.EXPIRE, key, new byte[] { '0' });
         assertEquals(value, actualValue);
     }
+
+    @Test
+    public void mget() throws ConnectionException, IOException {
+        byte[] firstKey = { '1' };
+        byte[] secondKey = { '2' };
+        List<byte[]> values = Arrays.asList(new byte[] { '1' }, null);
+        doReturn(values).when(commandResult).getMultiBytes();
+        List<byte[]> actualValues = redisClient.mget(firstKey, secondKey);
+        verify(commandExecutor).execute(RedisCommands.MGET, firstKey, secondKey);
+        assertEquals(values, actualValues);
+    }
+
+    @Test
+    public void mset() throws ConnectionException, IOException {
+        byte[] key = { '1' };
+        byte[] value = { '1' };
+        doReturn("OK").when(commandResult).getStatus();
+        redisClient.mset(key, value);
+        verify(redisClient).runVoidCommand(RedisCommands.MSET, key, value);
+        verify(commandExecutor).execute(RedisCommands.MSET, key, value);
+    }
+
+    @Test
+    public void del() throws ConnectionException, IOException {
+        byte[] key = { '1' };
+        doReturn(1).when(commandResult).getInt();
+        int actualCount = redisClient.del(key);
+        verify(commandExecutor).execute(RedisCommands.DEL, key);
+        assertEquals(1, actualCount);
+    }
 }
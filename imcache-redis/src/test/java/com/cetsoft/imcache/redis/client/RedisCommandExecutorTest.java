@@ -19,6 +19,9 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import com.KyleDing.imcache.serialization.Serializer;
+import com.KyleDing.imcache.serialization.SerializerAdapter;
+
 public class RedisCommandExecutorTest {
 
     @Mock
@@ -74,4 +77,42 @@ public class RedisCommandExecutorTest {
         assertEquals(expectedRedisCommandString, actualRedisCommandString);
     }
 
+    @Test
+    @SuppressWarnings("rawtypes")
+    public void executeStreaming() throws ConnectionException, IOException {
+        byte[] key = { '1' };
+        String expectedRedisCommandString = "*3\r\n$3\r\nSET\r\n$1\r\n1\r\n$2\r\n12\r\n";
+        final byte[] outputStreamBytes = new byte[100];
+        doAnswer(new Answer() {
+            int position = 0;
+
+            public Object answer(InvocationOnMock invocation) {
+                Object[] args = invocation.getArguments();
+                byte[] bytes = (byte[]) args[0];
+                int offset = (Integer) args[1];
+                int length = (Integer) args[2];
+                System.arraycopy(bytes, offset, outputStreamBytes, position, length);
+                position += length;
+                return null;
+            }
+        }).when(outputStream).write((byte[]) any(), anyInt(), anyInt());
+
+        commandExecutor.execute(RedisCommands.SET, "12", new SerializerAdapter<String>(new Serializer<String>() {
+            public byte[] serialize(String value) {
+                return value.getBytes();
+            }
+
+            public String deserialize(byte[] payload) {
+                return new String(payload);
+            }
+        }), key);
+
+        verify(streamWriter, times(7)).writeNewLine();
+        verify(streamWriter).flush();
+
+        String actualRedisCommandString = new String(outputStreamBytes).substring(0,
+                expectedRedisCommandString.length());
+        assertEquals(expectedRedisCommandString, actualRedisCommandString);
+    }
+
 }
@@ -10,6 +10,7 @@ import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 import java.io.IOException;
+import java.util.List;
 import java.io.InputStream;
 
 import org.junit.Before;
@@ -74,4 +75,23 @@ public class RedisCommandResultTest {
         assertArrayEquals(bytes, actualBytes);
     }
 
+    @Test
+    public void getMultiBytes() throws ConnectionException, IOException {
+        int length = 3;
+        byte[] bytes = { 1, 2, 3 };
+        doReturn(RedisBytes.ASTERISK_BYTE).doReturn(RedisBytes.DOLLAR_BYTE).doReturn(RedisBytes.DOLLAR_BYTE)
+                .when(streamReader).readByte();
+        doReturn(2).doReturn(length).doReturn(-1).when(streamReader).readInt();
+        doReturn(bytes).when(streamReader).read(length);
+        List<byte[]> actualBytes = commandResult.getMultiBytes();
+        assertEquals(2, actualBytes.size());
+        assertArrayEquals(bytes, actualBytes.get(0));
+        assertNull(actualBytes.get(1));
+    }
+
+    @Test(expected = ConnectionException.class)
+    public void getMultiBytesThrowsConnectionException() throws ConnectionException, IOException {
+        doReturn(RedisBytes.DOLLAR_BYTE).when(streamReader).readByte();
+        commandResult.getMultiBytes();
+    }
 }
@@ -12,12 +12,19 @@ import static org.mockito.Mockito.*;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.KyleDing.imcache.serialization.LongSerializer;
+import com.KyleDing.imcache.serialization.Serializer;
+import com.KyleDing.imcache.serialization.SerializerAdapter;
+import com.KyleDing.imcache.serialization.StreamingSerializer;
+
 public class RedisStreamWriterTest {
 
     RedisStreamWriter writer;
@@ -67,6 +74,51 @@ public class RedisStreamWriterTest {
         assertEquals(writer.buffer[1], '\n');
     }
 
+    @Test
+    public void writeStreaming() throws IOException {
+        writer.position = 2;
+        writer.write(1L, LongSerializer.SIZE, new LongSerializer());
+        verify(writer, never()).flushBuffer();
+        assertEquals(2 + LongSerializer.SIZE, writer.position);
+        assertEquals(1, writer.buffer[2 + LongSerializer.SIZE - 1]);
+    }
+
+    @Test
+    public void writeStreamingFlushesFirst() throws IOException {
+        writer.position = writer.buffer.length - 4;
+        writer.write(1L, LongSerializer.SIZE, new LongSerializer());
+        verify(writer).flushBuffer();
+        assertEquals(LongSerializer.SIZE, writer.position);
+    }
+
+    @Test
+    public void writeStreamingLongerThanBuffer() throws IOException {
+        final byte[] bytes = new byte[RedisStreamWriter.BUFFER_SIZE + 1];
+        Arrays.fill(bytes, (byte) 7);
+        StreamingSerializer<byte[]> serializer = new SerializerAdapter<byte[]>(new Serializer<byte[]>() {
+            public byte[] serialize(byte[] value) {
+                return value;
+            }
+
+            public byte[] deserialize(byte[] payload) {
+                return payload;
+            }
+        });
+        writer.write(bytes, bytes.length, serializer);
+        verify(outputStream).write(writer.buffer, 0, RedisStreamWriter.BUFFER_SIZE);
+        verify(outputStream).write(writer.buffer, 0, 1);
+        assertEquals(7, writer.buffer[0]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void writeStreamingWrongSize() throws IOException {
+        writer.write(1L, LongSerializer.SIZE, new LongSerializer() {
+            public void serialize(Long value, ByteBuffer buffer) {
+                buffer.putInt(value.intValue());
+            }
+        });
+    }
+
     @Test
     public void writeByteArray() throws IOException {
         byte[] bytes = { '1', '2', '3' };
@@ -79,32 +79,37 @@ public class SpringCacheBuilder extends SearchableCacheBuilder {
 
 		case HEAP:
 			return CacheBuilder.heapCache().cacheLoader(cacheLoader).evictionListener(evictionListener)
-					.indexHandler(indexHandler).capacity(heapCapacity).build();
+					.indexHandler(indexHandler).capacity(heapCapacity).loadTimeout(loadTimeout)
+					.propagateLoadException(propagateLoadException).build();
 
 		case TRANSACTIONALHEAP:
 			return CacheBuilder.transactionalHeapCache().cacheLoader(cacheLoader).evictionListener(evictionListener)
-					.indexHandler(indexHandler).transactionCommitter(transactionCommitter).build();
+					.indexHandler(indexHandler).transactionCommitter(transactionCommitter).loadTimeout(loadTimeout)
+					.propagateLoadException(propagateLoadException).build();
 
 		case OFFHEAP:
 			return CacheBuilder.offHeapCache().cacheLoader(cacheLoader).evictionListener(evictionListener)
 					.indexHandler(indexHandler).concurrencyLevel(concurrencyLevel)
 					.bufferCleanerPeriod(bufferCleanerPeriod).bufferCleanerThreshold(bufferCleanerThreshold)
-					.evictionPeriod(evictionPeriod).serializer(serializer).storage(bufferStore).build();
+					.evictionPeriod(evictionPeriod).serializer(serializer).storage(bufferStore).loadTimeout(loadTimeout)
+					.propagateLoadException(propagateLoadException).build();
 
 		case VERSIONEDOFFHEAP:
 			return CacheBuilder.versionedOffHeapCache().cacheLoader(cacheLoader).evictionListener(evictionListener)
 					.indexHandler(indexHandler).concurrencyLevel(concurrencyLevel)
 					.bufferCleanerPeriod(bufferCleanerPeriod).bufferCleanerThreshold(bufferCleanerThreshold)
-					.evictionPeriod(evictionPeriod).serializer(serializer).storage(bufferStore).build();
+					.evictionPeriod(evictionPeriod).serializer(serializer).storage(bufferStore).loadTimeout(loadTimeout)
+					.propagateLoadException(propagateLoadException).build();
 
 		case REDIS:
 			return CacheBuilder.redisCache().cacheLoader(cacheLoader).evictionListener(evictionListener)
 					.serializer(serializer).concurrencyLevel(concurrencyLevel).hostName(redisHost).port(redisPort)
-					.build();
+					.loadTimeout(loadTimeout).propagateLoadException(propagateLoadException).build();
 
 		default:
 			return CacheBuilder.concurrentHeapCache().cacheLoader(cacheLoader).evictionListener(evictionListener)
-					.indexHandler(indexHandler).build();
+					.indexHandler(indexHandler).loadTimeout(loadTimeout)
+					.propagateLoadException(propagateLoadException).build();
 		}
 	}
 
@@ -189,6 +194,24 @@ public class SpringCacheBuilder extends SearchableCacheBuilder {
         this.indexHandler = indexHandler;
     }
 
+    /**
+     * Sets the load timeout.
+     *
+     * @param loadTimeout the new load timeout in milliseconds
+     */
+    public void setLoadTimeout(long loadTimeout) {
+        this.loadTimeout = loadTimeout;
+    }
+
+    /**
+     * Sets the propagate load exception.
+     *
+     * @param propagateLoadException the new propagate load exception
+     */
+    public void setPropagateLoadException(boolean propagateLoadException) {
+        this.propagateLoadException = propagateLoadException;
+    }
+
     /**
      * Sets the buffer store.
      *
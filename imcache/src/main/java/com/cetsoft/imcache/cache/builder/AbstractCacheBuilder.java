@@ -15,10 +15,14 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutput;
 import java.io.ObjectOutputStream;
 
+import com.KyleDing.imcache.cache.AbstractCache;
 import com.KyleDing.imcache.cache.Cache;
 import com.KyleDing.imcache.cache.CacheLoader;
 import com.KyleDing.imcache.cache.EvictionListener;
+import com.KyleDing.imcache.cache.SingleFlightLoader;
 import com.KyleDing.imcache.serialization.Serializer;
+import com.KyleDing.imcache.serialization.codec.Codec;
+import com.KyleDing.imcache.serialization.codec.CompressingSerializer;
 
 public abstract class AbstractCacheBuilder {
 
@@ -75,6 +79,12 @@ public abstract class AbstractCacheBuilder {
     /** The eviction listener. */
     protected EvictionListener<Object, Object> evictionListener;
 
+    /** The load timeout. */
+    protected long loadTimeout = SingleFlightLoader.NO_TIMEOUT;
+
+    /** The propagate load exception. */
+    protected boolean propagateLoadException;
+
     /**
      * Instantiates a new cache builder.
      */
@@ -83,6 +93,35 @@ public abstract class AbstractCacheBuilder {
         evictionListener = EVICTION_LISTENER;
     }
 
+    /**
+     * Applies the loading options to the cache.
+     *
+     * @param <C> the cache type
+     * @param cache the cache
+     * @return the cache
+     */
+    protected <C extends AbstractCache<?, ?>> C withLoadingOptions(C cache) {
+        cache.setLoadTimeout(loadTimeout);
+        cache.setPropagateLoadException(propagateLoadException);
+        return cache;
+    }
+
+    /**
+     * Wraps the serializer to compress its payloads if a codec is given.
+     *
+     * @param <V> the value type
+     * @param serializer the serializer
+     * @param codec the codec, may be null
+     * @param threshold the length from which payloads are compressed
+     * @return the serializer
+     */
+    protected static <V> Serializer<V> withCompression(Serializer<V> serializer, Codec codec, int threshold) {
+        if (codec == null) {
+            return serializer;
+        }
+        return new CompressingSerializer<V>(serializer, codec, threshold);
+    }
+
     /**
      * Builds the cache.
      *
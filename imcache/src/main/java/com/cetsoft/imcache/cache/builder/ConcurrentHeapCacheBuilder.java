@@ -12,6 +12,7 @@ import com.KyleDing.imcache.cache.EvictionListener;
 import com.KyleDing.imcache.cache.SearchableCache;
 import com.KyleDing.imcache.cache.search.IndexHandler;
 import com.KyleDing.imcache.cache.search.index.IndexType;
+import com.KyleDing.imcache.concurrent.policy.EvictionPolicyType;
 import com.KyleDing.imcache.heap.ConcurrentHeapCache;
 
 /**
@@ -22,6 +23,15 @@ public class ConcurrentHeapCacheBuilder extends SearchableCacheBuilder {
     /** The capacity. */
     private int capacity = 10000;
 
+    /** The expire after write. */
+    private long expireAfterWrite;
+
+    /** The expire after access. */
+    private long expireAfterAccess;
+
+    /** The eviction policy type. */
+    private EvictionPolicyType evictionPolicyType = EvictionPolicyType.LRU;
+
     /**
      * Instantiates a new concurrent heap cache builder.
      */
@@ -57,6 +67,30 @@ public class ConcurrentHeapCacheBuilder extends SearchableCacheBuilder {
         return this;
     }
 
+    /**
+     * Load timeout, how long a thread waits for another thread loading the
+     * same key.
+     *
+     * @param loadTimeout the load timeout in milliseconds
+     * @return the concurrent heap cache builder
+     */
+    public ConcurrentHeapCacheBuilder loadTimeout(long loadTimeout) {
+        this.loadTimeout = loadTimeout;
+        return this;
+    }
+
+    /**
+     * Propagate load exception, whether a failed load is propagated to the
+     * threads waiting for it instead of letting them retry.
+     *
+     * @param propagateLoadException the propagate load exception
+     * @return the concurrent heap cache builder
+     */
+    public ConcurrentHeapCacheBuilder propagateLoadException(boolean propagateLoadException) {
+        this.propagateLoadException = propagateLoadException;
+        return this;
+    }
+
     /**
      * Query executer.
      *
@@ -83,6 +117,43 @@ public class ConcurrentHeapCacheBuilder extends SearchableCacheBuilder {
         return this;
     }
 
+    /**
+     * Expire after write, how long an entry lives after it is written.
+     *
+     * @param expireAfterWrite the expire after write in milliseconds, 0 for no
+     *            limit
+     * @return the concurrent heap cache builder
+     */
+    public ConcurrentHeapCacheBuilder expireAfterWrite(long expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+        return this;
+    }
+
+    /**
+     * Expire after access, how long an entry lives after it is last read or
+     * written.
+     *
+     * @param expireAfterAccess the expire after access in milliseconds, 0 for
+     *            no limit
+     * @return the concurrent heap cache builder
+     */
+    public ConcurrentHeapCacheBuilder expireAfterAccess(long expireAfterAccess) {
+        this.expireAfterAccess = expireAfterAccess;
+        return this;
+    }
+
+    /**
+     * Eviction policy, how the entries to evict are chosen when the cache is
+     * full. Defaults to {@link EvictionPolicyType#LRU}.
+     *
+     * @param evictionPolicyType the eviction policy type
+     * @return the concurrent heap cache builder
+     */
+    public ConcurrentHeapCacheBuilder evictionPolicy(EvictionPolicyType evictionPolicyType) {
+        this.evictionPolicyType = evictionPolicyType;
+        return this;
+    }
+
     /**
      * Adds the index.
      *
@@ -105,8 +176,9 @@ public class ConcurrentHeapCacheBuilder extends SearchableCacheBuilder {
      */
     @SuppressWarnings("unchecked")
     public <K, V> SearchableCache<K, V> build() {
-        return new ConcurrentHeapCache<K, V>((CacheLoader<K, V>) cacheLoader,
-                (EvictionListener<K, V>) evictionListener, (IndexHandler<K, V>) indexHandler, capacity);
+        return withLoadingOptions(new ConcurrentHeapCache<K, V>((CacheLoader<K, V>) cacheLoader,
+                (EvictionListener<K, V>) evictionListener, (IndexHandler<K, V>) indexHandler, capacity, expireAfterWrite,
+                expireAfterAccess, evictionPolicyType));
     }
 
     /**
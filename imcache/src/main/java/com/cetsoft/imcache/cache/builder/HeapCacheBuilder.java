@@ -23,6 +23,12 @@ public class HeapCacheBuilder extends SearchableCacheBuilder {
     /** The capacity. */
     private int capacity = 10000;
 
+    /** The expire after write. */
+    private long expireAfterWrite;
+
+    /** The expire after access. */
+    private long expireAfterAccess;
+
     /**
      * Instantiates a new heap cache builder.
      */
@@ -58,6 +64,30 @@ public class HeapCacheBuilder extends SearchableCacheBuilder {
         return this;
     }
 
+    /**
+     * Load timeout, how long a thread waits for another thread loading the
+     * same key.
+     *
+     * @param loadTimeout the load timeout in milliseconds
+     * @return the heap cache builder
+     */
+    public HeapCacheBuilder loadTimeout(long loadTimeout) {
+        this.loadTimeout = loadTimeout;
+        return this;
+    }
+
+    /**
+     * Propagate load exception, whether a failed load is propagated to the
+     * threads waiting for it instead of letting them retry.
+     *
+     * @param propagateLoadException the propagate load exception
+     * @return the heap cache builder
+     */
+    public HeapCacheBuilder propagateLoadException(boolean propagateLoadException) {
+        this.propagateLoadException = propagateLoadException;
+        return this;
+    }
+
     /**
      * Query executer.
      *
@@ -84,6 +114,31 @@ public class HeapCacheBuilder extends SearchableCacheBuilder {
         return this;
     }
 
+    /**
+     * Expire after write, how long an entry lives after it is written.
+     *
+     * @param expireAfterWrite the expire after write in milliseconds, 0 for no
+     *            limit
+     * @return the heap cache builder
+     */
+    public HeapCacheBuilder expireAfterWrite(long expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+        return this;
+    }
+
+    /**
+     * Expire after access, how long an entry lives after it is last read or
+     * written.
+     *
+     * @param expireAfterAccess the expire after access in milliseconds, 0 for
+     *            no limit
+     * @return the heap cache builder
+     */
+    public HeapCacheBuilder expireAfterAccess(long expireAfterAccess) {
+        this.expireAfterAccess = expireAfterAccess;
+        return this;
+    }
+
     /**
      * Adds the index.
      *
@@ -106,8 +161,9 @@ public class HeapCacheBuilder extends SearchableCacheBuilder {
      */
     @SuppressWarnings("unchecked")
     public <K, V> SearchableCache<K, V> build() {
-        return new HeapCache<K, V>((CacheLoader<K, V>) cacheLoader, (EvictionListener<K, V>) evictionListener,
-                (IndexHandler<K, V>) indexHandler, capacity);
+        return withLoadingOptions(new HeapCache<K, V>((CacheLoader<K, V>) cacheLoader,
+                (EvictionListener<K, V>) evictionListener, (IndexHandler<K, V>) indexHandler, capacity, expireAfterWrite,
+                expireAfterAccess));
     }
 
     /**
@@ -7,14 +7,25 @@
  */
 package com.KyleDing.imcache.cache.builder;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 import com.KyleDing.imcache.cache.CacheLoader;
 import com.KyleDing.imcache.cache.EvictionListener;
 import com.KyleDing.imcache.cache.SearchableCache;
 import com.KyleDing.imcache.cache.search.IndexHandler;
 import com.KyleDing.imcache.cache.search.index.IndexType;
 import com.KyleDing.imcache.offheap.OffHeapCache;
+import com.KyleDing.imcache.offheap.PersistentOffHeapCache;
+import com.KyleDing.imcache.offheap.bytebuffer.MappedOffHeapByteBufferStore;
 import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore;
+import com.KyleDing.imcache.offheap.bytebuffer.Pointer;
+import com.KyleDing.imcache.offheap.bytebuffer.ShardedOffHeapByteBufferStore;
+import com.KyleDing.imcache.offheap.bytebuffer.SlabOffHeapByteBufferStore;
+import com.KyleDing.imcache.offheap.index.OffHeapHashIndex;
 import com.KyleDing.imcache.serialization.Serializer;
+import com.KyleDing.imcache.serialization.codec.Codec;
+import com.KyleDing.imcache.serialization.codec.CompressingSerializer;
 
 /**
  * The Class OffHeapCacheBuilder.
@@ -39,6 +50,21 @@ public class OffHeapCacheBuilder extends SearchableCacheBuilder {
     /** The byte buffer store. */
     OffHeapByteBufferStore byteBufferStore;
 
+    /** The key serializer. */
+    Serializer<Object> keySerializer;
+
+    /** The key store. */
+    SlabOffHeapByteBufferStore keyStore;
+
+    /** The shard count. */
+    int shardCount = 1;
+
+    /** The codec. */
+    Codec codec;
+
+    /** The compression threshold. */
+    int compressionThreshold = CompressingSerializer.DEFAULT_THRESHOLD;
+
     /**
      * Instantiates a new off heap cache builder.
      */
@@ -62,6 +88,23 @@ public class OffHeapCacheBuilder extends SearchableCacheBuilder {
         return this;
     }
 
+    /**
+     * Shards, spreads the writers over the given number of shards of the
+     * store, each with a current buffer of its own. The store must be a plain
+     * OffHeapByteBufferStore whose buffers are taken over by a
+     * ShardedOffHeapByteBufferStore.
+     *
+     * @param shardCount the shard count
+     * @return the off heap cache builder
+     */
+    public OffHeapCacheBuilder shards(int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive.");
+        }
+        this.shardCount = shardCount;
+        return this;
+    }
+
     /**
      * Serializer.
      *
@@ -75,6 +118,60 @@ public class OffHeapCacheBuilder extends SearchableCacheBuilder {
         return this;
     }
 
+    /**
+     * Compression, compresses the serialized values that are at least the
+     * default threshold long with the codec before they are stored.
+     *
+     * @param codec the codec
+     * @return the off heap cache builder
+     */
+    public OffHeapCacheBuilder compression(Codec codec) {
+        return compression(codec, CompressingSerializer.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Compression, compresses the serialized values that are at least the
+     * threshold long with the codec before they are stored.
+     *
+     * @param codec the codec
+     * @param threshold the length from which values are compressed
+     * @return the off heap cache builder
+     */
+    public OffHeapCacheBuilder compression(Codec codec, int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative.");
+        }
+        this.codec = codec;
+        this.compressionThreshold = threshold;
+        return this;
+    }
+
+    /**
+     * Key serializer, needed to keep the keys in an off heap hash index and to
+     * persist the keys of a mapped store.
+     *
+     * @param <K> the key type
+     * @param keySerializer the key serializer
+     * @return the off heap cache builder
+     */
+    @SuppressWarnings("unchecked")
+    public <K> OffHeapCacheBuilder keySerializer(Serializer<K> keySerializer) {
+        this.keySerializer = (Serializer<Object>) keySerializer;
+        return this;
+    }
+
+    /**
+     * Key storage, setting it keeps the keys in an off heap hash index over the
+     * store instead of the heap.
+     *
+     * @param keyStore the key store
+     * @return the off heap cache builder
+     */
+    public OffHeapCacheBuilder keyStorage(SlabOffHeapByteBufferStore keyStore) {
+        this.keyStore = keyStore;
+        return this;
+    }
+
     /**
      * Cache loader.
      *
@@ -103,6 +200,30 @@ public class OffHeapCacheBuilder extends SearchableCacheBuilder {
         return this;
     }
 
+    /**
+     * Load timeout, how long a thread waits for another thread loading the
+     * same key.
+     *
+     * @param loadTimeout the load timeout in milliseconds
+     * @return the off heap cache builder
+     */
+    public OffHeapCacheBuilder loadTimeout(long loadTimeout) {
+        this.loadTimeout = loadTimeout;
+        return this;
+    }
+
+    /**
+     * Propagate load exception, whether a failed load is propagated to the
+     * threads waiting for it instead of letting them retry.
+     *
+     * @param propagateLoadException the propagate load exception
+     * @return the off heap cache builder
+     */
+    public OffHeapCacheBuilder propagateLoadException(boolean propagateLoadException) {
+        this.propagateLoadException = propagateLoadException;
+        return this;
+    }
+
     /**
      * Query executer.
      *
@@ -190,9 +311,37 @@ public class OffHeapCacheBuilder extends SearchableCacheBuilder {
         if (this.byteBufferStore == null) {
             throw new NecessaryArgumentException("ByteBufferStore must be set!");
         }
-        return new OffHeapCache<K, V>((CacheLoader<K, V>) cacheLoader, (EvictionListener<K, V>) evictionListener,
-                (IndexHandler<K, V>) indexHandler, byteBufferStore, (Serializer<V>) serializer, bufferCleanerPeriod,
-                bufferCleanerThreshold, concurrencyLevel, evictionPeriod);
+        if (shardCount > 1) {
+            if (this.byteBufferStore.getClass() != OffHeapByteBufferStore.class) {
+                throw new IllegalArgumentException("Only an OffHeapByteBufferStore can be sharded.");
+            }
+            this.byteBufferStore = new ShardedOffHeapByteBufferStore(byteBufferStore, shardCount);
+        }
+        Serializer<V> valueSerializer = withCompression((Serializer<V>) serializer, codec, compressionThreshold);
+        ConcurrentMap<K, Pointer> pointerMap = new ConcurrentHashMap<K, Pointer>();
+        if (this.keyStore != null) {
+            if (this.keySerializer == null) {
+                throw new NecessaryArgumentException("KeySerializer must be set with KeyStorage!");
+            }
+            pointerMap = new OffHeapHashIndex<K>((Serializer<K>) keySerializer, byteBufferStore, keyStore);
+        }
+        if (this.byteBufferStore instanceof MappedOffHeapByteBufferStore) {
+            if (this.keySerializer == null) {
+                throw new NecessaryArgumentException("KeySerializer must be set with MappedOffHeapByteBufferStore!");
+            }
+            return withLoadingOptions(new PersistentOffHeapCache<K, V>((CacheLoader<K, V>) cacheLoader,
+                    (EvictionListener<K, V>) evictionListener, (IndexHandler<K, V>) indexHandler,
+                    (MappedOffHeapByteBufferStore) byteBufferStore, valueSerializer,
+                    (Serializer<K>) keySerializer, bufferCleanerPeriod, bufferCleanerThreshold, concurrencyLevel,
+                    evictionPeriod, pointerMap));
+        }
+        if (this.keySerializer != null && this.keyStore == null) {
+            throw new NecessaryArgumentException("KeyStorage must be set with KeySerializer!");
+        }
+        return withLoadingOptions(new OffHeapCache<K, V>((CacheLoader<K, V>) cacheLoader,
+                (EvictionListener<K, V>) evictionListener, (IndexHandler<K, V>) indexHandler, byteBufferStore,
+                valueSerializer, bufferCleanerPeriod, bufferCleanerThreshold, concurrencyLevel,
+                evictionPeriod, pointerMap));
     }
 
     /**
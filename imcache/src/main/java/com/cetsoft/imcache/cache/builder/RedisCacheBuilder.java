@@ -15,6 +15,8 @@ import com.KyleDing.imcache.redis.client.Client;
 import com.KyleDing.imcache.redis.client.Connection;
 import com.KyleDing.imcache.redis.client.MultiRedisClient;
 import com.KyleDing.imcache.serialization.Serializer;
+import com.KyleDing.imcache.serialization.codec.Codec;
+import com.KyleDing.imcache.serialization.codec.CompressingSerializer;
 
 /**
  * The Class RedisCacheBuilder.
@@ -33,6 +35,12 @@ public class RedisCacheBuilder extends AbstractCacheBuilder {
     /** The serializer. */
     private Serializer<Object> serializer = AbstractCacheBuilder.SERIALIZER;
 
+    /** The codec. */
+    private Codec codec;
+
+    /** The compression threshold. */
+    private int compressionThreshold = CompressingSerializer.DEFAULT_THRESHOLD;
+
     /**
      * Cache loader.
      *
@@ -61,6 +69,30 @@ public class RedisCacheBuilder extends AbstractCacheBuilder {
         return this;
     }
 
+    /**
+     * Load timeout, how long a thread waits for another thread loading the
+     * same key.
+     *
+     * @param loadTimeout the load timeout in milliseconds
+     * @return the redis cache builder
+     */
+    public RedisCacheBuilder loadTimeout(long loadTimeout) {
+        this.loadTimeout = loadTimeout;
+        return this;
+    }
+
+    /**
+     * Propagate load exception, whether a failed load is propagated to the
+     * threads waiting for it instead of letting them retry.
+     *
+     * @param propagateLoadException the propagate load exception
+     * @return the redis cache builder
+     */
+    public RedisCacheBuilder propagateLoadException(boolean propagateLoadException) {
+        this.propagateLoadException = propagateLoadException;
+        return this;
+    }
+
     /**
      * Serializer.
      *
@@ -73,6 +105,34 @@ public class RedisCacheBuilder extends AbstractCacheBuilder {
         return this;
     }
 
+    /**
+     * Compression, compresses the serialized values that are at least the
+     * default threshold long with the codec before they are stored.
+     *
+     * @param codec the codec
+     * @return the redis cache builder
+     */
+    public RedisCacheBuilder compression(Codec codec) {
+        return compression(codec, CompressingSerializer.DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Compression, compresses the serialized values that are at least the
+     * threshold long with the codec before they are stored.
+     *
+     * @param codec the codec
+     * @param threshold the length from which values are compressed
+     * @return the redis cache builder
+     */
+    public RedisCacheBuilder compression(Codec codec, int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Threshold must not be negative.");
+        }
+        this.codec = codec;
+        this.compressionThreshold = threshold;
+        return this;
+    }
+
     /**
      * Host name.
      *
@@ -115,8 +175,9 @@ public class RedisCacheBuilder extends AbstractCacheBuilder {
     @SuppressWarnings("unchecked")
     public <K, V> Cache<K, V> build() {
         Client client = new MultiRedisClient(hostName, port, concurrencyLevel);
-        return new RedisCache<K, V>((CacheLoader<K, V>) cacheLoader, (EvictionListener<K, V>) evictionListener,
-                serializer, client);
+        return withLoadingOptions(new RedisCache<K, V>((CacheLoader<K, V>) cacheLoader,
+                (EvictionListener<K, V>) evictionListener, withCompression(serializer, codec, compressionThreshold),
+                client));
     }
 
 }
@@ -76,6 +76,30 @@ public class TransactionalHeapCacheBuilder extends SearchableCacheBuilder {
         return this;
     }
 
+    /**
+     * Load timeout, how long a thread waits for another thread loading the
+     * same key.
+     *
+     * @param loadTimeout the load timeout in milliseconds
+     * @return the transactional heap cache builder
+     */
+    public TransactionalHeapCacheBuilder loadTimeout(long loadTimeout) {
+        this.loadTimeout = loadTimeout;
+        return this;
+    }
+
+    /**
+     * Propagate load exception, whether a failed load is propagated to the
+     * threads waiting for it instead of letting them retry.
+     *
+     * @param propagateLoadException the propagate load exception
+     * @return the transactional heap cache builder
+     */
+    public TransactionalHeapCacheBuilder propagateLoadException(boolean propagateLoadException) {
+        this.propagateLoadException = propagateLoadException;
+        return this;
+    }
+
     /**
      * Query executer.
      *
@@ -127,9 +151,9 @@ public class TransactionalHeapCacheBuilder extends SearchableCacheBuilder {
         if (this.transactionCommitter == null) {
             throw new NecessaryArgumentException("TransactionCommitter must be set!");
         }
-        return new TransactionalHeapCache<K, V>((TransactionCommitter<K, V>) transactionCommitter,
+        return withLoadingOptions(new TransactionalHeapCache<K, V>((TransactionCommitter<K, V>) transactionCommitter,
                 (CacheLoader<K, V>) cacheLoader, (EvictionListener<K, V>) evictionListener,
-                (IndexHandler<K, V>) indexHandler, capacity);
+                (IndexHandler<K, V>) indexHandler, capacity));
     }
 
     /**
@@ -104,6 +104,30 @@ public class VersionedOffHeapCacheBuilder extends SearchableCacheBuilder {
         return this;
     }
 
+    /**
+     * Load timeout, how long a thread waits for another thread loading the
+     * same key.
+     *
+     * @param loadTimeout the load timeout in milliseconds
+     * @return the versioned off heap cache builder
+     */
+    public VersionedOffHeapCacheBuilder loadTimeout(long loadTimeout) {
+        this.loadTimeout = loadTimeout;
+        return this;
+    }
+
+    /**
+     * Propagate load exception, whether a failed load is propagated to the
+     * threads waiting for it instead of letting them retry.
+     *
+     * @param propagateLoadException the propagate load exception
+     * @return the versioned off heap cache builder
+     */
+    public VersionedOffHeapCacheBuilder propagateLoadException(boolean propagateLoadException) {
+        this.propagateLoadException = propagateLoadException;
+        return this;
+    }
+
     /**
      * Query executer.
      *
@@ -191,10 +215,13 @@ public class VersionedOffHeapCacheBuilder extends SearchableCacheBuilder {
         if (this.byteBufferStore == null) {
             throw new NecessaryArgumentException("ByteBufferStore must be set!");
         }
-        return (SearchableCache<K, V>) new VersionedOffHeapCache<K, V>(byteBufferStore, (Serializer<V>) serializer,
-                (CacheLoader<K, V>) cacheLoader, (EvictionListener<K, V>) evictionListener,
+        VersionedOffHeapCache<K, V> cache = new VersionedOffHeapCache<K, V>(byteBufferStore,
+                (Serializer<V>) serializer, (CacheLoader<K, V>) cacheLoader, (EvictionListener<K, V>) evictionListener,
                 (IndexHandler<K, V>) indexHandler, bufferCleanerPeriod, bufferCleanerThreshold, concurrencyLevel,
                 evictionPeriod);
+        cache.setLoadTimeout(loadTimeout);
+        cache.setPropagateLoadException(propagateLoadException);
+        return (SearchableCache<K, V>) cache;
     }
 
     /**
@@ -9,11 +9,13 @@ package com.KyleDing.imcache.cache.builder;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import com.KyleDing.imcache.cache.Cache;
 import com.KyleDing.imcache.cache.SearchableCache;
 import com.KyleDing.imcache.cache.search.index.IndexType;
+import com.KyleDing.imcache.concurrent.policy.EvictionPolicyType;
 import com.KyleDing.imcache.heap.ConcurrentHeapCache;
 
 public class ConcurrentHeapCacheBuilderTest {
@@ -26,4 +28,32 @@ public class ConcurrentHeapCacheBuilderTest {
         assertTrue(cache instanceof SearchableCache);
         assertTrue(cache instanceof ConcurrentHeapCache);
     }
+
+    @Test
+    public void buildWithLoadingOptions() {
+        Cache<Object, Object> cache = CacheBuilder.concurrentHeapCache().loadTimeout(100)
+                .propagateLoadException(true).build();
+        ConcurrentHeapCache<Object, Object> concurrentHeapCache = (ConcurrentHeapCache<Object, Object>) cache;
+        assertEquals(100, concurrentHeapCache.getLoadTimeout());
+        assertTrue(concurrentHeapCache.isPropagateLoadException());
+    }
+
+    @Test
+    public void buildWithExpiration() {
+        Cache<Object, Object> cache = CacheBuilder.concurrentHeapCache().expireAfterWrite(500).expireAfterAccess(5000).build();
+        ConcurrentHeapCache<Object, Object> concurrentHeapCache = (ConcurrentHeapCache<Object, Object>) cache;
+        assertEquals(500, concurrentHeapCache.getExpireAfterWrite());
+        assertEquals(5000, concurrentHeapCache.getExpireAfterAccess());
+    }
+
+    @Test
+    public void buildWithEvictionPolicy() {
+        Cache<Object, Object> cache = CacheBuilder.concurrentHeapCache().evictionPolicy(EvictionPolicyType.W_TINY_LFU)
+                .capacity(100).build();
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i);
+        }
+        assertEquals(1, cache.get(1));
+        assertTrue(cache instanceof ConcurrentHeapCache);
+    }
 }
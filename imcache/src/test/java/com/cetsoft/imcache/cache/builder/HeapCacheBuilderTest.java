@@ -7,6 +7,7 @@
  */
 package com.KyleDing.imcache.cache.builder;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -26,4 +27,12 @@ public class HeapCacheBuilderTest {
         assertTrue(cache instanceof SearchableCache);
         assertTrue(cache instanceof HeapCache);
     }
+
+    @Test
+    public void buildWithExpiration() {
+        Cache<Object, Object> cache = CacheBuilder.heapCache().expireAfterWrite(500).expireAfterAccess(5000).build();
+        HeapCache<Object, Object> heapCache = (HeapCache<Object, Object>) cache;
+        assertEquals(500, heapCache.getExpireAfterWrite());
+        assertEquals(5000, heapCache.getExpireAfterAccess());
+    }
 }
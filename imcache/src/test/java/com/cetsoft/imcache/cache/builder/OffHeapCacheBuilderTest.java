@@ -7,18 +7,31 @@
  */
 package com.KyleDing.imcache.cache.builder;
 
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import com.KyleDing.imcache.cache.Cache;
 import com.KyleDing.imcache.cache.SearchableCache;
 import com.KyleDing.imcache.cache.search.index.IndexType;
 import com.KyleDing.imcache.offheap.OffHeapCache;
+import com.KyleDing.imcache.offheap.PersistentOffHeapCache;
+import com.KyleDing.imcache.offheap.bytebuffer.MappedOffHeapByteBufferStore;
 import com.KyleDing.imcache.offheap.bytebuffer.OffHeapByteBufferStore;
+import com.KyleDing.imcache.offheap.bytebuffer.SlabOffHeapByteBufferStore;
+import com.KyleDing.imcache.serialization.codec.LzCodec;
 
 public class OffHeapCacheBuilderTest {
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Test
     public void build() {
         OffHeapByteBufferStore bufferStore = new OffHeapByteBufferStore(8388608, 10);
@@ -31,6 +44,81 @@ public class OffHeapCacheBuilderTest {
         assertTrue(cache instanceof OffHeapCache);
     }
 
+    @Test
+    public void buildWithOffHeapIndex() {
+        OffHeapByteBufferStore bufferStore = new OffHeapByteBufferStore(8388608, 2);
+        SlabOffHeapByteBufferStore keyStore = new SlabOffHeapByteBufferStore(1048576, 2);
+        Cache<Object, Object> cache = CacheBuilder.offHeapCache().storage(bufferStore)
+                .keySerializer(AbstractCacheBuilder.SERIALIZER).keyStorage(keyStore).build();
+        cache.put("key", "value");
+        cache.put("key", "new value");
+        assertEquals("new value", cache.get("key"));
+        assertEquals(1, cache.size());
+        assertEquals("new value", cache.invalidate("key"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test(expected = NecessaryArgumentException.class)
+    public void buildWithoutKeyStorageThrowsNecessaryArgumentException() {
+        OffHeapByteBufferStore bufferStore = new OffHeapByteBufferStore(8388608, 2);
+        CacheBuilder.offHeapCache().storage(bufferStore).keySerializer(AbstractCacheBuilder.SERIALIZER).build();
+    }
+
+    @Test
+    public void buildPersistent() throws IOException {
+        File directory = folder.newFolder();
+        MappedOffHeapByteBufferStore bufferStore = new MappedOffHeapByteBufferStore(directory, 1048576, 2);
+        Cache<Object, Object> cache = CacheBuilder.offHeapCache().storage(bufferStore)
+                .keySerializer(AbstractCacheBuilder.SERIALIZER).build();
+        assertTrue(cache instanceof PersistentOffHeapCache);
+        cache.put("key", "value");
+        ((PersistentOffHeapCache<Object, Object>) cache).close();
+        bufferStore = new MappedOffHeapByteBufferStore(directory, 1048576, 2);
+        cache = CacheBuilder.offHeapCache().storage(bufferStore).keySerializer(AbstractCacheBuilder.SERIALIZER)
+                .build();
+        assertEquals("value", cache.get("key"));
+        ((PersistentOffHeapCache<Object, Object>) cache).close();
+    }
+
+    @Test(expected = NecessaryArgumentException.class)
+    public void buildPersistentWithoutKeySerializerThrowsNecessaryArgumentException() throws IOException {
+        MappedOffHeapByteBufferStore bufferStore = new MappedOffHeapByteBufferStore(folder.newFolder(), 1024, 1);
+        CacheBuilder.offHeapCache().storage(bufferStore).build();
+    }
+
+    @Test
+    public void buildSharded() {
+        OffHeapByteBufferStore bufferStore = new OffHeapByteBufferStore(1048576, 8);
+        Cache<Object, Object> cache = CacheBuilder.offHeapCache().storage(bufferStore).shards(4).build();
+        cache.put("key", "value");
+        assertEquals("value", cache.get("key"));
+    }
+
+    @Test
+    public void buildWithCompression() {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            value.append("compressible ");
+        }
+        OffHeapByteBufferStore bufferStore = new OffHeapByteBufferStore(1048576, 2);
+        Cache<Object, Object> cache = CacheBuilder.offHeapCache().storage(bufferStore).compression(new LzCodec())
+                .build();
+        cache.put("key", value.toString());
+        assertEquals(value.toString(), cache.get("key"));
+        assertTrue(bufferStore.usedMemory() < value.length() / 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void buildWithNegativeCompressionThresholdThrowsIllegalArgumentException() {
+        CacheBuilder.offHeapCache().compression(new LzCodec(), -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void buildShardedSlabThrowsIllegalArgumentException() {
+        SlabOffHeapByteBufferStore bufferStore = new SlabOffHeapByteBufferStore(1048576, 8);
+        CacheBuilder.offHeapCache().storage(bufferStore).shards(4).build();
+    }
+
     @Test(expected = NecessaryArgumentException.class)
     public void buildThrowsNecessaryArgumentException() {
         CacheBuilder.offHeapCache().build();
@@ -13,6 +13,7 @@ import org.junit.Test;
 
 import com.KyleDing.imcache.cache.Cache;
 import com.KyleDing.imcache.redis.RedisCache;
+import com.KyleDing.imcache.serialization.codec.LzCodec;
 
 /**
  * The Class RedisCacheBuilderTest.
@@ -29,4 +30,13 @@ public class RedisCacheBuilderTest {
                 .hostName("localhost").port(6379).concurrencyLevel(2).build();
         assertTrue(cache instanceof RedisCache);
     }
-}
+
+    /**
+     * Builds with compression.
+     */
+    @Test
+    public void buildWithCompression() {
+        Cache<Object, Object> cache = CacheBuilder.redisCache().compression(new LzCodec(), 128).build();
+        assertTrue(cache instanceof RedisCache);
+    }
+}
\ No newline at end of file